@@ -0,0 +1,82 @@
+package com.pajk.mcpbridge.core.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "mcp.circuit-breaker")
+public class McpCircuitBreakerProperties {
+
+    /**
+     * 是否在请求路径上启用实例级熔断
+     */
+    private boolean enabled = true;
+
+    /**
+     * 实例连续失败达到该次数后熔断
+     */
+    private int failureThreshold = 5;
+
+    /**
+     * 半开状态下连续成功达到该次数后恢复
+     */
+    private int successThreshold = 3;
+
+    /**
+     * 熔断持续时间，到期后进入半开状态放行探测请求，默认 10 秒
+     */
+    private Duration openDuration = Duration.ofSeconds(10);
+
+    /**
+     * 半开状态下同时放行的探测请求数上限
+     */
+    private int halfOpenMaxProbes = 3;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        if (failureThreshold > 0) {
+            this.failureThreshold = failureThreshold;
+        }
+    }
+
+    public int getSuccessThreshold() {
+        return successThreshold;
+    }
+
+    public void setSuccessThreshold(int successThreshold) {
+        if (successThreshold > 0) {
+            this.successThreshold = successThreshold;
+        }
+    }
+
+    public Duration getOpenDuration() {
+        return openDuration;
+    }
+
+    public void setOpenDuration(Duration openDuration) {
+        if (openDuration != null && !openDuration.isNegative()) {
+            this.openDuration = openDuration;
+        }
+    }
+
+    public int getHalfOpenMaxProbes() {
+        return halfOpenMaxProbes;
+    }
+
+    public void setHalfOpenMaxProbes(int halfOpenMaxProbes) {
+        if (halfOpenMaxProbes > 0) {
+            this.halfOpenMaxProbes = halfOpenMaxProbes;
+        }
+    }
+}
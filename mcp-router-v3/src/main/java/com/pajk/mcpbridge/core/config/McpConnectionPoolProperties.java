@@ -0,0 +1,129 @@
+package com.pajk.mcpbridge.core.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "mcp.connection-pool")
+public class McpConnectionPoolProperties {
+
+    /**
+     * 每个后端保持的最少连接数（预热目标）
+     */
+    private int minPerServer = 1;
+
+    /**
+     * 每个后端允许的最多连接数
+     */
+    private int maxPerServer = 4;
+
+    /**
+     * 所有后端的连接总数上限
+     */
+    private int maxTotal = 200;
+
+    /**
+     * 单连接在途请求达到该值且未达上限时扩容新连接
+     */
+    private int maxInFlightPerConnection = 16;
+
+    /**
+     * 连接空闲超时，默认 10 分钟
+     */
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * 连接最大生命周期，默认 1 小时
+     */
+    private Duration maxLifetime = Duration.ofHours(1);
+
+    /**
+     * 后台预热（建连 + initialize）超时，默认 10 秒
+     */
+    private Duration warmUpTimeout = Duration.ofSeconds(10);
+
+    /**
+     * 实例下线时等待在途请求完成的宽限期，默认 30 秒
+     */
+    private Duration drainTimeout = Duration.ofSeconds(30);
+
+    public int getMinPerServer() {
+        return minPerServer;
+    }
+
+    public void setMinPerServer(int minPerServer) {
+        if (minPerServer >= 0) {
+            this.minPerServer = minPerServer;
+        }
+    }
+
+    public int getMaxPerServer() {
+        return Math.max(maxPerServer, Math.max(minPerServer, 1));
+    }
+
+    public void setMaxPerServer(int maxPerServer) {
+        if (maxPerServer > 0) {
+            this.maxPerServer = maxPerServer;
+        }
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal) {
+        if (maxTotal > 0) {
+            this.maxTotal = maxTotal;
+        }
+    }
+
+    public int getMaxInFlightPerConnection() {
+        return maxInFlightPerConnection;
+    }
+
+    public void setMaxInFlightPerConnection(int maxInFlightPerConnection) {
+        if (maxInFlightPerConnection > 0) {
+            this.maxInFlightPerConnection = maxInFlightPerConnection;
+        }
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        if (idleTimeout != null && !idleTimeout.isZero() && !idleTimeout.isNegative()) {
+            this.idleTimeout = idleTimeout;
+        }
+    }
+
+    public Duration getMaxLifetime() {
+        return maxLifetime;
+    }
+
+    public void setMaxLifetime(Duration maxLifetime) {
+        if (maxLifetime != null && !maxLifetime.isZero() && !maxLifetime.isNegative()) {
+            this.maxLifetime = maxLifetime;
+        }
+    }
+
+    public Duration getWarmUpTimeout() {
+        return warmUpTimeout;
+    }
+
+    public void setWarmUpTimeout(Duration warmUpTimeout) {
+        if (warmUpTimeout != null && !warmUpTimeout.isZero() && !warmUpTimeout.isNegative()) {
+            this.warmUpTimeout = warmUpTimeout;
+        }
+    }
+
+    public Duration getDrainTimeout() {
+        return drainTimeout;
+    }
+
+    public void setDrainTimeout(Duration drainTimeout) {
+        if (drainTimeout != null && !drainTimeout.isNegative()) {
+            this.drainTimeout = drainTimeout;
+        }
+    }
+}
@@ -7,6 +7,11 @@ import com.pajk.mcpbridge.core.service.McpRouterService;
 import com.pajk.mcpbridge.core.service.McpSessionService;
 import com.pajk.mcpbridge.core.service.McpSessionBridgeService;
 import com.pajk.mcpbridge.core.service.McpSseTransportProvider;
+import com.pajk.mcpbridge.core.service.SseHeartbeatWheel;
+import com.pajk.mcpbridge.core.session.SseEventSender;
+import com.pajk.mcpbridge.core.transport.McpBatchDispatcher;
+import com.pajk.mcpbridge.core.transport.McpMessageReader;
+import com.pajk.mcpbridge.core.transport.SseFrameWriter;
 import com.pajk.mcpbridge.core.transport.TransportPreferenceResolver;
 import com.pajk.mcpbridge.core.transport.TransportType;
 import io.modelcontextprotocol.server.transport.WebFluxSseServerTransportProvider;
@@ -21,7 +26,7 @@ import org.springframework.core.env.Environment;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.util.StringUtils;
-import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.BodyExtractors;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
@@ -70,11 +75,20 @@ public class McpRouterServerConfig {
     private final McpSessionBridgeService sessionBridgeService;
     private final McpSseTransportProvider sseTransportProvider;
     private final TransportPreferenceResolver transportPreferenceResolver;
+    private final McpMessageReader mcpMessageReader;
+    private final McpBatchDispatcher batchDispatcher;
+    private final int maxBatchSize;
+    private final SseHeartbeatWheel heartbeatWheel;
+    private final String heartbeatStreamableJson;
+    private final SseFrameWriter frameWriter;
 
     public McpRouterServerConfig(McpRouterService routerService, ObjectMapper objectMapper, 
                                  McpSessionService sessionService, McpRequestValidator requestValidator,
                                  McpSessionBridgeService sessionBridgeService,
-                                 McpSseTransportProvider sseTransportProvider) {
+                                 McpSseTransportProvider sseTransportProvider,
+                                 McpRoutingProperties routingProperties,
+                                 SseHeartbeatWheel heartbeatWheel,
+                                 SseFrameWriter frameWriter) {
         this.routerService = routerService;
         this.objectMapper = objectMapper;
         this.sessionService = sessionService;
@@ -82,6 +96,13 @@ public class McpRouterServerConfig {
         this.sessionBridgeService = sessionBridgeService;
         this.sseTransportProvider = sseTransportProvider;
         this.transportPreferenceResolver = new TransportPreferenceResolver();
+        this.mcpMessageReader = new McpMessageReader(objectMapper, routingProperties.getMaxMessageBytes());
+        this.batchDispatcher = new McpBatchDispatcher(objectMapper, routingProperties.getBatch().getMaxConcurrency());
+        this.maxBatchSize = routingProperties.getBatch().getMaxSize();
+        this.heartbeatWheel = heartbeatWheel;
+        this.heartbeatStreamableJson = encodeStreamableJson(SseHeartbeatWheel.HEARTBEAT_FRAME);
+        this.frameWriter = frameWriter;
+        frameWriter.pin(heartbeatStreamableJson);
     }
 
     /**
@@ -183,11 +204,10 @@ public class McpRouterServerConfig {
                         String clientId = req.queryParam("clientId").orElse("");
                         String metadata = req.queryParam("metadata").orElse(null);
                         Map<String, String> metadataMap = parseSimpleMetadata(metadata);
-                        Flux<String> body = sseTransportProvider.connect(clientId, metadataMap)
-                                .map(event -> event.data() == null ? "" : event.data());
+                        // 该端点只输出 data 帧
                         return ServerResponse.ok()
                                 .contentType(MediaType.TEXT_EVENT_STREAM)
-                                .body(BodyInserters.fromPublisher(body, String.class));
+                                .body(frameWriter.dataOnly(sseTransportProvider.connect(clientId, metadataMap)));
                     })
                     .POST(SSE_BASE_PATH + "/message/{sessionId}", req -> {
                         String sessionId = req.pathVariable("sessionId");
@@ -545,31 +565,13 @@ public class McpRouterServerConfig {
                 .data(context.messageEndpoint())
                 .build();
 
-        Flux<ServerSentEvent<String>> heartbeatFlux = Flux.interval(Duration.ofSeconds(15))
-                .map(tick -> ServerSentEvent.<String>builder()
-                        .comment("heartbeat " + System.currentTimeMillis()) // 使用 comment，客户端会忽略，不会报错
-                        .build())
-                .doOnNext(tick -> {
-                    Mono.fromRunnable(() -> sessionService.touch(context.sessionId()))
-                            .subscribeOn(Schedulers.boundedElastic())
-                            .subscribe(
-                                    null,
-                                    error -> log.debug("⚠️ Failed to touch session in heartbeat: {}", error.getMessage())
-                            );
-                    log.debug("💓 heartbeat: sessionId={}, connectionSource={}", context.sessionId(), context.connectionSource());
-                });
+        // 合并共享心跳轮的心跳流（心跳不写入会话 sink），连接存续期间保持登记
+        Flux<ServerSentEvent<String>> sinkFlux = heartbeatWheel.withHeartbeats(context.sessionId(),
+                context.sink().asFlux()
+                        .doOnSubscribe(s -> log.debug("🔌 Sink subscribed: sessionId={}", context.sessionId()))
+                        .onBackpressureBuffer(1000));
 
-        return Flux.concat(
-                Flux.just(endpointEvent),
-                Flux.merge(
-                        context.sink().asFlux()
-                                .doOnSubscribe(s -> log.debug("🔌 Sink subscribed: sessionId={}", context.sessionId()))
-                                .onBackpressureBuffer(1000),
-                        heartbeatFlux
-                                .doOnSubscribe(s -> log.debug("💓 Heartbeat subscribed: sessionId={}", context.sessionId()))
-                                .onBackpressureBuffer(100)
-                )
-        )
+        return Flux.concat(Flux.just(endpointEvent), sinkFlux)
         .share()
         .doOnSubscribe(subscription -> log.info("✅ Connection subscribed: sessionId={}, serviceName={}, baseUrl={}",
                 context.sessionId(), context.serviceName(), context.baseUrl()))
@@ -605,7 +607,7 @@ public class McpRouterServerConfig {
                 .header("Cache-Control", "no-cache, no-transform")
                 .header("Connection", "keep-alive")
                 .header("X-Accel-Buffering", "no")
-                .body(BodyInserters.fromServerSentEvents(eventFlux));
+                .body(frameWriter.events(eventFlux));
     }
 
     private Mono<ServerResponse> buildStreamableResponse(SessionContext context, Flux<String> streamFlux, MediaType mediaType) {
@@ -619,7 +621,7 @@ public class McpRouterServerConfig {
             builder.header("Mcp-Transport", context.transportType().name().toLowerCase());
         }
 
-        return builder.body(BodyInserters.fromPublisher(streamFlux, String.class));
+        return builder.body(frameWriter.lines(streamFlux));
     }
 
     private MediaType resolveStreamableMediaType(ServerRequest request) {
@@ -641,6 +643,13 @@ public class McpRouterServerConfig {
     }
 
     private String toStreamableJson(ServerSentEvent<String> event) {
+        if (event == SseHeartbeatWheel.HEARTBEAT_FRAME) {
+            return heartbeatStreamableJson;
+        }
+        return encodeStreamableJson(event);
+    }
+
+    private String encodeStreamableJson(ServerSentEvent<String> event) {
         java.util.Map<String, Object> payload = new java.util.LinkedHashMap<>();
         payload.put("type", "event");
         payload.put("event", event.event() != null ? event.event() : "message");
@@ -909,25 +918,33 @@ public class McpRouterServerConfig {
         final String initialServiceName = serviceName;
         log.info("📥 Processing MCP message: serviceName={}, sessionId={}", serviceName, sessionId);
         
-        return request.bodyToMono(String.class)
-                .doOnNext(body -> log.info("📨 Received MCP message body (length={}): {}", body != null ? body.length() : 0, body))
-                .flatMap(body -> {
+        // 请求体按 DataBuffer 流式解析，不转成 String
+        return mcpMessageReader.read(request.body(BodyExtractors.toDataBuffers()))
+                .doOnNext(parsed -> log.info("📨 Received MCP message body (bytes={})", parsed.bodyBytes()))
+                .flatMap(parsed -> {
                     try {
                         // 消息到达，刷新会话活跃时间
                         if (sessionId != null && !sessionId.isEmpty()) {
                             sessionService.touch(sessionId);
                         }
-                        if (body == null || body.isEmpty()) {
+                        if (parsed.isEmpty()) {
                             log.error("❌ Empty message body");
                             return ServerResponse.badRequest()
                                     .contentType(MediaType.APPLICATION_JSON)
                                     .bodyValue("{\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32700,\"message\":\"Parse error: Empty request\"}}");
                         }
-                        
-                        log.debug("📨 MCP message body: {}", body);
+                        if (parsed.error() != null) {
+                            throw parsed.error();
+                        }
+                        if (parsed.isBatch()) {
+                            return processBatch(request, parsed.batch(), initialServiceName, sessionId);
+                        }
                         
                         // 解析 MCP 消息
-                        McpMessage mcpMessage = objectMapper.readValue(body, McpMessage.class);
+                        McpMessage mcpMessage = parsed.message();
+                        if (log.isDebugEnabled() && mcpMessage.getRawParams() != null) {
+                            log.debug("📨 MCP message params: {}", new String(mcpMessage.getRawParams(), java.nio.charset.StandardCharsets.UTF_8));
+                        }
                         if (sessionId != null && !sessionId.isEmpty()) {
                             mcpMessage.setSessionId(sessionId);
                             if (mcpMessage.getMetadata() == null) {
@@ -1000,9 +1017,8 @@ public class McpRouterServerConfig {
                             
                             // 关键修复：先等待 SSE sink 就绪，然后再处理 initialize 请求
                             // 这样可以确保响应能够立即通过 SSE 发送
-                            // 激进优化：缩短等待时间到0.5秒，SSE sink注册应该立即完成
-                            Mono<Sinks.Many<ServerSentEvent<String>>> sseSinkMono = sessionService.waitForSseSink(sessionId, 0)
-                                    .timeout(Duration.ofMillis(500))
+                            // 最多等待0.5秒，SSE sink 注册完成时立即唤醒
+                            Mono<SseEventSender> sseSinkMono = sessionService.waitForSseSink(sessionId, Duration.ofMillis(500))
                                     .doOnNext(sink -> log.debug("✅ SSE sink found for sessionId={}", sessionId))
                                     .doOnError(error -> log.warn("⚠️ Error waiting for SSE sink: sessionId={}, error={}", sessionId, error.getMessage()))
                                     .switchIfEmpty(Mono.defer(() -> {
@@ -1032,7 +1048,7 @@ public class McpRouterServerConfig {
                                                 ServerSentEvent<String> sseEvent = ServerSentEvent.<String>builder()
                                                         .data(responseJson)
                                                         .build();
-                                                 Sinks.EmitResult emitResult = sseSink.tryEmitNext(sseEvent);
+                                                 Sinks.EmitResult emitResult = sseSink.deliver(sseEvent);
                                                  if (emitResult.isSuccess()) {
                                                     log.info("✅ Successfully sent initialize response via SSE: sessionId={}", sessionId);
                                                 } else {
@@ -1055,7 +1071,7 @@ public class McpRouterServerConfig {
                                                 ServerSentEvent<String> errorEvent = ServerSentEvent.<String>builder()
                                                         .data(errorJson)
                                                         .build();
-                                                 Sinks.EmitResult emitResult = sseSink.tryEmitNext(errorEvent);
+                                                 Sinks.EmitResult emitResult = sseSink.deliver(errorEvent);
                                                  if (!emitResult.isSuccess() && emitResult != Sinks.EmitResult.FAIL_TERMINATED && emitResult != Sinks.EmitResult.FAIL_CANCELLED) {
                                                      log.warn("⚠️ Failed to emit SSE error event: sessionId={}, result={}", sessionId, emitResult);
                                                  }
@@ -1074,7 +1090,7 @@ public class McpRouterServerConfig {
                                                         ServerSentEvent<String> errorEvent = ServerSentEvent.<String>builder()
                                                                 .data(errorResponse)
                                                                 .build();
-                                                        Sinks.EmitResult emitResult = sseSink.tryEmitNext(errorEvent);
+                                                        Sinks.EmitResult emitResult = sseSink.deliver(errorEvent);
                                                         if (!emitResult.isSuccess() && emitResult != Sinks.EmitResult.FAIL_TERMINATED && emitResult != Sinks.EmitResult.FAIL_CANCELLED) {
                                                             log.warn("⚠️ Failed to emit SSE error event: sessionId={}, result={}", sessionId, emitResult);
                                                         }
@@ -1125,7 +1141,7 @@ public class McpRouterServerConfig {
                                                 ServerSentEvent<String> errorEvent = ServerSentEvent.<String>builder()
                                                         .data(errorResponse)
                                                         .build();
-                                                 Sinks.EmitResult emitResult = sseSink.tryEmitNext(errorEvent);
+                                                 Sinks.EmitResult emitResult = sseSink.deliver(errorEvent);
                                                  if (!emitResult.isSuccess() && emitResult != Sinks.EmitResult.FAIL_TERMINATED && emitResult != Sinks.EmitResult.FAIL_CANCELLED) {
                                                      log.warn("⚠️ Failed to emit SSE error event: sessionId={}, result={}", sessionId, emitResult);
                                                  }
@@ -1147,7 +1163,7 @@ public class McpRouterServerConfig {
                                                 ServerSentEvent<String> errorEvent = ServerSentEvent.<String>builder()
                                                         .data(errorJson)
                                                         .build();
-                                                 Sinks.EmitResult emitResult = sseSink.tryEmitNext(errorEvent);
+                                                 Sinks.EmitResult emitResult = sseSink.deliver(errorEvent);
                                                  if (!emitResult.isSuccess() && emitResult != Sinks.EmitResult.FAIL_TERMINATED && emitResult != Sinks.EmitResult.FAIL_CANCELLED) {
                                                      log.warn("⚠️ Failed to emit SSE error event: sessionId={}, result={}", sessionId, emitResult);
                                                  }
@@ -1205,9 +1221,8 @@ public class McpRouterServerConfig {
                             serverSessionMono = Mono.empty();
                         }
                         
-                        // 激进优化：缩短等待时间到0.5秒，SSE sink注册应该立即完成
-                        Mono<Sinks.Many<ServerSentEvent<String>>> sseSinkMono = sessionService.waitForSseSink(sessionId, 0)
-                                .timeout(Duration.ofMillis(500))
+                        // 最多等待0.5秒，SSE sink 注册完成时立即唤醒
+                        Mono<SseEventSender> sseSinkMono = sessionService.waitForSseSink(sessionId, Duration.ofMillis(500))
                                 .doOnNext(sink -> log.debug("✅ SSE sink found for sessionId={}", sessionId))
                                 .switchIfEmpty(Mono.defer(() -> {
                                     java.util.Set<String> allSessions = sessionService.getAllSessionIds();
@@ -1247,7 +1262,7 @@ public class McpRouterServerConfig {
                                                         ServerSentEvent<String> sseEvent = ServerSentEvent.<String>builder()
                                                                 .data(responseJson)
                                                                 .build();
-                                                         Sinks.EmitResult emitResult = sseSink.tryEmitNext(sseEvent);
+                                                         Sinks.EmitResult emitResult = sseSink.deliver(sseEvent);
                                                          if (emitResult.isSuccess()) {
                                                             log.info("✅ Successfully sent response via SSE: sessionId={}", sessionId);
                                                         } else {
@@ -1294,7 +1309,7 @@ public class McpRouterServerConfig {
                                                             ServerSentEvent<String> errorEvent = ServerSentEvent.<String>builder()
                                                                     .data(errorResponse)
                                                                     .build();
-                                                             Sinks.EmitResult emitResult = sseSink.tryEmitNext(errorEvent);
+                                                             Sinks.EmitResult emitResult = sseSink.deliver(errorEvent);
                                                              if (!emitResult.isSuccess() && emitResult != Sinks.EmitResult.FAIL_TERMINATED && emitResult != Sinks.EmitResult.FAIL_CANCELLED) {
                                                                  log.warn("⚠️ Failed to emit SSE error event: sessionId={}, result={}", sessionId, emitResult);
                                                              }
@@ -1355,7 +1370,7 @@ public class McpRouterServerConfig {
                                             ServerSentEvent<String> sseEvent = ServerSentEvent.<String>builder()
                                                     .data(responseJson)
                                                     .build();
-                                             Sinks.EmitResult emitResult = sseSink.tryEmitNext(sseEvent);
+                                             Sinks.EmitResult emitResult = sseSink.deliver(sseEvent);
                                              if (emitResult.isSuccess()) {
                                                 log.info("✅ Successfully sent response via SSE: sessionId={}", sessionId);
                                             } else {
@@ -1393,7 +1408,7 @@ public class McpRouterServerConfig {
                                             ServerSentEvent<String> errorEvent = ServerSentEvent.<String>builder()
                                                     .data(errorJson)
                                                     .build();
-                                             Sinks.EmitResult emitResult = sseSink.tryEmitNext(errorEvent);
+                                             Sinks.EmitResult emitResult = sseSink.deliver(errorEvent);
                                              if (!emitResult.isSuccess() && emitResult != Sinks.EmitResult.FAIL_TERMINATED && emitResult != Sinks.EmitResult.FAIL_CANCELLED) {
                                                  log.warn("⚠️ Failed to emit SSE error event: sessionId={}, result={}", sessionId, emitResult);
                                              }
@@ -1420,7 +1435,7 @@ public class McpRouterServerConfig {
                                             ServerSentEvent<String> errorEvent = ServerSentEvent.<String>builder()
                                                     .data(errorResponse)
                                                     .build();
-                                             Sinks.EmitResult emitResult = sseSink.tryEmitNext(errorEvent);
+                                             Sinks.EmitResult emitResult = sseSink.deliver(errorEvent);
                                              if (!emitResult.isSuccess() && emitResult != Sinks.EmitResult.FAIL_TERMINATED && emitResult != Sinks.EmitResult.FAIL_CANCELLED) {
                                                  log.warn("⚠️ Failed to emit SSE error event: sessionId={}, result={}", sessionId, emitResult);
                                              }
@@ -1442,7 +1457,7 @@ public class McpRouterServerConfig {
                                             ServerSentEvent<String> errorEvent = ServerSentEvent.<String>builder()
                                                     .data(errorJson)
                                                     .build();
-                                             Sinks.EmitResult emitResult = sseSink.tryEmitNext(errorEvent);
+                                             Sinks.EmitResult emitResult = sseSink.deliver(errorEvent);
                                              if (!emitResult.isSuccess() && emitResult != Sinks.EmitResult.FAIL_TERMINATED && emitResult != Sinks.EmitResult.FAIL_CANCELLED) {
                                                  log.warn("⚠️ Failed to emit SSE error event: sessionId={}, result={}", sessionId, emitResult);
                                              }
@@ -1474,6 +1489,119 @@ public class McpRouterServerConfig {
                 });
     }
 
+    /**
+     * 处理 JSON-RPC 批量请求
+     * <p>
+     * 元素以有限并发直接路由（不走后端会话桥接），每个元素完成后立即发出响应：
+     * 存在 SSE 连接时逐条通过 SSE 推送并返回 202；客户端接受 text/event-stream 时以 SSE 流作为 POST 响应；
+     * 否则合并为一个 JSON 数组返回。initialize 不允许出现在批量中。
+     */
+    private Mono<ServerResponse> processBatch(ServerRequest request, List<McpMessage> batch,
+                                              String initialServiceName, String sessionId) {
+        log.info("📦 Processing JSON-RPC batch: size={}, sessionId={}", batch.size(), sessionId);
+        if (batch.isEmpty() || batch.size() > maxBatchSize) {
+            String reason = batch.isEmpty() ? "Invalid Request: empty batch"
+                    : "Invalid Request: batch size exceeds " + maxBatchSize;
+            return ServerResponse.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(batchDispatcher.errorResponse(null, -32600, reason));
+        }
+
+        String serviceName = initialServiceName;
+        if (serviceName == null || serviceName.isEmpty()) {
+            serviceName = sessionService.getServiceName(sessionId);
+        }
+        final String sessionServiceName = serviceName;
+        if (sessionId != null && !sessionId.isEmpty()) {
+            sessionBridgeService.updateClientSessionLastActiveTime(sessionId);
+        }
+
+        Flux<String> responses = batchDispatcher.dispatch(batch,
+                message -> routeBatchElement(message, sessionServiceName, sessionId));
+
+        return sessionService.waitForSseSink(sessionId, Duration.ofMillis(500))
+                .flatMap(sseSink -> responses
+                        .doOnNext(responseJson -> {
+                            Sinks.EmitResult emitResult = sseSink.deliver(ServerSentEvent.<String>builder()
+                                    .data(responseJson)
+                                    .build());
+                            if (!emitResult.isSuccess() && emitResult != Sinks.EmitResult.FAIL_TERMINATED && emitResult != Sinks.EmitResult.FAIL_CANCELLED) {
+                                log.warn("⚠️ Failed to emit SSE batch event: sessionId={}, result={}", sessionId, emitResult);
+                            }
+                        })
+                        .count()
+                        .flatMap(count -> {
+                            log.info("✅ Sent {} batch responses via SSE: sessionId={}", count, sessionId);
+                            return ServerResponse.accepted()
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .bodyValue("{\"status\":\"accepted\",\"message\":\"Batch accepted, responses sent via SSE\"}");
+                        }))
+                .switchIfEmpty(Mono.defer(() -> {
+                    if (request.headers().accept().stream().anyMatch(MediaType.TEXT_EVENT_STREAM::isCompatibleWith)) {
+                        // Streamable HTTP：POST 响应本身作为 SSE 流，元素完成即发送
+                        return ServerResponse.ok()
+                                .contentType(MediaType.TEXT_EVENT_STREAM)
+                                .body(frameWriter.events(responses
+                                        .map(responseJson -> ServerSentEvent.<String>builder().data(responseJson).build())));
+                    }
+                    return responses.collectList()
+                            .flatMap(collected -> {
+                                if (collected.isEmpty()) {
+                                    // 全部为通知，没有需要返回的响应
+                                    return ServerResponse.accepted().build();
+                                }
+                                return ServerResponse.ok()
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .bodyValue(McpBatchDispatcher.toJsonArray(collected));
+                            });
+                }));
+    }
+
+    /**
+     * 路由批量中的单个元素，返回该元素的 JSON-RPC 响应
+     */
+    private Mono<String> routeBatchElement(McpMessage message, String sessionServiceName, String sessionId) {
+        if (!"2.0".equals(message.getJsonrpc())) {
+            return Mono.just(batchDispatcher.errorResponse(message.getId(), -32600, "Invalid JSON-RPC version, must be 2.0"));
+        }
+        if ("initialize".equals(message.getMethod())) {
+            return Mono.just(batchDispatcher.errorResponse(message.getId(), -32600, "Invalid Request: initialize must not be batched"));
+        }
+        String validationError = requestValidator.validateRequest(message);
+        if (validationError != null) {
+            return Mono.just(batchDispatcher.errorResponse(message.getId(), -32602, "Invalid params: " + validationError));
+        }
+        if (sessionId != null && !sessionId.isEmpty()) {
+            message.setSessionId(sessionId);
+            if (message.getMetadata() == null) {
+                message.setMetadata(new java.util.HashMap<>());
+            }
+            message.getMetadata().put("sessionId", sessionId);
+        }
+
+        String targetServiceName = sessionServiceName;
+        if (targetServiceName == null || targetServiceName.isEmpty()) {
+            targetServiceName = extractServiceName(message);
+        }
+        Mono<McpMessage> routeResult;
+        if (targetServiceName != null && !targetServiceName.isEmpty()) {
+            // 与单条请求一致：list 方法和 tools/call 使用较短的超时时间
+            Duration timeout = (message.getMethod() != null &&
+                    (message.getMethod().endsWith("/list") || "tools/call".equals(message.getMethod())))
+                    ? Duration.ofMillis(500) : Duration.ofSeconds(60);
+            routeResult = routerService.routeRequest(targetServiceName, message, timeout, Map.of());
+        } else {
+            routeResult = routerService.smartRoute(message, Duration.ofSeconds(60), Map.of());
+        }
+        return routeResult
+                .flatMap(response -> Mono.fromCallable(() -> convertToJsonRpcResponse(response)))
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Empty response from backend")))
+                .onErrorResume(error -> {
+                    log.warn("⚠️ Batch element failed: id={}, method={}, error={}", message.getId(), message.getMethod(), error.getMessage());
+                    return Mono.fromCallable(() -> createErrorResponse(message, error));
+                });
+    }
+
     /**
      * 从 MCP 消息中提取服务名称
      * 可以从 metadata 或 params 中提取
@@ -1508,6 +1636,10 @@ public class McpRouterServerConfig {
      * - resources/templates/list: 直接返回 result（包含 resourceTemplates 数组）
      */
     private String convertToJsonRpcResponse(McpMessage response) throws Exception {
+        if (response.getRawResponse() != null) {
+            // 透传响应已是完整的 JSON-RPC 响应
+            return new String(response.getRawResponse(), java.nio.charset.StandardCharsets.UTF_8);
+        }
         Map<String, Object> jsonRpcResponse = new java.util.HashMap<>();
         jsonRpcResponse.put("jsonrpc", "2.0");
         jsonRpcResponse.put("id", response.getId());
@@ -0,0 +1,368 @@
+package com.pajk.mcpbridge.core.config;
+
+import com.pajk.mcpbridge.core.service.LoadBalancer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+@ConfigurationProperties(prefix = "mcp.routing")
+public class McpRoutingProperties {
+
+    /**
+     * 未单独配置的服务使用的负载均衡策略
+     */
+    private LoadBalancer.Strategy defaultStrategy = LoadBalancer.Strategy.WEIGHTED_ROUND_ROBIN;
+
+    /**
+     * 按服务名配置的负载均衡策略，例如 mcp-server-v6: PEAK_EWMA
+     */
+    private Map<String, LoadBalancer.Strategy> strategies = new HashMap<>();
+
+    /**
+     * 幂等读请求的对冲（hedged request）配置
+     */
+    private Hedging hedging = new Hedging();
+
+    /**
+     * JSON-RPC 批量请求配置
+     */
+    private Batch batch = new Batch();
+
+    /**
+     * 透传代理模式配置
+     */
+    private Passthrough passthrough = new Passthrough();
+
+    /**
+     * 单条 JSON-RPC 消息（请求体、透传响应体）的大小上限，默认与 WebFlux 编解码的 max-in-memory-size 一致
+     */
+    private DataSize maxMessageSize = DataSize.ofKilobytes(256);
+
+    /**
+     * 解析指定服务的负载均衡策略
+     */
+    public LoadBalancer.Strategy resolveStrategy(String serviceName) {
+        if (serviceName != null) {
+            LoadBalancer.Strategy strategy = strategies.get(serviceName);
+            if (strategy != null) {
+                return strategy;
+            }
+        }
+        return defaultStrategy;
+    }
+
+    public LoadBalancer.Strategy getDefaultStrategy() {
+        return defaultStrategy;
+    }
+
+    public void setDefaultStrategy(LoadBalancer.Strategy defaultStrategy) {
+        if (defaultStrategy != null) {
+            this.defaultStrategy = defaultStrategy;
+        }
+    }
+
+    public Map<String, LoadBalancer.Strategy> getStrategies() {
+        return strategies;
+    }
+
+    public void setStrategies(Map<String, LoadBalancer.Strategy> strategies) {
+        this.strategies = strategies != null ? strategies : new HashMap<>();
+    }
+
+    public Hedging getHedging() {
+        return hedging;
+    }
+
+    public void setHedging(Hedging hedging) {
+        this.hedging = hedging != null ? hedging : new Hedging();
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public void setBatch(Batch batch) {
+        this.batch = batch != null ? batch : new Batch();
+    }
+
+    public DataSize getMaxMessageSize() {
+        return maxMessageSize;
+    }
+
+    public void setMaxMessageSize(DataSize maxMessageSize) {
+        if (maxMessageSize != null && maxMessageSize.toBytes() > 0) {
+            this.maxMessageSize = maxMessageSize;
+        }
+    }
+
+    /**
+     * 单条消息大小上限（字节），超过 int 范围时按 Integer.MAX_VALUE 计
+     */
+    public int getMaxMessageBytes() {
+        return (int) Math.min(maxMessageSize.toBytes(), Integer.MAX_VALUE);
+    }
+
+    public Passthrough getPassthrough() {
+        return passthrough;
+    }
+
+    public void setPassthrough(Passthrough passthrough) {
+        this.passthrough = passthrough != null ? passthrough : new Passthrough();
+    }
+
+    public static class Passthrough {
+
+        /**
+         * 是否启用透传：请求按原始字节转发给后端，后端响应字节原样返回，只改写 id 与会话路由
+         */
+        private boolean enabled = false;
+
+        /**
+         * 启用透传的服务名，为空表示所有服务；后端须在 HTTP 响应体中直接返回 JSON-RPC 响应
+         */
+        private Set<String> services = new LinkedHashSet<>();
+
+        /**
+         * 透传的方法；列表类方法默认仍走类型化路径以使用能力缓存
+         */
+        private Set<String> methods = new LinkedHashSet<>(Set.of("tools/call", "resources/read", "prompts/get"));
+
+        /**
+         * 后端接收 JSON-RPC 消息的路径
+         */
+        private String messagePath = "/mcp/message";
+
+        /**
+         * 指定服务的指定方法是否透传
+         */
+        public boolean isPassthrough(String serviceName, String method) {
+            return enabled && method != null && methods.contains(method)
+                    && (services.isEmpty() || services.contains(serviceName));
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Set<String> getServices() {
+            return services;
+        }
+
+        public void setServices(Set<String> services) {
+            this.services = services != null ? services : new LinkedHashSet<>();
+        }
+
+        public Set<String> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(Set<String> methods) {
+            this.methods = methods != null ? methods : new LinkedHashSet<>();
+        }
+
+        public String getMessagePath() {
+            return messagePath;
+        }
+
+        public void setMessagePath(String messagePath) {
+            if (messagePath != null && messagePath.startsWith("/")) {
+                this.messagePath = messagePath;
+            }
+        }
+    }
+
+    public static class Batch {
+
+        /**
+         * 单个批量请求内同时路由的元素数上限
+         */
+        private int maxConcurrency = 8;
+
+        /**
+         * 单个批量请求允许的元素数上限，超出时整体拒绝
+         */
+        private int maxSize = 100;
+
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(int maxConcurrency) {
+            if (maxConcurrency > 0) {
+                this.maxConcurrency = maxConcurrency;
+            }
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            if (maxSize > 0) {
+                this.maxSize = maxSize;
+            }
+        }
+    }
+
+    public static class Hedging {
+
+        /**
+         * 是否启用请求对冲
+         */
+        private boolean enabled = false;
+
+        /**
+         * 允许对冲的方法，仅限幂等的列表/读取类方法
+         */
+        private Set<String> methods = new LinkedHashSet<>(Set.of(
+                "tools/list", "resources/list", "resources/read", "prompts/list", "prompts/get"));
+
+        /**
+         * 主请求超过目标实例该分位数延迟仍未返回时发出对冲请求
+         */
+        private double percentile = 0.95;
+
+        /**
+         * 计算分位数所需的最少窗口样本数，不足时使用 defaultDelay
+         */
+        private long minSamples = 20;
+
+        /**
+         * 无足够延迟样本时的对冲延迟
+         */
+        private Duration defaultDelay = Duration.ofMillis(200);
+
+        /**
+         * 对冲延迟下限
+         */
+        private Duration minDelay = Duration.ofMillis(20);
+
+        /**
+         * 对冲延迟上限
+         */
+        private Duration maxDelay = Duration.ofSeconds(2);
+
+        /**
+         * 对冲预算：每个可对冲请求积累的额度，0.1 表示对冲请求最多约占 10%
+         */
+        private double budgetRatio = 0.1;
+
+        /**
+         * 对冲预算可积累的最大额度（允许的突发对冲数）
+         */
+        private int budgetBurst = 10;
+
+        /**
+         * 指定方法是否允许对冲
+         */
+        public boolean isHedgeable(String method) {
+            return enabled && method != null && methods.contains(method);
+        }
+
+        /**
+         * 根据观测到的分位数延迟（-1 表示样本不足）计算对冲延迟
+         */
+        public Duration resolveDelay(long percentileMillis) {
+            if (percentileMillis < 0) {
+                return defaultDelay;
+            }
+            long delay = Math.max(minDelay.toMillis(), Math.min(maxDelay.toMillis(), percentileMillis));
+            return Duration.ofMillis(delay);
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Set<String> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(Set<String> methods) {
+            this.methods = methods != null ? methods : new LinkedHashSet<>();
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            if (percentile > 0 && percentile < 1) {
+                this.percentile = percentile;
+            }
+        }
+
+        public long getMinSamples() {
+            return minSamples;
+        }
+
+        public void setMinSamples(long minSamples) {
+            if (minSamples >= 0) {
+                this.minSamples = minSamples;
+            }
+        }
+
+        public Duration getDefaultDelay() {
+            return defaultDelay;
+        }
+
+        public void setDefaultDelay(Duration defaultDelay) {
+            if (defaultDelay != null && !defaultDelay.isNegative()) {
+                this.defaultDelay = defaultDelay;
+            }
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            if (minDelay != null && !minDelay.isNegative()) {
+                this.minDelay = minDelay;
+            }
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        public void setMaxDelay(Duration maxDelay) {
+            if (maxDelay != null && !maxDelay.isNegative()) {
+                this.maxDelay = maxDelay;
+            }
+        }
+
+        public double getBudgetRatio() {
+            return budgetRatio;
+        }
+
+        public void setBudgetRatio(double budgetRatio) {
+            if (budgetRatio >= 0 && budgetRatio <= 1) {
+                this.budgetRatio = budgetRatio;
+            }
+        }
+
+        public int getBudgetBurst() {
+            return budgetBurst;
+        }
+
+        public void setBudgetBurst(int budgetBurst) {
+            if (budgetBurst >= 0) {
+                this.budgetBurst = budgetBurst;
+            }
+        }
+    }
+}
@@ -23,6 +23,42 @@ public class McpSessionProperties {
      */
     private String instanceId;
 
+    /**
+     * 本实例会话 lastActive 写回 Redis 的最小间隔（合并写），默认 5 秒
+     */
+    private Duration lastActiveFlushInterval = Duration.ofSeconds(5);
+
+    /**
+     * 是否启用跨实例消息转发：会话属于其他实例时，将 SSE 事件经 Redis 发布订阅转发给所属实例。
+     * 默认关闭，仅在 RedisClient 支持发布订阅时生效
+     */
+    private boolean relayEnabled = false;
+
+    /**
+     * 每个目标实例的待转发事件队列容量，队列满时拒绝新事件（背压）
+     */
+    private int relayQueueCapacity = 1024;
+
+    /**
+     * SSE/Streamable 连接的心跳间隔，由共享心跳轮统一发送
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    /**
+     * SSE/Streamable 响应的合并刷新窗口：窗口内到达的帧合并为一次写出和 flush，为 0 时每帧单独 flush
+     */
+    private Duration frameFlushInterval = Duration.ofMillis(2);
+
+    /**
+     * 每次 flush 最多合并的帧数
+     */
+    private int frameFlushMaxFrames = 64;
+
+    /**
+     * 会话桥接（router 与后端服务器的 SSE 会话）的容量与过期配置
+     */
+    private Bridge bridge = new Bridge();
+
     public String getRedisPrefix() {
         return redisPrefix;
     }
@@ -50,5 +86,118 @@ public class McpSessionProperties {
     public void setInstanceId(String instanceId) {
         this.instanceId = instanceId;
     }
-}
 
+    public Duration getLastActiveFlushInterval() {
+        return lastActiveFlushInterval;
+    }
+
+    public void setLastActiveFlushInterval(Duration lastActiveFlushInterval) {
+        if (lastActiveFlushInterval != null && !lastActiveFlushInterval.isNegative()) {
+            this.lastActiveFlushInterval = lastActiveFlushInterval;
+        }
+    }
+
+    public boolean isRelayEnabled() {
+        return relayEnabled;
+    }
+
+    public void setRelayEnabled(boolean relayEnabled) {
+        this.relayEnabled = relayEnabled;
+    }
+
+    public int getRelayQueueCapacity() {
+        return relayQueueCapacity;
+    }
+
+    public void setRelayQueueCapacity(int relayQueueCapacity) {
+        if (relayQueueCapacity > 0) {
+            this.relayQueueCapacity = relayQueueCapacity;
+        }
+    }
+
+    public Duration getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    public void setHeartbeatInterval(Duration heartbeatInterval) {
+        if (heartbeatInterval != null && !heartbeatInterval.isNegative() && !heartbeatInterval.isZero()) {
+            this.heartbeatInterval = heartbeatInterval;
+        }
+    }
+
+    public Duration getFrameFlushInterval() {
+        return frameFlushInterval;
+    }
+
+    public void setFrameFlushInterval(Duration frameFlushInterval) {
+        if (frameFlushInterval != null && !frameFlushInterval.isNegative()) {
+            this.frameFlushInterval = frameFlushInterval;
+        }
+    }
+
+    public int getFrameFlushMaxFrames() {
+        return frameFlushMaxFrames;
+    }
+
+    public void setFrameFlushMaxFrames(int frameFlushMaxFrames) {
+        if (frameFlushMaxFrames > 0) {
+            this.frameFlushMaxFrames = frameFlushMaxFrames;
+        }
+    }
+
+    public Bridge getBridge() {
+        return bridge;
+    }
+
+    public void setBridge(Bridge bridge) {
+        this.bridge = bridge != null ? bridge : new Bridge();
+    }
+
+    public static class Bridge {
+
+        /**
+         * 本实例最多保留的客户端会话数，超出后新会话不建立桥接，消息走普通路由
+         */
+        private int maxClientSessions = 100_000;
+
+        /**
+         * 本实例最多保留的服务器会话数，超出后淘汰最久未使用的会话并断开其后端连接
+         */
+        private int maxServerSessions = 10_000;
+
+        /**
+         * 服务器会话空闲超时，超时后断开后端连接
+         */
+        private Duration serverSessionIdleTimeout = Duration.ofMinutes(10);
+
+        public int getMaxClientSessions() {
+            return maxClientSessions;
+        }
+
+        public void setMaxClientSessions(int maxClientSessions) {
+            if (maxClientSessions > 0) {
+                this.maxClientSessions = maxClientSessions;
+            }
+        }
+
+        public int getMaxServerSessions() {
+            return maxServerSessions;
+        }
+
+        public void setMaxServerSessions(int maxServerSessions) {
+            if (maxServerSessions > 0) {
+                this.maxServerSessions = maxServerSessions;
+            }
+        }
+
+        public Duration getServerSessionIdleTimeout() {
+            return serverSessionIdleTimeout;
+        }
+
+        public void setServerSessionIdleTimeout(Duration serverSessionIdleTimeout) {
+            if (serverSessionIdleTimeout != null && !serverSessionIdleTimeout.isNegative() && !serverSessionIdleTimeout.isZero()) {
+                this.serverSessionIdleTimeout = serverSessionIdleTimeout;
+            }
+        }
+    }
+}
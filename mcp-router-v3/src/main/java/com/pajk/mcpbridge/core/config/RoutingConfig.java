@@ -0,0 +1,9 @@
+package com.pajk.mcpbridge.core.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({McpRoutingProperties.class, McpCircuitBreakerProperties.class})
+public class RoutingConfig {
+}
@@ -67,6 +67,7 @@ public class HealthCheckController {
         Map<String, Object> response = new HashMap<>();
         response.put("timestamp", System.currentTimeMillis());
         response.put("circuitBreakers", circuitBreakerService.getAllCircuitBreakerStates());
+        response.put("instanceCircuitBreakers", circuitBreakerService.getAllInstanceCircuitBreakerStates());
         return ResponseEntity.ok(response);
     }
 
@@ -38,21 +38,33 @@ public class RedisManagementController {
     }
 
     /**
-     * 获取 Redis 中所有键的统计信息
+     * 获取 Redis 中所有键的统计信息（SCAN 游标遍历，不使用阻塞的 KEYS）
+     *
+     * @param cursor 指定时只统计该游标开始的一页，响应中的 cursor 为下一页游标（"0" 表示结束）；不指定时遍历全部
+     * @param count  SCAN 每页建议返回的键数
      */
     @GetMapping("/stats")
-    public ResponseEntity<RedisStatsResponse> getRedisStats(@RequestParam(required = false) String pattern) {
+    public ResponseEntity<RedisStatsResponse> getRedisStats(@RequestParam(required = false) String pattern,
+                                                            @RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false, defaultValue = "1000") int count) {
         try {
             // 默认使用 Redis 前缀模式
             String defaultPattern = sessionProperties.getRedisPrefix() + ":*";
             String searchPattern = pattern != null && !pattern.isEmpty() ? pattern : defaultPattern;
-            Set<String> allKeys = redisClient.keys(searchPattern);
+            Set<String> allKeys = new HashSet<>();
+            String nextCursor = cursor != null && !cursor.isEmpty() ? cursor : RedisClient.ScanPage.START;
+            do {
+                RedisClient.ScanPage page = redisClient.scan(nextCursor, searchPattern, Math.max(count, 1));
+                allKeys.addAll(page.keys());
+                nextCursor = page.cursor();
+            } while (cursor == null && !RedisClient.ScanPage.START.equals(nextCursor));
             
             RedisStatsResponse stats = new RedisStatsResponse();
-            stats.setTotalKeys(allKeys != null ? allKeys.size() : 0);
+            stats.setTotalKeys(allKeys.size());
             stats.setPattern(searchPattern);
+            stats.setCursor(nextCursor);
             
-            if (allKeys != null && !allKeys.isEmpty()) {
+            if (!allKeys.isEmpty()) {
                 // 按前缀分类统计
                 Map<String, Long> keyTypeCounts = allKeys.stream()
                         .collect(Collectors.groupingBy(
@@ -109,7 +121,8 @@ public class RedisManagementController {
     }
 
     /**
-     * 获取所有会话数据（兼容旧接口，支持过滤）
+     * 获取会话数据（兼容旧接口，支持过滤）
+     * 基于各 instance 的活跃索引按 lastActive 从新到旧读取；指定 limit 时分页，过滤作用于当前页
      */
     @GetMapping("/sessions")
     public ResponseEntity<RedisSessionsResponse> getAllSessions(
@@ -117,40 +130,42 @@ public class RedisManagementController {
             @RequestParam(required = false) String transportType,
             @RequestParam(required = false) Boolean active,
             @RequestParam(required = false) String instanceId,
-            @RequestParam(required = false) String sessionId) {
+            @RequestParam(required = false) String sessionId,
+            @RequestParam(required = false, defaultValue = "0") int offset,
+            @RequestParam(required = false) Integer limit) {
         try {
             // 点击刷新按钮时清理空的instance
             sessionRedisRepository.cleanupEmptyInstances();
             
             List<SessionMeta> allSessions;
+            long total;
+            int pageOffset = Math.max(offset, 0);
+            int pageLimit = limit != null ? Math.max(limit, 1) : Integer.MAX_VALUE;
             
             // 如果指定了 sessionId，只查询该 session
             if (sessionId != null && !sessionId.isEmpty()) {
                 Optional<SessionMeta> sessionOpt = sessionRedisRepository.findSession(sessionId);
                 allSessions = sessionOpt.map(Collections::singletonList).orElse(Collections.emptyList());
+                total = allSessions.size();
             } else if (instanceId != null && !instanceId.isEmpty()) {
-                // 如果指定了 instanceId，只查询该 instance 下的 sessions
-                Set<String> sessionIds = sessionRedisRepository.findSessionIdsByInstance(instanceId);
-                allSessions = sessionIds.stream()
-                        .map(sid -> sessionRedisRepository.findSession(sid))
-                        .filter(Optional::isPresent)
-                        .map(Optional::get)
-                        .collect(Collectors.toList());
+                // 如果指定了 instanceId，只分页查询该 instance 下的 sessions
+                allSessions = sessionRedisRepository.findSessionPage(instanceId, pageOffset, pageLimit);
+                total = sessionRedisRepository.countSessions(instanceId);
             } else {
-                // 如果 instanceId 为空，查找所有 instance，然后查找这些 instance 的 sessionId
+                // 如果 instanceId 为空，从每个 instance 取前 offset+limit 条，合并后再截取当前页
                 Set<String> allInstances = sessionRedisRepository.findAllInstances();
-                Set<String> allSessionIds = new HashSet<>();
+                List<SessionMeta> merged = new ArrayList<>();
+                total = 0;
                 for (String instId : allInstances) {
-                    Set<String> sessionIds = sessionRedisRepository.findSessionIdsByInstance(instId);
-                    if (sessionIds != null && !sessionIds.isEmpty()) {
-                        allSessionIds.addAll(sessionIds);
-                    }
+                    merged.addAll(sessionRedisRepository.findSessionPage(instId, 0,
+                            (int) Math.min((long) pageOffset + pageLimit, Integer.MAX_VALUE)));
+                    total += sessionRedisRepository.countSessions(instId);
                 }
-                // 根据 sessionId 获取 session 数据
-                allSessions = allSessionIds.stream()
-                        .map(sid -> sessionRedisRepository.findSession(sid))
-                        .filter(Optional::isPresent)
-                        .map(Optional::get)
+                allSessions = merged.stream()
+                        .sorted(Comparator.comparing(SessionMeta::getLastActive,
+                                Comparator.nullsLast(Comparator.reverseOrder())))
+                        .skip(pageOffset)
+                        .limit(pageLimit)
                         .collect(Collectors.toList());
             }
             
@@ -187,7 +202,7 @@ public class RedisManagementController {
                     .collect(Collectors.toList());
             
             RedisSessionsResponse response = new RedisSessionsResponse();
-            response.setTotal(allSessions.size());
+            response.setTotal((int) total);
             response.setFiltered(filteredSessions.size());
             response.setSessions(filteredSessions);
             
@@ -491,6 +506,7 @@ public class RedisManagementController {
     public static class RedisStatsResponse {
         private int totalKeys;
         private String pattern;
+        private String cursor;
         private Map<String, Long> keyTypeCounts;
     }
 
@@ -7,6 +7,7 @@ import com.alibaba.nacos.api.naming.listener.NamingEvent;
 import com.alibaba.nacos.api.naming.pojo.Instance;
 import com.pajk.mcpbridge.core.config.NacosMcpRegistryConfig;
 import com.pajk.mcpbridge.core.model.McpServerInfo;
+import com.pajk.mcpbridge.core.registry.McpServerRegistry;
 import com.pajk.mcpbridge.core.service.McpClientManager;
 import com.pajk.mcpbridge.core.service.McpSseTransportProvider;
 import com.pajk.mcpbridge.persistence.service.McpServerPersistenceService;
@@ -39,6 +40,7 @@ public class McpConnectionEventListener {
     private final McpClientManager mcpClientManager;
     private final McpSseTransportProvider sseTransportProvider;
     private final NacosMcpRegistryConfig.McpRegistryProperties registryProperties;
+    private final McpServerRegistry serverRegistry;
     
     // 持久化服务（可选依赖）
     @Autowired(required = false)
@@ -275,6 +277,9 @@ public class McpConnectionEventListener {
             
             log.info("🔄 [Nacos Service Change] Service: {}@{}", serviceName, serviceGroup);
             
+            // 同步刷新路由侧的健康实例缓存与工具索引
+            serverRegistry.applyNamingEvent(serviceName, serviceGroup, instances);
+            
             if (instances.isEmpty()) {
                 // 服务实例列表为空，可能是临时节点下线
                 log.warn("⚠️ No instances found for service: {}@{} - all instances may be offline", serviceName, serviceGroup);
@@ -1,5 +1,6 @@
 package com.pajk.mcpbridge.core.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -79,6 +80,18 @@ public class McpMessage {
      */
     private Long timestamp;
     
+    /**
+     * 请求体中 params 的原始 JSON 字节（流式解析时保留），用于日志与透传，避免再次序列化 params
+     */
+    @JsonIgnore
+    private byte[] rawParams;
+    
+    /**
+     * 透传模式下后端返回的完整 JSON-RPC 响应字节（id 已还原为客户端请求 id），可直接写回客户端
+     */
+    @JsonIgnore
+    private byte[] rawResponse;
+    
     /**
      * MCP错误模型
      */
@@ -1,7 +1,12 @@
 package com.pajk.mcpbridge.core.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 import lombok.Builder;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -156,4 +161,26 @@ public class McpServerInfo {
      */
     @JsonProperty("weight")
     private double weight;
+
+    /**
+     * 预计算的实例标识（注册表构建快照时设置，路由热路径直接使用）
+     */
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient volatile ServerIdentity identity;
+
+    /**
+     * 获取实例标识；属性被修改过或未设置时重新生成
+     */
+    @JsonIgnore
+    public ServerIdentity getIdentity() {
+        ServerIdentity current = identity;
+        if (current == null || !current.matches(name, ip, port, weight)) {
+            current = ServerIdentity.of(name, ip, port, weight);
+            identity = current;
+        }
+        return current;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.pajk.mcpbridge.core.model;
+
+import java.util.Objects;
+
+/**
+ * 后端实例的不可变标识
+ * <p>
+ * 在注册表快照构建时创建一次（同一实例跨快照复用同一对象），预先计算好
+ * serverKey（name:ip:port）、endpointKey（ip:port）、有效权重和哈希值，
+ * 负载均衡与路由热路径直接以它作为 Map 键，不再拼接字符串或复制 Nacos Instance。
+ */
+public final class ServerIdentity {
+
+    private final String serviceName;
+    private final String ip;
+    private final int port;
+    private final double weight;
+    private final String serverKey;
+    private final String endpointKey;
+    private final int hash;
+
+    private ServerIdentity(String serviceName, String ip, int port, double weight) {
+        this.serviceName = serviceName;
+        this.ip = ip;
+        this.port = port;
+        this.weight = weight > 0 ? weight : 1.0;
+        this.endpointKey = ip + ":" + port;
+        this.serverKey = serviceName + ":" + endpointKey;
+        this.hash = serverKey.hashCode();
+    }
+
+    public static ServerIdentity of(String serviceName, String ip, int port, double weight) {
+        return new ServerIdentity(serviceName, ip, port, weight);
+    }
+
+    /**
+     * 复用已有标识：属性未变化时返回 existing，否则新建
+     */
+    public static ServerIdentity reuse(ServerIdentity existing, String serviceName, String ip, int port, double weight) {
+        if (existing != null && existing.matches(serviceName, ip, port, weight)) {
+            return existing;
+        }
+        return of(serviceName, ip, port, weight);
+    }
+
+    /**
+     * 是否与给定属性一致（不分配任何对象）
+     */
+    public boolean matches(String serviceName, String ip, int port, double weight) {
+        return this.port == port
+                && this.weight == (weight > 0 ? weight : 1.0)
+                && Objects.equals(this.ip, ip)
+                && Objects.equals(this.serviceName, serviceName);
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public String getIp() {
+        return ip;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * 有效权重（未配置或非正数时为 1.0）
+     */
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * name:ip:port，与连接池、工具索引的 server key 一致
+     */
+    public String getServerKey() {
+        return serverKey;
+    }
+
+    /**
+     * ip:port
+     */
+    public String getEndpointKey() {
+        return endpointKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ServerIdentity other)) {
+            return false;
+        }
+        return hash == other.hash && port == other.port
+                && Objects.equals(ip, other.ip)
+                && Objects.equals(serviceName, other.serviceName);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return serverKey;
+    }
+}
@@ -5,6 +5,9 @@ import com.alibaba.nacos.api.naming.pojo.Instance;
 import com.alibaba.nacos.api.naming.listener.EventListener;
 import com.alibaba.nacos.api.naming.listener.NamingEvent;
 import com.pajk.mcpbridge.core.model.McpServerInfo;
+import com.pajk.mcpbridge.core.model.ServerIdentity;
+import com.pajk.mcpbridge.core.service.CircuitBreakerService;
+import com.pajk.mcpbridge.core.service.McpClientManager;
 import com.pajk.mcpbridge.core.service.McpConfigService;
 import com.pajk.mcpbridge.core.config.NacosMcpRegistryConfig;
 import com.pajk.mcpbridge.persistence.service.McpServerPersistenceService;
@@ -12,6 +15,7 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -21,9 +25,13 @@ import java.time.LocalDateTime;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * MCP服务注册实现
@@ -37,6 +45,9 @@ public class McpServerRegistry {
     private final NamingService namingService;
     private final McpConfigService mcpConfigService;
     private final NacosMcpRegistryConfig.McpRegistryProperties registryProperties;
+    private final McpToolIndex toolIndex;
+    private final McpClientManager mcpClientManager;
+    private final CircuitBreakerService circuitBreakerService;
     
     // 持久化服务（可选依赖）
     @Autowired(required = false)
@@ -45,10 +56,29 @@ public class McpServerRegistry {
     // 本地缓存已注册的服务
     private final Map<String, McpServerInfo> registeredServers = new ConcurrentHashMap<>();
     
-    // 本地缓存健康实例列表，key: serviceName@groupName
-    public final Map<String, List<McpServerInfo>> healthyInstanceCache = new ConcurrentHashMap<>();
-    public final Map<String, Long> healthyCacheTimestamp = new ConcurrentHashMap<>();
-    private static final long CACHE_TTL_MS = 30_000; // 30秒缓存
+    // 路由表快照（写时复制），由 Nacos 推送与后台对账更新，请求路径只读
+    private final AtomicReference<RoutingTable> routingTable = new AtomicReference<>(RoutingTable.EMPTY);
+    private final Object routingTableLock = new Object();
+    
+    // 服务名解析缓存：mcp-/virtual- 前缀别名表 + 未知服务名的负缓存（短 TTL 带抖动），由推送失效
+    private static final long NEGATIVE_LOOKUP_TTL_MS = 10_000;
+    private static final long NEGATIVE_LOOKUP_JITTER_MS = 5_000;
+    private final ServiceLookupCache lookupCache =
+            new ServiceLookupCache(NEGATIVE_LOOKUP_TTL_MS, NEGATIVE_LOOKUP_JITTER_MS, System::currentTimeMillis);
+    
+    // 进行中的冷加载（同一服务并发首次查询只访问一次 Nacos）
+    private final Map<String, Mono<List<McpServerInfo>>> pendingColdLoads = new ConcurrentHashMap<>();
+    private static final Duration COLD_LOAD_TIMEOUT = Duration.ofSeconds(3);
+    
+    // 分组服务目录（通配符查询），key: group；首次查询时加载，后台增量刷新
+    private final Map<String, ServiceCatalog> serviceCatalogs = new ConcurrentHashMap<>();
+    private final Map<String, Mono<ServiceCatalog>> pendingCatalogLoads = new ConcurrentHashMap<>();
+    private static final int CATALOG_FETCH_CONCURRENCY = 8;
+    private static final Duration CATALOG_LOAD_TIMEOUT = Duration.ofSeconds(5);
+    
+    // 后台对账：同时向 Nacos 拉取实例的服务数；上一轮未结束时跳过本轮
+    private static final int RECONCILE_CONCURRENCY = 8;
+    private final AtomicBoolean reconciling = new AtomicBoolean(false);
 
     // 添加订阅管理
     private final Map<String, Boolean> serviceSubscriptions = new ConcurrentHashMap<>();
@@ -259,15 +289,7 @@ public class McpServerRegistry {
                 @Override
                 public void onEvent(com.alibaba.nacos.api.naming.listener.Event event) {
                     if (event instanceof NamingEvent namingEvent) {
-                        List<Instance> instances = namingEvent.getInstances();
-                        List<McpServerInfo> healthyList = instances.stream()
-                                .filter(Instance::isHealthy)
-                                .filter(Instance::isEnabled)
-                                .map(instance -> buildServerInfo(instance, serviceName))
-                                .toList();
-                        // Refresh local healthy instance cache in real-time
-                        healthyInstanceCache.put(cacheKey, healthyList);
-                        healthyCacheTimestamp.put(cacheKey, System.currentTimeMillis());
+                        List<McpServerInfo> healthyList = applyNamingEvent(serviceName, serviceGroup, namingEvent.getInstances());
                         log.info("[Subscription] Service {}@{} changed, healthy instances: {}, local cache refreshed", serviceName, serviceGroup, healthyList.size());
                     }
                 }
@@ -279,8 +301,115 @@ public class McpServerRegistry {
     }
 
     /**
-     * 获取所有健康的MCP服务器实例（优先查本地缓存）
-     * 支持服务名称匹配：如果找不到指定服务名，尝试添加 mcp- 前缀
+     * 应用 Nacos 推送的实例变更：生成新的路由表快照并刷新工具索引，
+     * 并为新上线的实例后台预热连接、为下线的实例平滑回收连接，使请求路径不承担建连开销
+     */
+    public List<McpServerInfo> applyNamingEvent(String serviceName, String serviceGroup, List<Instance> instances) {
+        // 写入方串行化（推送、后台对账、冷加载），读取方无锁读取快照
+        synchronized (routingTableLock) {
+            Map<String, McpServerInfo> previousByAddress = new HashMap<>();
+            List<McpServerInfo> previous = routingTable.get().get(serviceName, serviceGroup);
+            if (previous != null) {
+                for (McpServerInfo server : previous) {
+                    previousByAddress.put(server.getIdentity().getEndpointKey(), server);
+                }
+            }
+            // 同一实例跨快照复用同一个 ServerIdentity
+            List<McpServerInfo> healthyList = instances.stream()
+                    .filter(Instance::isHealthy)
+                    .filter(Instance::isEnabled)
+                    .map(instance -> {
+                        McpServerInfo old = previousByAddress.get(instance.getIp() + ":" + instance.getPort());
+                        return buildServerInfo(instance, serviceName, old != null ? old.getIdentity() : null);
+                    })
+                    .toList();
+            routingTable.set(routingTable.get().with(serviceName, serviceGroup, healthyList));
+            lookupCache.onServiceUpdated(serviceName, serviceGroup, !healthyList.isEmpty());
+            toolIndex.updateService(serviceName, serviceGroup, healthyList);
+            reconcileConnections(previousByAddress, healthyList);
+            return healthyList;
+        }
+    }
+
+    /**
+     * 对比变更前后的健康实例：新增实例预热连接，移除实例回收连接
+     */
+    private void reconcileConnections(Map<String, McpServerInfo> previousByAddress, List<McpServerInfo> current) {
+        for (McpServerInfo server : current) {
+            if (previousByAddress.remove(server.getIdentity().getEndpointKey()) == null) {
+                log.debug("🔥 Pre-warming connections for new instance: {}:{}:{}", server.getName(), server.getIp(), server.getPort());
+            }
+            // 对已存在的实例也调用：连接数已满足最小值时为空操作
+            mcpClientManager.warmUp(server);
+        }
+        for (McpServerInfo removed : previousByAddress.values()) {
+            log.info("🚰 Instance {}:{}:{} is gone, draining its connections", removed.getName(), removed.getIp(), removed.getPort());
+            mcpClientManager.drainConnections(removed);
+            circuitBreakerService.removeInstance(removed.getIdentity());
+        }
+    }
+
+    /**
+     * 后台对账：定期按路由表中已加载的服务重新拉取实例，弥补可能丢失的 Nacos 推送。
+     * 阻塞的 selectInstances 在 boundedElastic 上以有限并发执行，不占用调度线程；上一轮未结束时跳过本轮
+     */
+    @Scheduled(fixedDelay = 60_000, initialDelay = 60_000)
+    public void reconcileRoutingTable() {
+        if (!reconciling.compareAndSet(false, true)) {
+            log.debug("⏭️ Previous routing table reconcile still running, skipping");
+            return;
+        }
+        reconcileLoadedServices()
+                .doFinally(signal -> reconciling.set(false))
+                .subscribe(refreshed -> {
+                    if (refreshed > 0) {
+                        log.debug("🔄 Routing table reconciled: {} services, version {}", refreshed, routingTable.get().getVersion());
+                    }
+                });
+    }
+
+    /**
+     * 重新拉取路由表中所有已加载服务的实例，各服务失败互不影响，返回成功刷新的服务数
+     */
+    Mono<Integer> reconcileLoadedServices() {
+        return Flux.fromIterable(new ArrayList<>(routingTable.get().keys()))
+                .flatMap(key -> {
+                            int separator = key.lastIndexOf('@');
+                            String serviceName = key.substring(0, separator);
+                            String serviceGroup = key.substring(separator + 1);
+                            return Mono.fromCallable(() -> {
+                                        applyNamingEvent(serviceName, serviceGroup,
+                                                namingService.selectInstances(serviceName, serviceGroup, true));
+                                        return key;
+                                    })
+                                    .subscribeOn(Schedulers.boundedElastic())
+                                    .onErrorResume(error -> {
+                                        log.debug("⚠️ Routing table reconcile failed for {}: {}", key, error.getMessage());
+                                        return Mono.empty();
+                                    });
+                        },
+                        RECONCILE_CONCURRENCY)
+                .count()
+                .map(Long::intValue);
+    }
+
+    /**
+     * 服务名解析缓存统计（别名数、负缓存条目数与命中次数）
+     */
+    public Map<String, Object> getLookupCacheStats() {
+        return lookupCache.getStats();
+    }
+
+    /**
+     * 当前路由表快照（只读）
+     */
+    public RoutingTable getRoutingTable() {
+        return routingTable.get();
+    }
+
+    /**
+     * 获取所有健康的MCP服务器实例（读取路由表快照）
+     * 快照由 Nacos 推送与后台对账维护，仅首次查询某服务时同步拉取一次
      */
     public Flux<McpServerInfo> getAllHealthyServers(String serviceName, String serviceGroup) {
         // 支持通配符查询，获取所有MCP服务
@@ -288,34 +417,11 @@ public class McpServerRegistry {
             return getAllMcpServices(serviceGroup);
         }
         
-        String cacheKey = serviceName + "@" + serviceGroup;
-        List<McpServerInfo> cached = healthyInstanceCache.get(cacheKey);
-        Long ts = healthyCacheTimestamp.get(cacheKey);
-        if (cached != null && ts != null && (System.currentTimeMillis() - ts < CACHE_TTL_MS)) {
+        List<McpServerInfo> cached = lookupRoutingTable(serviceName, serviceGroup);
+        if (cached != null) {
             return Flux.fromIterable(cached);
         }
-        // 首次或缓存过期，主动查Nacos并刷新缓存
-        // 使用 subscribeOn 将阻塞操作移到弹性线程池，避免阻塞主线程
-        return Mono.fromCallable(() -> {
-            try {
-                List<Instance> instances = namingService.selectInstances(serviceName, serviceGroup, true);
-                List<McpServerInfo> healthyList = instances.stream()
-                        .map(instance -> buildServerInfo(instance, serviceName))
-                        .toList();
-                healthyInstanceCache.put(cacheKey, healthyList);
-                healthyCacheTimestamp.put(cacheKey, System.currentTimeMillis());
-                // 自动订阅
-                subscribeServiceChangeIfNeeded(serviceName, serviceGroup);
-                return healthyList;
-            } catch (Exception e) {
-                log.warn("⚠️ Failed to get healthy servers for service: {} (Nacos未启用是正常的): {}", serviceName, e.getMessage());
-                return List.<McpServerInfo>of(); // 返回空列表，而不是抛出异常
-            }
-        })
-        .subscribeOn(Schedulers.boundedElastic()) // 将阻塞的 Nacos 查询移到弹性线程池
-        .timeout(Duration.ofMillis(200)) // 激进优化：缩短到200毫秒，确保总时间在1秒以内
-        .onErrorReturn(List.<McpServerInfo>of()) // 超时或错误时返回空列表
-        .flatMapMany(Flux::fromIterable);
+        return coldLoad(serviceName, serviceGroup, false).flatMapMany(Flux::fromIterable);
     }
     
     /**
@@ -342,92 +448,94 @@ public class McpServerRegistry {
         }
         
         // 具体服务名查询，遍历所有服务组
-        // 支持服务名称匹配：如果找不到指定服务名，尝试添加 mcp- 前缀（向后兼容）
+        // 支持服务名称匹配：如果找不到指定服务名，尝试添加 mcp-/virtual- 前缀（向后兼容）
         return Flux.fromIterable(serviceGroups)
                 .flatMap(serviceGroup -> {
-                    String cacheKey = serviceName + "@" + serviceGroup;
-                    List<McpServerInfo> cached = healthyInstanceCache.get(cacheKey);
-                    Long ts = healthyCacheTimestamp.get(cacheKey);
-                    if (cached != null && ts != null && (System.currentTimeMillis() - ts < CACHE_TTL_MS)) {
-                        if (!cached.isEmpty()) {
-                            return Flux.fromIterable(cached);
-                        }
-                        // 如果缓存为空，尝试添加 mcp- 前缀查找
+                    List<McpServerInfo> cached = lookupRoutingTable(serviceName, serviceGroup);
+                    if (cached != null) {
+                        return Flux.fromIterable(cached);
                     }
-                    
-                    // 首次或缓存过期，主动查Nacos并刷新缓存
-                    // 使用 subscribeOn 将阻塞操作移到弹性线程池，避免阻塞主线程
-                    return Mono.fromCallable(() -> {
-                        try {
-                            List<Instance> instances = namingService.selectInstances(serviceName, serviceGroup, true);
-                            List<McpServerInfo> healthyList = instances.stream()
-                                    .map(instance -> buildServerInfo(instance, serviceName))
-                                    .toList();
-                            
-                            // 如果找不到实例，尝试多种前缀匹配策略
-                            if (healthyList.isEmpty() && !serviceName.startsWith("mcp-") && !serviceName.startsWith("virtual-")) {
-                                // 策略1: 尝试添加 mcp- 前缀（向后兼容）
-                                String prefixedServiceName = "mcp-" + serviceName;
-                                log.debug("🔍 Service '{}' not found, trying with mcp- prefix: {}", serviceName, prefixedServiceName);
-                                try {
-                                    List<Instance> prefixedInstances = namingService.selectInstances(prefixedServiceName, serviceGroup, true);
-                                    healthyList = prefixedInstances.stream()
-                                            .map(instance -> buildServerInfo(instance, serviceName)) // 使用原始服务名
-                                            .toList();
-                                    if (!healthyList.isEmpty()) {
-                                        log.info("✅ Found service with mcp- prefix: {} -> {}", prefixedServiceName, serviceName);
-                                        // 同时更新两个缓存键
-                                        String prefixedCacheKey = prefixedServiceName + "@" + serviceGroup;
-                                        healthyInstanceCache.put(prefixedCacheKey, healthyList);
-                                        healthyCacheTimestamp.put(prefixedCacheKey, System.currentTimeMillis());
-                                        subscribeServiceChangeIfNeeded(prefixedServiceName, serviceGroup);
-                                    }
-                                } catch (Exception e) {
-                                    log.debug("⚠️ Service with mcp- prefix also not found: {}", prefixedServiceName);
-                                }
-                                
-                                // 策略2: 如果 mcp- 前缀也没找到，尝试 virtual- 前缀（虚拟项目）
-                                if (healthyList.isEmpty()) {
-                                    String virtualServiceName = "virtual-" + serviceName;
-                                    log.debug("🔍 Service '{}' not found with mcp- prefix, trying with virtual- prefix: {}", serviceName, virtualServiceName);
-                                    try {
-                                        List<Instance> virtualInstances = namingService.selectInstances(virtualServiceName, serviceGroup, true);
-                                        healthyList = virtualInstances.stream()
-                                                .map(instance -> buildServerInfo(instance, serviceName)) // 使用原始服务名
-                                                .toList();
-                                        if (!healthyList.isEmpty()) {
-                                            log.info("✅ Found service with virtual- prefix: {} -> {}", virtualServiceName, serviceName);
-                                            // 同时更新两个缓存键
-                                            String virtualCacheKey = virtualServiceName + "@" + serviceGroup;
-                                            healthyInstanceCache.put(virtualCacheKey, healthyList);
-                                            healthyCacheTimestamp.put(virtualCacheKey, System.currentTimeMillis());
-                                            subscribeServiceChangeIfNeeded(virtualServiceName, serviceGroup);
-                                        }
-                                    } catch (Exception e) {
-                                        log.debug("⚠️ Service with virtual- prefix also not found: {}", virtualServiceName);
-                                    }
-                                }
-                            }
-                            
-                            healthyInstanceCache.put(cacheKey, healthyList);
-                            healthyCacheTimestamp.put(cacheKey, System.currentTimeMillis());
-                            // 自动订阅
-                            subscribeServiceChangeIfNeeded(serviceName, serviceGroup);
-                            return healthyList;
-                        } catch (Exception e) {
-                            log.warn("⚠️ Failed to get instances for service: {} in group: {}", serviceName, serviceGroup, e);
-                            return List.<McpServerInfo>of(); // 返回空列表继续处理其他组
-                        }
-                    })
-                    .subscribeOn(Schedulers.boundedElastic()) // 将阻塞的 Nacos 查询移到弹性线程池
-                    .timeout(Duration.ofMillis(200)) // 激进优化：缩短到200毫秒，确保总时间在1秒以内
-                    .onErrorReturn(List.<McpServerInfo>of()) // 超时或错误时返回空列表
-                    .flatMapMany(Flux::fromIterable);
+                    return coldLoad(serviceName, serviceGroup, true).flatMapMany(Flux::fromIterable);
                 })
                 .distinct(server -> server.getIp() + ":" + server.getPort()) // 去重，避免同一实例在多个组中重复
                 .doOnComplete(() -> log.debug("✅ Completed searching for service '{}' across all groups", serviceName));
     }
     
+    /**
+     * 查询路由表快照（按别名解析实际服务名）；负缓存命中时返回空列表，从未加载过时返回 null
+     */
+    private List<McpServerInfo> lookupRoutingTable(String serviceName, String serviceGroup) {
+        RoutingTable table = routingTable.get();
+        String alias = lookupCache.resolveAlias(serviceName, serviceGroup);
+        List<McpServerInfo> servers = table.get(alias != null ? alias : serviceName, serviceGroup);
+        if (servers == null && lookupCache.isKnownMissing(serviceName, serviceGroup)) {
+            return List.of();
+        }
+        return servers;
+    }
+    
+    /**
+     * 冷加载：路由表中尚无该服务时同步拉取一次并订阅推送，此后由推送维护。
+     * 同一服务的并发冷加载合并为一次 Nacos 查询；调用方等待超时后得到空列表，但加载本身继续完成并写入路由表
+     */
+    private Mono<List<McpServerInfo>> coldLoad(String serviceName, String serviceGroup, boolean resolveAliases) {
+        String key = RoutingTable.key(serviceName, serviceGroup);
+        Mono<List<McpServerInfo>> load = pendingColdLoads.computeIfAbsent(key, k ->
+                Mono.fromCallable(() -> loadFromNacos(serviceName, serviceGroup, resolveAliases))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .doFinally(signal -> pendingColdLoads.remove(k))
+                        .cache());
+        return load
+                .timeout(COLD_LOAD_TIMEOUT)
+                .onErrorResume(error -> {
+                    log.warn("⚠️ Cold load of service {} timed out or failed: {}", key, error.getMessage());
+                    return Mono.just(List.<McpServerInfo>of());
+                });
+    }
+    
+    /**
+     * 从 Nacos 拉取健康实例写入路由表并订阅推送；可选尝试 mcp-/virtual- 前缀别名。
+     * 名称及别名都查不到时只记入负缓存，不写路由表、不订阅，避免无效服务名反复访问 Nacos
+     */
+    private List<McpServerInfo> loadFromNacos(String serviceName, String serviceGroup, boolean resolveAliases) {
+        try {
+            List<Instance> instances = namingService.selectInstances(serviceName, serviceGroup, true);
+            String resolvedName = serviceName;
+            if (instances.isEmpty() && resolveAliases && ServiceLookupCache.canHavePrefixAlias(serviceName)) {
+                for (String prefix : ServiceLookupCache.SERVICE_NAME_PREFIXES) {
+                    String prefixedServiceName = prefix + serviceName;
+                    log.debug("🔍 Service '{}' not found, trying with {} prefix: {}", serviceName, prefix, prefixedServiceName);
+                    try {
+                        List<Instance> prefixedInstances = namingService.selectInstances(prefixedServiceName, serviceGroup, true);
+                        if (!prefixedInstances.isEmpty()) {
+                            log.info("✅ Found service with {} prefix: {} -> {}", prefix, prefixedServiceName, serviceName);
+                            lookupCache.recordAlias(serviceName, serviceGroup, prefixedServiceName);
+                            instances = prefixedInstances;
+                            resolvedName = prefixedServiceName;
+                            break;
+                        }
+                    } catch (Exception e) {
+                        log.debug("⚠️ Service with {} prefix also not found: {}", prefix, prefixedServiceName);
+                    }
+                }
+            }
+            if (instances.isEmpty()) {
+                log.debug("🚫 Service {}@{} not found, caching negative lookup", serviceName, serviceGroup);
+                lookupCache.recordMissing(serviceName, serviceGroup);
+                return List.of();
+            }
+            List<McpServerInfo> healthyList = applyNamingEvent(resolvedName, serviceGroup, instances);
+            // 自动订阅，此后由推送维护路由表
+            subscribeServiceChangeIfNeeded(resolvedName, serviceGroup);
+            return healthyList;
+        } catch (Exception e) {
+            // 不写入路由表，下次请求重新冷加载
+            log.warn("⚠️ Failed to get healthy servers for service: {} in group: {} (Nacos未启用是正常的): {}",
+                    serviceName, serviceGroup, e.getMessage());
+            return List.of();
+        }
+    }
+    
     /**
      * 获取所有MCP服务（支持查询多个服务组）
      */
@@ -454,49 +562,172 @@ public class McpServerRegistry {
     
     /**
      * 从指定服务组获取所有MCP服务
+     * 读取内存中的分组服务目录与路由表快照；仅首次查询某组时加载一次目录，之后由后台增量刷新
      */
     private Flux<McpServerInfo> getAllMcpServicesFromGroup(String serviceGroup) {
-        return Mono.fromCallable(() -> {
-            try {
-                log.debug("🔍 Searching for MCP services in group: {}", serviceGroup);
-                
-                // 获取指定group下的所有服务
-                com.alibaba.nacos.api.naming.pojo.ListView<String> servicesList = 
-                    namingService.getServicesOfServer(1, Integer.MAX_VALUE, serviceGroup);
-                List<McpServerInfo> allServers = new ArrayList<>();
-                
-                if (servicesList == null || servicesList.getData() == null || servicesList.getData().isEmpty()) {
-                    log.debug("📭 No services found in group: {}", serviceGroup);
-                    return allServers;
+        ServiceCatalog catalog = serviceCatalogs.get(serviceGroup);
+        if (catalog != null) {
+            return Flux.fromIterable(catalog.servers(routingTable.get(), serviceGroup));
+        }
+        return loadServiceCatalog(serviceGroup)
+                .timeout(CATALOG_LOAD_TIMEOUT)
+                .map(loaded -> loaded.servers(routingTable.get(), serviceGroup))
+                .onErrorResume(error -> {
+                    log.warn("⚠️ Failed to load service catalog of group: {} (Nacos未启用是正常的): {}", serviceGroup, error.getMessage());
+                    return Mono.just(List.<McpServerInfo>of());
+                })
+                .flatMapMany(Flux::fromIterable);
+    }
+    
+    /**
+     * 后台刷新已加载的分组服务目录：只拉取新增服务的实例，移除已下线的服务；
+     * 已有服务的实例变化由 Nacos 推送维护
+     */
+    @Scheduled(fixedDelay = 30_000, initialDelay = 30_000)
+    public void refreshServiceCatalogs() {
+        refreshLoadedCatalogs().subscribe();
+    }
+    
+    /**
+     * 刷新所有已加载分组的服务目录，各分组失败互不影响
+     */
+    Flux<ServiceCatalog> refreshLoadedCatalogs() {
+        return Flux.fromIterable(new ArrayList<>(serviceCatalogs.keySet()))
+                .flatMap(serviceGroup -> loadServiceCatalog(serviceGroup)
+                        .doOnNext(catalog -> log.debug("🔄 Service catalog refreshed for group {}: {} services", serviceGroup, catalog.size()))
+                        .onErrorResume(error -> {
+                            log.warn("⚠️ Failed to refresh service catalog of group: {}: {}", serviceGroup, error.getMessage());
+                            return Mono.empty();
+                        }));
+    }
+    
+    /**
+     * 加载（或增量刷新）分组服务目录，同一组的并发加载合并为一次；
+     * 加载结束后只移除自己这一次登记，不会误删之后新发起的加载
+     */
+    private Mono<ServiceCatalog> loadServiceCatalog(String serviceGroup) {
+        Mono<ServiceCatalog> pending = pendingCatalogLoads.get(serviceGroup);
+        if (pending != null) {
+            return pending;
+        }
+        Mono<ServiceCatalog> load = Mono.fromCallable(() -> {
+                    com.alibaba.nacos.api.naming.pojo.ListView<String> servicesList =
+                            namingService.getServicesOfServer(1, Integer.MAX_VALUE, serviceGroup);
+                    return servicesList == null || servicesList.getData() == null
+                            ? List.<String>of() : List.copyOf(servicesList.getData());
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(serviceNames -> syncServiceCatalog(serviceGroup, serviceNames))
+                .cache();
+        Mono<ServiceCatalog> existing = pendingCatalogLoads.putIfAbsent(serviceGroup, load);
+        if (existing != null) {
+            return existing;
+        }
+        // 登记之后才开始加载，即使同步完成也能移除登记
+        load.toFuture().whenComplete((catalog, error) -> pendingCatalogLoads.remove(serviceGroup, load));
+        return load;
+    }
+    
+    /**
+     * 与最新服务列表对比：新增服务并行拉取实例（限制并发）并订阅推送，下线服务从路由表移除
+     */
+    private Mono<ServiceCatalog> syncServiceCatalog(String serviceGroup, List<String> serviceNames) {
+        ServiceCatalog previous = serviceCatalogs.get(serviceGroup);
+        RoutingTable table = routingTable.get();
+        List<String> added = new ArrayList<>();
+        for (String service : serviceNames) {
+            if (!table.contains(service, serviceGroup)) {
+                added.add(service);
+            }
+        }
+        List<String> removed = new ArrayList<>();
+        if (previous != null) {
+            Set<String> current = new HashSet<>(serviceNames);
+            for (String service : previous.serviceNames()) {
+                if (!current.contains(service)) {
+                    removed.add(service);
                 }
-                
-                log.debug("📋 Found {} services in group {}: {}", 
-                    servicesList.getData().size(), serviceGroup, servicesList.getData());
-                
-                for (String service : servicesList.getData()) {
-                    try {
-                        List<Instance> instances = namingService.selectInstances(service, serviceGroup, true);
-                        List<McpServerInfo> serviceServers = instances.stream()
-                                .map(instance -> buildServerInfo(instance, service))
-                                .toList();
-                        allServers.addAll(serviceServers);
-                        
-                        if (!serviceServers.isEmpty()) {
-                            log.debug("✅ Found {} healthy instances for service {} in group {}", 
-                                serviceServers.size(), service, serviceGroup);
-                        }
-                    } catch (Exception e) {
-                        log.warn("⚠️ Failed to get instances for service: {} in group: {}", service, serviceGroup, e);
+            }
+        }
+        
+        return Flux.fromIterable(added)
+                .flatMap(service -> Mono.fromCallable(() -> {
+                                    applyNamingEvent(service, serviceGroup, namingService.selectInstances(service, serviceGroup, true));
+                                    subscribeServiceChangeIfNeeded(service, serviceGroup);
+                                    return service;
+                                })
+                                .subscribeOn(Schedulers.boundedElastic())
+                                .onErrorResume(error -> {
+                                    log.warn("⚠️ Failed to get instances for service: {} in group: {}", service, serviceGroup, error);
+                                    return Mono.empty();
+                                }),
+                        CATALOG_FETCH_CONCURRENCY)
+                .then(Mono.fromCallable(() -> {
+                    for (String service : removed) {
+                        log.info("🗑️ Service {} removed from group {}, dropping it from routing table", service, serviceGroup);
+                        removeService(service, serviceGroup);
+                    }
+                    ServiceCatalog catalog = new ServiceCatalog(serviceNames);
+                    serviceCatalogs.put(serviceGroup, catalog);
+                    if (!added.isEmpty() || !removed.isEmpty()) {
+                        log.info("📋 Service catalog of group {} updated: {} services (+{} / -{})",
+                                serviceGroup, serviceNames.size(), added.size(), removed.size());
                     }
+                    return catalog;
+                }));
+    }
+    
+    /**
+     * 从路由表移除服务（先按空实例列表回收其连接）
+     */
+    private void removeService(String serviceName, String serviceGroup) {
+        synchronized (routingTableLock) {
+            applyNamingEvent(serviceName, serviceGroup, List.of());
+            routingTable.set(routingTable.get().without(serviceName, serviceGroup));
+        }
+    }
+    
+    /**
+     * 分组服务目录：组内服务名列表，以及按路由表版本缓存的全部健康实例
+     */
+    private static final class ServiceCatalog {
+        private final List<String> serviceNames;
+        private volatile Aggregate aggregate;
+        
+        ServiceCatalog(List<String> serviceNames) {
+            this.serviceNames = List.copyOf(serviceNames);
+        }
+        
+        List<String> serviceNames() {
+            return serviceNames;
+        }
+        
+        int size() {
+            return serviceNames.size();
+        }
+        
+        /**
+         * 组内所有服务的健康实例；路由表版本未变时直接返回上次结果
+         */
+        List<McpServerInfo> servers(RoutingTable table, String serviceGroup) {
+            Aggregate current = aggregate;
+            if (current != null && current.version == table.getVersion()) {
+                return current.servers;
+            }
+            List<McpServerInfo> servers = new ArrayList<>();
+            for (String service : serviceNames) {
+                List<McpServerInfo> instances = table.get(service, serviceGroup);
+                if (instances != null) {
+                    servers.addAll(instances);
                 }
-                
-                log.debug("📊 Total {} MCP servers found in group: {}", allServers.size(), serviceGroup);
-                return allServers;
-            } catch (Exception e) {
-                log.warn("⚠️ Failed to get all MCP services in group: {} (Nacos未启用是正常的): {}", serviceGroup, e.getMessage());
-                return List.<McpServerInfo>of(); // 返回空列表，而不是抛出异常
             }
-        }).flatMapMany(Flux::fromIterable);
+            List<McpServerInfo> result = List.copyOf(servers);
+            aggregate = new Aggregate(table.getVersion(), result);
+            return result;
+        }
+        
+        private record Aggregate(long version, List<McpServerInfo> servers) {
+        }
     }
     
     /**
@@ -576,6 +807,13 @@ public class McpServerRegistry {
      * 从Nacos实例构建服务器信息
      */
     private McpServerInfo buildServerInfo(Instance instance, String serviceName) {
+        return buildServerInfo(instance, serviceName, null);
+    }
+
+    /**
+     * 构建服务器信息，并在快照构建时一次性生成（或复用）实例标识
+     */
+    private McpServerInfo buildServerInfo(Instance instance, String serviceName, ServerIdentity previousIdentity) {
         Map<String, String> metadata = instance.getMetadata();
         
         return McpServerInfo.builder()
@@ -588,6 +826,8 @@ public class McpServerRegistry {
                 .version(metadata.get("version"))
                 .sseEndpoint(metadata.get("sseEndpoint"))
                 .metadata(metadata)
+                .identity(ServerIdentity.reuse(previousIdentity, serviceName, 
+                        instance.getIp(), instance.getPort(), instance.getWeight()))
                 .build();
     }
     
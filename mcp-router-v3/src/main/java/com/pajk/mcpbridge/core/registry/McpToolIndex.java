@@ -0,0 +1,272 @@
+package com.pajk.mcpbridge.core.registry;
+
+import com.pajk.mcpbridge.core.model.McpServerInfo;
+import com.pajk.mcpbridge.core.model.McpToolsConfig;
+import com.pajk.mcpbridge.core.service.McpConfigService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 工具 -> 服务器 倒排索引
+ * <p>
+ * 数据来源：
+ * 1. Nacos 实例元数据 tools.names（逗号分隔）
+ * 2. Nacos 配置中心的 McpToolsConfig（按服务维度，元数据缺失时使用）
+ * 3. 智能路由在索引未命中时探测得到的 tools/list 结果
+ * <p>
+ * 由 NamingEvent 与工具配置变更增量维护，智能路由查询时为 O(1) 内存查找，不产生任何网络调用。
+ */
+@Component
+@RequiredArgsConstructor
+public class McpToolIndex {
+
+    private final static Logger log = LoggerFactory.getLogger(McpToolIndex.class);
+
+    public static final String TOOLS_NAMES_METADATA_KEY = "tools.names";
+
+    private final McpConfigService mcpConfigService;
+
+    // 工具名 -> server key 集合
+    private final Map<String, Set<String>> toolToServers = new ConcurrentHashMap<>();
+
+    // server key -> 该服务器已索引的工具
+    private final Map<String, Set<String>> serverToTools = new ConcurrentHashMap<>();
+
+    // server key -> 服务器信息
+    private final Map<String, McpServerInfo> servers = new ConcurrentHashMap<>();
+
+    // serviceName@groupName -> 该服务当前健康的 server key 集合
+    private final Map<String, Set<String>> serviceMembers = new ConcurrentHashMap<>();
+
+    // serviceName -> 工具配置中的工具名
+    private final Map<String, Set<String>> configuredTools = new ConcurrentHashMap<>();
+
+    // 已注册工具配置监听的服务
+    private final Set<String> toolsConfigListeners = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 用服务的最新健康实例列表替换该服务在索引中的全部条目
+     */
+    public synchronized void updateService(String serviceName, String serviceGroup, List<McpServerInfo> healthyServers) {
+        if (serviceName == null) {
+            return;
+        }
+        String memberKey = serviceName + "@" + serviceGroup;
+        Set<String> newMembers = new HashSet<>();
+        String version = null;
+        for (McpServerInfo server : healthyServers) {
+            String serverKey = buildServerKey(server);
+            newMembers.add(serverKey);
+            servers.put(serverKey, server);
+            indexServer(serverKey, resolveTools(server));
+            if (version == null) {
+                version = server.getVersion();
+            }
+        }
+
+        Set<String> oldMembers = serviceMembers.put(memberKey, newMembers);
+        if (oldMembers != null) {
+            for (String serverKey : oldMembers) {
+                if (!newMembers.contains(serverKey)) {
+                    removeServer(serverKey);
+                }
+            }
+        }
+
+        if (!healthyServers.isEmpty()) {
+            listenToolsConfigIfNeeded(serviceName, version);
+        }
+        log.debug("🗂️ Tool index updated for {}: {} servers, {} tools indexed",
+                memberKey, newMembers.size(), toolToServers.size());
+    }
+
+    /**
+     * 记录从服务器实际探测到的工具列表（tools/list 结果）；
+     * 服务器已不在任何服务的健康实例中时（如探测期间下线）丢弃结果并清理其残留条目
+     */
+    public synchronized void updateServerTools(McpServerInfo server, Collection<String> toolNames) {
+        String serverKey = buildServerKey(server);
+        if (!isServiceMember(serverKey)) {
+            removeServer(serverKey);
+            log.debug("🗂️ Ignoring probed tools for server no longer tracked: {}", serverKey);
+            return;
+        }
+        servers.putIfAbsent(serverKey, server);
+        indexServer(serverKey, new HashSet<>(toolNames));
+    }
+
+    /**
+     * 应用工具配置变更：刷新该服务下所有未通过元数据声明工具的服务器
+     */
+    public synchronized void applyToolsConfig(String serviceName, McpToolsConfig toolsConfig) {
+        Set<String> toolNames = toolsConfig == null || toolsConfig.getTools() == null ? Set.of() :
+                toolsConfig.getTools().stream()
+                        .map(McpToolsConfig.McpTool::getName)
+                        .filter(name -> name != null && !name.isBlank())
+                        .collect(Collectors.toSet());
+        configuredTools.put(serviceName, toolNames);
+
+        for (Map.Entry<String, Set<String>> entry : serviceMembers.entrySet()) {
+            if (!entry.getKey().startsWith(serviceName + "@")) {
+                continue;
+            }
+            for (String serverKey : entry.getValue()) {
+                McpServerInfo server = servers.get(serverKey);
+                if (server != null && parseMetadataTools(server) == null) {
+                    indexServer(serverKey, toolNames);
+                }
+            }
+        }
+        log.info("🗂️ Tools config applied to index for service {}: {} tools", serviceName, toolNames.size());
+    }
+
+    /**
+     * 查找提供指定工具的服务器（纯内存查找）
+     */
+    public List<McpServerInfo> findServersWithTool(String toolName) {
+        Set<String> serverKeys = toolToServers.get(toolName);
+        if (serverKeys == null || serverKeys.isEmpty()) {
+            return List.of();
+        }
+        List<McpServerInfo> result = new ArrayList<>(serverKeys.size());
+        for (String serverKey : serverKeys) {
+            McpServerInfo server = servers.get(serverKey);
+            if (server != null) {
+                result.add(server);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取索引统计信息
+     */
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "indexed_tools", toolToServers.size(),
+                "indexed_servers", serverToTools.size(),
+                "tracked_services", serviceMembers.size(),
+                "tools_config_listeners", toolsConfigListeners.size()
+        );
+    }
+
+    private void indexServer(String serverKey, Set<String> tools) {
+        Set<String> oldTools = serverToTools.put(serverKey, tools);
+        if (oldTools != null) {
+            for (String tool : oldTools) {
+                if (!tools.contains(tool)) {
+                    unindexTool(tool, serverKey);
+                }
+            }
+        }
+        for (String tool : tools) {
+            toolToServers.computeIfAbsent(tool, k -> ConcurrentHashMap.newKeySet()).add(serverKey);
+        }
+    }
+
+    private boolean isServiceMember(String serverKey) {
+        for (Set<String> members : serviceMembers.values()) {
+            if (members.contains(serverKey)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void removeServer(String serverKey) {
+        servers.remove(serverKey);
+        Set<String> tools = serverToTools.remove(serverKey);
+        if (tools != null) {
+            for (String tool : tools) {
+                unindexTool(tool, serverKey);
+            }
+        }
+    }
+
+    private void unindexTool(String tool, String serverKey) {
+        Set<String> serverKeys = toolToServers.get(tool);
+        if (serverKeys != null) {
+            serverKeys.remove(serverKey);
+            if (serverKeys.isEmpty()) {
+                toolToServers.remove(tool);
+            }
+        }
+    }
+
+    private Set<String> resolveTools(McpServerInfo server) {
+        Set<String> metadataTools = parseMetadataTools(server);
+        if (metadataTools != null) {
+            return metadataTools;
+        }
+        Set<String> configured = configuredTools.get(server.getName());
+        if (configured != null) {
+            return configured;
+        }
+        // 没有任何来源时保留已探测到的工具，避免事件刷新把探测结果清空
+        Set<String> existing = serverToTools.get(buildServerKey(server));
+        return existing != null ? existing : Set.of();
+    }
+
+    private Set<String> parseMetadataTools(McpServerInfo server) {
+        if (server.getMetadata() == null) {
+            return null;
+        }
+        String toolsNames = server.getMetadata().get(TOOLS_NAMES_METADATA_KEY);
+        if (toolsNames == null || toolsNames.isBlank()) {
+            return null;
+        }
+        Set<String> tools = new HashSet<>();
+        for (String name : toolsNames.split(",")) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty()) {
+                tools.add(trimmed);
+            }
+        }
+        return tools;
+    }
+
+    /**
+     * 首次发现服务时注册工具配置监听（异步，不阻塞事件线程）
+     */
+    private void listenToolsConfigIfNeeded(String serviceName, String version) {
+        if (!toolsConfigListeners.add(serviceName)) {
+            return;
+        }
+        String id;
+        try {
+            id = mcpConfigService.getUuidFromServiceName(serviceName);
+        } catch (Exception e) {
+            toolsConfigListeners.remove(serviceName);
+            return;
+        }
+        mcpConfigService.addToolsConfigListener(id, version, toolsConfig -> applyToolsConfig(serviceName, toolsConfig))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(
+                        null,
+                        error -> {
+                            // 允许下次事件时重试
+                            toolsConfigListeners.remove(serviceName);
+                            log.debug("Failed to listen tools config for service: {} - {}", serviceName, error.getMessage());
+                        }
+                );
+    }
+
+    /**
+     * 构建服务器键（与 McpClientManager 保持一致）
+     */
+    private String buildServerKey(McpServerInfo serverInfo) {
+        return serverInfo.getIdentity().getServerKey();
+    }
+}
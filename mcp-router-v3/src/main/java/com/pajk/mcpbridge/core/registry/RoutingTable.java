@@ -0,0 +1,87 @@
+package com.pajk.mcpbridge.core.registry;
+
+import com.pajk.mcpbridge.core.model.McpServerInfo;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 不可变路由表快照
+ * <p>
+ * 记录所有已订阅 serviceName@group 的健康实例列表。每次 Nacos 推送或后台对账产生一个新快照
+ * （写时复制），通过 AtomicReference 整体替换；请求路径只读取当前快照，不加锁、不等待 Nacos。
+ */
+public final class RoutingTable {
+
+    public static final RoutingTable EMPTY = new RoutingTable(Map.of(), 0L);
+
+    private final Map<String, List<McpServerInfo>> entries;
+    private final long version;
+
+    private RoutingTable(Map<String, List<McpServerInfo>> entries, long version) {
+        this.entries = entries;
+        this.version = version;
+    }
+
+    public static String key(String serviceName, String serviceGroup) {
+        return serviceName + "@" + serviceGroup;
+    }
+
+    /**
+     * 查询健康实例；从未加载过的服务返回 null，已知无健康实例时返回空列表
+     */
+    public List<McpServerInfo> get(String serviceName, String serviceGroup) {
+        return entries.get(key(serviceName, serviceGroup));
+    }
+
+    public boolean contains(String serviceName, String serviceGroup) {
+        return entries.containsKey(key(serviceName, serviceGroup));
+    }
+
+    /**
+     * 返回替换了指定服务实例列表的新快照
+     */
+    public RoutingTable with(String serviceName, String serviceGroup, List<McpServerInfo> healthyServers) {
+        Map<String, List<McpServerInfo>> next = new HashMap<>(entries);
+        next.put(key(serviceName, serviceGroup), List.copyOf(healthyServers));
+        return new RoutingTable(Collections.unmodifiableMap(next), version + 1);
+    }
+
+    /**
+     * 返回移除了指定服务的新快照
+     */
+    public RoutingTable without(String serviceName, String serviceGroup) {
+        String key = key(serviceName, serviceGroup);
+        if (!entries.containsKey(key)) {
+            return this;
+        }
+        Map<String, List<McpServerInfo>> next = new HashMap<>(entries);
+        next.remove(key);
+        return new RoutingTable(Collections.unmodifiableMap(next), version + 1);
+    }
+
+    /**
+     * 所有已加载的 serviceName@group
+     */
+    public Set<String> keys() {
+        return entries.keySet();
+    }
+
+    public Map<String, List<McpServerInfo>> asMap() {
+        return entries;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 快照版本号，每次变更递增
+     */
+    public long getVersion() {
+        return version;
+    }
+}
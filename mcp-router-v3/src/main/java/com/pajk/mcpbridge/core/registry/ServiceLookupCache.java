@@ -0,0 +1,123 @@
+package com.pajk.mcpbridge.core.registry;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 服务名解析缓存
+ * <p>
+ * 别名表：请求的服务名 → Nacos 中实际注册的服务名（mcp-/virtual- 前缀兼容）；
+ * 负缓存：在 Nacos 中（含前缀别名）都查不到的服务名，在短 TTL（带随机抖动，避免同时过期）内直接返回空结果。
+ * 两者都由订阅推送失效：某服务出现健康实例时，清除其自身及去前缀名的负缓存，并让真实服务名优先于别名。
+ */
+class ServiceLookupCache {
+
+    static final List<String> SERVICE_NAME_PREFIXES = List.of("mcp-", "virtual-");
+
+    // key: serviceName@group -> 实际服务名
+    private final Map<String, String> aliases = new ConcurrentHashMap<>();
+    // key: serviceName@group -> 负缓存过期时间（毫秒）
+    private final Map<String, Long> negativeLookups = new ConcurrentHashMap<>();
+
+    private final long negativeTtlMillis;
+    private final long negativeTtlJitterMillis;
+    private final LongSupplier clock;
+
+    private final AtomicLong negativeHits = new AtomicLong(0);
+    private final AtomicLong aliasHits = new AtomicLong(0);
+
+    ServiceLookupCache(long negativeTtlMillis, long negativeTtlJitterMillis, LongSupplier clock) {
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.negativeTtlJitterMillis = negativeTtlJitterMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * 是否可以尝试前缀别名（已带前缀的服务名不再叠加前缀）
+     */
+    static boolean canHavePrefixAlias(String serviceName) {
+        for (String prefix : SERVICE_NAME_PREFIXES) {
+            if (serviceName.startsWith(prefix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 查询别名，未记录时返回 null
+     */
+    String resolveAlias(String serviceName, String serviceGroup) {
+        if (aliases.isEmpty()) {
+            return null;
+        }
+        String alias = aliases.get(RoutingTable.key(serviceName, serviceGroup));
+        if (alias != null) {
+            aliasHits.incrementAndGet();
+        }
+        return alias;
+    }
+
+    void recordAlias(String serviceName, String serviceGroup, String canonicalName) {
+        String key = RoutingTable.key(serviceName, serviceGroup);
+        aliases.put(key, canonicalName);
+        negativeLookups.remove(key);
+    }
+
+    /**
+     * 是否处于负缓存有效期内（过期条目顺带清除）
+     */
+    boolean isKnownMissing(String serviceName, String serviceGroup) {
+        if (negativeLookups.isEmpty()) {
+            return false;
+        }
+        String key = RoutingTable.key(serviceName, serviceGroup);
+        Long expiresAt = negativeLookups.get(key);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (clock.getAsLong() >= expiresAt) {
+            negativeLookups.remove(key, expiresAt);
+            return false;
+        }
+        negativeHits.incrementAndGet();
+        return true;
+    }
+
+    void recordMissing(String serviceName, String serviceGroup) {
+        long jitter = negativeTtlJitterMillis > 0 ? ThreadLocalRandom.current().nextLong(negativeTtlJitterMillis + 1) : 0;
+        negativeLookups.put(RoutingTable.key(serviceName, serviceGroup), clock.getAsLong() + negativeTtlMillis + jitter);
+    }
+
+    /**
+     * 订阅推送通知：服务出现健康实例时使相关负缓存与别名失效
+     */
+    void onServiceUpdated(String serviceName, String serviceGroup, boolean hasInstances) {
+        if (!hasInstances) {
+            return;
+        }
+        String key = RoutingTable.key(serviceName, serviceGroup);
+        negativeLookups.remove(key);
+        // 服务以真实名称出现，不再经由别名解析
+        aliases.remove(key);
+        for (String prefix : SERVICE_NAME_PREFIXES) {
+            if (serviceName.startsWith(prefix) && serviceName.length() > prefix.length()) {
+                negativeLookups.remove(RoutingTable.key(serviceName.substring(prefix.length()), serviceGroup));
+            }
+        }
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("aliases", aliases.size());
+        stats.put("negative_entries", negativeLookups.size());
+        stats.put("alias_hits", aliasHits.get());
+        stats.put("negative_hits", negativeHits.get());
+        return stats;
+    }
+}
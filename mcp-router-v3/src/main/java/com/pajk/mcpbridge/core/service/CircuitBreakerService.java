@@ -1,18 +1,26 @@
 package com.pajk.mcpbridge.core.service;
 
+import com.pajk.mcpbridge.core.config.McpCircuitBreakerProperties;
+import com.pajk.mcpbridge.core.model.ServerIdentity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
 
 /**
  * 熔断器服务
  * 实现服务降级和故障转移机制
+ * <p>
+ * 服务级熔断由健康检查驱动；实例级熔断挂在请求路径上，按真实调用结果更新：
+ * 负载均衡前剔除熔断中的实例，熔断到期后半开放行有限数量的探测请求。
  */
 @Service
 public class CircuitBreakerService {
@@ -27,6 +35,22 @@ public class CircuitBreakerService {
     private static final int DEFAULT_SUCCESS_THRESHOLD = 3;
     private static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(1);
     
+    // 实例级熔断器（请求路径），以预计算的 ServerIdentity 为键
+    private final Map<ServerIdentity, CircuitBreakerState> instanceStates = new ConcurrentHashMap<>();
+    
+    private final McpCircuitBreakerProperties properties;
+    private final LongSupplier clock;
+    
+    @Autowired
+    public CircuitBreakerService(McpCircuitBreakerProperties properties) {
+        this(properties, System::currentTimeMillis);
+    }
+    
+    CircuitBreakerService(McpCircuitBreakerProperties properties, LongSupplier clock) {
+        this.properties = properties;
+        this.clock = clock;
+    }
+    
     /**
      * 检查熔断器是否开启
      */
@@ -138,6 +162,111 @@ public class CircuitBreakerService {
             state.reset();
             log.info("Circuit breaker reset for service: {}", serviceName);
         }
+        // 同时重置该服务（或该 serverKey）下的实例级熔断器
+        instanceStates.forEach((identity, instanceState) -> {
+            if (serviceName.equals(identity.getServiceName()) || serviceName.equals(identity.getServerKey())) {
+                instanceState.reset();
+                log.info("Circuit breaker reset for instance: {}", identity);
+            }
+        });
+    }
+    
+    /**
+     * 实例当前是否可接收请求（不占用半开探测名额，用于负载均衡前过滤候选）
+     */
+    public boolean isInstanceAvailable(ServerIdentity identity) {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+        CircuitBreakerState state = instanceStates.get(identity);
+        return state == null || state.isCallPermitted();
+    }
+    
+    /**
+     * 为一次调用申请实例放行许可：关闭状态直接放行；熔断到期转半开并占用探测名额；
+     * 半开状态探测名额用尽时拒绝。放行后必须以 recordInstanceSuccess / recordInstanceFailure /
+     * releaseInstancePermission 之一结束
+     */
+    public boolean tryAcquireInstancePermission(ServerIdentity identity) {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+        CircuitBreakerState state = instanceStates.get(identity);
+        if (state == null) {
+            return true;
+        }
+        boolean wasOpen = state.isOpen();
+        boolean permitted = state.tryAcquirePermission();
+        if (permitted && wasOpen) {
+            log.info("🔌 Instance circuit half-open, probing: {}", identity);
+        }
+        return permitted;
+    }
+    
+    /**
+     * 记录实例调用成功，半开状态连续成功达到阈值后关闭熔断
+     */
+    public void recordInstanceSuccess(ServerIdentity identity) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        CircuitBreakerState state = instanceStates.get(identity);
+        if (state == null) {
+            // 从未失败过的实例不创建状态，成功路径不产生分配
+            return;
+        }
+        if (state.onCallSuccess()) {
+            log.info("✅ Instance circuit closed: {}", identity);
+        }
+    }
+    
+    /**
+     * 记录实例调用失败：关闭状态连续失败达到阈值、或半开探测失败时立即熔断
+     */
+    public void recordInstanceFailure(ServerIdentity identity) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        CircuitBreakerState state = instanceStates.computeIfAbsent(identity, this::newInstanceState);
+        if (state.onCallFailure()) {
+            log.warn("🚫 Instance circuit opened: {} (consecutive failures: {})",
+                    identity, state.getConsecutiveFailures());
+        }
+    }
+    
+    /**
+     * 调用被取消等无结果结束时归还半开探测名额
+     */
+    public void releaseInstancePermission(ServerIdentity identity) {
+        CircuitBreakerState state = instanceStates.get(identity);
+        if (state != null) {
+            state.releasePermission();
+        }
+    }
+    
+    /**
+     * 获取所有实例级熔断器状态（以 serverKey 为键）
+     */
+    public Map<String, CircuitBreakerState> getAllInstanceCircuitBreakerStates() {
+        Map<String, CircuitBreakerState> states = new HashMap<>();
+        instanceStates.forEach((identity, state) -> states.put(identity.getServerKey(), state));
+        return states;
+    }
+    
+    /**
+     * 实例下线时移除其熔断状态
+     */
+    public void removeInstance(ServerIdentity identity) {
+        instanceStates.remove(identity);
+    }
+    
+    private CircuitBreakerState newInstanceState(ServerIdentity identity) {
+        return new CircuitBreakerState(identity.getServerKey(),
+                properties.getFailureThreshold(),
+                properties.getSuccessThreshold(),
+                properties.getOpenDuration(),
+                properties.getHalfOpenMaxProbes(),
+                clock);
     }
     
     /**
@@ -154,20 +283,130 @@ public class CircuitBreakerService {
         private LocalDateTime lastSuccessTime;
         private LocalDateTime stateChangeTime = LocalDateTime.now();
         
+        // 请求路径使用的毫秒时间戳与半开探测计数
+        private volatile long stateChangeMillis;
+        private final AtomicInteger halfOpenInFlight = new AtomicInteger(0);
+        
         // 配置参数
         private final int failureThreshold;
         private final int successThreshold;
         private final Duration timeout;
+        private final int halfOpenMaxProbes;
+        private final LongSupplier clock;
         
         public CircuitBreakerState(String serviceName) {
             this(serviceName, DEFAULT_FAILURE_THRESHOLD, DEFAULT_SUCCESS_THRESHOLD, DEFAULT_TIMEOUT);
         }
         
         public CircuitBreakerState(String serviceName, int failureThreshold, int successThreshold, Duration timeout) {
+            this(serviceName, failureThreshold, successThreshold, timeout, successThreshold, System::currentTimeMillis);
+        }
+        
+        public CircuitBreakerState(String serviceName, int failureThreshold, int successThreshold, Duration timeout,
+                                   int halfOpenMaxProbes, LongSupplier clock) {
             this.serviceName = serviceName;
             this.failureThreshold = failureThreshold;
             this.successThreshold = successThreshold;
             this.timeout = timeout;
+            this.halfOpenMaxProbes = halfOpenMaxProbes;
+            this.clock = clock;
+            this.stateChangeMillis = clock.getAsLong();
+        }
+        
+        /**
+         * 是否允许调用（只读）：关闭、熔断已到期、或半开仍有探测名额
+         */
+        public boolean isCallPermitted() {
+            State current = state;
+            if (current == State.CLOSED) {
+                return true;
+            }
+            if (current == State.OPEN) {
+                return clock.getAsLong() - stateChangeMillis >= timeout.toMillis();
+            }
+            return halfOpenInFlight.get() < halfOpenMaxProbes;
+        }
+        
+        /**
+         * 申请放行许可，半开状态下占用一个探测名额
+         */
+        public boolean tryAcquirePermission() {
+            State current = state;
+            if (current == State.CLOSED) {
+                return true;
+            }
+            if (current == State.OPEN) {
+                synchronized (this) {
+                    if (state == State.OPEN) {
+                        if (clock.getAsLong() - stateChangeMillis < timeout.toMillis()) {
+                            return false;
+                        }
+                        transitionTo(State.HALF_OPEN);
+                        consecutiveSuccesses.set(0);
+                        halfOpenInFlight.set(0);
+                    }
+                }
+                if (state == State.CLOSED) {
+                    return true;
+                }
+            }
+            while (true) {
+                int inFlight = halfOpenInFlight.get();
+                if (inFlight >= halfOpenMaxProbes) {
+                    return false;
+                }
+                if (halfOpenInFlight.compareAndSet(inFlight, inFlight + 1)) {
+                    return true;
+                }
+            }
+        }
+        
+        /**
+         * 归还半开探测名额
+         */
+        public void releasePermission() {
+            if (state == State.HALF_OPEN) {
+                halfOpenInFlight.updateAndGet(v -> v > 0 ? v - 1 : 0);
+            }
+        }
+        
+        /**
+         * 记录调用成功，返回是否因此关闭熔断
+         */
+        public boolean onCallSuccess() {
+            recordSuccess();
+            if (state != State.HALF_OPEN) {
+                return false;
+            }
+            releasePermission();
+            synchronized (this) {
+                if (shouldClose()) {
+                    close();
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        /**
+         * 记录调用失败，返回是否因此开启熔断
+         */
+        public boolean onCallFailure() {
+            recordFailure();
+            synchronized (this) {
+                if (state == State.HALF_OPEN || shouldOpen()) {
+                    open();
+                    halfOpenInFlight.set(0);
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        private void transitionTo(State next) {
+            state = next;
+            stateChangeMillis = clock.getAsLong();
+            stateChangeTime = LocalDateTime.now();
         }
         
         public void recordSuccess() {
@@ -193,36 +432,33 @@ public class CircuitBreakerService {
         }
         
         public void open() {
-            state = State.OPEN;
-            stateChangeTime = LocalDateTime.now();
+            transitionTo(State.OPEN);
         }
         
         public void close() {
-            state = State.CLOSED;
-            stateChangeTime = LocalDateTime.now();
+            transitionTo(State.CLOSED);
             consecutiveFailures.set(0);
             consecutiveSuccesses.set(0);
         }
         
         public boolean attemptHalfOpen() {
             if (state == State.OPEN && 
-                LocalDateTime.now().isAfter(stateChangeTime.plus(timeout))) {
-                state = State.HALF_OPEN;
-                stateChangeTime = LocalDateTime.now();
+                clock.getAsLong() - stateChangeMillis >= timeout.toMillis()) {
+                transitionTo(State.HALF_OPEN);
                 return true;
             }
             return state != State.OPEN;
         }
         
         public void reset() {
-            state = State.CLOSED;
+            transitionTo(State.CLOSED);
             failureCount.set(0);
             successCount.set(0);
             consecutiveFailures.set(0);
             consecutiveSuccesses.set(0);
             lastFailureTime = null;
             lastSuccessTime = null;
-            stateChangeTime = LocalDateTime.now();
+            halfOpenInFlight.set(0);
         }
         
         public boolean isOpen() {
@@ -285,6 +521,14 @@ public class CircuitBreakerService {
         public Duration getTimeout() {
             return timeout;
         }
+        
+        public int getHalfOpenMaxProbes() {
+            return halfOpenMaxProbes;
+        }
+        
+        public int getHalfOpenInFlight() {
+            return halfOpenInFlight.get();
+        }
     }
     
     /**
@@ -153,8 +153,7 @@ public class HealthCheckService {
      * Level 2: MCP协议功能检查（深度检查）
      */
     private Mono<Boolean> checkMcpCapabilities(McpServerInfo serverInfo) {
-        return mcpClientManager.getOrCreateMcpClient(serverInfo)
-                .flatMap(client -> {
+        return mcpClientManager.withClient(serverInfo, client -> {
                     // 方法1: 尝试获取服务器信息（标准MCP能力）
                     return checkMcpServerInfo(client, serverInfo)
                             .onErrorResume(error -> {
@@ -312,8 +311,7 @@ public class HealthCheckService {
      * 执行标准MCP协议健康检查
      */
     private Mono<Boolean> performMcpHealthCheck(McpServerInfo serverInfo) {
-        return mcpClientManager.getOrCreateMcpClient(serverInfo)
-                .flatMap(client -> {
+        return mcpClientManager.withClient(serverInfo, client -> {
                     // 方法1: 尝试获取服务器信息（标准MCP能力）
                     return checkMcpServerInfo(client, serverInfo)
                             .onErrorResume(error -> {
@@ -0,0 +1,74 @@
+package com.pajk.mcpbridge.core.service;
+
+import com.pajk.mcpbridge.core.config.McpRoutingProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲请求预算
+ * <p>
+ * 令牌桶：每个可对冲请求存入 budgetRatio 个令牌（上限 budgetBurst），每发出一次对冲取走 1 个，
+ * 使对冲带来的额外负载长期不超过 budgetRatio 比例，且后端整体变慢时不会放大流量。
+ */
+@Component
+public class HedgeBudget {
+
+    // 令牌以千分之一为单位存储，避免浮点 CAS
+    private static final long SCALE = 1000;
+
+    private final McpRoutingProperties.Hedging hedging;
+    private final AtomicLong tokens;
+    private final AtomicLong hedgesIssued = new AtomicLong(0);
+    private final AtomicLong hedgesWon = new AtomicLong(0);
+    private final AtomicLong hedgesRejected = new AtomicLong(0);
+
+    public HedgeBudget(McpRoutingProperties routingProperties) {
+        this.hedging = routingProperties.getHedging();
+        this.tokens = new AtomicLong(hedging.getBudgetBurst() * SCALE);
+    }
+
+    /**
+     * 每个可对冲请求调用一次，积累预算
+     */
+    public void deposit() {
+        long credit = (long) (hedging.getBudgetRatio() * SCALE);
+        long max = hedging.getBudgetBurst() * SCALE;
+        tokens.getAndUpdate(current -> Math.min(max, current + credit));
+    }
+
+    /**
+     * 申请发出一次对冲，预算不足时返回 false
+     */
+    public boolean tryWithdraw() {
+        while (true) {
+            long current = tokens.get();
+            if (current < SCALE) {
+                hedgesRejected.incrementAndGet();
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - SCALE)) {
+                hedgesIssued.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 记录对冲请求先于主请求成功返回
+     */
+    public void recordHedgeWon() {
+        hedgesWon.incrementAndGet();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("available_tokens", tokens.get() / (double) SCALE);
+        stats.put("hedges_issued", hedgesIssued.get());
+        stats.put("hedges_won", hedgesWon.get());
+        stats.put("hedges_rejected", hedgesRejected.get());
+        return stats;
+    }
+}
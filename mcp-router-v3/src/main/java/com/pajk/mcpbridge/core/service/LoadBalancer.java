@@ -1,19 +1,23 @@
 package com.pajk.mcpbridge.core.service;
 
-import com.alibaba.nacos.api.naming.pojo.Instance;
+import com.pajk.mcpbridge.core.model.McpServerInfo;
+import com.pajk.mcpbridge.core.model.ServerIdentity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
 
 /**
  * 增强的负载均衡器
@@ -34,7 +38,9 @@ public class LoadBalancer {
         LEAST_CONNECTIONS,    // 最少连接
         FASTEST_RESPONSE,     // 最快响应时间
         ADAPTIVE_LOAD,        // 自适应负载
-        SMART_ROUTING        // 智能路由（综合多因素）
+        SMART_ROUTING,        // 智能路由（综合多因素）
+        P2C_LEAST_LOADED,     // 随机两选一：在途请求数 × 窗口平均延迟
+        PEAK_EWMA             // 随机两选一：在途请求数 × 峰值敏感 EWMA 延迟
     }
     
     // 轮询计数器
@@ -43,60 +49,63 @@ public class LoadBalancer {
     // 默认策略
     private Strategy defaultStrategy = Strategy.SMART_ROUTING;
     
-    // 服务器性能统计
-    private final Map<String, ServerMetrics> serverMetrics = new ConcurrentHashMap<>();
+    // 服务器性能统计（以预计算哈希的 ServerIdentity 为键）
+    private final Map<ServerIdentity, ServerMetrics> serverMetrics = new ConcurrentHashMap<>();
     
     // 连接计数器
-    private final Map<String, AtomicLong> connectionCounts = new ConcurrentHashMap<>();
+    private final Map<ServerIdentity, AtomicLong> connectionCounts = new ConcurrentHashMap<>();
+    
+    // 最快响应算法中，没有近期延迟数据的实例使用的默认延迟（毫秒），候选实例都没有数据时使用
+    static final double DEFAULT_RESPONSE_TIME_PRIOR_MS = 100.0;
+    
+    private final LongSupplier clock;
+    
+    public LoadBalancer() {
+        this(System::currentTimeMillis);
+    }
+    
+    LoadBalancer(LongSupplier clock) {
+        this.clock = clock;
+    }
     
     /**
      * 选择服务实例 - 使用默认策略
      */
-    public Instance selectServer(List<Instance> instances) {
-        return selectServer(instances, defaultStrategy);
+    public McpServerInfo selectServer(List<McpServerInfo> servers) {
+        return selectServer(servers, defaultStrategy);
     }
     
     /**
      * 选择服务实例 - 指定策略
+     * <p>
+     * 候选列表来自注册表的健康实例快照，直接使用其预计算的 ServerIdentity，选择过程不拼接字符串、不复制实例
      */
-    public Instance selectServer(List<Instance> instances, Strategy strategy) {
-        if (instances == null || instances.isEmpty()) {
+    public McpServerInfo selectServer(List<McpServerInfo> servers, Strategy strategy) {
+        if (servers == null || servers.isEmpty()) {
             log.warn("No instances available for load balancing");
             return null;
         }
         
-        // 过滤健康的实例
-        List<Instance> healthyInstances = instances.stream()
-                .filter(Instance::isHealthy)
-                .filter(Instance::isEnabled)
-                .toList();
-        
-        if (healthyInstances.isEmpty()) {
-            log.warn("No healthy instances available for load balancing");
-            return null;
-        }
-        
-        if (healthyInstances.size() == 1) {
-            return healthyInstances.get(0);
-        }
-        
-        Instance selected = switch (strategy) {
-            case ROUND_ROBIN -> selectByRoundRobin(healthyInstances);
-            case RANDOM -> selectByRandom(healthyInstances);
-            case WEIGHTED_ROUND_ROBIN -> selectByWeightedRoundRobin(healthyInstances);
-            case LEAST_CONNECTIONS -> selectByLeastConnections(healthyInstances);
-            case FASTEST_RESPONSE -> selectByFastestResponse(healthyInstances);
-            case ADAPTIVE_LOAD -> selectByAdaptiveLoad(healthyInstances);
-            case SMART_ROUTING -> selectBySmartRouting(healthyInstances);
+        McpServerInfo selected = servers.size() == 1 ? servers.get(0) : switch (strategy) {
+            case ROUND_ROBIN -> selectByRoundRobin(servers);
+            case RANDOM -> selectByRandom(servers);
+            case WEIGHTED_ROUND_ROBIN -> selectByWeightedRoundRobin(servers);
+            case LEAST_CONNECTIONS -> selectByLeastConnections(servers);
+            case FASTEST_RESPONSE -> selectByFastestResponse(servers);
+            case ADAPTIVE_LOAD -> selectByAdaptiveLoad(servers);
+            case SMART_ROUTING -> selectBySmartRouting(servers);
+            case P2C_LEAST_LOADED -> selectByPowerOfTwoChoices(servers, false);
+            case PEAK_EWMA -> selectByPowerOfTwoChoices(servers, true);
         };
         
         if (selected != null) {
             // 增加连接计数
-            String serverKey = buildServerKey(selected);
-            connectionCounts.computeIfAbsent(serverKey, k -> new AtomicLong(0)).incrementAndGet();
+            ServerIdentity identity = selected.getIdentity();
+            connectionCounts.computeIfAbsent(identity, k -> new AtomicLong(0)).incrementAndGet();
             
-            log.debug("Selected instance by {}: {}:{} (strategy: {})", 
-                    strategy, selected.getIp(), selected.getPort(), strategy);
+            if (log.isDebugEnabled()) {
+                log.debug("Selected instance: {} (strategy: {})", identity.getEndpointKey(), strategy);
+            }
         }
         
         return selected;
@@ -105,117 +114,196 @@ public class LoadBalancer {
     /**
      * 轮询算法
      */
-    private Instance selectByRoundRobin(List<Instance> instances) {
-        int index = roundRobinIndex.getAndIncrement() % instances.size();
-        return instances.get(index);
+    private McpServerInfo selectByRoundRobin(List<McpServerInfo> servers) {
+        int index = Math.floorMod(roundRobinIndex.getAndIncrement(), servers.size());
+        return servers.get(index);
     }
     
     /**
      * 随机算法
      */
-    private Instance selectByRandom(List<Instance> instances) {
-        int index = ThreadLocalRandom.current().nextInt(instances.size());
-        return instances.get(index);
+    private McpServerInfo selectByRandom(List<McpServerInfo> servers) {
+        int index = ThreadLocalRandom.current().nextInt(servers.size());
+        return servers.get(index);
     }
     
     /**
      * 加权轮询算法
      */
-    private Instance selectByWeightedRoundRobin(List<Instance> instances) {
+    private McpServerInfo selectByWeightedRoundRobin(List<McpServerInfo> servers) {
         // 计算总权重
-        double totalWeight = instances.stream()
-                .mapToDouble(Instance::getWeight)
-                .sum();
+        double totalWeight = 0;
+        for (int i = 0; i < servers.size(); i++) {
+            totalWeight += servers.get(i).getIdentity().getWeight();
+        }
         
         if (totalWeight <= 0) {
-            return selectByRoundRobin(instances);
+            return selectByRoundRobin(servers);
         }
         
         // 生成随机权重值
         double randomWeight = ThreadLocalRandom.current().nextDouble(totalWeight);
         double currentWeight = 0;
         
-        for (Instance instance : instances) {
-            currentWeight += instance.getWeight();
+        for (int i = 0; i < servers.size(); i++) {
+            currentWeight += servers.get(i).getIdentity().getWeight();
             if (randomWeight <= currentWeight) {
-                return instance;
+                return servers.get(i);
             }
         }
         
-        return instances.get(instances.size() - 1);
+        return servers.get(servers.size() - 1);
     }
     
     /**
      * 最少连接算法
      */
-    private Instance selectByLeastConnections(List<Instance> instances) {
-        return instances.stream()
-                .min(Comparator.comparingLong(instance -> {
-                    String serverKey = buildServerKey(instance);
-                    return connectionCounts.getOrDefault(serverKey, new AtomicLong(0)).get();
-                }))
-                .orElse(instances.get(0));
+    private McpServerInfo selectByLeastConnections(List<McpServerInfo> servers) {
+        McpServerInfo best = servers.get(0);
+        long bestConnections = Long.MAX_VALUE;
+        for (int i = 0; i < servers.size(); i++) {
+            long connections = getConnectionCount(servers.get(i).getIdentity());
+            if (connections < bestConnections) {
+                bestConnections = connections;
+                best = servers.get(i);
+            }
+        }
+        return best;
     }
     
     /**
-     * 最快响应时间算法
+     * 最快响应时间算法（基于最近请求的 EWMA 延迟）。
+     * 没有指标和指标已过期的实例同等对待，按中性先验计：其余实例近期延迟的中位数，都没有数据时取默认延迟
      */
-    private Instance selectByFastestResponse(List<Instance> instances) {
-        return instances.stream()
-                .min(Comparator.comparingLong(instance -> {
-                    String serverKey = buildServerKey(instance);
-                    ServerMetrics metrics = serverMetrics.get(serverKey);
-                    return metrics != null ? metrics.getAverageResponseTime() : Long.MAX_VALUE;
-                }))
-                .orElse(instances.get(0));
+    private McpServerInfo selectByFastestResponse(List<McpServerInfo> servers) {
+        int size = servers.size();
+        double[] responseTimes = new double[size];
+        double[] known = new double[size];
+        int knownCount = 0;
+        for (int i = 0; i < size; i++) {
+            ServerMetrics metrics = serverMetrics.get(servers.get(i).getIdentity());
+            if (metrics != null && metrics.hasRecentResponseTime()) {
+                responseTimes[i] = metrics.getEwmaResponseTime();
+                known[knownCount++] = responseTimes[i];
+            } else {
+                responseTimes[i] = Double.NaN;
+            }
+        }
+        double prior = DEFAULT_RESPONSE_TIME_PRIOR_MS;
+        if (knownCount > 0) {
+            Arrays.sort(known, 0, knownCount);
+            prior = knownCount % 2 == 1
+                    ? known[knownCount / 2]
+                    : (known[knownCount / 2 - 1] + known[knownCount / 2]) / 2;
+        }
+        McpServerInfo best = servers.get(0);
+        double bestResponseTime = Double.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            double responseTime = Double.isNaN(responseTimes[i]) ? prior : responseTimes[i];
+            if (responseTime < bestResponseTime) {
+                bestResponseTime = responseTime;
+                best = servers.get(i);
+            }
+        }
+        return best;
     }
     
     /**
-     * 自适应负载算法
+     * 自适应负载算法（延迟与错误率取滑动窗口内的值）
      */
-    private Instance selectByAdaptiveLoad(List<Instance> instances) {
-        return instances.stream()
-                .min(Comparator.comparingDouble(instance -> {
-                    String serverKey = buildServerKey(instance);
-                    ServerMetrics metrics = serverMetrics.get(serverKey);
-                    if (metrics == null) {
-                        return 0.0; // 新服务器优先级最高
-                    }
-                    
-                    // 综合考虑响应时间、连接数和错误率
-                    double responseTimeFactor = metrics.getAverageResponseTime() / 1000.0; // 转换为秒
-                    double connectionFactor = connectionCounts.getOrDefault(serverKey, new AtomicLong(0)).get();
-                    double errorRateFactor = metrics.getErrorRate() * 10; // 放大错误率影响
-                    
-                    return responseTimeFactor + connectionFactor * 0.1 + errorRateFactor;
-                }))
-                .orElse(instances.get(0));
+    private McpServerInfo selectByAdaptiveLoad(List<McpServerInfo> servers) {
+        McpServerInfo best = servers.get(0);
+        double bestScore = Double.MAX_VALUE;
+        for (int i = 0; i < servers.size(); i++) {
+            ServerIdentity identity = servers.get(i).getIdentity();
+            ServerMetrics metrics = serverMetrics.get(identity);
+            double score;
+            if (metrics == null) {
+                score = 0.0; // 新服务器优先级最高
+            } else {
+                // 综合考虑响应时间、连接数和错误率
+                double responseTimeFactor = metrics.getAverageResponseTime() / 1000.0; // 转换为秒
+                double connectionFactor = getConnectionCount(identity);
+                double errorRateFactor = metrics.getErrorRate() * 10; // 放大错误率影响
+                score = responseTimeFactor + connectionFactor * 0.1 + errorRateFactor;
+            }
+            if (score < bestScore) {
+                bestScore = score;
+                best = servers.get(i);
+            }
+        }
+        return best;
     }
     
     /**
      * 智能路由算法（综合多因素）
      */
-    private Instance selectBySmartRouting(List<Instance> instances) {
-        // 如果只有一个实例，直接返回
-        if (instances.size() == 1) {
-            return instances.get(0);
-        }
-        
+    private McpServerInfo selectBySmartRouting(List<McpServerInfo> servers) {
         // 计算每个实例的综合评分
-        return instances.stream()
-                .min(Comparator.comparingDouble(this::calculateInstanceScore))
-                .orElse(instances.get(0));
+        McpServerInfo best = servers.get(0);
+        double bestScore = Double.MAX_VALUE;
+        for (int i = 0; i < servers.size(); i++) {
+            double score = calculateInstanceScore(servers.get(i).getIdentity());
+            if (score < bestScore) {
+                bestScore = score;
+                best = servers.get(i);
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * 随机两选一（Power of Two Choices）：随机抽取两个不同实例，选择负载代价较低者。
+     * 只访问两个候选，O(1) 且不分配对象，与实例规模无关
+     */
+    private McpServerInfo selectByPowerOfTwoChoices(List<McpServerInfo> servers, boolean peakEwma) {
+        int size = servers.size();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        McpServerInfo a = servers.get(first);
+        McpServerInfo b = servers.get(second);
+        double latencyA = recentLatency(a.getIdentity(), peakEwma);
+        double latencyB = recentLatency(b.getIdentity(), peakEwma);
+        // 没有近期延迟数据的候选按中性先验计：另一候选的延迟（两个候选已知延迟的中位数），都没有时取默认延迟
+        if (Double.isNaN(latencyA)) {
+            latencyA = Double.isNaN(latencyB) ? DEFAULT_RESPONSE_TIME_PRIOR_MS : latencyB;
+        }
+        if (Double.isNaN(latencyB)) {
+            latencyB = latencyA;
+        }
+        return loadCost(a.getIdentity(), latencyA) <= loadCost(b.getIdentity(), latencyB) ? a : b;
+    }
+    
+    /**
+     * 近期延迟（毫秒）：窗口平均延迟或峰值 EWMA；没有指标或超过一个窗口没有请求时返回 NaN，由调用方代入先验
+     */
+    private double recentLatency(ServerIdentity identity, boolean peakEwma) {
+        ServerMetrics metrics = serverMetrics.get(identity);
+        if (metrics == null || !metrics.hasRecentResponseTime()) {
+            return Double.NaN;
+        }
+        return peakEwma ? metrics.getPeakEwmaResponseTime() : metrics.getAverageResponseTime();
+    }
+    
+    /**
+     * 负载代价 = (在途请求数 + 1) × 延迟 / 权重；延迟至少按 1ms 计，仍按在途请求数区分
+     */
+    private double loadCost(ServerIdentity identity, double latency) {
+        return (getConnectionCount(identity) + 1) * Math.max(latency, 1.0) / identity.getWeight();
     }
     
     /**
-     * 计算实例综合评分（分数越低越好）
+     * 计算实例综合评分（分数越低越好），延迟、错误率、请求频率均取滑动窗口内的值
      */
-    private double calculateInstanceScore(Instance instance) {
-        String serverKey = buildServerKey(instance);
-        ServerMetrics metrics = serverMetrics.get(serverKey);
+    private double calculateInstanceScore(ServerIdentity identity) {
+        ServerMetrics metrics = serverMetrics.get(identity);
         
         // 基础权重（Nacos配置的权重，权重越高分数越低）
-        double weightScore = instance.getWeight() > 0 ? 1.0 / instance.getWeight() : 1.0;
+        double weightScore = 1.0 / identity.getWeight();
         
         if (metrics == null) {
             // 新服务器给予中等优先级
@@ -226,13 +314,13 @@ public class LoadBalancer {
         double responseTimeScore = Math.min(metrics.getAverageResponseTime() / 1000.0, 10.0);
         
         // 连接数评分
-        long connections = connectionCounts.getOrDefault(serverKey, new AtomicLong(0)).get();
+        long connections = getConnectionCount(identity);
         double connectionScore = Math.min(connections * 0.1, 5.0);
         
         // 错误率评分
         double errorScore = metrics.getErrorRate() * 20;
         
-        // 负载评分（基于最近的请求频率）
+        // 负载评分（基于窗口内的请求频率）
         double loadScore = Math.min(metrics.getRequestsPerSecond() / 10.0, 3.0);
         
         // 健康度评分（基于最近的健康检查结果）
@@ -246,46 +334,60 @@ public class LoadBalancer {
                            loadScore * 0.1 + 
                            healthScore * 0.1;
         
-        log.debug("Smart routing score for {}:{} = {:.3f} (rt:{:.3f}, conn:{:.3f}, err:{:.3f}, load:{:.3f}, health:{:.3f})",
-                instance.getIp(), instance.getPort(), totalScore,
-                responseTimeScore, connectionScore, errorScore, loadScore, healthScore);
+        if (log.isDebugEnabled()) {
+            log.debug("Smart routing score for {} = {} (rt:{}, conn:{}, err:{}, load:{}, health:{})",
+                    identity.getEndpointKey(), totalScore,
+                    responseTimeScore, connectionScore, errorScore, loadScore, healthScore);
+        }
         
         return totalScore;
     }
     
+    long getConnectionCount(ServerIdentity identity) {
+        AtomicLong count = connectionCounts.get(identity);
+        return count != null ? count.get() : 0;
+    }
+    
+    /**
+     * 滑动窗口内的响应时间分位数（毫秒）；窗口样本数不足 minSamples 时返回 -1
+     */
+    public long getResponseTimePercentile(ServerIdentity identity, double percentile, long minSamples) {
+        ServerMetrics metrics = serverMetrics.get(identity);
+        if (metrics == null || metrics.getWindowRequests() < minSamples) {
+            return -1;
+        }
+        return metrics.getResponseTimePercentile(percentile);
+    }
+    
     /**
      * 记录请求响应时间
      */
-    public void recordResponseTime(Instance instance, long responseTimeMs) {
-        String serverKey = buildServerKey(instance);
-        serverMetrics.computeIfAbsent(serverKey, k -> new ServerMetrics())
+    public void recordResponseTime(ServerIdentity identity, long responseTimeMs) {
+        serverMetrics.computeIfAbsent(identity, k -> new ServerMetrics(clock))
                 .recordResponseTime(responseTimeMs);
     }
     
     /**
      * 记录请求错误
      */
-    public void recordError(Instance instance) {
-        String serverKey = buildServerKey(instance);
-        serverMetrics.computeIfAbsent(serverKey, k -> new ServerMetrics())
+    public void recordError(ServerIdentity identity) {
+        serverMetrics.computeIfAbsent(identity, k -> new ServerMetrics(clock))
                 .recordError();
     }
     
     /**
      * 记录请求成功
      */
-    public void recordSuccess(Instance instance) {
-        String serverKey = buildServerKey(instance);
-        serverMetrics.computeIfAbsent(serverKey, k -> new ServerMetrics())
+    public void recordSuccess(ServerIdentity identity) {
+        serverMetrics.computeIfAbsent(identity, k -> new ServerMetrics(clock))
                 .recordSuccess();
     }
     
     /**
      * 减少连接计数
      */
-    public void decrementConnectionCount(Instance instance) {
-        String serverKey = buildServerKey(instance);
-        AtomicLong count = connectionCounts.get(serverKey);
+    public void decrementConnectionCount(ServerIdentity identity) {
+        AtomicLong count = connectionCounts.get(identity);
         if (count != null) {
             count.decrementAndGet();
         }
@@ -294,9 +396,8 @@ public class LoadBalancer {
     /**
      * 更新健康度评分
      */
-    public void updateHealthScore(Instance instance, double healthScore) {
-        String serverKey = buildServerKey(instance);
-        serverMetrics.computeIfAbsent(serverKey, k -> new ServerMetrics())
+    public void updateHealthScore(ServerIdentity identity, double healthScore) {
+        serverMetrics.computeIfAbsent(identity, k -> new ServerMetrics(clock))
                 .updateHealthScore(healthScore);
     }
     
@@ -307,75 +408,229 @@ public class LoadBalancer {
         Map<String, Object> stats = new ConcurrentHashMap<>();
         stats.put("strategy", defaultStrategy.toString());
         stats.put("total_servers", serverMetrics.size());
-        stats.put("server_metrics", serverMetrics);
+        stats.put("window_seconds", ServerMetrics.WINDOW_SECONDS);
+        stats.put("server_metrics", serverMetrics.entrySet().stream()
+                .collect(java.util.stream.Collectors.toMap(
+                        entry -> entry.getKey().getServerKey(),
+                        Map.Entry::getValue
+                )));
         stats.put("connection_counts", connectionCounts.entrySet().stream()
                 .collect(java.util.stream.Collectors.toMap(
-                        Map.Entry::getKey,
+                        entry -> entry.getKey().getServerKey(),
                         entry -> entry.getValue().get()
                 )));
         return stats;
     }
     
-    /**
-     * 构建服务器键
-     */
-    private String buildServerKey(Instance instance) {
-        return instance.getIp() + ":" + instance.getPort();
-    }
-    
     /**
      * 服务器性能指标类
+     * <p>
+     * 除累计计数外，按秒分桶的环形缓冲区记录最近 WINDOW_SECONDS 秒的请求数、错误数、延迟总和与延迟直方图，
+     * 过期的桶在被复用时清零，因此平均延迟、p50/p99、错误率和 RPS 只反映近期行为。
+     * 所有写入均为无锁的原子操作；桶轮转时与并发写入存在极小的计数误差，对路由评分可以接受。
      */
     public static class ServerMetrics {
+        
+        // 滑动窗口长度（秒）
+        public static final int WINDOW_SECONDS = 10;
+        
+        // EWMA 平滑系数
+        private static final double EWMA_ALPHA = 0.2;
+        
+        // 峰值 EWMA 衰减时间常数（毫秒）
+        private static final double PEAK_EWMA_DECAY_MS = 10_000.0;
+        
+        // 直方图：每个 2 的幂区间再线性细分为 4 个子桶，覆盖 0ms ~ 约 17 分钟
+        private static final int SUB_BUCKET_BITS = 2;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int MAX_MAGNITUDE = 20;
+        private static final int HISTOGRAM_SIZE = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+        
+        private final LongSupplier clock;
+        private final WindowBucket[] buckets = new WindowBucket[WINDOW_SECONDS];
+        
+        // 累计统计
         private final AtomicLong totalRequests = new AtomicLong(0);
         private final AtomicLong successfulRequests = new AtomicLong(0);
         private final AtomicLong errorRequests = new AtomicLong(0);
-        private final AtomicLong totalResponseTime = new AtomicLong(0);
+        
+        // EWMA 延迟（double 以 bits 形式存放）
+        private final AtomicLong ewmaResponseTimeBits = new AtomicLong(Double.doubleToLongBits(0.0));
+        
+        // 峰值敏感 EWMA：新样本高于当前值时立即跳到该值，否则按时间指数衰减
+        private final AtomicLong peakEwmaBits = new AtomicLong(Double.doubleToLongBits(0.0));
+        private volatile long peakEwmaStampMillis;
+        
         private volatile double healthScore = 1.0;
-        private volatile LocalDateTime lastRequestTime = LocalDateTime.now();
+        private volatile long lastRequestMillis;
+        
+        public ServerMetrics() {
+            this(System::currentTimeMillis);
+        }
+        
+        ServerMetrics(LongSupplier clock) {
+            this.clock = clock;
+            for (int i = 0; i < WINDOW_SECONDS; i++) {
+                buckets[i] = new WindowBucket();
+            }
+            this.lastRequestMillis = clock.getAsLong();
+        }
         
         public void recordResponseTime(long responseTimeMs) {
+            long now = clock.getAsLong();
+            long latency = Math.max(0, responseTimeMs);
             totalRequests.incrementAndGet();
-            totalResponseTime.addAndGet(responseTimeMs);
-            lastRequestTime = LocalDateTime.now();
+            
+            WindowBucket bucket = currentBucket(now);
+            bucket.requests.incrementAndGet();
+            bucket.latencySum.addAndGet(latency);
+            bucket.histogram.incrementAndGet(histogramIndex(latency));
+            
+            updateEwma(latency, now);
+            updatePeakEwma(latency, now);
+            lastRequestMillis = now;
         }
         
         public void recordSuccess() {
             successfulRequests.incrementAndGet();
-            lastRequestTime = LocalDateTime.now();
+            lastRequestMillis = clock.getAsLong();
         }
         
         public void recordError() {
+            long now = clock.getAsLong();
             errorRequests.incrementAndGet();
-            lastRequestTime = LocalDateTime.now();
+            currentBucket(now).errors.incrementAndGet();
+            lastRequestMillis = now;
         }
         
         public void updateHealthScore(double score) {
             this.healthScore = score;
         }
         
+        /**
+         * 窗口内平均延迟（毫秒），窗口内无请求时为 0
+         */
         public long getAverageResponseTime() {
-            long total = totalRequests.get();
-            return total > 0 ? totalResponseTime.get() / total : 0;
+            long second = clock.getAsLong() / 1000;
+            long requests = 0;
+            long latencySum = 0;
+            for (WindowBucket bucket : buckets) {
+                if (bucket.isLive(second)) {
+                    requests += bucket.requests.get();
+                    latencySum += bucket.latencySum.get();
+                }
+            }
+            return requests > 0 ? latencySum / requests : 0;
+        }
+        
+        /**
+         * 最近一个窗口内是否有请求记录过延迟；没有时 EWMA 视为无数据
+         */
+        public boolean hasRecentResponseTime() {
+            return totalRequests.get() > 0 && clock.getAsLong() - lastRequestMillis <= WINDOW_SECONDS * 1000L;
+        }
+        
+        /**
+         * 最近请求的 EWMA 延迟（毫秒），超过一个窗口没有请求时视为无数据
+         */
+        public double getEwmaResponseTime() {
+            if (clock.getAsLong() - lastRequestMillis > WINDOW_SECONDS * 1000L) {
+                return 0.0;
+            }
+            return Double.longBitsToDouble(ewmaResponseTimeBits.get());
+        }
+        
+        /**
+         * 峰值敏感 EWMA 延迟（毫秒），读取时按距上次更新的时间衰减
+         */
+        public double getPeakEwmaResponseTime() {
+            double value = Double.longBitsToDouble(peakEwmaBits.get());
+            long elapsed = clock.getAsLong() - peakEwmaStampMillis;
+            return elapsed > 0 ? value * Math.exp(-elapsed / PEAK_EWMA_DECAY_MS) : value;
+        }
+        
+        public long getP50ResponseTime() {
+            return getResponseTimePercentile(0.50);
+        }
+        
+        public long getP99ResponseTime() {
+            return getResponseTimePercentile(0.99);
+        }
+        
+        /**
+         * 窗口内延迟分位数（毫秒，取所在直方图桶的上界），窗口内无请求时为 0
+         */
+        public long getResponseTimePercentile(double percentile) {
+            long second = clock.getAsLong() / 1000;
+            long count = 0;
+            for (WindowBucket bucket : buckets) {
+                if (bucket.isLive(second)) {
+                    count += bucket.requests.get();
+                }
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile * count);
+            long seen = 0;
+            for (int index = 0; index < HISTOGRAM_SIZE; index++) {
+                for (WindowBucket bucket : buckets) {
+                    if (bucket.isLive(second)) {
+                        seen += bucket.histogram.get(index);
+                    }
+                }
+                if (seen >= rank) {
+                    return histogramUpperBound(index);
+                }
+            }
+            return histogramUpperBound(HISTOGRAM_SIZE - 1);
         }
         
+        /**
+         * 窗口内错误率
+         */
         public double getErrorRate() {
-            long total = totalRequests.get();
-            return total > 0 ? (double) errorRequests.get() / total : 0.0;
+            long second = clock.getAsLong() / 1000;
+            long requests = 0;
+            long errors = 0;
+            for (WindowBucket bucket : buckets) {
+                if (bucket.isLive(second)) {
+                    requests += bucket.requests.get();
+                    errors += bucket.errors.get();
+                }
+            }
+            return requests > 0 ? Math.min(1.0, (double) errors / requests) : 0.0;
         }
         
         public double getSuccessRate() {
-            long total = totalRequests.get();
-            return total > 0 ? (double) successfulRequests.get() / total : 1.0;
+            long second = clock.getAsLong() / 1000;
+            return getWindowRequests(second) > 0 ? 1.0 - getErrorRate() : 1.0;
         }
         
+        /**
+         * 窗口内每秒请求数
+         */
         public double getRequestsPerSecond() {
-            LocalDateTime oneMinuteAgo = LocalDateTime.now().minusMinutes(1);
-            if (lastRequestTime.isAfter(oneMinuteAgo)) {
-                long secondsSinceLastRequest = Duration.between(lastRequestTime, LocalDateTime.now()).getSeconds();
-                return secondsSinceLastRequest > 0 ? totalRequests.get() / (double) secondsSinceLastRequest : 0.0;
+            return getWindowRequests(clock.getAsLong() / 1000) / (double) WINDOW_SECONDS;
+        }
+        
+        public long getWindowRequests() {
+            return getWindowRequests(clock.getAsLong() / 1000);
+        }
+        
+        public long getWindowErrors() {
+            long second = clock.getAsLong() / 1000;
+            long errors = 0;
+            for (WindowBucket bucket : buckets) {
+                if (bucket.isLive(second)) {
+                    errors += bucket.errors.get();
+                }
             }
-            return 0.0;
+            return errors;
+        }
+        
+        public int getWindowSeconds() {
+            return WINDOW_SECONDS;
         }
         
         public double getHealthScore() {
@@ -386,6 +641,108 @@ public class LoadBalancer {
         public long getTotalRequests() { return totalRequests.get(); }
         public long getSuccessfulRequests() { return successfulRequests.get(); }
         public long getErrorRequests() { return errorRequests.get(); }
-        public LocalDateTime getLastRequestTime() { return lastRequestTime; }
+        public LocalDateTime getLastRequestTime() {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(lastRequestMillis), ZoneId.systemDefault());
+        }
+        
+        private long getWindowRequests(long second) {
+            long requests = 0;
+            for (WindowBucket bucket : buckets) {
+                if (bucket.isLive(second)) {
+                    requests += bucket.requests.get();
+                }
+            }
+            return requests;
+        }
+        
+        /**
+         * 取当前秒对应的桶，桶属于更早的秒时由 CAS 成功的线程清零后复用
+         */
+        private WindowBucket currentBucket(long nowMillis) {
+            long second = nowMillis / 1000;
+            WindowBucket bucket = buckets[(int) (second % WINDOW_SECONDS)];
+            long bucketSecond = bucket.second.get();
+            if (bucketSecond < second && bucket.second.compareAndSet(bucketSecond, second)) {
+                bucket.reset();
+            }
+            return bucket;
+        }
+        
+        private void updateEwma(long latency, long now) {
+            boolean stale = now - lastRequestMillis > WINDOW_SECONDS * 1000L;
+            long currentBits;
+            long nextBits;
+            do {
+                currentBits = ewmaResponseTimeBits.get();
+                double current = Double.longBitsToDouble(currentBits);
+                double next = stale || current == 0.0 ? latency : current + EWMA_ALPHA * (latency - current);
+                nextBits = Double.doubleToLongBits(next);
+            } while (!ewmaResponseTimeBits.compareAndSet(currentBits, nextBits));
+        }
+        
+        private void updatePeakEwma(long latency, long now) {
+            long currentBits;
+            long nextBits;
+            do {
+                currentBits = peakEwmaBits.get();
+                double current = Double.longBitsToDouble(currentBits);
+                double next;
+                if (latency > current) {
+                    next = latency;
+                } else {
+                    double decay = Math.exp(-Math.max(0, now - peakEwmaStampMillis) / PEAK_EWMA_DECAY_MS);
+                    next = current * decay + latency * (1 - decay);
+                }
+                nextBits = Double.doubleToLongBits(next);
+            } while (!peakEwmaBits.compareAndSet(currentBits, nextBits));
+            peakEwmaStampMillis = now;
+        }
+        
+        static int histogramIndex(long latency) {
+            if (latency < SUB_BUCKETS) {
+                return (int) latency;
+            }
+            int magnitude = Math.min(63 - Long.numberOfLeadingZeros(latency), MAX_MAGNITUDE);
+            if (magnitude == MAX_MAGNITUDE && latency >= (1L << (MAX_MAGNITUDE + 1))) {
+                return HISTOGRAM_SIZE - 1;
+            }
+            int subBucket = (int) ((latency >> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+            return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+        
+        static long histogramUpperBound(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int magnitude = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            int subBucket = index % SUB_BUCKETS;
+            long lower = (long) (SUB_BUCKETS + subBucket) << (magnitude - SUB_BUCKET_BITS);
+            return lower + (1L << (magnitude - SUB_BUCKET_BITS)) - 1;
+        }
+        
+        /**
+         * 单秒桶
+         */
+        private static final class WindowBucket {
+            private final AtomicLong second = new AtomicLong(-1);
+            private final AtomicLong requests = new AtomicLong(0);
+            private final AtomicLong errors = new AtomicLong(0);
+            private final AtomicLong latencySum = new AtomicLong(0);
+            private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_SIZE);
+            
+            boolean isLive(long nowSecond) {
+                long bucketSecond = second.get();
+                return bucketSecond >= 0 && nowSecond - bucketSecond < WINDOW_SECONDS;
+            }
+            
+            void reset() {
+                requests.set(0);
+                errors.set(0);
+                latencySum.set(0);
+                for (int i = 0; i < HISTOGRAM_SIZE; i++) {
+                    histogram.set(i, 0);
+                }
+            }
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,145 @@
+package com.pajk.mcpbridge.core.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 后端能力列表缓存（tools/list、resources/list、prompts/list、resources/templates/list）
+ * <p>
+ * 缓存键为 server key + 能力类型，值携带写入时的 server.md5 版本号：
+ * Nacos 元数据中的 md5 变化后，下一次查询自动失效；收到 list_changed 通知时主动失效。
+ * 按访问顺序做 LRU 淘汰，并带 TTL 兜底。
+ */
+public class McpCapabilityCache {
+
+    private final static Logger log = LoggerFactory.getLogger(McpCapabilityCache.class);
+
+    /**
+     * 能力类型
+     */
+    public enum Kind {
+        TOOLS,
+        RESOURCES,
+        PROMPTS,
+        RESOURCE_TEMPLATES
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    private final Map<String, Entry> entries;
+
+    // 统计信息
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong evictions = new AtomicLong(0);
+    private final AtomicLong invalidations = new AtomicLong(0);
+
+    public McpCapabilityCache(int maxEntries, Duration ttl) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > McpCapabilityCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 查询缓存，md5 不一致或已过期视为未命中
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String serverKey, String md5, Kind kind) {
+        String key = buildKey(serverKey, kind);
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (Objects.equals(entry.md5, md5) && System.nanoTime() - entry.createdAtNanos < ttlNanos) {
+                    hits.incrementAndGet();
+                    return (T) entry.value;
+                }
+                entries.remove(key);
+                if (!Objects.equals(entry.md5, md5)) {
+                    log.debug("♻️ Capability cache version changed for {} ({} -> {})", key, entry.md5, md5);
+                }
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String serverKey, String md5, Kind kind, Object value) {
+        if (value == null) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(buildKey(serverKey, kind), new Entry(md5, value, System.nanoTime()));
+        }
+    }
+
+    /**
+     * 使指定服务器的某类能力缓存失效（如收到 notifications/tools/list_changed）
+     */
+    public void invalidate(String serverKey, Kind kind) {
+        synchronized (entries) {
+            if (entries.remove(buildKey(serverKey, kind)) != null) {
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 使指定服务器的全部能力缓存失效
+     */
+    public void invalidate(String serverKey) {
+        for (Kind kind : Kind.values()) {
+            invalidate(serverKey, kind);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return Map.of(
+                "size", size,
+                "max_entries", maxEntries,
+                "ttl_seconds", Duration.ofNanos(ttlNanos).toSeconds(),
+                "hits", hitCount,
+                "misses", misses.get(),
+                "hit_rate", total > 0 ? (double) hitCount / total : 0.0,
+                "evictions", evictions.get(),
+                "invalidations", invalidations.get()
+        );
+    }
+
+    private String buildKey(String serverKey, Kind kind) {
+        return serverKey + "#" + kind.name();
+    }
+
+    private static final class Entry {
+        final String md5;
+        final Object value;
+        final long createdAtNanos;
+
+        Entry(String md5, Object value, long createdAtNanos) {
+            this.md5 = md5;
+            this.value = value;
+            this.createdAtNanos = createdAtNanos;
+        }
+    }
+}
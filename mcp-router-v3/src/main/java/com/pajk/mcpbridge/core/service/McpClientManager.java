@@ -1,6 +1,7 @@
 package com.pajk.mcpbridge.core.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pajk.mcpbridge.core.config.McpConnectionPoolProperties;
 import com.pajk.mcpbridge.core.model.McpServerInfo;
 import io.modelcontextprotocol.client.McpAsyncClient;
 import io.modelcontextprotocol.client.McpClient;
@@ -12,19 +13,27 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 import reactor.core.scheduler.Schedulers;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 /**
  * 增强的MCP客户端管理器 - 连接池版本
  * 负责管理到远程MCP服务器的连接池，支持连接复用、空闲回收、生命周期管理
+ * 每个后端维护 min~max 个连接，按在途请求数最少选择连接，池大小由 mcp.connection-pool 配置
  */
 @Service
 @RequiredArgsConstructor
@@ -34,21 +43,39 @@ public class McpClientManager {
 
     private final WebClient.Builder webClientBuilder;
     private final ObjectMapper objectMapper;
+    private final McpConnectionPoolProperties poolProperties;
 
-    // 连接池：server key -> connection wrapper
-    private final Map<String, McpConnectionWrapper> connectionPool = new ConcurrentHashMap<>();
+    // 连接池：server key -> 该后端的多连接池
+    private final Map<String, BackendPool> connectionPool = new ConcurrentHashMap<>();
     
-    // 连接池配置
-    private static final int MAX_POOL_SIZE = 20;
-    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(10); // 10分钟空闲超时
+    // 正在建立中的连接（single-flight）：同一 server key 同一时刻只有一个建连过程，并发请求共享结果
+    private final Map<String, Mono<McpConnectionWrapper>> pendingConnections = new ConcurrentHashMap<>();
+    
+    // 所有后端的连接总数
+    private final AtomicInteger totalConnections = new AtomicInteger(0);
+    
+    // 连接配置
     private static final Duration CONNECTION_TIMEOUT = Duration.ofSeconds(60); // 增加到60秒以支持较慢的MCP操作
-    private static final Duration MAX_LIFETIME = Duration.ofHours(1); // 连接最大生命周期
+    private static final Duration DRAIN_POLL_INTERVAL = Duration.ofMillis(100); // 下线连接时检查在途请求的间隔
+    
+    // 能力列表缓存配置
+    private static final int CAPABILITY_CACHE_MAX_ENTRIES = 2048;
+    private static final Duration CAPABILITY_CACHE_TTL = Duration.ofMinutes(5);
+    private static final String SERVER_MD5_METADATA_KEY = "server.md5";
+    
+    // 路由器作为 MCP 客户端连接后端时使用的客户端信息
+    public static final McpSchema.Implementation CLIENT_INFO = new McpSchema.Implementation("mcp-router-v3-client", "2.0.0");
+    
+    // 能力列表缓存：server key + md5 版本 -> tools/resources/prompts 列表
+    private final McpCapabilityCache capabilityCache = 
+            new McpCapabilityCache(CAPABILITY_CACHE_MAX_ENTRIES, CAPABILITY_CACHE_TTL);
     
     // 统计信息
     private final AtomicLong totalConnectionsCreated = new AtomicLong(0);
     private final AtomicLong totalConnectionsClosed = new AtomicLong(0);
     private final AtomicLong totalConnectionRequests = new AtomicLong(0);
     private final AtomicLong cacheHits = new AtomicLong(0);
+    private final AtomicLong coalescedWaiters = new AtomicLong(0);
 
     /**
      * 启动连接池管理
@@ -56,8 +83,9 @@ public class McpClientManager {
     @PostConstruct
     public void startConnectionPoolManager() {
         log.info("🏊 Starting MCP connection pool manager...");
-        log.info("📊 Pool configuration - Max size: {}, Idle timeout: {}, Max lifetime: {}", 
-                MAX_POOL_SIZE, IDLE_TIMEOUT, MAX_LIFETIME);
+        log.info("📊 Pool configuration - Per server: {}-{}, Max total: {}, Max in-flight per connection: {}, Idle timeout: {}, Max lifetime: {}", 
+                poolProperties.getMinPerServer(), poolProperties.getMaxPerServer(), poolProperties.getMaxTotal(),
+                poolProperties.getMaxInFlightPerConnection(), poolProperties.getIdleTimeout(), poolProperties.getMaxLifetime());
         
         // 启动定期清理任务
         reactor.core.publisher.Flux.interval(Duration.ofMinutes(1))
@@ -69,9 +97,39 @@ public class McpClientManager {
     }
 
     /**
-     * 获取或创建 MCP 客户端（连接池版本）
+     * 获取或创建 MCP 客户端（连接池版本），返回该后端在途请求最少的连接
      */
     public Mono<McpAsyncClient> getOrCreateMcpClient(McpServerInfo serverInfo) {
+        return acquireConnection(serverInfo).map(McpConnectionWrapper::getClient);
+    }
+
+    /**
+     * 在连接池选出的连接上执行调用：建连走 single-flight，调用期间计入该连接的在途请求数
+     */
+    public <T> Mono<T> withClient(McpServerInfo serverInfo, Function<McpAsyncClient, Mono<T>> call) {
+        return withConnection(serverInfo, null, call);
+    }
+
+    /**
+     * 预热指定后端的连接到配置的最小连接数
+     */
+    public void warmUp(McpServerInfo serverInfo) {
+        if (serverInfo == null || (serverInfo.getName() != null && serverInfo.getName().startsWith("virtual-"))) {
+            return;
+        }
+        String serverKey = buildServerKey(serverInfo);
+        BackendPool pool = connectionPool.get(serverKey);
+        if ((pool != null ? pool.size() : 0) >= poolProperties.getMinPerServer()) {
+            return;
+        }
+        growPool(serverInfo, serverKey);
+    }
+
+    /**
+     * 选择连接：优先复用在途请求最少的连接；所有连接都繁忙且未达上限时后台扩容；没有连接时同步建连。
+     * 这里只确保连接存在、不占用在途名额，经 invokeOnConnection 调用时在订阅时原子占用
+     */
+    private Mono<McpConnectionWrapper> acquireConnection(McpServerInfo serverInfo) {
         if (serverInfo == null) {
             return Mono.error(new IllegalArgumentException("ServerInfo cannot be null"));
         }
@@ -84,45 +142,184 @@ public class McpClientManager {
         totalConnectionRequests.incrementAndGet();
         
         // 检查连接池中是否有可用连接
-        McpConnectionWrapper existingWrapper = connectionPool.get(serverKey);
-        if (existingWrapper != null && existingWrapper.isValid()) {
-            log.debug("🎯 Using pooled connection for server: {}", serverKey);
-            existingWrapper.updateLastUsed();
+        BackendPool pool = connectionPool.get(serverKey);
+        McpConnectionWrapper selected = pool != null ? pool.selectLeastInFlight() : null;
+        if (selected != null) {
+            log.debug("🎯 Using pooled connection for server: {} (in-flight: {})", serverKey, selected.getInFlight());
+            selected.updateLastUsed();
             cacheHits.incrementAndGet();
-            return Mono.just(existingWrapper.getClient());
+            if (pool.needsConnection(poolProperties)) {
+                growPool(serverInfo, serverKey);
+            }
+            return Mono.just(selected);
         }
 
-        // 连接池已满检查
-        if (connectionPool.size() >= MAX_POOL_SIZE) {
-            log.warn("⚠️ Connection pool is full ({}/{}), cleaning up expired connections", 
-                    connectionPool.size(), MAX_POOL_SIZE);
-            cleanupIdleConnections();
-            
-            if (connectionPool.size() >= MAX_POOL_SIZE) {
-                return Mono.error(new RuntimeException("Connection pool exhausted"));
+        // 同一 server key 只允许一个建连过程，其余并发请求订阅同一个 pending Mono
+        return Mono.defer(() -> {
+            boolean[] leader = {false};
+            Mono<McpConnectionWrapper> pending = pendingConnections.computeIfAbsent(serverKey, key -> {
+                leader[0] = true;
+                return establishConnection(serverInfo, serverKey, false);
+            });
+            if (!leader[0]) {
+                coalescedWaiters.incrementAndGet();
+                log.debug("⏳ Joining in-flight connection establishment for server: {}", serverKey);
             }
+            return pending;
+        });
+    }
+
+    /**
+     * 后台为指定后端新增一个连接（扩容或预热），已有建连过程时不重复发起。
+     * 后台建连不在请求路径上，使用 warm-up 超时完整完成 initialize，而非请求路径上的激进超时
+     */
+    private void growPool(McpServerInfo serverInfo, String serverKey) {
+        if (pendingConnections.containsKey(serverKey)) {
+            return;
         }
+        pendingConnections.computeIfAbsent(serverKey, key -> establishConnection(serverInfo, serverKey, true))
+                .subscribe(
+                        null,
+                        error -> log.debug("Background connection for server {} failed: {}", serverKey, error.getMessage())
+                );
+    }
 
-        // 创建新连接
-        // 激进优化：缩短连接创建超时到300ms（初始化200ms + 缓冲100ms）
-        return createNewConnection(serverInfo)
-                .timeout(Duration.ofMillis(300)) // 激进优化：缩短到300ms
-                .map(client -> {
-                    McpConnectionWrapper wrapper = new McpConnectionWrapper(
-                            client, serverInfo, LocalDateTime.now());
-                    connectionPool.put(serverKey, wrapper);
-                    totalConnectionsCreated.incrementAndGet();
+    /**
+     * 建立连接并放入连接池，结果被缓存以供所有并发等待者共享，完成后从 pendingConnections 中移除；
+     * 连接数仍低于最小值时继续预热下一个连接
+     */
+    private Mono<McpConnectionWrapper> establishConnection(McpServerInfo serverInfo, String serverKey, boolean background) {
+        AtomicReference<Mono<McpConnectionWrapper>> self = new AtomicReference<>();
+        Mono<McpConnectionWrapper> pending = Mono.defer(() -> {
+                    // 已有连接且无需扩容时直接复用，避免重复创建
+                    BackendPool pool = connectionPool.get(serverKey);
+                    McpConnectionWrapper existing = pool != null ? pool.selectLeastInFlight() : null;
+                    if (existing != null && !pool.needsConnection(poolProperties)) {
+                        existing.updateLastUsed();
+                        return Mono.just(existing);
+                    }
                     
-                    log.info("🔗 Created new pooled connection for server: {} (pool size: {}/{})", 
-                            serverKey, connectionPool.size(), MAX_POOL_SIZE);
-                    return client;
-                });
+                    // 全局连接数上限检查
+                    if (totalConnections.get() >= poolProperties.getMaxTotal()) {
+                        cleanupIdleConnections();
+                        if (totalConnections.get() >= poolProperties.getMaxTotal()) {
+                            if (existing != null) {
+                                return Mono.just(existing);
+                            }
+                            log.warn("⚠️ Connection pool is full ({}/{})", 
+                                    totalConnections.get(), poolProperties.getMaxTotal());
+                            return Mono.error(new RuntimeException("Connection pool exhausted"));
+                        }
+                    }
+                    
+                    // 创建新连接
+                    // 请求路径上激进优化：缩短连接创建超时到300ms（初始化200ms + 缓冲100ms）
+                    Duration warmUpTimeout = poolProperties.getWarmUpTimeout();
+                    Duration connectTimeout = background ? warmUpTimeout : Duration.ofMillis(300);
+                    Duration initializeTimeout = background ? warmUpTimeout.dividedBy(2) : Duration.ofMillis(200);
+                    return createNewConnection(serverInfo, initializeTimeout)
+                            .timeout(connectTimeout)
+                            .map(client -> {
+                                McpConnectionWrapper wrapper = new McpConnectionWrapper(
+                                        client, serverInfo, LocalDateTime.now());
+                                addConnection(serverKey, wrapper);
+                                totalConnectionsCreated.incrementAndGet();
+                                
+                                log.info("🔗 Created new {} connection for server: {} (server connections: {}, total: {}/{})", 
+                                        background ? "pre-warmed" : "pooled", serverKey,
+                                        connectionPool.get(serverKey) != null ? connectionPool.get(serverKey).size() : 0,
+                                        totalConnections.get(), poolProperties.getMaxTotal());
+                                return wrapper;
+                            });
+                })
+                .doFinally(signal -> {
+                    pendingConnections.remove(serverKey, self.get());
+                    // 预热到最小连接数
+                    BackendPool pool = connectionPool.get(serverKey);
+                    if (signal == SignalType.ON_COMPLETE && pool != null 
+                            && pool.size() < poolProperties.getMinPerServer()) {
+                        growPool(serverInfo, serverKey);
+                    }
+                })
+                .cache();
+        self.set(pending);
+        return pending;
+    }
+
+    /**
+     * 在连接池中执行调用，维护在途请求计数；调用出错时只移除该连接
+     */
+    private <T> Mono<T> withConnection(McpServerInfo serverInfo, Duration callTimeout, 
+                                       Function<McpAsyncClient, Mono<T>> call) {
+        return acquireConnection(serverInfo)
+                .flatMap(wrapper -> invokeOnConnection(serverInfo, wrapper, callTimeout, call));
+    }
+
+    /**
+     * 订阅时原子地选中并占用连接（选择与在途计数递增是同一步），调用结束、出错或取消时释放
+     */
+    private <T> Mono<T> invokeOnConnection(McpServerInfo serverInfo, McpConnectionWrapper candidate, 
+                                           Duration callTimeout, Function<McpAsyncClient, Mono<T>> call) {
+        return Mono.defer(() -> {
+            McpConnectionWrapper wrapper = reserveConnection(serverInfo, candidate);
+            Mono<T> result = call.apply(wrapper.getClient());
+            if (callTimeout != null) {
+                result = result.timeout(callTimeout);
+            }
+            return result
+                    // 工具执行错误说明连接正常，只有传输层错误才移除连接
+                    .doOnError(error -> !(error instanceof ToolExecutionException),
+                            error -> removeConnection(buildServerKey(serverInfo), wrapper))
+                    .doFinally(signal -> wrapper.release());
+        });
+    }
+
+    /**
+     * 占用在途请求最少的连接：以 CAS 递增在途数，被并发请求抢先时重新选择，突发请求因此分散到各连接；
+     * 池中已没有有效连接（如刚被摘除）时占用传入的连接。占用后按最新的在途数判断是否需要扩容
+     */
+    private McpConnectionWrapper reserveConnection(McpServerInfo serverInfo, McpConnectionWrapper candidate) {
+        String serverKey = buildServerKey(serverInfo);
+        BackendPool pool = connectionPool.get(serverKey);
+        McpConnectionWrapper wrapper = pool != null ? pool.selectAndAcquire() : null;
+        if (wrapper == null) {
+            wrapper = candidate;
+            wrapper.acquire();
+        }
+        if (pool != null && pool.needsConnection(poolProperties)) {
+            growPool(serverInfo, serverKey);
+        }
+        return wrapper;
+    }
+
+    private void addConnection(String serverKey, McpConnectionWrapper wrapper) {
+        connectionPool.compute(serverKey, (key, pool) -> {
+            BackendPool target = pool != null ? pool : new BackendPool();
+            target.add(wrapper);
+            return target;
+        });
+        totalConnections.incrementAndGet();
+    }
+
+    /**
+     * 从连接池移除并关闭单个连接，后端没有剩余连接时移除该后端
+     */
+    private void removeConnection(String serverKey, McpConnectionWrapper wrapper) {
+        boolean[] removed = {false};
+        connectionPool.computeIfPresent(serverKey, (key, pool) -> {
+            removed[0] = pool.remove(wrapper);
+            return pool.isEmpty() ? null : pool;
+        });
+        if (removed[0]) {
+            totalConnections.decrementAndGet();
+            closeConnectionSafely(wrapper.getClient(), serverKey);
+        }
     }
 
     /**
      * 创建新的MCP连接
      */
-    private Mono<McpAsyncClient> createNewConnection(McpServerInfo serverInfo) {
+    Mono<McpAsyncClient> createNewConnection(McpServerInfo serverInfo, Duration initializeTimeout) {
         return Mono.defer(() -> {
             log.debug("🔧 Creating new MCP connection for server: {}", serverInfo.getName());
  
@@ -138,22 +335,25 @@ public class McpClientManager {
             // 创建SSE传输，使用从 Nacos 元数据获取的自定义 SSE 端点和消息端点
             WebFluxSseClientTransport transport = new WebFluxSseClientTransport(clientBuilder, objectMapper);
  
-            // 创建客户端信息
-            McpSchema.Implementation clientInfo = new McpSchema.Implementation(
-                    "mcp-router-v3-client",
-                    "2.0.0"
-            );
- 
-            // 构建异步MCP客户端
+            // 构建异步MCP客户端（收到 list_changed 通知时使能力缓存失效）
+            String serverKey = buildServerKey(serverInfo);
             McpAsyncClient client = McpClient.async(transport)
-                    .clientInfo(clientInfo)
+                    .clientInfo(CLIENT_INFO)
                     .requestTimeout(CONNECTION_TIMEOUT)
+                    .toolsChangeConsumer(tools -> Mono.fromRunnable(() -> 
+                            capabilityCache.invalidate(serverKey, McpCapabilityCache.Kind.TOOLS)))
+                    .resourcesChangeConsumer(resources -> Mono.fromRunnable(() -> {
+                        capabilityCache.invalidate(serverKey, McpCapabilityCache.Kind.RESOURCES);
+                        capabilityCache.invalidate(serverKey, McpCapabilityCache.Kind.RESOURCE_TEMPLATES);
+                    }))
+                    .promptsChangeConsumer(prompts -> Mono.fromRunnable(() -> 
+                            capabilityCache.invalidate(serverKey, McpCapabilityCache.Kind.PROMPTS)))
                     .build();
  
-            // 激进优化：缩短初始化超时到200ms，确保快速响应
+            // 请求路径上激进优化：缩短初始化超时到200ms，确保快速响应；后台预热使用较长超时
             // 注意：如果初始化失败，连接仍可使用，只是可能无法立即使用某些功能
             return client.initialize()
-                    .timeout(Duration.ofMillis(200)) // 激进优化：缩短到200ms
+                    .timeout(initializeTimeout)
                     .thenReturn(client)
                     .doOnSuccess(c -> log.debug("✅ MCP connection created and initialized for server: {}", serverInfo.getName()))
                     .onErrorResume(error -> {
@@ -179,8 +379,7 @@ public class McpClientManager {
             return callToolViaHttp(serverInfo, toolName, arguments);
         }
 
-        return getOrCreateMcpClient(serverInfo)
-                .flatMap(client -> {
+        return withConnection(serverInfo, Duration.ofSeconds(60), client -> {
                     // 构建工具调用请求
                     McpSchema.CallToolRequest request = new McpSchema.CallToolRequest(
                             toolName, 
@@ -194,18 +393,15 @@ public class McpClientManager {
                                 log.debug("📥 Received tool call result via pooled connection");
                                 
                                 if (result.isError() != null && result.isError()) {
-                                    throw new RuntimeException("Tool execution error: " + result.content());
+                                    throw new ToolExecutionException("Tool execution error: " + result.content());
                                 }
                                 
                                 return parseToolResult(result.content());
-                            })
-                            .doOnSuccess(result -> log.debug("✅ Tool call successful via pool for '{}'", toolName))
-                            .doOnError(error -> {
-                                log.error("❌ Tool call failed via pool for '{}': {}", toolName, error.getMessage());
-                                // 连接出错时，移除该连接
-                                invalidateConnection(serverInfo);
                             });
                 })
+                .doOnSuccess(result -> log.debug("✅ Tool call successful via pool for '{}'", toolName))
+                // 连接出错时，withConnection 只移除出错的那个连接
+                .doOnError(error -> log.error("❌ Tool call failed via pool for '{}': {}", toolName, error.getMessage()))
                 .timeout(Duration.ofSeconds(60))
                 .onErrorMap(e -> new RuntimeException("MCP call failed for tool '" + toolName + "' on server '" +
                         serverInfo.getName() + "': " + e.getMessage()));
@@ -284,6 +480,18 @@ public class McpClientManager {
      * 对于其他服务，使用 SSE 客户端
      */
     public Mono<McpSchema.ListToolsResult> listTools(McpServerInfo serverInfo, Duration timeout) {
+        String serverKey = buildServerKey(serverInfo);
+        String md5 = getServerMd5(serverInfo);
+        McpSchema.ListToolsResult cached = capabilityCache.get(serverKey, md5, McpCapabilityCache.Kind.TOOLS);
+        if (cached != null) {
+            log.debug("🎯 Capability cache hit for tools/list: {}", serverKey);
+            return Mono.just(cached);
+        }
+        return fetchTools(serverInfo, timeout)
+                .doOnNext(result -> capabilityCache.put(serverKey, md5, McpCapabilityCache.Kind.TOOLS, result));
+    }
+
+    private Mono<McpSchema.ListToolsResult> fetchTools(McpServerInfo serverInfo, Duration timeout) {
         log.debug("📋 Listing tools for server: {}", serverInfo.getName());
 
         // 对于虚拟项目（virtual-*），直接使用 HTTP POST 调用 RESTful 接口
@@ -294,37 +502,17 @@ public class McpClientManager {
         // 检查是否是激进优化模式（超时时间 < 1秒）
         boolean aggressiveMode = timeout.toMillis() < 1000;
         
-        // 先检查连接池，如果没有连接，使用更短的超时创建连接
-        String serverKey = buildServerKey(serverInfo);
-        McpConnectionWrapper existingWrapper = connectionPool.get(serverKey);
-        if (existingWrapper != null && existingWrapper.isValid()) {
-            // 连接池中有连接，直接使用
-            log.debug("🎯 Using pooled connection for tools/list: {}", serverKey);
-            existingWrapper.updateLastUsed();
-            cacheHits.incrementAndGet();
-            return existingWrapper.getClient()
-                    .listTools()
-                    .timeout(aggressiveMode ? Duration.ofMillis(200) : timeout); // 激进模式200ms，否则使用传入的超时
-        }
-        
-        // 连接池中没有连接，需要创建
+        // 连接池中没有连接时，使用更短的超时创建连接
         Duration connectionTimeout = aggressiveMode ? Duration.ofMillis(300) : Duration.ofSeconds(10);
-        Duration callTimeout = aggressiveMode ? Duration.ofMillis(200) : timeout;
+        Duration callTimeout = aggressiveMode ? Duration.ofMillis(200) : timeout; // 激进模式200ms，否则使用传入的超时
 
-        return getOrCreateMcpClient(serverInfo)
+        return acquireConnection(serverInfo)
                 .timeout(connectionTimeout) // 连接创建和初始化超时
-                .flatMap(client -> {
-                    // 立即调用
-                    return client.listTools()
-                            .timeout(callTimeout); // listTools调用超时
-                })
+                .flatMap(wrapper -> invokeOnConnection(serverInfo, wrapper, callTimeout, McpAsyncClient::listTools))
                 .doOnSuccess(tools -> log.debug("✅ Listed {} tools via pool for server: {}", 
                         tools.tools().size(), serverInfo.getName()))
-                .doOnError(error -> {
-                    log.error("❌ Failed to list tools via pool for server: {}", 
-                            serverInfo.getName(), error);
-                    invalidateConnection(serverInfo);
-                });
+                .doOnError(error -> log.error("❌ Failed to list tools via pool for server: {}", 
+                        serverInfo.getName(), error));
     }
 
     /**
@@ -423,7 +611,7 @@ public class McpClientManager {
                     Map<String, Object> error = (Map<String, Object>) response.get("error");
                     if (error != null) {
                         String errorMessage = (String) error.get("message");
-                        throw new RuntimeException("Tool execution error: " + errorMessage);
+                        throw new ToolExecutionException("Tool execution error: " + errorMessage);
                     }
                     
                     // 解析响应，返回 result
@@ -483,16 +671,19 @@ public class McpClientManager {
     public Mono<McpSchema.ListResourcesResult> listResources(McpServerInfo serverInfo) {
         log.debug("📋 Listing resources for server via connection pool: {}", serverInfo.getName());
 
-        return getOrCreateMcpClient(serverInfo)
-                .flatMap(McpAsyncClient::listResources)
-                .timeout(Duration.ofMillis(500)) // 激进优化：缩短到500毫秒，确保总时间在1秒以内
+        String serverKey = buildServerKey(serverInfo);
+        String md5 = getServerMd5(serverInfo);
+        McpSchema.ListResourcesResult cached = capabilityCache.get(serverKey, md5, McpCapabilityCache.Kind.RESOURCES);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        return withConnection(serverInfo, Duration.ofMillis(500), McpAsyncClient::listResources) // 激进优化：缩短到500毫秒，确保总时间在1秒以内
+                .doOnNext(resources -> capabilityCache.put(serverKey, md5, McpCapabilityCache.Kind.RESOURCES, resources))
                 .doOnSuccess(resources -> log.debug("✅ Listed {} resources via pool for server: {}", 
                         resources.resources() != null ? resources.resources().size() : 0, serverInfo.getName()))
-                .doOnError(error -> {
-                    log.error("❌ Failed to list resources via pool for server: {}", 
-                            serverInfo.getName(), error);
-                    invalidateConnection(serverInfo);
-                });
+                .doOnError(error -> log.error("❌ Failed to list resources via pool for server: {}", 
+                        serverInfo.getName(), error));
     }
 
     /**
@@ -502,14 +693,10 @@ public class McpClientManager {
         log.debug("📖 Reading resource '{}' from server via connection pool: {}", 
                 resource.uri(), serverInfo.getName());
 
-        return getOrCreateMcpClient(serverInfo)
-                .flatMap(client -> client.readResource(resource))
+        return withConnection(serverInfo, null, client -> client.readResource(resource))
                 .doOnSuccess(result -> log.debug("✅ Read resource successfully via pool"))
-                .doOnError(error -> {
-                    log.error("❌ Failed to read resource via pool for server: {}", 
-                            serverInfo.getName(), error);
-                    invalidateConnection(serverInfo);
-                });
+                .doOnError(error -> log.error("❌ Failed to read resource via pool for server: {}", 
+                        serverInfo.getName(), error));
     }
 
     /**
@@ -519,14 +706,10 @@ public class McpClientManager {
         log.debug("📖 Reading resource '{}' from server via connection pool: {}", 
                 request.uri(), serverInfo.getName());
 
-        return getOrCreateMcpClient(serverInfo)
-                .flatMap(client -> client.readResource(request))
+        return withConnection(serverInfo, null, client -> client.readResource(request))
                 .doOnSuccess(result -> log.debug("✅ Read resource successfully via pool"))
-                .doOnError(error -> {
-                    log.error("❌ Failed to read resource via pool for server: {}", 
-                            serverInfo.getName(), error);
-                    invalidateConnection(serverInfo);
-                });
+                .doOnError(error -> log.error("❌ Failed to read resource via pool for server: {}", 
+                        serverInfo.getName(), error));
     }
 
     /**
@@ -535,16 +718,19 @@ public class McpClientManager {
     public Mono<McpSchema.ListPromptsResult> listPrompts(McpServerInfo serverInfo) {
         log.debug("📋 Listing prompts for server via connection pool: {}", serverInfo.getName());
 
-        return getOrCreateMcpClient(serverInfo)
-                .flatMap(McpAsyncClient::listPrompts)
-                .timeout(Duration.ofMillis(500)) // 激进优化：缩短到500毫秒，确保总时间在1秒以内
+        String serverKey = buildServerKey(serverInfo);
+        String md5 = getServerMd5(serverInfo);
+        McpSchema.ListPromptsResult cached = capabilityCache.get(serverKey, md5, McpCapabilityCache.Kind.PROMPTS);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        return withConnection(serverInfo, Duration.ofMillis(500), McpAsyncClient::listPrompts) // 激进优化：缩短到500毫秒，确保总时间在1秒以内
+                .doOnNext(prompts -> capabilityCache.put(serverKey, md5, McpCapabilityCache.Kind.PROMPTS, prompts))
                 .doOnSuccess(prompts -> log.debug("✅ Listed {} prompts via pool for server: {}", 
                         prompts.prompts() != null ? prompts.prompts().size() : 0, serverInfo.getName()))
-                .doOnError(error -> {
-                    log.error("❌ Failed to list prompts via pool for server: {}", 
-                            serverInfo.getName(), error);
-                    invalidateConnection(serverInfo);
-                });
+                .doOnError(error -> log.error("❌ Failed to list prompts via pool for server: {}", 
+                        serverInfo.getName(), error));
     }
 
     /**
@@ -554,14 +740,10 @@ public class McpClientManager {
         log.debug("📝 Getting prompt '{}' from server via connection pool: {}", 
                 request.name(), serverInfo.getName());
 
-        return getOrCreateMcpClient(serverInfo)
-                .flatMap(client -> client.getPrompt(request))
+        return withConnection(serverInfo, null, client -> client.getPrompt(request))
                 .doOnSuccess(result -> log.debug("✅ Got prompt successfully via pool"))
-                .doOnError(error -> {
-                    log.error("❌ Failed to get prompt via pool for server: {}", 
-                            serverInfo.getName(), error);
-                    invalidateConnection(serverInfo);
-                });
+                .doOnError(error -> log.error("❌ Failed to get prompt via pool for server: {}", 
+                        serverInfo.getName(), error));
     }
 
     /**
@@ -570,16 +752,20 @@ public class McpClientManager {
     public Mono<McpSchema.ListResourceTemplatesResult> listResourceTemplates(McpServerInfo serverInfo) {
         log.debug("📋 Listing resource templates for server via connection pool: {}", serverInfo.getName());
 
-        return getOrCreateMcpClient(serverInfo)
-                .flatMap(McpAsyncClient::listResourceTemplates)
-                .timeout(Duration.ofMillis(500)) // 激进优化：缩短到500毫秒，确保总时间在1秒以内
+        String serverKey = buildServerKey(serverInfo);
+        String md5 = getServerMd5(serverInfo);
+        McpSchema.ListResourceTemplatesResult cached = 
+                capabilityCache.get(serverKey, md5, McpCapabilityCache.Kind.RESOURCE_TEMPLATES);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        return withConnection(serverInfo, Duration.ofMillis(500), McpAsyncClient::listResourceTemplates) // 激进优化：缩短到500毫秒，确保总时间在1秒以内
+                .doOnNext(templates -> capabilityCache.put(serverKey, md5, McpCapabilityCache.Kind.RESOURCE_TEMPLATES, templates))
                 .doOnSuccess(templates -> log.debug("✅ Listed {} resource templates via pool for server: {}", 
                         templates.resourceTemplates() != null ? templates.resourceTemplates().size() : 0, serverInfo.getName()))
-                .doOnError(error -> {
-                    log.error("❌ Failed to list resource templates via pool for server: {}", 
-                            serverInfo.getName(), error);
-                    invalidateConnection(serverInfo);
-                });
+                .doOnError(error -> log.error("❌ Failed to list resource templates via pool for server: {}", 
+                        serverInfo.getName(), error));
     }
 
     /**
@@ -589,21 +775,42 @@ public class McpClientManager {
         log.debug("🧹 Starting idle connection cleanup...");
         
         LocalDateTime now = LocalDateTime.now();
+        Duration idleTimeout = poolProperties.getIdleTimeout();
+        Duration maxLifetime = poolProperties.getMaxLifetime();
         int removedCount = 0;
         
-        for (Map.Entry<String, McpConnectionWrapper> entry : connectionPool.entrySet()) {
-            McpConnectionWrapper wrapper = entry.getValue();
+        for (Map.Entry<String, BackendPool> entry : connectionPool.entrySet()) {
+            String serverKey = entry.getKey();
+            BackendPool pool = entry.getValue();
+            // 后端仍活跃时保留最小连接数，整个后端都空闲时全部回收
+            boolean backendActive = pool.isActive(now, idleTimeout);
+            int remaining = pool.size();
+            McpServerInfo serverInfo = null;
             
-            if (wrapper.isExpired(now, IDLE_TIMEOUT, MAX_LIFETIME)) {
-                connectionPool.remove(entry.getKey());
-                closeConnectionSafely(wrapper.getClient(), entry.getKey());
-                removedCount++;
+            for (McpConnectionWrapper wrapper : pool.snapshot()) {
+                if (wrapper.getInFlight() > 0) {
+                    continue;
+                }
+                boolean lifetimeExpired = wrapper.isLifetimeExpired(now, maxLifetime);
+                boolean idleExpired = wrapper.isIdleExpired(now, idleTimeout)
+                        && (!backendActive || remaining > poolProperties.getMinPerServer());
+                if (lifetimeExpired || idleExpired) {
+                    removeConnection(serverKey, wrapper);
+                    remaining--;
+                    removedCount++;
+                    serverInfo = wrapper.getServerInfo();
+                }
+            }
+            
+            // 因生命周期到期被回收的活跃后端，重新预热到最小连接数
+            if (backendActive && serverInfo != null && remaining < poolProperties.getMinPerServer()) {
+                growPool(serverInfo, serverKey);
             }
         }
         
         if (removedCount > 0) {
             log.info("🧹 Cleaned up {} idle/expired connections (pool size: {}/{})", 
-                    removedCount, connectionPool.size(), MAX_POOL_SIZE);
+                    removedCount, totalConnections.get(), poolProperties.getMaxTotal());
         }
     }
 
@@ -612,10 +819,52 @@ public class McpClientManager {
      */
     public void invalidateConnection(McpServerInfo serverInfo) {
         String serverKey = buildServerKey(serverInfo);
-        McpConnectionWrapper wrapper = connectionPool.remove(serverKey);
-        if (wrapper != null) {
-            closeConnectionSafely(wrapper.getClient(), serverKey);
-            log.info("❌ Invalidated connection for server: {}", serverKey);
+        BackendPool pool = connectionPool.get(serverKey);
+        if (pool != null) {
+            for (McpConnectionWrapper wrapper : pool.snapshot()) {
+                removeConnection(serverKey, wrapper);
+            }
+            log.info("❌ Invalidated connections for server: {}", serverKey);
+        }
+    }
+
+    /**
+     * 平滑下线指定后端的连接：立即从连接池摘除，不再接收新请求，在途请求完成（或超过宽限期）后关闭
+     */
+    public void drainConnections(McpServerInfo serverInfo) {
+        String serverKey = buildServerKey(serverInfo);
+        capabilityCache.invalidate(serverKey);
+        BackendPool pool = connectionPool.get(serverKey);
+        if (pool == null) {
+            return;
+        }
+        List<McpConnectionWrapper> draining = new ArrayList<>();
+        for (McpConnectionWrapper wrapper : pool.snapshot()) {
+            boolean[] removed = {false};
+            connectionPool.computeIfPresent(serverKey, (key, current) -> {
+                removed[0] = current.remove(wrapper);
+                return current.isEmpty() ? null : current;
+            });
+            if (removed[0]) {
+                totalConnections.decrementAndGet();
+                draining.add(wrapper);
+            }
+        }
+        if (draining.isEmpty()) {
+            return;
+        }
+        log.info("🚰 Draining {} connections for removed server: {}", draining.size(), serverKey);
+        for (McpConnectionWrapper wrapper : draining) {
+            if (wrapper.getInFlight() == 0) {
+                closeConnectionSafely(wrapper.getClient(), serverKey);
+                continue;
+            }
+            reactor.core.publisher.Flux.interval(DRAIN_POLL_INTERVAL)
+                    .filter(tick -> wrapper.getInFlight() == 0)
+                    .next()
+                    .timeout(poolProperties.getDrainTimeout(), Mono.just(0L))
+                    .doFinally(signal -> closeConnectionSafely(wrapper.getClient(), serverKey))
+                    .subscribe();
         }
     }
 
@@ -623,18 +872,43 @@ public class McpClientManager {
      * 获取连接池统计信息
      */
     public Map<String, Object> getPoolStats() {
-        return Map.of(
-                "active_connections", connectionPool.size(),
-                "max_pool_size", MAX_POOL_SIZE,
-                "total_created", totalConnectionsCreated.get(),
-                "total_closed", totalConnectionsClosed.get(),
-                "total_requests", totalConnectionRequests.get(),
-                "cache_hits", cacheHits.get(),
-                "cache_hit_rate", totalConnectionRequests.get() > 0 ? 
-                        (double) cacheHits.get() / totalConnectionRequests.get() : 0.0,
-                "idle_timeout_minutes", IDLE_TIMEOUT.toMinutes(),
-                "max_lifetime_hours", MAX_LIFETIME.toHours()
-        );
+        Map<String, Object> stats = new java.util.HashMap<>();
+        int inFlight = 0;
+        for (BackendPool pool : connectionPool.values()) {
+            inFlight += pool.totalInFlight();
+        }
+        stats.put("active_connections", totalConnections.get());
+        stats.put("max_pool_size", poolProperties.getMaxTotal());
+        stats.put("backends", connectionPool.size());
+        stats.put("min_per_server", poolProperties.getMinPerServer());
+        stats.put("max_per_server", poolProperties.getMaxPerServer());
+        stats.put("in_flight_requests", inFlight);
+        stats.put("total_created", totalConnectionsCreated.get());
+        stats.put("total_closed", totalConnectionsClosed.get());
+        stats.put("total_requests", totalConnectionRequests.get());
+        stats.put("cache_hits", cacheHits.get());
+        stats.put("pending_connections", pendingConnections.size());
+        stats.put("coalesced_waiters", coalescedWaiters.get());
+        stats.put("cache_hit_rate", totalConnectionRequests.get() > 0 ? 
+                (double) cacheHits.get() / totalConnectionRequests.get() : 0.0);
+        stats.put("idle_timeout_minutes", poolProperties.getIdleTimeout().toMinutes());
+        stats.put("max_lifetime_hours", poolProperties.getMaxLifetime().toHours());
+        stats.put("capability_cache", capabilityCache.getStats());
+        return stats;
+    }
+
+    /**
+     * 获取能力列表缓存统计信息
+     */
+    public Map<String, Object> getCapabilityCacheStats() {
+        return capabilityCache.getStats();
+    }
+
+    /**
+     * 使指定服务器的能力列表缓存失效
+     */
+    public void invalidateCapabilities(McpServerInfo serverInfo) {
+        capabilityCache.invalidate(buildServerKey(serverInfo));
     }
 
     /**
@@ -659,12 +933,19 @@ public class McpClientManager {
         return baseUrl;
     }
 
+    /**
+     * 获取 Nacos 元数据中发布的配置版本（server.md5），用作能力缓存的版本号
+     */
+    private String getServerMd5(McpServerInfo serverInfo) {
+        Map<String, String> metadata = serverInfo.getMetadata();
+        return metadata != null ? metadata.get(SERVER_MD5_METADATA_KEY) : null;
+    }
+
     /**
      * 构建服务器键
      */
     private String buildServerKey(McpServerInfo serverInfo) {
-        return String.format("%s:%s:%d", 
-                serverInfo.getName(), serverInfo.getIp(), serverInfo.getPort());
+        return serverInfo.getIdentity().getServerKey();
     }
 
     /**
@@ -711,13 +992,13 @@ public class McpClientManager {
      * 关闭指定服务器的客户端连接
      */
     public void closeClient(String serverName) {
-        connectionPool.entrySet().removeIf(entry -> {
+        for (Map.Entry<String, BackendPool> entry : connectionPool.entrySet()) {
             if (entry.getKey().startsWith(serverName + ":")) {
-                closeConnectionSafely(entry.getValue().getClient(), entry.getKey());
-                return true;
+                for (McpConnectionWrapper wrapper : entry.getValue().snapshot()) {
+                    removeConnection(entry.getKey(), wrapper);
+                }
             }
-            return false;
-        });
+        }
         log.info("✅ Closed all connections for server: {}", serverName);
     }
 
@@ -728,15 +1009,120 @@ public class McpClientManager {
     public void closeAllClients() {
         log.info("🛑 Shutting down MCP connection pool...");
         
-        connectionPool.forEach((serverKey, wrapper) -> {
-            closeConnectionSafely(wrapper.getClient(), serverKey);
+        connectionPool.forEach((serverKey, pool) -> {
+            for (McpConnectionWrapper wrapper : pool.snapshot()) {
+                closeConnectionSafely(wrapper.getClient(), serverKey);
+            }
         });
         connectionPool.clear();
+        totalConnections.set(0);
         
         log.info("✅ MCP connection pool shutdown completed. Stats: created={}, closed={}, requests={}", 
                 totalConnectionsCreated.get(), totalConnectionsClosed.get(), totalConnectionRequests.get());
     }
 
+    /**
+     * 工具执行错误：后端正常响应了 isError 结果（如参数错误），不代表实例或连接故障
+     */
+    public static class ToolExecutionException extends RuntimeException {
+
+        public ToolExecutionException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 单个后端的连接集合，按在途请求数选择连接
+     */
+    private static class BackendPool {
+        private final List<McpConnectionWrapper> connections = new CopyOnWriteArrayList<>();
+
+        void add(McpConnectionWrapper wrapper) {
+            connections.add(wrapper);
+        }
+
+        boolean remove(McpConnectionWrapper wrapper) {
+            return connections.remove(wrapper);
+        }
+
+        boolean isEmpty() {
+            return connections.isEmpty();
+        }
+
+        int size() {
+            return connections.size();
+        }
+
+        List<McpConnectionWrapper> snapshot() {
+            return List.copyOf(connections);
+        }
+
+        /**
+         * 选择在途请求最少的有效连接
+         */
+        McpConnectionWrapper selectLeastInFlight() {
+            McpConnectionWrapper best = null;
+            for (McpConnectionWrapper wrapper : connections) {
+                if (wrapper.isValid() && (best == null || wrapper.getInFlight() < best.getInFlight())) {
+                    best = wrapper;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * 选中并占用在途请求最少的有效连接：CAS 递增其在途数，期间被其他请求改变则重新选择；没有有效连接时返回 null
+         */
+        McpConnectionWrapper selectAndAcquire() {
+            while (true) {
+                McpConnectionWrapper best = null;
+                int bestInFlight = Integer.MAX_VALUE;
+                for (McpConnectionWrapper wrapper : connections) {
+                    int inFlight = wrapper.getInFlight();
+                    if (wrapper.isValid() && (best == null || inFlight < bestInFlight)) {
+                        best = wrapper;
+                        bestInFlight = inFlight;
+                    }
+                }
+                if (best == null || best.tryAcquire(bestInFlight)) {
+                    return best;
+                }
+            }
+        }
+
+        /**
+         * 是否需要新增连接：低于最小连接数，或所有连接都已繁忙且未达上限
+         */
+        boolean needsConnection(McpConnectionPoolProperties properties) {
+            int size = connections.size();
+            if (size < properties.getMinPerServer()) {
+                return true;
+            }
+            if (size >= properties.getMaxPerServer()) {
+                return false;
+            }
+            McpConnectionWrapper leastLoaded = selectLeastInFlight();
+            return leastLoaded == null || leastLoaded.getInFlight() >= properties.getMaxInFlightPerConnection();
+        }
+
+        int totalInFlight() {
+            int total = 0;
+            for (McpConnectionWrapper wrapper : connections) {
+                total += wrapper.getInFlight();
+            }
+            return total;
+        }
+
+        boolean isActive(LocalDateTime now, Duration idleTimeout) {
+            for (McpConnectionWrapper wrapper : connections) {
+                if (wrapper.getInFlight() > 0 || !wrapper.isIdleExpired(now, idleTimeout)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
     /**
      * 连接包装器类
      */
@@ -744,6 +1130,7 @@ public class McpClientManager {
         private final McpAsyncClient client;
         private final McpServerInfo serverInfo;
         private final LocalDateTime createdAt;
+        private final AtomicInteger inFlight = new AtomicInteger(0);
         private volatile LocalDateTime lastUsed;
 
         public McpConnectionWrapper(McpAsyncClient client, McpServerInfo serverInfo, LocalDateTime createdAt) {
@@ -757,27 +1144,51 @@ public class McpClientManager {
             return client;
         }
 
+        public McpServerInfo getServerInfo() {
+            return serverInfo;
+        }
+
         public void updateLastUsed() {
             this.lastUsed = LocalDateTime.now();
         }
 
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        public void acquire() {
+            inFlight.incrementAndGet();
+            updateLastUsed();
+        }
+
+        /**
+         * 在途数仍为选择时读到的值才占用，否则返回 false 由调用方重新选择
+         */
+        public boolean tryAcquire(int expectedInFlight) {
+            if (!inFlight.compareAndSet(expectedInFlight, expectedInFlight + 1)) {
+                return false;
+            }
+            updateLastUsed();
+            return true;
+        }
+
+        public void release() {
+            inFlight.decrementAndGet();
+        }
+
         public boolean isValid() {
             // 简单的有效性检查，可以扩展为更复杂的健康检查
             return client != null;
         }
 
-        public boolean isExpired(LocalDateTime now, Duration idleTimeout, Duration maxLifetime) {
+        public boolean isIdleExpired(LocalDateTime now, Duration idleTimeout) {
             // 检查是否超过空闲时间
-            if (lastUsed.plus(idleTimeout).isBefore(now)) {
-                return true;
-            }
-            
+            return lastUsed.plus(idleTimeout).isBefore(now);
+        }
+
+        public boolean isLifetimeExpired(LocalDateTime now, Duration maxLifetime) {
             // 检查是否超过最大生命周期
-            if (createdAt.plus(maxLifetime).isBefore(now)) {
-                return true;
-            }
-            
-            return false;
+            return createdAt.plus(maxLifetime).isBefore(now);
+        }
     }
 }
-} 
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.pajk.mcpbridge.core.service;
 
 import com.alibaba.nacos.api.config.ConfigService;
+import com.alibaba.nacos.api.config.listener.AbstractListener;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pajk.mcpbridge.core.config.McpNacosConstants;
 import com.pajk.mcpbridge.core.model.McpServerConfig;
@@ -20,6 +21,7 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * MCP配置服务
@@ -268,6 +270,48 @@ public class McpConfigService{
             }
         });
     }
+    /**
+     * 监听工具配置变更（指定版本）
+     * 注册监听时会同步拉取一次当前配置，之后每次配置变更由 Nacos 推送回调
+     */
+    public Mono<Void> addToolsConfigListener(String id, String version, Consumer<McpToolsConfig> consumer) {
+        String realVersion = version != null ? version : "1.0.0";
+        String dataId = id + "-" + realVersion + McpNacosConstants.TOOLS_CONFIG_SUFFIX;
+        return Mono.fromRunnable(() -> {
+            try {
+                String config = configService.getConfigAndSignListener(dataId, McpNacosConstants.TOOLS_GROUP,
+                        McpNacosConstants.DEFAULT_TIMEOUT, new AbstractListener() {
+                            @Override
+                            public void receiveConfigInfo(String configInfo) {
+                                McpToolsConfig toolsConfig = parseToolsConfig(dataId, configInfo);
+                                if (toolsConfig != null) {
+                                    consumer.accept(toolsConfig);
+                                }
+                            }
+                        });
+                McpToolsConfig toolsConfig = parseToolsConfig(dataId, config);
+                if (toolsConfig != null) {
+                    consumer.accept(toolsConfig);
+                }
+            } catch (Exception e) {
+                log.error("Error listening tools config for: {}", dataId, e);
+                throw new RuntimeException("Failed to listen tools config", e);
+            }
+        });
+    }
+
+    private McpToolsConfig parseToolsConfig(String dataId, String config) {
+        if (config == null || config.isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(config, McpToolsConfig.class);
+        } catch (Exception e) {
+            log.warn("Failed to parse tools config: {} - {}", dataId, e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * 获取版本配置（所有版本）
      */
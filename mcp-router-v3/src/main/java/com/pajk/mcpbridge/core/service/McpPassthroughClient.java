@@ -0,0 +1,180 @@
+package com.pajk.mcpbridge.core.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pajk.mcpbridge.core.config.McpRoutingProperties;
+import com.pajk.mcpbridge.core.model.McpMessage;
+import com.pajk.mcpbridge.core.model.McpServerInfo;
+import com.pajk.mcpbridge.core.model.RawJson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * 透传代理客户端
+ * <p>
+ * 不经过 MCP SDK 的类型化调用：请求体由客户端原始 params 字节拼装（只把 id 换成路由请求 id），
+ * 通过共享 WebClient 的连接池 POST 到后端消息端点；后端响应体只做一次 token 扫描定位 id/result/error，
+ * 把 id 还原为客户端请求 id 后原样返回，result 不构建对象树。
+ * 要求后端在 HTTP 响应体中直接返回 JSON-RPC 响应（与虚拟项目的 HTTP 调用方式相同）。
+ */
+@Component
+public class McpPassthroughClient {
+
+    private final static Logger log = LoggerFactory.getLogger(McpPassthroughClient.class);
+
+    private static final byte[] NULL_ID = "null".getBytes(StandardCharsets.UTF_8);
+
+    private final McpRoutingProperties.Passthrough properties;
+    private final ObjectMapper objectMapper;
+    private final WebClient webClient;
+
+    public McpPassthroughClient(WebClient.Builder webClientBuilder, McpRoutingProperties routingProperties) {
+        this.properties = routingProperties.getPassthrough();
+        this.objectMapper = new ObjectMapper();
+        this.webClient = webClientBuilder.clone()
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(routingProperties.getMaxMessageBytes()))
+                .build();
+    }
+
+    /**
+     * 指定后端的指定方法是否走透传
+     */
+    public boolean supports(McpServerInfo serverInfo, String method) {
+        return properties.isPassthrough(serverInfo.getName(), method);
+    }
+
+    /**
+     * 把请求透传给后端
+     *
+     * @param backendId 发给后端的请求 id（路由请求 id），响应 id 必须与之一致
+     * @param sessionId 客户端会话 id，为空时使用 backendId
+     */
+    public Mono<McpMessage> forward(McpServerInfo serverInfo, McpMessage message, String backendId,
+                                    String sessionId, Duration timeout) {
+        URI uri = UriComponentsBuilder.newInstance()
+                .scheme("http")
+                .host(serverInfo.getIp())
+                .port(serverInfo.getPort())
+                .path(properties.getMessagePath())
+                .queryParam("sessionId", sessionId != null && !sessionId.isEmpty() ? sessionId : backendId)
+                .build()
+                .encode()
+                .toUri();
+        return Mono.fromCallable(() -> encodeRequest(message, backendId))
+                .flatMap(body -> webClient.post()
+                        .uri(uri)
+                        .header("X-Service-Name", serverInfo.getName())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .bodyValue(body)
+                        .retrieve()
+                        .bodyToMono(byte[].class))
+                .switchIfEmpty(Mono.error(() -> new IOException(
+                        "Backend returned no JSON-RPC response body: " + serverInfo.getName())))
+                .flatMap(body -> Mono.fromCallable(() -> decodeResponse(body, backendId, message)))
+                .timeout(timeout)
+                .doOnSuccess(response -> log.debug("🔀 Passthrough {} to server {} completed ({} bytes)",
+                        message.getMethod(), serverInfo.getName(), response.getRawResponse().length));
+    }
+
+    /**
+     * 拼装后端请求体：params 优先使用流式解析保留的原始字节
+     */
+    byte[] encodeRequest(McpMessage message, String backendId) throws IOException {
+        byte[] params = message.getRawParams();
+        if (params == null && message.getParams() != null) {
+            params = objectMapper.writeValueAsBytes(message.getParams());
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(96 + (params != null ? params.length : 0));
+        out.write("{\"jsonrpc\":\"2.0\",\"id\":".getBytes(StandardCharsets.UTF_8));
+        out.write(quote(backendId));
+        out.write(",\"method\":".getBytes(StandardCharsets.UTF_8));
+        out.write(quote(message.getMethod()));
+        if (params != null) {
+            out.write(",\"params\":".getBytes(StandardCharsets.UTF_8));
+            out.write(params);
+        }
+        out.write('}');
+        return out.toByteArray();
+    }
+
+    /**
+     * 扫描后端响应：校验 id、定位 result 区间、绑定 error，并把 id 替换为客户端请求 id
+     */
+    McpMessage decodeResponse(byte[] body, String backendId, McpMessage request) throws IOException {
+        int idStart = -1;
+        int idEnd = -1;
+        int resultStart = -1;
+        int resultEnd = -1;
+        String responseId = null;
+        McpMessage.McpError error = null;
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Backend response is not a JSON-RPC object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                int start = (int) parser.currentTokenLocation().getByteOffset();
+                if ("id".equals(name)) {
+                    responseId = parser.getValueAsString();
+                    idStart = start;
+                    idEnd = (int) parser.currentLocation().getByteOffset();
+                } else if ("error".equals(name)) {
+                    error = objectMapper.readValue(parser, McpMessage.McpError.class);
+                } else {
+                    parser.skipChildren();
+                    parser.finishToken();
+                    if ("result".equals(name)) {
+                        resultStart = start;
+                        resultEnd = (int) parser.currentLocation().getByteOffset();
+                    }
+                }
+            }
+        }
+        if (idStart < 0 || !backendId.equals(responseId)) {
+            throw new IOException("Backend response id mismatch: expected " + backendId + ", got " + responseId);
+        }
+        if (resultStart < 0 && error == null) {
+            throw new IOException("Backend response has neither result nor error");
+        }
+
+        byte[] clientId = request.getId() != null ? quote(request.getId()) : NULL_ID;
+        byte[] rawResponse = new byte[body.length - (idEnd - idStart) + clientId.length];
+        System.arraycopy(body, 0, rawResponse, 0, idStart);
+        System.arraycopy(clientId, 0, rawResponse, idStart, clientId.length);
+        System.arraycopy(body, idEnd, rawResponse, idStart + clientId.length, body.length - idEnd);
+
+        return McpMessage.builder()
+                .id(request.getId())
+                .jsonrpc("2.0")
+                .method(request.getMethod())
+                .result(resultStart >= 0 ? new RawJson(body, resultStart, resultEnd - resultStart) : null)
+                .error(error)
+                .rawResponse(rawResponse)
+                .timestamp(System.currentTimeMillis())
+                .build();
+    }
+
+    private static byte[] quote(String value) {
+        byte[] escaped = JsonStringEncoder.getInstance().quoteAsUTF8(value);
+        byte[] quoted = new byte[escaped.length + 2];
+        quoted[0] = '"';
+        System.arraycopy(escaped, 0, quoted, 1, escaped.length);
+        quoted[quoted.length - 1] = '"';
+        return quoted;
+    }
+}
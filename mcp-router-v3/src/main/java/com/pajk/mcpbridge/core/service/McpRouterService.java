@@ -1,12 +1,14 @@
 package com.pajk.mcpbridge.core.service;
 
-import com.alibaba.nacos.api.naming.pojo.Instance;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pajk.mcpbridge.core.config.McpRoutingProperties;
 import com.pajk.mcpbridge.core.config.NacosMcpRegistryConfig;
 import com.pajk.mcpbridge.core.model.McpMessage;
 import com.pajk.mcpbridge.core.model.McpServerInfo;
+import com.pajk.mcpbridge.core.model.ServerIdentity;
 import com.pajk.mcpbridge.core.registry.McpServerRegistry;
+import com.pajk.mcpbridge.core.registry.McpToolIndex;
 import com.pajk.mcpbridge.persistence.entity.RoutingLog;
 import com.pajk.mcpbridge.persistence.service.PersistenceEventPublisher;
 import io.modelcontextprotocol.spec.McpSchema;
@@ -16,12 +18,17 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.core.scheduler.Schedulers;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 增强的MCP路由服务
@@ -39,6 +46,11 @@ public class McpRouterService {
     private final LoadBalancer loadBalancer;
     private final NacosMcpRegistryConfig.McpRegistryProperties registryProperties;
     private final McpSessionService sessionService;
+    private final McpToolIndex toolIndex;
+    private final McpRoutingProperties routingProperties;
+    private final CircuitBreakerService circuitBreakerService;
+    private final HedgeBudget hedgeBudget;
+    private final McpPassthroughClient passthroughClient;
     
     // 持久化事件发布器（可选依赖，不影响主流程）
     @Autowired(required = false)
@@ -117,18 +129,21 @@ public class McpRouterService {
                         return createErrorResponse(message, 10001, "No healthy services found for: " + serviceName);
                     }
                     
-                    // Step 2: 智能负载均衡选择最优实例
+                    // Step 2: 剔除熔断中的实例后智能负载均衡选择最优实例
                     McpServerInfo selectedServer = selectOptimalServerWithLoadBalancing(candidates);
+                    if (selectedServer == null) {
+                        return createErrorResponse(message, 10003, "All instances are circuit-open for: " + serviceName);
+                    }
                     log.info("🎯 Load balanced selected server: {} ({}:{}) from {} candidates", 
                             selectedServer.getName(), selectedServer.getIp(), selectedServer.getPort(), candidates.size());
                     
                     // 记录目标服务器和路由策略
                     routingLog.setServerKey(selectedServer.getName() + ":" + selectedServer.getIp() + ":" + selectedServer.getPort());
                     routingLog.setServerName(selectedServer.getName());  // 设置服务器名称
-                    routingLog.setLoadBalanceStrategy("WEIGHTED_ROUND_ROBIN");
+                    routingLog.setLoadBalanceStrategy(routingProperties.resolveStrategy(selectedServer.getName()).name());
                     
                     // Step 3: 按需建立连接并调用（带性能监控）
-                    return routeToServerWithMonitoring(selectedServer, message, timeout, routingLog);
+                    return routeWithHedging(selectedServer, candidates, message, timeout, routingLog);
                 })
                 .doOnSuccess(response -> {
                     // 记录成功的路由日志
@@ -171,35 +186,144 @@ public class McpRouterService {
 
     /**
      * Step 2: 智能负载均衡选择最优服务器
+     * 先剔除熔断中的实例，选中后申请熔断器放行许可（半开实例只放行有限探测请求）；
+     * 所有实例均不可用时返回 null，由调用方快速失败
      */
     private McpServerInfo selectOptimalServerWithLoadBalancing(List<McpServerInfo> candidates) {
-        if (candidates.size() == 1) {
-            return candidates.get(0);
+        List<McpServerInfo> available = excludeOpenCircuits(candidates);
+        
+        // 直接在候选快照上做负载均衡（使用预计算的 ServerIdentity），策略按服务名配置
+        LoadBalancer.Strategy strategy = routingProperties.resolveStrategy(candidates.get(0).getName());
+        while (!available.isEmpty()) {
+            McpServerInfo selected = loadBalancer.selectServer(available, strategy);
+            if (selected == null) {
+                log.warn("⚠️ Load balancer returned null, falling back to first server");
+                selected = available.get(0);
+            }
+            ServerIdentity identity = selected.getIdentity();
+            if (circuitBreakerService.tryAcquireInstancePermission(identity)) {
+                return selected;
+            }
+            // 半开探测名额已被并发请求占满，换下一个实例
+            loadBalancer.decrementConnectionCount(identity);
+            if (available == candidates) {
+                available = new ArrayList<>(candidates);
+            }
+            available.remove(selected);
         }
+        log.warn("🚫 All {} candidate instances are circuit-open", candidates.size());
+        return null;
+    }
+    
+    /**
+     * 过滤掉熔断中的实例；全部可用时直接返回原列表，不复制
+     */
+    private List<McpServerInfo> excludeOpenCircuits(List<McpServerInfo> candidates) {
+        int size = candidates.size();
+        for (int i = 0; i < size; i++) {
+            if (!circuitBreakerService.isInstanceAvailable(candidates.get(i).getIdentity())) {
+                List<McpServerInfo> available = new ArrayList<>(size - 1);
+                for (int j = 0; j < size; j++) {
+                    McpServerInfo candidate = candidates.get(j);
+                    if (j != i && circuitBreakerService.isInstanceAvailable(candidate.getIdentity())) {
+                        available.add(candidate);
+                    }
+                }
+                return available;
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Step 3: 路由到选中实例；幂等的列表/读取方法启用对冲时，主请求超过目标实例的分位数延迟
+     * 仍未返回，则由负载均衡器另选一个实例发出相同请求，取先成功者并取消另一方
+     */
+    private Mono<McpMessage> routeWithHedging(McpServerInfo serverInfo, List<McpServerInfo> candidates,
+                                              McpMessage message, Duration timeout, RoutingLog routingLog) {
+        McpRoutingProperties.Hedging hedging = routingProperties.getHedging();
+        if (candidates.size() < 2 || !hedging.isHedgeable(message.getMethod())) {
+            return routeToServerWithMonitoring(serverInfo, message, timeout, routingLog);
+        }
+        hedgeBudget.deposit();
         
-        // 转换为Nacos Instance格式进行负载均衡
-        List<Instance> instances = candidates.stream()
-                .map(this::convertToNacosInstance)
-                .toList();
+        long percentile = loadBalancer.getResponseTimePercentile(
+                serverInfo.getIdentity(), hedging.getPercentile(), hedging.getMinSamples());
+        Duration hedgeDelay = hedging.resolveDelay(percentile);
         
-        // 使用轮询策略确保负载均衡
-        Instance selectedInstance = loadBalancer.selectServer(instances, LoadBalancer.Strategy.WEIGHTED_ROUND_ROBIN);
+        // 主请求结束（无论成败）即不再发出对冲；两方都失败时返回最后一个错误响应。
+        // 两方并发执行期间都不写路由日志，只由最终胜出（或最后失败）的一方记录实际服务的实例
+        Sinks.One<Boolean> primaryDone = Sinks.one();
+        AtomicReference<HedgeAttempt> lastAttempt = new AtomicReference<>();
+        AtomicBoolean hedged = new AtomicBoolean();
         
-        if (selectedInstance == null) {
-            log.warn("⚠️ Load balancer returned null, falling back to first server");
-            return candidates.get(0);
-        }
+        Mono<HedgeAttempt> primary = routeToServerWithMonitoring(serverInfo, message, timeout, routingLog)
+                .map(response -> new HedgeAttempt(serverInfo, response))
+                .doOnNext(lastAttempt::set)
+                .doFinally(signal -> primaryDone.tryEmitValue(Boolean.TRUE));
+        
+        Mono<HedgeAttempt> hedge = Mono.delay(hedgeDelay)
+                .takeUntilOther(primaryDone.asMono())
+                .flatMap(tick -> {
+                    if (!hedgeBudget.tryWithdraw()) {
+                        log.debug("💸 Hedge budget exhausted, waiting for primary: {}", serverInfo.getIdentity());
+                        return Mono.<HedgeAttempt>empty();
+                    }
+                    McpServerInfo hedgeServer = selectHedgeServer(candidates, serverInfo);
+                    if (hedgeServer == null) {
+                        return Mono.<HedgeAttempt>empty();
+                    }
+                    hedged.set(true);
+                    log.info("🪃 Hedging '{}' to {} after {}ms without response from {}",
+                            message.getMethod(), hedgeServer.getIdentity(), hedgeDelay.toMillis(), serverInfo.getIdentity());
+                    return routeToServerWithMonitoring(hedgeServer, message, timeout, routingLog)
+                            .map(response -> new HedgeAttempt(hedgeServer, response))
+                            .doOnNext(lastAttempt::set)
+                            .doOnNext(attempt -> {
+                                if (attempt.response().getError() == null) {
+                                    hedgeBudget.recordHedgeWon();
+                                }
+                            });
+                });
         
-        // 根据选中的实例找回原始服务器信息
-        String selectedKey = selectedInstance.getIp() + ":" + selectedInstance.getPort();
-        return candidates.stream()
-                .filter(server -> (server.getIp() + ":" + server.getPort()).equals(selectedKey))
-                .findFirst()
-                .orElse(candidates.get(0));
+        return Mono.firstWithValue(
+                        primary.filter(attempt -> attempt.response().getError() == null),
+                        hedge.filter(attempt -> attempt.response().getError() == null))
+                .onErrorResume(NoSuchElementException.class, e -> Mono.justOrEmpty(lastAttempt.get()))
+                .map(attempt -> {
+                    // 对冲请求记为一次重试，目标服务器更新为实际返回响应的实例
+                    if (hedged.get()) {
+                        routingLog.setIsRetry(true);
+                        routingLog.setRetryCount(1);
+                    }
+                    McpServerInfo servedBy = attempt.server();
+                    routingLog.setServerKey(servedBy.getName() + ":" + servedBy.getIp() + ":" + servedBy.getPort());
+                    routingLog.setServerName(servedBy.getName());
+                    return attempt.response();
+                });
     }
-
+    
     /**
-     * Step 3: 路由到指定服务器（带性能监控）
+     * 一次路由尝试（主请求或对冲请求）的目标实例与响应
+     */
+    private record HedgeAttempt(McpServerInfo server, McpMessage response) {
+    }
+    
+    /**
+     * 为对冲请求选择另一个实例（排除主请求实例，同样经过熔断过滤与负载均衡）
+     */
+    private McpServerInfo selectHedgeServer(List<McpServerInfo> candidates, McpServerInfo primary) {
+        List<McpServerInfo> others = new ArrayList<>(candidates.size() - 1);
+        for (McpServerInfo candidate : candidates) {
+            if (!candidate.getIdentity().equals(primary.getIdentity())) {
+                others.add(candidate);
+            }
+        }
+        return others.isEmpty() ? null : selectOptimalServerWithLoadBalancing(others);
+    }
+    
+    /**
+     * 路由到指定服务器（带性能监控）
      * 支持 tools/call 和 tools/list 方法
      */
     private Mono<McpMessage> routeToServerWithMonitoring(McpServerInfo serverInfo, McpMessage message, Duration timeout, RoutingLog routingLog) {
@@ -209,16 +333,16 @@ public class McpRouterService {
         log.info("🔧 Processing method '{}' on server '{}' with monitoring", method, serverInfo.getName());
         
         long startTime = System.currentTimeMillis();
-        Instance instance = convertToNacosInstance(serverInfo);
+        ServerIdentity identity = serverInfo.getIdentity();
         
-        // 按需获取或创建MCP客户端连接
-        return mcpClientManager.getOrCreateMcpClient(serverInfo)
-                .flatMap(client -> {
-                    log.debug("🔗 MCP client connection established for server: {}", serverInfo.getName());
-                    
-                    // 从 MCP 客户端获取真实的客户端信息
-                    String realClientId = client.getClientInfo().name();  // 真实的 MCP 客户端名称
-                    String clientVersion = client.getClientInfo().version(); // 客户端版本
+        // 透传模式：原始 JSON-RPC 字节直接转发，不经 MCP SDK 类型转换；
+        // 否则由 McpClientManager 的各方法在连接池中取连接（single-flight 建连并计入在途请求数），这里不单独取连接
+        Mono<McpMessage> call = passthroughClient.supports(serverInfo, method)
+                ? forwardPassthrough(serverInfo, message, timeout, routingLog, startTime)
+                : Mono.defer(() -> {
+                    // 路由器连接后端使用的 MCP 客户端信息
+                    String realClientId = McpClientManager.CLIENT_INFO.name();  // 真实的 MCP 客户端名称
+                    String clientVersion = McpClientManager.CLIENT_INFO.version(); // 客户端版本
                     
                     // 根据方法类型调用不同的处理逻辑
                     // 注意：initialize 不应该走到这里，因为 routeRequest 已经拦截了
@@ -291,8 +415,9 @@ public class McpRouterService {
                             .map(result -> {
                                 // 记录成功指标
                                 long responseTime = System.currentTimeMillis() - startTime;
-                                loadBalancer.recordResponseTime(instance, responseTime);
-                                loadBalancer.recordSuccess(instance);
+                                loadBalancer.recordResponseTime(identity, responseTime);
+                                loadBalancer.recordSuccess(identity);
+                                circuitBreakerService.recordInstanceSuccess(identity);
                                 
                                 // 构建成功响应（使用真实的MCP客户端信息）
                                 McpMessage response = McpMessage.builder()
@@ -311,24 +436,54 @@ public class McpRouterService {
                                 log.info("✅ Successfully routed request to server: {} (response time: {}ms) [clientId: {}]", 
                                         serverInfo.getName(), responseTime, realClientId);
                                 return response;
-                            })
-                            .doFinally(signal -> {
-                                // 减少连接计数
-                                loadBalancer.decrementConnectionCount(instance);
                             });
-                })
+                });
+        return call
                 // 修复：RESTful接口使用完整的超时时间，不缩短（SSE接口才需要激进优化）
                 .timeout(timeout.multipliedBy(9).dividedBy(10))
                 .onErrorResume(error -> {
-                    // 记录错误指标
                     long responseTime = System.currentTimeMillis() - startTime;
-                    loadBalancer.recordResponseTime(instance, responseTime);
-                    loadBalancer.recordError(instance);
-                    loadBalancer.decrementConnectionCount(instance);
+                    loadBalancer.recordResponseTime(identity, responseTime);
+                    if (error instanceof McpClientManager.ToolExecutionException) {
+                        // 工具执行错误（如参数错误）说明实例正常响应，熔断按成功计，只有传输、连接与超时错误计为失败
+                        loadBalancer.recordSuccess(identity);
+                        circuitBreakerService.recordInstanceSuccess(identity);
+                        log.warn("⚠️ Tool execution error from server: {} - {} (response time: {}ms)",
+                                serverInfo.getName(), error.getMessage(), responseTime);
+                        return createErrorResponse(message, -1, error.getMessage());
+                    }
+                    // 记录错误指标
+                    loadBalancer.recordError(identity);
+                    circuitBreakerService.recordInstanceFailure(identity);
                     
                     log.error("❌ Failed to route to server: {} - {} (response time: {}ms)", 
                             serverInfo.getName(), error.getMessage(), responseTime);
                     return createErrorResponse(message, -1, "Connection or request failed: " + error.getMessage());
+                })
+                // 调用被取消（无结果）时归还半开探测名额
+                .doOnCancel(() -> circuitBreakerService.releaseInstancePermission(identity))
+                // 成功、失败、超时或取消都只在这里减少一次连接计数
+                .doFinally(signal -> loadBalancer.decrementConnectionCount(identity));
+    }
+
+    /**
+     * 透传调用：发给后端的 id 使用路由请求 id，响应字节原样保留，指标记录与类型化调用一致；
+     * 连接计数由 routeToServerWithMonitoring 统一减少
+     */
+    private Mono<McpMessage> forwardPassthrough(McpServerInfo serverInfo, McpMessage message, Duration timeout,
+                                                RoutingLog routingLog, long startTime) {
+        ServerIdentity identity = serverInfo.getIdentity();
+        return passthroughClient.forward(serverInfo, message, routingLog.getRequestId(), routingLog.getSessionId(), timeout)
+                .map(response -> {
+                    long responseTime = System.currentTimeMillis() - startTime;
+                    loadBalancer.recordResponseTime(identity, responseTime);
+                    loadBalancer.recordSuccess(identity);
+                    circuitBreakerService.recordInstanceSuccess(identity);
+                    response.setTargetService(serverInfo.getName());
+                    response.setMetadata(buildResponseMetadata(serverInfo, responseTime, message.getMethod(), "passthrough", null));
+                    log.info("✅ Successfully passed request through to server: {} (response time: {}ms)",
+                            serverInfo.getName(), responseTime);
+                    return response;
                 });
     }
 
@@ -364,13 +519,16 @@ public class McpRouterService {
                         }
                         
                         McpServerInfo selectedServer = selectOptimalServerWithLoadBalancing(candidates);
+                        if (selectedServer == null) {
+                            return createErrorResponse(message, 10003, "All instances are circuit-open for tool: " + toolName);
+                        }
                         log.info("🎯 Smart routing selected server: {} for tool: {}", selectedServer.getName(), toolName);
                         
                         routingLog.setServerKey(selectedServer.getName() + ":" + selectedServer.getIp() + ":" + selectedServer.getPort());
                         routingLog.setServerName(selectedServer.getName());
-                        routingLog.setLoadBalanceStrategy("WEIGHTED_ROUND_ROBIN");
+                        routingLog.setLoadBalanceStrategy(routingProperties.resolveStrategy(selectedServer.getName()).name());
                         
-                        return routeToServerWithMonitoring(selectedServer, message, timeout, routingLog);
+                        return routeWithHedging(selectedServer, candidates, message, timeout, routingLog);
                     })
                     .doOnSuccess(response -> {
                         long responseTime = System.currentTimeMillis() - startTime;
@@ -410,13 +568,16 @@ public class McpRouterService {
                             return createErrorResponse(message, 10001, "No healthy MCP services available for " + method);
                         }
                         McpServerInfo selectedServer = selectOptimalServerWithLoadBalancing(candidates);
+                        if (selectedServer == null) {
+                            return createErrorResponse(message, 10003, "All MCP instances are circuit-open for " + method);
+                        }
                         log.info("🎯 Smart routing selected server: {} for method: {}", selectedServer.getName(), method);
                         
                         routingLog.setServerKey(selectedServer.getName() + ":" + selectedServer.getIp() + ":" + selectedServer.getPort());
                         routingLog.setServerName(selectedServer.getName());
-                        routingLog.setLoadBalanceStrategy("WEIGHTED_ROUND_ROBIN");
+                        routingLog.setLoadBalanceStrategy(routingProperties.resolveStrategy(selectedServer.getName()).name());
                         
-                        return routeToServerWithMonitoring(selectedServer, message, timeout, routingLog);
+                        return routeWithHedging(selectedServer, candidates, message, timeout, routingLog);
                     })
                     .doOnSuccess(response -> {
                         long responseTime = System.currentTimeMillis() - startTime;
@@ -436,10 +597,16 @@ public class McpRouterService {
 
     /**
      * 发现提供指定工具的服务
+     * 优先查询工具倒排索引（O(1)，无网络调用），索引未命中时才探测各服务器并回填索引
      */
     private Mono<List<McpServerInfo>> discoverServicesWithTool(String toolName) {
-        log.debug("🔍 Discovering services that provide tool: {}", toolName);
+        List<McpServerInfo> indexed = toolIndex.findServersWithTool(toolName);
+        if (!indexed.isEmpty()) {
+            log.debug("🗂️ Tool index hit for tool: {} ({} servers)", toolName, indexed.size());
+            return Mono.just(indexed);
+        }
         
+        log.debug("🔍 Tool index miss, probing services for tool: {}", toolName);
         return serverRegistry.getAllHealthyServers("*", registryProperties.getServiceGroups())
                 .cast(McpServerInfo.class)
                 .filterWhen(server -> checkServerHasTool(server, toolName))
@@ -450,10 +617,17 @@ public class McpRouterService {
     }
 
     /**
-     * 检查服务器是否提供指定工具
+     * 检查服务器是否提供指定工具（探测结果回填工具索引）
      */
     private Mono<Boolean> checkServerHasTool(McpServerInfo serverInfo, String toolName) {
-        return mcpClientManager.hasTool(serverInfo, toolName)
+        return mcpClientManager.listTools(serverInfo)
+                .map(result -> {
+                    List<String> toolNames = result.tools().stream()
+                            .map(McpSchema.Tool::name)
+                            .toList();
+                    toolIndex.updateServerTools(serverInfo, toolNames);
+                    return toolNames.contains(toolName);
+                })
                 .onErrorReturn(false);
     }
 
@@ -513,23 +687,13 @@ public class McpRouterService {
     public Map<String, Object> getRoutingStats() {
         Map<String, Object> stats = loadBalancer.getLoadBalancerStats();
         stats.put("routing_strategy", "intelligent");
+        stats.put("tool_index", toolIndex.getStats());
+        stats.put("hedging", hedgeBudget.getStats());
+        stats.put("service_lookup_cache", serverRegistry.getLookupCacheStats());
         stats.put("features", List.of("smart_routing", "connection_pooling", "performance_monitoring"));
         return stats;
     }
 
-    /**
-     * 转换McpServerInfo为Nacos Instance
-     */
-    private Instance convertToNacosInstance(McpServerInfo serverInfo) {
-        Instance instance = new Instance();
-        instance.setIp(serverInfo.getIp());
-        instance.setPort(serverInfo.getPort());
-        instance.setWeight(serverInfo.getWeight() > 0 ? serverInfo.getWeight() : 1.0);
-        instance.setHealthy(true);
-        instance.setEnabled(true);
-        return instance;
-    }
-
     /**
      * 计算健康度评分
      */
@@ -686,9 +850,10 @@ public class McpRouterService {
      */
     private RoutingLog createRoutingLog(String requestId, String serviceName, McpMessage message, Map<String, String> headers) {
         try {
-            String params = objectMapper.writeValueAsString(message.getParams());
-            // 限制 params 大小为 10KB
-            params = truncateIfNeeded(params, 10240);
+            // 限制 params 大小为 10KB；流式解析保留了原始字节时直接截取，不再序列化
+            String params = message.getRawParams() != null
+                    ? truncateIfNeeded(message.getRawParams(), 10240)
+                    : serializeTruncated(message.getParams(), 10240);
             
             // 提取工具名称
             String toolName = extractToolName(message);
@@ -962,15 +1127,86 @@ public class McpRouterService {
         return truncated + "... [TRUNCATED]";
     }
     
+    /**
+     * 截断 UTF-8 原始字节，只解码保留的部分
+     */
+    private String truncateIfNeeded(byte[] bytes, int maxBytes) {
+        if (bytes.length <= maxBytes) {
+            return new String(bytes, java.nio.charset.StandardCharsets.UTF_8);
+        }
+        return new String(bytes, 0, maxBytes - 20, java.nio.charset.StandardCharsets.UTF_8) + "... [TRUNCATED]";
+    }
+    
+    /**
+     * 序列化为 JSON，写满 maxBytes 后立即停止，大对象不会被完整序列化
+     */
+    private String serializeTruncated(Object value, int maxBytes) throws JsonProcessingException {
+        BoundedOutputStream out = new BoundedOutputStream(maxBytes);
+        try {
+            objectMapper.writeValue(out, value);
+        } catch (JsonProcessingException e) {
+            if (!out.isFull()) {
+                throw e;
+            }
+        } catch (java.io.IOException e) {
+            if (!out.isFull()) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        } catch (RuntimeException e) {
+            // 写满时 BoundedOutputStream 抛出异常中止序列化
+            if (!out.isFull()) {
+                throw e;
+            }
+        }
+        if (!out.isFull()) {
+            return out.toString(java.nio.charset.StandardCharsets.UTF_8);
+        }
+        return truncateIfNeeded(out.toByteArray(), maxBytes);
+    }
+    
+    /**
+     * 容量有限的输出流：写入超出容量时保留前 limit + 1 个字节并中止序列化
+     */
+    private static final class BoundedOutputStream extends java.io.ByteArrayOutputStream {
+        private final int limit;
+        
+        private BoundedOutputStream(int limit) {
+            super(Math.min(limit + 1, 8192));
+            this.limit = limit;
+        }
+        
+        boolean isFull() {
+            return count > limit;
+        }
+        
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            int room = limit + 1 - count;
+            super.write(b, off, Math.min(len, Math.max(room, 0)));
+            if (len > room) {
+                throw new java.io.UncheckedIOException(new java.io.IOException("Output limit reached"));
+            }
+        }
+        
+        @Override
+        public synchronized void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+    }
+    
     /**
      * 设置响应体
      * 如果响应体超过 2048 字节，会自动压缩存储
      */
     private void setResponseBody(RoutingLog routingLog, McpMessage response) {
+        if (response != null && response.getRawResponse() != null) {
+            // 透传响应直接截取原始字节
+            routingLog.setResponseBody(truncateIfNeeded(response.getRawResponse(), 51200));
+            return;
+        }
         try {
-            String responseBody = objectMapper.writeValueAsString(response);
-            // 限制响应体大小为 50KB，剩余部分交由 TypeHandler 截断
-            responseBody = truncateIfNeeded(responseBody, 51200);
+            // 限制响应体大小为 50KB，剩余部分交由 TypeHandler 截断；超出部分不再序列化
+            String responseBody = serializeTruncated(response, 51200);
             routingLog.setResponseBody(responseBody);
         } catch (JsonProcessingException e) {
             log.warn("Failed to serialize response body", e);
@@ -1,13 +1,17 @@
 package com.pajk.mcpbridge.core.service;
 
+import com.pajk.mcpbridge.core.config.McpSessionProperties;
 import com.pajk.mcpbridge.core.model.McpServerInfo;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
@@ -15,10 +19,13 @@ import reactor.core.publisher.Sinks;
 import java.nio.charset.StandardCharsets;
 
 import java.time.Duration;
-import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -29,8 +36,14 @@ import com.fasterxml.jackson.databind.JsonNode;
  * 
  * 设计：
  * - 客户端会话：客户端与 router 的 SSE 连接，客户端不断开就保持连接
- * - 服务器会话：router 与后端服务器的 SSE 连接，可以闲时断开，用时再连接，有效时间10分钟
- * - 会话映射：clientSessionId -> serverSessionId 的映射
+ * - 服务器会话：router 与后端服务器的 SSE 连接，可以闲时断开，用时再连接，空闲超时默认10分钟
+ * - 会话映射：客户端会话记录 serverSessionId，服务器会话记录所属 clientSessionId，不再维护单独的映射表
+ * 
+ * 容量与过期：
+ * - 时间戳均为 System.nanoTime（单调时钟），续期只写一个 long
+ * - 服务器会话存放在分片 LRU 表中，超过 maxServerSessions 时淘汰最久未使用的会话并断开其后端连接
+ * - 空闲过期由分层时间轮驱动：每秒只处理到期格子里的会话，仍在活跃的会话按最新活跃时间重新登记，
+ *   清理开销与会话总数无关
  */
 @Slf4j
 @Service
@@ -40,32 +53,32 @@ public class McpSessionBridgeService {
      * 客户端会话信息
      */
     public static class ClientSession {
-        private String clientSessionId;
-        private String serviceName;
-        private Sinks.Many<ServerSentEvent<String>> clientSink;
-        private LocalDateTime createdTime;
-        private LocalDateTime lastActiveTime;
-        private String serverSessionId; // 关联的服务器会话ID
+        private final String clientSessionId;
+        private final String serviceName;
+        private final Sinks.Many<ServerSentEvent<String>> clientSink;
+        private final long createdNanos;
+        private volatile long lastActiveNanos;
+        private volatile String serverSessionId; // 关联的服务器会话ID
         
         public ClientSession(String clientSessionId, String serviceName, 
-                            Sinks.Many<ServerSentEvent<String>> clientSink) {
+                            Sinks.Many<ServerSentEvent<String>> clientSink, long nowNanos) {
             this.clientSessionId = clientSessionId;
             this.serviceName = serviceName;
             this.clientSink = clientSink;
-            this.createdTime = LocalDateTime.now();
-            this.lastActiveTime = LocalDateTime.now();
+            this.createdNanos = nowNanos;
+            this.lastActiveNanos = nowNanos;
         }
         
-        public void updateLastActiveTime() {
-            this.lastActiveTime = LocalDateTime.now();
+        public void touch(long nowNanos) {
+            this.lastActiveNanos = nowNanos;
         }
         
         // Getters and setters
         public String getClientSessionId() { return clientSessionId; }
         public String getServiceName() { return serviceName; }
         public Sinks.Many<ServerSentEvent<String>> getClientSink() { return clientSink; }
-        public LocalDateTime getCreatedTime() { return createdTime; }
-        public LocalDateTime getLastActiveTime() { return lastActiveTime; }
+        public long getCreatedNanos() { return createdNanos; }
+        public long getLastActiveNanos() { return lastActiveNanos; }
         public String getServerSessionId() { return serverSessionId; }
         public void setServerSessionId(String serverSessionId) { this.serverSessionId = serverSessionId; }
     }
@@ -74,91 +87,127 @@ public class McpSessionBridgeService {
      * 服务器会话信息
      */
     public static class ServerSession {
-        private String serverSessionId; // router 生成的会话ID
-        private String backendSessionId; // 后端服务器的会话ID（从 SSE endpoint 事件中提取）
-        private String serviceName;
-        private McpServerInfo serverInfo;
+        private final String serverSessionId; // router 生成的会话ID
+        private final String clientSessionId; // 所属客户端会话ID
+        private volatile String backendSessionId; // 后端服务器的会话ID（从 SSE endpoint 事件中提取）
+        private final String serviceName;
+        private final McpServerInfo serverInfo;
         public Flux<ServerSentEvent<String>> serverEventFlux; // 服务器 SSE 流
-        private LocalDateTime createdTime;
-        private LocalDateTime lastActiveTime;
-        private LocalDateTime expireTime; // 过期时间（10分钟后）
-        private boolean isActive; // 是否活跃
+        private volatile Disposable connection; // 后端 SSE 订阅，移除会话时断开
+        private final long createdNanos;
+        private volatile long lastActiveNanos;
+        private volatile boolean isActive; // 是否活跃
         
-        public ServerSession(String serverSessionId, String serviceName, 
-                           McpServerInfo serverInfo, Flux<ServerSentEvent<String>> serverEventFlux) {
+        public ServerSession(String serverSessionId, String clientSessionId, String serviceName,
+                           McpServerInfo serverInfo, Flux<ServerSentEvent<String>> serverEventFlux, long nowNanos) {
             this.serverSessionId = serverSessionId;
+            this.clientSessionId = clientSessionId;
             this.serviceName = serviceName;
             this.serverInfo = serverInfo;
             this.serverEventFlux = serverEventFlux;
-            this.createdTime = LocalDateTime.now();
-            this.lastActiveTime = LocalDateTime.now();
-            this.expireTime = LocalDateTime.now().plusMinutes(10); // 10分钟后过期
+            this.createdNanos = nowNanos;
+            this.lastActiveNanos = nowNanos;
             this.isActive = true;
         }
         
         public String getBackendSessionId() { return backendSessionId; }
         public void setBackendSessionId(String backendSessionId) { this.backendSessionId = backendSessionId; }
         
-        public void updateLastActiveTime() {
-            this.lastActiveTime = LocalDateTime.now();
-            this.expireTime = LocalDateTime.now().plusMinutes(10); // 重置过期时间
+        public void touch(long nowNanos) {
+            this.lastActiveNanos = nowNanos;
+        }
+        
+        public boolean isExpired(long nowNanos, long idleTimeoutNanos) {
+            return nowNanos - lastActiveNanos >= idleTimeoutNanos;
         }
         
-        public boolean isExpired() {
-            return LocalDateTime.now().isAfter(expireTime);
+        void close() {
+            isActive = false;
+            Disposable current = connection;
+            if (current != null) {
+                current.dispose();
+            }
         }
         
         // Getters and setters
         public String getServerSessionId() { return serverSessionId; }
+        public String getClientSessionId() { return clientSessionId; }
         public String getServiceName() { return serviceName; }
         public McpServerInfo getServerInfo() { return serverInfo; }
         public Flux<ServerSentEvent<String>> getServerEventFlux() { return serverEventFlux; }
-        public LocalDateTime getCreatedTime() { return createdTime; }
-        public LocalDateTime getLastActiveTime() { return lastActiveTime; }
-        public LocalDateTime getExpireTime() { return expireTime; }
+        public long getCreatedNanos() { return createdNanos; }
+        public long getLastActiveNanos() { return lastActiveNanos; }
         public boolean isActive() { return isActive; }
         public void setActive(boolean active) { isActive = active; }
     }
     
+    // 时间轮：每格 1 秒，64 格一层，两层覆盖约 68 分钟
+    private static final long EXPIRY_TICK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int EXPIRY_WHEEL_SIZE = 64;
+    private static final int EXPIRY_WHEEL_LEVELS = 2;
+    private static final int SERVER_SESSION_SHARDS = 16;
+    
     // 客户端会话存储：clientSessionId -> ClientSession
     private final Map<String, ClientSession> clientSessions = new ConcurrentHashMap<>();
     
-    // 服务器会话存储：serverSessionId -> ServerSession
-    private final Map<String, ServerSession> serverSessions = new ConcurrentHashMap<>();
-    
-    // 会话映射：clientSessionId -> serverSessionId
-    private final Map<String, String> sessionMapping = new ConcurrentHashMap<>();
+    // 服务器会话存储：serverSessionId -> ServerSession（分片、有界、LRU 淘汰）
+    private final ShardedLruTable<ServerSession> serverSessions;
     
-    // 反向映射：serverSessionId -> clientSessionId（一个服务器会话可能对应多个客户端会话）
-    private final Map<String, String> reverseMapping = new ConcurrentHashMap<>();
+    // 服务器会话空闲过期
+    private final TimingWheel expiryWheel;
     
     private final WebClient.Builder webClientBuilder;
     private final McpServerService serverService;
     private final ObjectMapper objectMapper; // 注入 ObjectMapper
     private final McpSessionService sessionService;
-
-    // 服务器会话有效时间：10分钟
-    private static final Duration SERVER_SESSION_TIMEOUT = Duration.ofMinutes(10);
+    private final LongSupplier nanoClock;
+    private final int maxClientSessions;
+    private final long serverSessionIdleTimeoutNanos;
+    
+    private final AtomicLong rejectedClientSessions = new AtomicLong(0);
+    private final AtomicLong evictedServerSessions = new AtomicLong(0);
+    private final AtomicLong expiredServerSessions = new AtomicLong(0);
     
+    @Autowired
     public McpSessionBridgeService(WebClient.Builder webClientBuilder,
                                   McpServerService serverService,
                                   ObjectMapper objectMapper,
-                                  McpSessionService sessionService) {
+                                  McpSessionService sessionService,
+                                  McpSessionProperties sessionProperties) {
+        this(webClientBuilder, serverService, objectMapper, sessionService, sessionProperties, System::nanoTime);
+    }
+    
+    McpSessionBridgeService(WebClient.Builder webClientBuilder,
+                            McpServerService serverService,
+                            ObjectMapper objectMapper,
+                            McpSessionService sessionService,
+                            McpSessionProperties sessionProperties,
+                            LongSupplier nanoClock) {
         this.webClientBuilder = webClientBuilder;
         this.serverService = serverService;
         this.objectMapper = objectMapper;
         this.sessionService = sessionService;
-        
-        // 启动定期清理任务
-        startCleanupTask();
+        this.nanoClock = nanoClock;
+        McpSessionProperties.Bridge bridge = sessionProperties.getBridge();
+        this.maxClientSessions = bridge.getMaxClientSessions();
+        this.serverSessionIdleTimeoutNanos = bridge.getServerSessionIdleTimeout().toNanos();
+        this.serverSessions = new ShardedLruTable<>(SERVER_SESSION_SHARDS, bridge.getMaxServerSessions());
+        this.expiryWheel = new TimingWheel(EXPIRY_TICK_NANOS, EXPIRY_WHEEL_SIZE, EXPIRY_WHEEL_LEVELS, nanoClock.getAsLong());
     }
     
     /**
      * 注册客户端会话
+     * 超过 maxClientSessions 时不登记，该会话的消息走普通路由而不是后端桥接
      */
     public void registerClientSession(String clientSessionId, String serviceName, 
                                      Sinks.Many<ServerSentEvent<String>> clientSink) {
-        ClientSession clientSession = new ClientSession(clientSessionId, serviceName, clientSink);
+        if (clientSessions.size() >= maxClientSessions && !clientSessions.containsKey(clientSessionId)) {
+            rejectedClientSessions.incrementAndGet();
+            log.warn("⚠️ Client session table full ({}), not bridging clientSessionId={}", 
+                    maxClientSessions, clientSessionId);
+            return;
+        }
+        ClientSession clientSession = new ClientSession(clientSessionId, serviceName, clientSink, nanoClock.getAsLong());
         clientSessions.put(clientSessionId, clientSession);
         log.info("✅ Registered client session: clientSessionId={}, serviceName={}", 
                 clientSessionId, serviceName);
@@ -172,15 +221,14 @@ public class McpSessionBridgeService {
     }
     
     /**
-     * 移除客户端会话
+     * 移除客户端会话，同时断开其独占的服务器会话
      */
     public void removeClientSession(String clientSessionId) {
         ClientSession clientSession = clientSessions.remove(clientSessionId);
         if (clientSession != null) {
             String serverSessionId = clientSession.getServerSessionId();
             if (serverSessionId != null) {
-                sessionMapping.remove(clientSessionId);
-                reverseMapping.remove(serverSessionId);
+                removeServerSession(serverSessionId);
                 log.info("🗑️ Removed client session mapping: clientSessionId={}, serverSessionId={}", 
                         clientSessionId, serverSessionId);
             }
@@ -202,12 +250,13 @@ public class McpSessionBridgeService {
         String existingServerSessionId = clientSession.getServerSessionId();
         if (existingServerSessionId != null) {
             ServerSession existingSession = serverSessions.get(existingServerSessionId);
-            if (existingSession != null && !existingSession.isExpired() && existingSession.isActive()) {
-                existingSession.updateLastActiveTime();
+            if (existingSession != null && existingSession.isActive()
+                    && !existingSession.isExpired(nanoClock.getAsLong(), serverSessionIdleTimeoutNanos)) {
+                touchServerSession(existingSession);
                 log.debug("🎯 Using existing server session: serverSessionId={}", existingServerSessionId);
                 return Mono.just(existingSession);
             } else {
-                // 会话已过期或已断开，移除
+                // 会话已过期、已断开或已被淘汰，移除
                 log.info("🔄 Server session expired or inactive, creating new one: serverSessionId={}", 
                         existingServerSessionId);
                 removeServerSession(existingServerSessionId);
@@ -219,8 +268,6 @@ public class McpSessionBridgeService {
                 .doOnNext(serverSession -> {
                     // 建立映射关系
                     clientSession.setServerSessionId(serverSession.getServerSessionId());
-                    sessionMapping.put(clientSessionId, serverSession.getServerSessionId());
-                    reverseMapping.put(serverSession.getServerSessionId(), clientSessionId);
                     log.info("✅ Created and mapped server session: clientSessionId={}, serverSessionId={}", 
                             clientSessionId, serverSession.getServerSessionId());
                 });
@@ -244,9 +291,9 @@ public class McpSessionBridgeService {
                     Sinks.One<String> backendSessionIdSink = Sinks.one(); // 用于异步通知 backendSessionId
 
                     // 创建服务器会话
-                    ServerSession serverSession = new ServerSession(serverSessionId, serviceName,
-                            serverInfo, null); // 暂时传入 null，稍后设置真正的 Flux
-                    serverSessions.put(serverSessionId, serverSession);
+                    ServerSession serverSession = new ServerSession(serverSessionId, clientSessionId, serviceName,
+                            serverInfo, null, nanoClock.getAsLong()); // 暂时传入 null，稍后设置真正的 Flux
+                    addServerSession(serverSession);
 
                     // 建立与后端服务器的 SSE 连接
                     WebClient webClient = webClientBuilder.baseUrl(serverBaseUrl).build();
@@ -276,16 +323,19 @@ public class McpSessionBridgeService {
                                 }
 
                                 // 将服务器事件转发到客户端
-                                forwardServerEventToClient(serverSessionId, event);
+                                forwardServerEventToClient(serverSession, event);
                             })
                             .doOnError(error -> {
                                 log.error("❌ Backend Server SSE stream error: serverSessionId={}, error={}", serverSessionId, error.getMessage(), error);
                                 serverSession.setActive(false);
+                                // 下一个 tick 即清理
+                                expiryWheel.schedule(serverSessionId, nanoClock.getAsLong());
                                 backendSessionIdSink.tryEmitError(error); // 错误时也发出信号
                             })
                             .doOnComplete(() -> {
                                 log.info("✅ Backend Server SSE stream completed: serverSessionId={}", serverSessionId);
                                 serverSession.setActive(false);
+                                expiryWheel.schedule(serverSessionId, nanoClock.getAsLong());
                                 backendSessionIdSink.tryEmitEmpty(); // 完成时也发出信号
                             });
 
@@ -293,7 +343,7 @@ public class McpSessionBridgeService {
                     serverSession.serverEventFlux = serverEventFlux; // 更新 ServerSession 中的 Flux
 
                     // 订阅服务器事件流（保持连接），并等待 backendSessionId 就绪
-                    serverEventFlux.subscribe(); // 保持连接活跃
+                    serverSession.connection = serverEventFlux.subscribe(); // 保持连接活跃，移除会话时断开
 
                     return backendSessionIdSink.asMono() // 等待 backendSessionId 就绪
                             .thenReturn(serverSession) // 一旦就绪，返回 serverSession
@@ -301,11 +351,35 @@ public class McpSessionBridgeService {
                 });
     }
     
+    /**
+     * 登记服务器会话并安排空闲过期；表满时淘汰最久未使用的会话
+     */
+    void addServerSession(ServerSession serverSession) {
+        List<ServerSession> evicted = serverSessions.put(serverSession.getServerSessionId(), serverSession);
+        expiryWheel.schedule(serverSession.getServerSessionId(),
+                serverSession.getLastActiveNanos() + serverSessionIdleTimeoutNanos);
+        for (ServerSession victim : evicted) {
+            evictedServerSessions.incrementAndGet();
+            log.warn("♻️ Server session table full ({}), evicted least recently used: serverSessionId={}, clientSessionId={}",
+                    serverSessions.capacity(), victim.getServerSessionId(), victim.getClientSessionId());
+            releaseServerSession(victim);
+        }
+    }
+    
+    /**
+     * 标记服务器会话活跃：更新活跃时间并移到 LRU 表的最近使用端（过期时间在时间轮到期时惰性检查）
+     */
+    private void touchServerSession(ServerSession serverSession) {
+        serverSession.touch(nanoClock.getAsLong());
+        serverSessions.touch(serverSession.getServerSessionId());
+    }
+    
     /**
      * 将服务器事件转发到客户端
      */
-    private void forwardServerEventToClient(String serverSessionId, ServerSentEvent<String> event) {
-        String clientSessionId = reverseMapping.get(serverSessionId);
+    private void forwardServerEventToClient(ServerSession serverSession, ServerSentEvent<String> event) {
+        String serverSessionId = serverSession.getServerSessionId();
+        String clientSessionId = serverSession.getClientSessionId();
         if (clientSessionId != null) {
             ClientSession clientSession = clientSessions.get(clientSessionId);
             if (clientSession != null && clientSession.getClientSink() != null) {
@@ -368,18 +442,22 @@ public class McpSessionBridgeService {
     public void removeServerSession(String serverSessionId) {
         ServerSession serverSession = serverSessions.remove(serverSessionId);
         if (serverSession != null) {
-            String clientSessionId = reverseMapping.remove(serverSessionId);
-            if (clientSessionId != null) {
-                ClientSession clientSession = clientSessions.get(clientSessionId);
-                if (clientSession != null) {
-                    clientSession.setServerSessionId(null);
-                }
-                sessionMapping.remove(clientSessionId);
-            }
+            releaseServerSession(serverSession);
             log.info("🗑️ Removed server session: serverSessionId={}", serverSessionId);
         }
     }
     
+    /**
+     * 断开后端连接并解除与客户端会话的关联（会话已从表中移除）
+     */
+    private void releaseServerSession(ServerSession serverSession) {
+        serverSession.close();
+        ClientSession clientSession = clientSessions.get(serverSession.getClientSessionId());
+        if (clientSession != null && serverSession.getServerSessionId().equals(clientSession.getServerSessionId())) {
+            clientSession.setServerSessionId(null);
+        }
+    }
+    
     /**
      * 获取服务器会话
      */
@@ -420,29 +498,29 @@ public class McpSessionBridgeService {
     }
     
     /**
-     * 启动定期清理任务
-     * 清理过期的服务器会话
-     */
-    private void startCleanupTask() {
-        reactor.core.publisher.Flux.interval(Duration.ofMinutes(1))
-                .doOnNext(tick -> cleanupExpiredSessions())
-                .doOnError(error -> log.error("Cleanup task failed", error))
-                .subscribe();
-    }
-    
-    /**
-     * 清理过期的服务器会话
+     * 推进过期时间轮，清理空闲超时或已断开的服务器会话
+     * 到期但期间仍有活动的会话按最新活跃时间重新登记
      */
-    private void cleanupExpiredSessions() {
+    @Scheduled(fixedDelay = 1000, initialDelay = 1000)
+    public void expireServerSessions() {
+        long now = nanoClock.getAsLong();
         int cleanedCount = 0;
-        for (Map.Entry<String, ServerSession> entry : serverSessions.entrySet()) {
-            ServerSession session = entry.getValue();
-            if (session.isExpired() || !session.isActive()) {
-                removeServerSession(entry.getKey());
-                cleanedCount++;
+        for (String serverSessionId : expiryWheel.advance(now)) {
+            ServerSession session = serverSessions.get(serverSessionId);
+            if (session == null) {
+                continue; // 已被移除或淘汰
+            }
+            if (!session.isActive() || session.isExpired(now, serverSessionIdleTimeoutNanos)) {
+                if (serverSessions.remove(serverSessionId, session)) {
+                    releaseServerSession(session);
+                    cleanedCount++;
+                }
+            } else {
+                expiryWheel.schedule(serverSessionId, session.getLastActiveNanos() + serverSessionIdleTimeoutNanos);
             }
         }
         if (cleanedCount > 0) {
+            expiredServerSessions.addAndGet(cleanedCount);
             log.info("🧹 Cleaned up {} expired server sessions", cleanedCount);
         }
     }
@@ -453,7 +531,7 @@ public class McpSessionBridgeService {
     public void updateClientSessionLastActiveTime(String clientSessionId) {
         ClientSession clientSession = clientSessions.get(clientSessionId);
         if (clientSession != null) {
-            clientSession.updateLastActiveTime();
+            clientSession.touch(nanoClock.getAsLong());
         }
     }
     
@@ -464,7 +542,14 @@ public class McpSessionBridgeService {
         Map<String, Object> stats = new java.util.HashMap<>();
         stats.put("clientSessionCount", clientSessions.size());
         stats.put("serverSessionCount", serverSessions.size());
-        stats.put("sessionMappingCount", sessionMapping.size());
+        // 每个服务器会话只属于一个客户端会话
+        stats.put("sessionMappingCount", serverSessions.size());
+        stats.put("maxClientSessions", maxClientSessions);
+        stats.put("maxServerSessions", serverSessions.capacity());
+        stats.put("pendingExpiryCount", expiryWheel.size());
+        stats.put("rejectedClientSessions", rejectedClientSessions.get());
+        stats.put("evictedServerSessions", evictedServerSessions.get());
+        stats.put("expiredServerSessions", expiredServerSessions.get());
         return stats;
     }
     
@@ -494,7 +579,7 @@ public class McpSessionBridgeService {
         }
         
         // 更新服务器会话的最后活跃时间
-        serverSession.updateLastActiveTime();
+        touchServerSession(serverSession);
         
         // 构建后端服务器的消息端点URL
         String serverBaseUrl = buildServerUrl(serverSession.getServerInfo());
@@ -571,6 +656,7 @@ public class McpSessionBridgeService {
                 });
     }
 
+
     public Mono<Void> bridgeSseSession(String clientSessionId, String serviceName) {
         ClientSession clientSession = clientSessions.get(clientSessionId);
         if (clientSession == null) {
@@ -588,44 +674,14 @@ public class McpSessionBridgeService {
 
     /**
      * 移除桥接
+     * 服务器会话只属于一个客户端会话，随客户端会话一起移除
      */
     public Mono<Void> removeBridge(String clientSessionId) {
-        ClientSession clientSession = clientSessions.get(clientSessionId);
-        if (clientSession == null) {
+        if (!clientSessions.containsKey(clientSessionId)) {
             return Mono.empty();
         }
-
-        String serverSessionId = clientSession.getServerSessionId();
-        if (serverSessionId != null) {
-            // 检查是否有其他客户端会话仍在使用此服务器会话
-            boolean otherClientsUsingServerSession = clientSessions.values().stream()
-                    .filter(s -> !s.getClientSessionId().equals(clientSessionId))
-                    .anyMatch(s -> serverSessionId.equals(s.getServerSessionId()));
-
-            if (!otherClientsUsingServerSession) {
-                // 如果没有其他客户端使用，则移除服务器会话
-                removeServerSession(serverSessionId);
-            }
-        }
         removeClientSession(clientSessionId);
         log.info("🗑️ Removed bridge for client session: {}", clientSessionId);
-        return Mono.empty().then();
+        return Mono.empty();
     }
 }
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
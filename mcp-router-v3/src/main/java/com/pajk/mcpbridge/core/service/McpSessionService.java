@@ -1,27 +1,47 @@
 package com.pajk.mcpbridge.core.service;
 
+import com.pajk.mcpbridge.core.config.McpSessionProperties;
 import com.pajk.mcpbridge.core.session.SessionInstanceIdProvider;
+import com.pajk.mcpbridge.core.session.SessionMessageRelay;
 import com.pajk.mcpbridge.core.session.SessionMeta;
 import com.pajk.mcpbridge.core.session.SessionRedisRepository;
+import com.pajk.mcpbridge.core.session.SseEventSender;
 import com.pajk.mcpbridge.core.transport.TransportType;
 import com.pajk.mcpbridge.persistence.entity.RoutingLog;
 import com.pajk.mcpbridge.persistence.mapper.RoutingLogMapper;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 /**
  * 会话服务：维护 sessionId 与 serviceName、SSE sink、活跃时间的映射（支持多实例 Redis 共享）
+ * <p>
+ * 本实例创建的会话在本地保留一份 SessionMeta（近端缓存），serviceName/transportType 查询直接命中本地；
+ * lastActive 只在本地更新并标记为脏，由后台任务按 lastActiveFlushInterval 合并写回 Redis，
+ * 每条消息的 Redis 往返通常为零。其他实例的会话仍直接读写 Redis。
+ * <p>
+ * 收到属于其他在线实例会话的消息时，返回经 SessionMessageRelay 转发的发送端，任意实例都可以接收任意会话的 POST。
  */
 @Service
 public class McpSessionService {
@@ -31,14 +51,41 @@ public class McpSessionService {
     private final SessionRedisRepository sessionRepository;
     private final String instanceId;
     private final Map<String, Sinks.Many<ServerSentEvent<String>>> sessionIdToSseSink = new ConcurrentHashMap<>();
+    // 等待 SSE sink 注册的请求：sessionId -> 注册完成信号
+    private final Map<String, Sinks.One<Sinks.Many<ServerSentEvent<String>>>> pendingSseSinks = new ConcurrentHashMap<>();
     private final RoutingLogMapper routingLogMapper;
+    private final SessionMessageRelay messageRelay;
 
+    // 本实例会话的近端缓存
+    private final Map<String, LocalSession> localSessions = new ConcurrentHashMap<>();
+    private final long flushIntervalMillis;
+    private final long sessionTtlMillis;
+    private final LongSupplier clock;
+
+    @Autowired
     public McpSessionService(SessionRedisRepository sessionRepository,
                              SessionInstanceIdProvider instanceIdProvider,
-                             RoutingLogMapper routingLogMapper) {
+                             RoutingLogMapper routingLogMapper,
+                             McpSessionProperties sessionProperties,
+                             SessionMessageRelay messageRelay) {
+        this(sessionRepository, instanceIdProvider, routingLogMapper, sessionProperties, messageRelay,
+                System::currentTimeMillis);
+    }
+
+    McpSessionService(SessionRedisRepository sessionRepository,
+                      SessionInstanceIdProvider instanceIdProvider,
+                      RoutingLogMapper routingLogMapper,
+                      McpSessionProperties sessionProperties,
+                      SessionMessageRelay messageRelay,
+                      LongSupplier clock) {
         this.sessionRepository = sessionRepository;
         this.instanceId = instanceIdProvider.getInstanceId();
         this.routingLogMapper = routingLogMapper;
+        this.flushIntervalMillis = sessionProperties.getLastActiveFlushInterval().toMillis();
+        this.sessionTtlMillis = sessionProperties.getTtl().toMillis();
+        this.clock = clock;
+        this.messageRelay = messageRelay;
+        messageRelay.setInboundHandler(this::deliverRelayedEvent);
     }
 
     public void registerSessionService(String sessionId, String serviceName, TransportType transportType) {
@@ -46,18 +93,25 @@ public class McpSessionService {
             return;
         }
         String transport = transportType != null ? transportType.name() : null;
-        SessionMeta meta = new SessionMeta(sessionId, instanceId, serviceName, null, transport, LocalDateTime.now(), true);
+        long now = clock.getAsLong();
+        SessionMeta meta = new SessionMeta(sessionId, instanceId, serviceName, null, transport, toLocalDateTime(now), true);
         sessionRepository.saveSessionMeta(meta);
+        localSessions.put(sessionId, new LocalSession(meta, now));
     }
 
     public String getServiceName(String sessionId) {
+        LocalSession local = lookupLocal(sessionId);
+        if (local != null) {
+            return local.meta.getServiceName();
+        }
         return sessionRepository.findSession(sessionId)
                 .map(SessionMeta::getServiceName)
                 .orElse(null);
     }
 
     public TransportType getTransportType(String sessionId) {
-        return sessionRepository.findSession(sessionId)
+        LocalSession local = lookupLocal(sessionId);
+        return (local != null ? Optional.of(local.meta) : sessionRepository.findSession(sessionId))
                 .map(SessionMeta::getTransportType)
                 .map(value -> {
                     try {
@@ -74,7 +128,12 @@ public class McpSessionService {
             return;
         }
         sessionIdToSseSink.put(sessionId, sink);
-        sessionRepository.updateLastActive(sessionId);
+        // 唤醒等待该会话 sink 的请求
+        Sinks.One<Sinks.Many<ServerSentEvent<String>>> pending = pendingSseSinks.remove(sessionId);
+        if (pending != null) {
+            pending.tryEmitValue(sink);
+        }
+        touch(sessionId);
     }
 
     public Sinks.Many<ServerSentEvent<String>> getSseSink(String sessionId) {
@@ -84,51 +143,99 @@ public class McpSessionService {
         return sessionIdToSseSink.get(sessionId);
     }
 
-    public Mono<Sinks.Many<ServerSentEvent<String>>> waitForSseSink(String sessionId, int maxWaitSeconds) {
+    /**
+     * 等待会话的 SSE 发送端就绪：本地 sink 已注册则立即返回；会话属于其他在线实例时返回转发发送端
+     * （Redis 查询在 boundedElastic 上执行）；否则挂在该会话的待注册 Sinks.One 上，由 registerSseSink
+     * 直接唤醒（无轮询），超过 maxWait 仍未注册则返回空
+     */
+    public Mono<SseEventSender> waitForSseSink(String sessionId, Duration maxWait) {
         if (!StringUtils.hasText(sessionId)) {
             return Mono.empty();
         }
-        // 激进优化：立即检查，不延迟
-        Sinks.Many<ServerSentEvent<String>> sink = sessionIdToSseSink.get(sessionId);
-        if (sink != null) {
-            return Mono.just(sink);
-        }
-        // 如果 maxWaitSeconds 为 0，立即返回空（不等待）
-        if (maxWaitSeconds <= 0) {
+        return Mono.defer(() -> {
+            Sinks.Many<ServerSentEvent<String>> sink = sessionIdToSseSink.get(sessionId);
+            if (sink != null) {
+                return Mono.just(SseEventSender.of(sink));
+            }
+            // 本实例创建的会话 sink 稍后必然在本地注册，无需查询 Redis
+            if (!messageRelay.isEnabled() || localSessions.containsKey(sessionId)) {
+                return awaitLocalSink(sessionId, maxWait);
+            }
+            return Mono.fromCallable(() -> relaySenderIfOwnedByOtherInstance(sessionId))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .switchIfEmpty(Mono.defer(() -> awaitLocalSink(sessionId, maxWait)));
+        });
+    }
+
+    private Mono<SseEventSender> awaitLocalSink(String sessionId, Duration maxWait) {
+        // 不等待时立即返回空
+        if (maxWait == null || maxWait.isZero() || maxWait.isNegative()) {
             return Mono.empty();
         }
-        // 使用更短的延迟（10毫秒）进行重试
-        return Mono.delay(java.time.Duration.ofMillis(10))
-                .flatMap(delay -> {
-                    Sinks.Many<ServerSentEvent<String>> retrySink = sessionIdToSseSink.get(sessionId);
-                    if (retrySink != null) {
-                        return Mono.just(retrySink);
+        Sinks.One<Sinks.Many<ServerSentEvent<String>>> pending =
+                pendingSseSinks.computeIfAbsent(sessionId, id -> Sinks.one());
+        // 登记后再检查一次，避免与 registerSseSink 的 put/remove 交错时错过唤醒
+        Sinks.Many<ServerSentEvent<String>> registered = sessionIdToSseSink.get(sessionId);
+        if (registered != null) {
+            pendingSseSinks.remove(sessionId, pending);
+            pending.tryEmitValue(registered);
+            return Mono.just(SseEventSender.of(registered));
+        }
+        return pending.asMono()
+                .map(SseEventSender::of)
+                .timeout(maxWait, Mono.defer(() -> {
+                    if (pending.currentSubscriberCount() == 0) {
+                        pendingSseSinks.remove(sessionId, pending);
                     }
-                    return waitForSseSinkWithRetry(sessionId, maxWaitSeconds, 1);
-                });
-    }
-
-    private Mono<Sinks.Many<ServerSentEvent<String>>> waitForSseSinkWithRetry(
-            String sessionId, int maxWaitSeconds, int currentAttempt) {
-        // 激进优化：减少重试次数，使用更短的延迟
-        if (currentAttempt >= maxWaitSeconds * 20) { // 如果 maxWaitSeconds=0，这个条件不会触发
-            sessionRepository.findSession(sessionId).ifPresent(meta -> {
-                if (!instanceId.equals(meta.getInstanceId())) {
-                    log.warn("Session {} 属于实例 {}，当前实例 {} 未找到 SSE sink，可能是请求被路由到不同实例。",
-                            sessionId, meta.getInstanceId(), instanceId);
-                }
-            });
-            return Mono.empty();
+                    return Mono.fromRunnable(() -> warnIfOwnedByOtherInstance(sessionId))
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .then(Mono.empty());
+                }));
+    }
+
+    /**
+     * 会话属于其他实例且该实例心跳在线时返回转发发送端，否则返回 null；会查询 Redis，需在阻塞调度器上调用
+     */
+    private SseEventSender relaySenderIfOwnedByOtherInstance(String sessionId) {
+        String owner = sessionRepository.findSession(sessionId)
+                .map(SessionMeta::getInstanceId)
+                .filter(id -> StringUtils.hasText(id) && !instanceId.equals(id))
+                .orElse(null);
+        if (owner == null) {
+            return null;
         }
+        if (!sessionRepository.isInstanceAlive(owner)) {
+            log.warn("Session {} 属于实例 {}，但该实例心跳已过期，不转发", sessionId, owner);
+            return null;
+        }
+        log.debug("Session {} 属于实例 {}，消息经 Redis 转发", sessionId, owner);
+        return messageRelay.relaySender(sessionId, owner);
+    }
 
+    /**
+     * 投递其他实例转发来的事件到本地 SSE sink
+     */
+    private void deliverRelayedEvent(String sessionId, ServerSentEvent<String> event) {
         Sinks.Many<ServerSentEvent<String>> sink = sessionIdToSseSink.get(sessionId);
-        if (sink != null) {
-            return Mono.just(sink);
+        if (sink == null) {
+            log.debug("Relayed event for session {} dropped: no local SSE sink", sessionId);
+            return;
         }
+        Sinks.EmitResult result = sink.tryEmitNext(event);
+        if (result.isFailure()) {
+            log.warn("⚠️ Failed to deliver relayed event to session {}: {}", sessionId, result);
+        } else {
+            touch(sessionId);
+        }
+    }
 
-        // 激进优化：使用更短的延迟（10毫秒）
-        return Mono.delay(java.time.Duration.ofMillis(10))
-                .flatMap(delay -> waitForSseSinkWithRetry(sessionId, maxWaitSeconds, currentAttempt + 1));
+    private void warnIfOwnedByOtherInstance(String sessionId) {
+        sessionRepository.findSession(sessionId).ifPresent(meta -> {
+            if (!instanceId.equals(meta.getInstanceId())) {
+                log.warn("Session {} 属于实例 {}，当前实例 {} 未找到 SSE sink，可能是请求被路由到不同实例。",
+                        sessionId, meta.getInstanceId(), instanceId);
+            }
+        });
     }
 
     public java.util.Set<String> getAllSessionIds() {
@@ -142,6 +249,7 @@ public class McpSessionService {
         final long REDIS_SESSION_TTL_MS = 30 * 60 * 1000;
         
         return sessionRepository.findAllSessions().stream()
+                .map(this::withLocalLastActive)
                 .map(meta -> {
                     // 从 RoutingLog 中获取客户端信息（取最新的日志记录）
                     String clientId = null;
@@ -209,7 +317,107 @@ public class McpSessionService {
         if (!StringUtils.hasText(sessionId)) {
             return;
         }
-        sessionRepository.updateLastActive(sessionId);
+        LocalSession local = localSessions.get(sessionId);
+        if (local == null) {
+            sessionRepository.updateLastActive(sessionId);
+            return;
+        }
+        local.lastActiveMillis = clock.getAsLong();
+        local.dirty = true;
+    }
+
+    /**
+     * 批量刷新会话活跃时间（心跳轮每个 tick 调用一次）：本实例会话只更新本地，其他会话合并为一次批量写回
+     */
+    public void touchAll(Collection<String> sessionIds) {
+        if (sessionIds == null || sessionIds.isEmpty()) {
+            return;
+        }
+        long now = clock.getAsLong();
+        List<SessionRedisRepository.LastActiveUpdate> remote = new ArrayList<>();
+        for (String sessionId : sessionIds) {
+            LocalSession local = localSessions.get(sessionId);
+            if (local != null) {
+                local.lastActiveMillis = now;
+                local.dirty = true;
+            } else if (StringUtils.hasText(sessionId)) {
+                remote.add(new SessionRedisRepository.LastActiveUpdate(sessionId, null, toLocalDateTime(now)));
+            }
+        }
+        if (remote.isEmpty()) {
+            return;
+        }
+        try {
+            sessionRepository.updateLastActive(remote);
+        } catch (Exception e) {
+            log.debug("Failed to update lastActive for {} sessions", remote.size(), e);
+        }
+    }
+
+    /**
+     * 将本实例会话的脏 lastActive 合并写回 Redis，每个会话至多每 flushInterval 写一次；
+     * 同时清理超过会话 TTL 仍未活跃的本地条目（如连接异常断开未触发 removeSession）
+     */
+    @Scheduled(fixedDelay = 1000, initialDelay = 1000)
+    public void flushLastActive() {
+        flushLastActive(false);
+    }
+
+    @PreDestroy
+    public void flushAllLastActive() {
+        flushLastActive(true);
+    }
+
+    private void flushLastActive(boolean force) {
+        if (localSessions.isEmpty()) {
+            return;
+        }
+        long now = clock.getAsLong();
+        List<LocalSession> flushed = new ArrayList<>();
+        List<SessionRedisRepository.LastActiveUpdate> updates = new ArrayList<>();
+        localSessions.forEach((sessionId, local) -> {
+            if (!local.dirty) {
+                if (now - local.lastActiveMillis > sessionTtlMillis) {
+                    localSessions.remove(sessionId, local);
+                }
+                return;
+            }
+            if (!force && now - local.lastFlushedMillis < flushIntervalMillis) {
+                return;
+            }
+            // 先清标记再写回：写回期间的新 touch 会重新置脏，不会丢失
+            local.dirty = false;
+            local.lastFlushedMillis = now;
+            flushed.add(local);
+            updates.add(new SessionRedisRepository.LastActiveUpdate(
+                    sessionId, local.meta.getInstanceId(), toLocalDateTime(local.lastActiveMillis)));
+        });
+        if (updates.isEmpty()) {
+            return;
+        }
+        // 所有脏会话合并为一次批量 pipeline 写回
+        try {
+            sessionRepository.updateLastActive(updates);
+        } catch (Exception e) {
+            flushed.forEach(local -> local.dirty = true);
+            log.debug("Failed to flush lastActive for {} sessions", updates.size(), e);
+        }
+    }
+
+    /**
+     * 发布本实例心跳及其持有的会话数，供其他实例判断本实例是否在线
+     */
+    @Scheduled(fixedDelay = 10000)
+    public void publishInstanceHeartbeat() {
+        sessionRepository.publishHeartbeat(instanceId, localSessions.size());
+    }
+
+    /**
+     * 后台清理心跳已过期的实例（仓库内部限频，开销只与实例数有关）
+     */
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000)
+    public void cleanupOfflineInstances() {
+        sessionRepository.cleanupEmptyInstances();
     }
 
     public void removeSession(String sessionId) {
@@ -217,6 +425,11 @@ public class McpSessionService {
             return;
         }
         sessionIdToSseSink.remove(sessionId);
+        Sinks.One<Sinks.Many<ServerSentEvent<String>>> pending = pendingSseSinks.remove(sessionId);
+        if (pending != null) {
+            pending.tryEmitEmpty();
+        }
+        localSessions.remove(sessionId);
         sessionRepository.removeSession(sessionId, instanceId);
     }
 
@@ -224,9 +437,52 @@ public class McpSessionService {
         if (!StringUtils.hasText(sessionId)) {
             return;
         }
+        LocalSession local = localSessions.get(sessionId);
+        if (local != null) {
+            local.meta.setBackendSessionId(backendSessionId);
+        }
         sessionRepository.updateBackendSessionId(sessionId, backendSessionId);
     }
 
+    private LocalSession lookupLocal(String sessionId) {
+        if (!StringUtils.hasText(sessionId)) {
+            return null;
+        }
+        return localSessions.get(sessionId);
+    }
+
+    /**
+     * Redis 中的 lastActive 可能落后于本地最多一个写回间隔，概览以本地值为准
+     */
+    private SessionMeta withLocalLastActive(SessionMeta meta) {
+        LocalSession local = localSessions.get(meta.getSessionId());
+        if (local != null) {
+            meta.setLastActive(toLocalDateTime(local.lastActiveMillis));
+        }
+        return meta;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * 本实例会话的本地副本；meta 中除 backendSessionId 外创建后不变，lastActive 单独维护
+     */
+    private static final class LocalSession {
+        private final SessionMeta meta;
+        private volatile long lastActiveMillis;
+        private volatile long lastFlushedMillis;
+        private volatile boolean dirty;
+
+        private LocalSession(SessionMeta meta, long createdMillis) {
+            this.meta = meta;
+            this.lastActiveMillis = createdMillis;
+            // saveSessionMeta 已写入创建时间
+            this.lastFlushedMillis = createdMillis;
+        }
+    }
+
     public record SessionOverview(
             String sessionId, 
             String serviceName, 
@@ -1,16 +1,17 @@
 package com.pajk.mcpbridge.core.service;
 
 import com.pajk.mcpbridge.core.model.SseSession;
+import com.pajk.mcpbridge.core.transport.SseFrameWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
 import reactor.core.Disposable;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.UUID;
@@ -33,11 +34,19 @@ public class McpSseTransportProvider {
     // 会话超时时间（60秒）
     private static final long DEFAULT_TIMEOUT_MS = 600_000;
     
-    // 心跳间隔（30秒）
-    private static final long HEARTBEAT_INTERVAL_MS = 30_000;
-    
     // 消息ID生成器
     private final AtomicLong messageIdGenerator = new AtomicLong(0);
+
+    // 共享心跳轮
+    private final SseHeartbeatWheel heartbeatWheel;
+
+    // 帧写出器，广播帧预编码一次
+    private final SseFrameWriter frameWriter;
+
+    public McpSseTransportProvider(SseHeartbeatWheel heartbeatWheel, SseFrameWriter frameWriter) {
+        this.heartbeatWheel = heartbeatWheel;
+        this.frameWriter = frameWriter;
+    }
     
     /**
      * 建立SSE连接
@@ -82,8 +91,8 @@ public class McpSseTransportProvider {
             // 发送连接成功事件
             sendConnectionEvent(session, "connected");
             
-            // 启动心跳，保存订阅
-            Disposable heartbeatSubscription = startHeartbeat(session);
+            // 订阅共享心跳流，保存订阅以便清理
+            Disposable heartbeatSubscription = startHeartbeat(session, emitter);
             
             // 处理连接关闭
             emitter.onDispose(() -> {
@@ -143,12 +152,27 @@ public class McpSseTransportProvider {
     }
     
     /**
-     * 广播消息到所有活跃会话
+     * 广播消息到所有活跃会话：同一个事件实例只编码一次，发送给每个会话
      */
     public Mono<Void> broadcast(String eventType, String data) {
-        return Flux.fromIterable(activeSessions.values())
-                .flatMap(session -> sendMessage(session.getSessionId(), eventType, data))
-                .then();
+        return Mono.fromRunnable(() -> {
+            ServerSentEvent<String> event = frameWriter.share(ServerSentEvent.<String>builder()
+                    .id(String.valueOf(messageIdGenerator.incrementAndGet()))
+                    .event(eventType)
+                    .data(data)
+                    .build());
+            for (SseSession session : activeSessions.values()) {
+                Sinks.EmitResult result = session.getSink().tryEmitNext(event);
+                if (result.isSuccess()) {
+                    session.incrementMessageCount();
+                    session.updateLastActiveTime();
+                } else {
+                    log.warn("Failed to broadcast to session: {}, result: {}", session.getSessionId(), result);
+                    session.incrementErrorCount();
+                }
+            }
+            log.debug("Broadcast event: {} to {} sessions", eventType, activeSessions.size());
+        });
     }
     
     /**
@@ -244,54 +268,19 @@ public class McpSseTransportProvider {
     }
     
     /**
-     * 启动心跳
+     * 启动心跳：订阅共享心跳流并直接发给连接（FluxSink 串行化多线程发送，不写入会话 sink），
+     * 会话仍连接时刷新活跃时间
      * @return 心跳订阅，用于后续清理
      */
-    private Disposable startHeartbeat(SseSession session) {
-        return Flux.interval(Duration.ofMillis(HEARTBEAT_INTERVAL_MS))
-                .takeWhile(tick -> {
-                    SseSession.SessionStatus status = session.getStatus();
-                    boolean shouldContinue = status == SseSession.SessionStatus.CONNECTED || 
-                                           status == SseSession.SessionStatus.CONNECTING;
-                    if (!shouldContinue) {
-                        log.debug("Stopping heartbeat for session: {} due to status: {}", 
-                                session.getSessionId(), status);
-                    }
-                    return shouldContinue;
-                })
-                .subscribe(
-                        tick -> {
-                            try {
-                                // 检查会话是否仍然存在
-                                if (activeSessions.containsKey(session.getSessionId())) {
-                                    ServerSentEvent<String> heartbeatEvent = ServerSentEvent.<String>builder()
-                                            .id(String.valueOf(messageIdGenerator.incrementAndGet()))
-                                            .event("heartbeat")
-                                            .data("{\"timestamp\":\"" + LocalDateTime.now() + "\"}")
-                                            .build();
-                                    
-                                    Sinks.EmitResult result = session.getSink().tryEmitNext(heartbeatEvent);
-                                    if (result.isFailure()) {
-                                        log.warn("Failed to emit heartbeat for session: {}, result: {}", 
-                                                session.getSessionId(), result);
-                                    } else {
-                                        session.updateLastActiveTime();
-                                        log.debug("Sent heartbeat for session: {}", session.getSessionId());
-                                    }
-                                } else {
-                                    log.debug("Session {} no longer exists, stopping heartbeat", session.getSessionId());
-                                }
-                            } catch (Exception e) {
-                                log.error("Failed to send heartbeat for session: {}", session.getSessionId(), e);
-                            }
-                        },
-                        error -> {
-                            log.error("Heartbeat flux error for session: {}", session.getSessionId(), error);
-                        },
-                        () -> {
-                            log.debug("Heartbeat flux completed for session: {}", session.getSessionId());
-                        }
-                );
+    private Disposable startHeartbeat(SseSession session, FluxSink<ServerSentEvent<String>> emitter) {
+        return heartbeatWheel.heartbeats().subscribe(heartbeat -> {
+            SseSession.SessionStatus status = session.getStatus();
+            if (activeSessions.containsKey(session.getSessionId())
+                    && (status == SseSession.SessionStatus.CONNECTED || status == SseSession.SessionStatus.CONNECTING)) {
+                emitter.next(heartbeat);
+                session.updateLastActiveTime();
+            }
+        });
     }
     
     /**
@@ -0,0 +1,125 @@
+package com.pajk.mcpbridge.core.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分片的有界 LRU 表
+ * <p>
+ * 按 key 哈希分成若干分片，每个分片是一个按最近使用排序的 LinkedHashMap，由各自的锁保护；
+ * 容量按分片平均分配，插入导致分片超限时淘汰该分片最久未使用的条目并返回给调用方做清理。
+ * get 不改变顺序，只有 put/touch 才会把条目移到最近使用端。
+ */
+final class ShardedLruTable<V> {
+
+    private final Shard<V>[] shards;
+    private final int mask;
+    private final int shardCapacity;
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    ShardedLruTable(int shardCount, int maxEntries) {
+        // 分片数取不小于 shardCount 的 2 的幂
+        int count = 1;
+        while (count < shardCount) {
+            count <<= 1;
+        }
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard<>();
+        }
+        this.mask = count - 1;
+        this.shardCapacity = Math.max(1, (maxEntries + count - 1) / count);
+    }
+
+    V get(String key) {
+        Shard<V> shard = shardFor(key);
+        synchronized (shard) {
+            return shard.entries.get(key);
+        }
+    }
+
+    /**
+     * 插入或替换条目，返回因超出容量被淘汰的条目（通常为空）
+     */
+    List<V> put(String key, V value) {
+        Shard<V> shard = shardFor(key);
+        List<V> evicted = List.of();
+        synchronized (shard) {
+            if (shard.entries.remove(key) == null) {
+                size.incrementAndGet();
+            }
+            shard.entries.put(key, value);
+            if (shard.entries.size() > shardCapacity) {
+                evicted = new ArrayList<>(1);
+                Iterator<V> eldest = shard.entries.values().iterator();
+                while (shard.entries.size() > shardCapacity && eldest.hasNext()) {
+                    evicted.add(eldest.next());
+                    eldest.remove();
+                    size.decrementAndGet();
+                }
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * 标记最近使用
+     */
+    void touch(String key) {
+        Shard<V> shard = shardFor(key);
+        synchronized (shard) {
+            V value = shard.entries.remove(key);
+            if (value != null) {
+                shard.entries.put(key, value);
+            }
+        }
+    }
+
+    V remove(String key) {
+        Shard<V> shard = shardFor(key);
+        synchronized (shard) {
+            V value = shard.entries.remove(key);
+            if (value != null) {
+                size.decrementAndGet();
+            }
+            return value;
+        }
+    }
+
+    /**
+     * 仅当 key 当前映射到 value 时移除
+     */
+    boolean remove(String key, V value) {
+        Shard<V> shard = shardFor(key);
+        synchronized (shard) {
+            if (shard.entries.get(key) == value) {
+                shard.entries.remove(key);
+                size.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    int capacity() {
+        return shardCapacity * shards.length;
+    }
+
+    private Shard<V> shardFor(String key) {
+        int h = key.hashCode();
+        return shards[(h ^ (h >>> 16)) & mask];
+    }
+
+    private static final class Shard<V> {
+        private final Map<String, V> entries = new LinkedHashMap<>();
+    }
+}
@@ -1,5 +1,6 @@
 package com.pajk.mcpbridge.core.service;
 
+import com.pajk.mcpbridge.core.config.McpRoutingProperties;
 import com.pajk.mcpbridge.core.config.NacosMcpRegistryConfig;
 import com.pajk.mcpbridge.core.model.McpServerInfo;
 import com.pajk.mcpbridge.core.registry.McpServerRegistry;
@@ -29,6 +30,7 @@ public class SmartMcpRouterService {
     private final McpClientManager mcpClientManager;
     private final LoadBalancer loadBalancer;
     private final NacosMcpRegistryConfig.McpRegistryProperties registryProperties;
+    private final McpRoutingProperties routingProperties;
 
     /**
      * 智能工具调用 - 只需要工具名称和参数
@@ -136,39 +138,15 @@ public class SmartMcpRouterService {
             return servers.get(0);
         }
 
-        // 转换为 Nacos Instance 格式进行负载均衡
-        List<com.alibaba.nacos.api.naming.pojo.Instance> instances = servers.stream()
-                .map(this::convertToNacosInstance)
-                .collect(Collectors.toList());
-
-        // 使用加权轮询算法
-        com.alibaba.nacos.api.naming.pojo.Instance selected = loadBalancer.selectServer(
-                instances, LoadBalancer.Strategy.WEIGHTED_ROUND_ROBIN);
+        // 按服务配置的负载均衡策略选择（默认加权轮询）
+        McpServerInfo selected = loadBalancer.selectServer(servers,
+                routingProperties.resolveStrategy(servers.get(0).getName()));
 
         if (selected == null) {
             log.warn("⚠️ Load balancer returned null, falling back to first server");
             return servers.get(0);
         }
-
-        // 根据选中的实例找回原始服务器信息
-        String selectedKey = selected.getIp() + ":" + selected.getPort();
-        return servers.stream()
-                .filter(server -> (server.getIp() + ":" + server.getPort()).equals(selectedKey))
-                .findFirst()
-                .orElse(servers.get(0));
-    }
-
-    /**
-     * 转换McpServerInfo为Nacos Instance
-     */
-    private com.alibaba.nacos.api.naming.pojo.Instance convertToNacosInstance(McpServerInfo serverInfo) {
-        com.alibaba.nacos.api.naming.pojo.Instance instance = new com.alibaba.nacos.api.naming.pojo.Instance();
-        instance.setIp(serverInfo.getIp());
-        instance.setPort(serverInfo.getPort());
-        instance.setWeight(serverInfo.getWeight() > 0 ? serverInfo.getWeight() : 1.0);
-        instance.setHealthy(true);
-        instance.setEnabled(true);
-        return instance;
+        return selected;
     }
 
     /**
@@ -0,0 +1,145 @@
+package com.pajk.mcpbridge.core.service;
+
+import com.pajk.mcpbridge.core.transport.SseFrameWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 共享心跳轮
+ * <p>
+ * 由一个定时任务每个心跳间隔 tick 一次，向一个共享的热 Flux 发出同一个预先构建的注释帧，
+ * 各连接把它合并进自己的出站事件流（替代每个连接各自的 Flux.interval）。
+ * 心跳不写入会话 sink：会话 sink 只由响应发送方写入，避免与心跳并发写入导致 FAIL_NON_SERIALIZED 丢失响应。
+ * 连接存续期间保持登记，tick 结束后把所有登记会话一次性交给 McpSessionService 批量刷新活跃时间。
+ */
+@Component
+public class SseHeartbeatWheel {
+
+    private static final Logger log = LoggerFactory.getLogger(SseHeartbeatWheel.class);
+
+    /**
+     * 所有连接共享的心跳帧（SSE 注释，客户端会忽略）
+     */
+    public static final ServerSentEvent<String> HEARTBEAT_FRAME = ServerSentEvent.<String>builder()
+            .comment("heartbeat")
+            .build();
+
+    private final McpSessionService sessionService;
+    // 只由 tick 线程发出（ticking 保证串行）；未请求数据的订阅者本次心跳直接跳过，不缓冲
+    private final Sinks.Many<ServerSentEvent<String>> beats = Sinks.many().multicast().directBestEffort();
+    private final Map<String, Registration> registrations = new ConcurrentHashMap<>();
+    private final AtomicBoolean ticking = new AtomicBoolean(false);
+    private final AtomicLong ticks = new AtomicLong(0);
+
+    public SseHeartbeatWheel(McpSessionService sessionService, SseFrameWriter frameWriter) {
+        this.sessionService = sessionService;
+        // 心跳帧只编码一次，所有连接写出同一份字节
+        frameWriter.pin(HEARTBEAT_FRAME);
+    }
+
+    /**
+     * 共享心跳流，连接把它合并进出站事件流
+     */
+    public Flux<ServerSentEvent<String>> heartbeats() {
+        return beats.asFlux();
+    }
+
+    /**
+     * 为路由会话的出站事件流合并心跳，并在订阅期间登记会话以批量刷新活跃时间
+     */
+    public Flux<ServerSentEvent<String>> withHeartbeats(String sessionId, Flux<ServerSentEvent<String>> events) {
+        return Flux.using(
+                () -> register(sessionId),
+                registration -> Flux.merge(events, heartbeats()),
+                Disposable::dispose
+        );
+    }
+
+    /**
+     * 登记路由会话：每次 tick 后刷新其活跃时间
+     *
+     * @return 注销句柄，连接关闭时调用
+     */
+    public Disposable register(String sessionId) {
+        Registration registration = new Registration(sessionId);
+        registrations.put(sessionId, registration);
+        return registration;
+    }
+
+    @Scheduled(fixedDelayString = "${mcp.session.heartbeat-interval:PT15S}",
+            initialDelayString = "${mcp.session.heartbeat-interval:PT15S}")
+    public void tick() {
+        if (!ticking.compareAndSet(false, true)) {
+            log.debug("💓 Previous heartbeat tick still running, skip");
+            return;
+        }
+        try {
+            beat();
+        } catch (Exception e) {
+            log.warn("⚠️ Heartbeat tick failed: {}", e.getMessage());
+        } finally {
+            ticking.set(false);
+        }
+    }
+
+    /**
+     * 执行一次心跳：发出共享心跳帧，并批量刷新所有登记会话的活跃时间，返回收到心跳的订阅者数
+     */
+    int beat() {
+        ticks.incrementAndGet();
+        int subscribers = beats.currentSubscriberCount();
+        Sinks.EmitResult result = beats.tryEmitNext(HEARTBEAT_FRAME);
+        if (result.isFailure() && result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+            log.debug("⚠️ Failed to emit heartbeat: result={}", result);
+        }
+        List<String> alive = new ArrayList<>(registrations.keySet());
+        sessionService.touchAll(alive);
+        log.debug("💓 Heartbeat tick: subscribers={}, sessionsTouched={}", subscribers, alive.size());
+        return subscribers;
+    }
+
+    public int size() {
+        return registrations.size();
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "connections", beats.currentSubscriberCount(),
+                "sessions", registrations.size(),
+                "ticks", ticks.get()
+        );
+    }
+
+    private final class Registration implements Disposable {
+        private final String sessionId;
+        private volatile boolean disposed;
+
+        private Registration(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+            registrations.remove(sessionId, this);
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.pajk.mcpbridge.core.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分层时间轮
+ * <p>
+ * 第 0 层每格一个 tick，第 i 层每格 wheelSize^i 个 tick；到期时间超出第 0 层范围的条目放入上层，
+ * 上层某格轮到时整体下沉（cascade）到下层。schedule 与每个 tick 的推进都是 O(1)，与条目总数无关；
+ * 超出最高层范围的条目先放在最高层最远的格子，下沉时按真实到期时间重新放置。
+ * <p>
+ * 条目不支持取消：调用方在到期回调里自行判断条目是否仍然有效（续期后重新 schedule 即可）。
+ */
+final class TimingWheel {
+
+    private final long tickNanos;
+    private final int wheelSize;
+    private final long startNanos;
+    private final ArrayDeque<Entry>[][] levels;
+    // 每层一格覆盖的 tick 数：wheelSize^level
+    private final long[] levelSpans;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TimingWheel(long tickNanos, int wheelSize, int levelCount, long startNanos) {
+        if (tickNanos <= 0 || wheelSize < 2 || levelCount < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel: tick=" + tickNanos
+                    + ", wheelSize=" + wheelSize + ", levels=" + levelCount);
+        }
+        this.tickNanos = tickNanos;
+        this.wheelSize = wheelSize;
+        this.startNanos = startNanos;
+        this.levels = new ArrayDeque[levelCount][wheelSize];
+        this.levelSpans = new long[levelCount];
+        long span = 1;
+        for (int level = 0; level < levelCount; level++) {
+            levelSpans[level] = span;
+            for (int slot = 0; slot < wheelSize; slot++) {
+                levels[level][slot] = new ArrayDeque<>();
+            }
+            span *= wheelSize;
+        }
+    }
+
+    /**
+     * 登记 key 在 deadlineNanos（System.nanoTime 时间轴）到期；已过期的条目在下一个 tick 触发
+     */
+    synchronized void schedule(String key, long deadlineNanos) {
+        long deadlineTick = Math.max(0, ceilDiv(deadlineNanos - startNanos, tickNanos));
+        place(new Entry(key, deadlineTick), currentTick + 1);
+        size++;
+    }
+
+    /**
+     * 推进到 nowNanos，返回期间到期的 key（按到期 tick 顺序）
+     */
+    synchronized List<String> advance(long nowNanos) {
+        long targetTick = Math.floorDiv(nowNanos - startNanos, tickNanos);
+        List<String> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            // 先从最高层开始下沉，下沉时允许放入当前 tick 的格子，恰好在本 tick 到期的条目在本 tick 内即可触发
+            for (int level = levels.length - 1; level >= 1; level--) {
+                if (currentTick % levelSpans[level] == 0) {
+                    ArrayDeque<Entry> slot = levels[level][slotIndex(currentTick, level)];
+                    int count = slot.size();
+                    for (int i = 0; i < count; i++) {
+                        place(slot.poll(), currentTick);
+                    }
+                }
+            }
+            ArrayDeque<Entry> slot = levels[0][slotIndex(currentTick, 0)];
+            Entry entry;
+            while ((entry = slot.poll()) != null) {
+                expired.add(entry.key);
+                size--;
+            }
+        }
+        return expired;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 按到期 tick 放入合适的层和格子，到期 tick 不早于 earliestTick
+     */
+    private void place(Entry entry, long earliestTick) {
+        long deadlineTick = Math.max(entry.deadlineTick, earliestTick);
+        for (int level = 0; level < levels.length; level++) {
+            long distance = deadlineTick / levelSpans[level] - currentTick / levelSpans[level];
+            if (distance < wheelSize) {
+                levels[level][slotIndex(deadlineTick, level)].add(entry);
+                return;
+            }
+        }
+        // 超出最高层范围：放在最高层最远的格子，轮到时重新放置
+        int top = levels.length - 1;
+        long farthest = (currentTick / levelSpans[top] + wheelSize - 1) * levelSpans[top];
+        levels[top][slotIndex(farthest, top)].add(entry);
+    }
+
+    private int slotIndex(long tick, int level) {
+        return (int) ((tick / levelSpans[level]) % wheelSize);
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+
+    private record Entry(String key, long deadlineTick) {
+    }
+}
@@ -6,9 +6,17 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * 本地环境 Redis 客户端实现，使用 Jedis
@@ -99,6 +107,7 @@ public class LocalJedisRedisClient implements RedisClient {
     }
 
     @Override
+    @Deprecated
     public Set<String> keys(String pattern) {
         try (Jedis jedis = jedisPool.getResource()) {
             return jedis.keys(pattern);
@@ -108,6 +117,17 @@ public class LocalJedisRedisClient implements RedisClient {
         }
     }
 
+    @Override
+    public ScanPage scan(String cursor, String pattern, int count) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            ScanResult<String> result = jedis.scan(cursor, new ScanParams().match(pattern).count(count));
+            return new ScanPage(result.getStringCursor(), result.getResult());
+        } catch (Exception e) {
+            log.error("Failed to scan cursor={}, pattern={}", cursor, pattern, e);
+            throw new RuntimeException("Redis scan failed", e);
+        }
+    }
+
     @Override
     public String type(String key) {
         try (Jedis jedis = jedisPool.getResource()) {
@@ -128,6 +148,37 @@ public class LocalJedisRedisClient implements RedisClient {
         }
     }
 
+    @Override
+    public List<String> zrevrange(String key, long start, long stop) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return new ArrayList<>(jedis.zrevrange(key, start, stop));
+        } catch (Exception e) {
+            log.error("Failed to zrevrange key={}", key, e);
+            throw new RuntimeException("Redis zrevrange failed", e);
+        }
+    }
+
+    @Override
+    public List<String> zrangeByScore(String key, double min, double max) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return new ArrayList<>(jedis.zrangeByScore(key, min, max));
+        } catch (Exception e) {
+            log.error("Failed to zrangeByScore key={}", key, e);
+            throw new RuntimeException("Redis zrangeByScore failed", e);
+        }
+    }
+
+    @Override
+    public long zcard(String key) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Long count = jedis.zcard(key);
+            return count != null ? count : 0L;
+        } catch (Exception e) {
+            log.error("Failed to zcard key={}", key, e);
+            throw new RuntimeException("Redis zcard failed", e);
+        }
+    }
+
     @Override
     public String get(String key) {
         try (Jedis jedis = jedisPool.getResource()) {
@@ -138,6 +189,86 @@ public class LocalJedisRedisClient implements RedisClient {
         }
     }
 
+    @Override
+    public List<String> mget(List<String> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.mget(keys.toArray(new String[0]));
+        } catch (Exception e) {
+            log.error("Failed to mget keys={}", keys.size(), e);
+            throw new RuntimeException("Redis mget failed", e);
+        }
+    }
+
+    @Override
+    public void hsetAllAndExpire(String key, Map<String, String> hash, long seconds) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            pipeline.hmset(key, hash);
+            pipeline.expire(key, (int) seconds);
+            pipeline.sync();
+        } catch (Exception e) {
+            log.error("Failed to hsetAllAndExpire key={}, seconds={}", key, seconds, e);
+            throw new RuntimeException("Redis hsetAllAndExpire failed", e);
+        }
+    }
+
+    @Override
+    public List<Map<String, String>> hgetAllMulti(List<String> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<Map<String, String>>> responses = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                responses.add(pipeline.hgetAll(key));
+            }
+            pipeline.sync();
+            List<Map<String, String>> result = new ArrayList<>(keys.size());
+            for (Response<Map<String, String>> response : responses) {
+                result.add(response.get());
+            }
+            return result;
+        } catch (Exception e) {
+            log.error("Failed to hgetAllMulti keys={}", keys.size(), e);
+            throw new RuntimeException("Redis hgetAllMulti failed", e);
+        }
+    }
+
+    @Override
+    public void pipelined(Consumer<RedisPipeline> writes) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            writes.accept(new JedisRedisPipeline(pipeline));
+            pipeline.sync();
+        } catch (Exception e) {
+            log.error("Failed to execute Redis pipeline", e);
+            throw new RuntimeException("Redis pipeline failed", e);
+        }
+    }
+
+    @Override
+    public Subscription subscribe(String channel, Consumer<String> listener) {
+        JedisSubscription subscription = new JedisSubscription(channel, listener);
+        Thread thread = new Thread(subscription, "redis-subscriber-" + channel);
+        thread.setDaemon(true);
+        thread.start();
+        return subscription;
+    }
+
+    @Override
+    public long publish(String channel, String message) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.publish(channel, message);
+        } catch (Exception e) {
+            log.error("Failed to publish channel={}", channel, e);
+            throw new RuntimeException("Redis publish failed", e);
+        }
+    }
+
     @Override
     public <T> T execute(RedisOperation<T> operation) {
         try (Jedis jedis = jedisPool.getResource()) {
@@ -148,5 +279,127 @@ public class LocalJedisRedisClient implements RedisClient {
             throw new RuntimeException("Redis execute failed", e);
         }
     }
-}
 
+    private static final class JedisRedisPipeline implements RedisPipeline {
+
+        private final Pipeline pipeline;
+
+        private JedisRedisPipeline(Pipeline pipeline) {
+            this.pipeline = pipeline;
+        }
+
+        @Override
+        public void hset(String key, String field, String value) {
+            pipeline.hset(key, field, value);
+        }
+
+        @Override
+        public void hsetAll(String key, Map<String, String> hash) {
+            pipeline.hmset(key, hash);
+        }
+
+        @Override
+        public void expire(String key, long seconds) {
+            pipeline.expire(key, (int) seconds);
+        }
+
+        @Override
+        public void sadd(String key, String... members) {
+            pipeline.sadd(key, members);
+        }
+
+        @Override
+        public void srem(String key, String... members) {
+            pipeline.srem(key, members);
+        }
+
+        @Override
+        public void del(String key) {
+            pipeline.del(key);
+        }
+
+        @Override
+        public void zadd(String key, double score, String member) {
+            pipeline.zadd(key, score, member);
+        }
+
+        @Override
+        public void zrem(String key, String... members) {
+            pipeline.zrem(key, members);
+        }
+
+        @Override
+        public void setex(String key, long seconds, String value) {
+            pipeline.setex(key, (int) seconds, value);
+        }
+
+        @Override
+        public void incrBy(String key, long delta) {
+            pipeline.incrBy(key, delta);
+        }
+    }
+
+    /**
+     * 阻塞订阅循环：独占一个连接，断开后按指数退避重连
+     */
+    private final class JedisSubscription implements Subscription, Runnable {
+
+        private static final long MAX_BACKOFF_MS = 30_000;
+
+        private final String channel;
+        private final Consumer<String> listener;
+        private final JedisPubSub pubSub;
+        private volatile boolean closed;
+
+        private JedisSubscription(String channel, Consumer<String> listener) {
+            this.channel = channel;
+            this.listener = listener;
+            this.pubSub = new JedisPubSub() {
+                @Override
+                public void onMessage(String ch, String message) {
+                    try {
+                        listener.accept(message);
+                    } catch (Exception e) {
+                        log.warn("Redis subscriber listener failed on channel={}", ch, e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void run() {
+            long backoff = 500;
+            while (!closed) {
+                try (Jedis jedis = jedisPool.getResource()) {
+                    log.info("📡 Subscribed to Redis channel: {}", channel);
+                    backoff = 500;
+                    jedis.subscribe(pubSub, channel);
+                } catch (Exception e) {
+                    if (closed) {
+                        break;
+                    }
+                    log.warn("⚠️ Redis subscription to {} lost, retrying in {}ms: {}", channel, backoff, e.getMessage());
+                    try {
+                        Thread.sleep(backoff);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                    backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            try {
+                if (pubSub.isSubscribed()) {
+                    pubSub.unsubscribe();
+                }
+            } catch (Exception e) {
+                log.debug("Failed to unsubscribe from channel={}", channel, e);
+            }
+        }
+    }
+}
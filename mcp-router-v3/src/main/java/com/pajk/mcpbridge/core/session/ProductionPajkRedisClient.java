@@ -6,9 +6,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * 生产环境 Redis 客户端实现，使用 PajkJedisClient
@@ -114,6 +117,7 @@ public class ProductionPajkRedisClient implements RedisClient {
     }
 
     @Override
+    @Deprecated
     public Set<String> keys(String pattern) {
         try {
             // PajkJedisClient 可能不支持 keys 操作
@@ -126,6 +130,18 @@ public class ProductionPajkRedisClient implements RedisClient {
         }
     }
 
+    @Override
+    public ScanPage scan(String cursor, String pattern, int count) {
+        // PajkJedisClient 不支持 scan，返回已结束的空页；调用方应先检查 supportsScan()
+        log.warn("scan not supported by PajkJedisClient, returning empty page for pattern: {}", pattern);
+        return new ScanPage(ScanPage.START, List.of());
+    }
+
+    @Override
+    public boolean supportsScan() {
+        return false;
+    }
+
     @Override
     public String type(String key) {
         try {
@@ -150,6 +166,31 @@ public class ProductionPajkRedisClient implements RedisClient {
         }
     }
 
+    @Override
+    public List<String> zrevrange(String key, long start, long stop) {
+        // PajkJedisClient 不支持有序集合操作，调用方应先检查 supportsSortedSets()
+        log.warn("zrevrange not supported by PajkJedisClient, returning empty list for key: {}", key);
+        return List.of();
+    }
+
+    @Override
+    public List<String> zrangeByScore(String key, double min, double max) {
+        log.warn("zrangeByScore not supported by PajkJedisClient, returning empty list for key: {}", key);
+        return List.of();
+    }
+
+    @Override
+    public long zcard(String key) {
+        log.warn("zcard not supported by PajkJedisClient, returning 0 for key: {}", key);
+        return 0L;
+    }
+
+    @Override
+    public boolean supportsSortedSets() {
+        // PajkJedisClient 不支持有序集合，会话活跃索引不可用
+        return false;
+    }
+
     @Override
     public String get(String key) {
         try {
@@ -160,6 +201,122 @@ public class ProductionPajkRedisClient implements RedisClient {
         }
     }
 
+    @Override
+    public List<String> mget(List<String> keys) {
+        // PajkJedisClient 不支持 mget，逐个读取
+        List<String> result = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            result.add(get(key));
+        }
+        return result;
+    }
+
+    @Override
+    public void hsetAllAndExpire(String key, Map<String, String> hash, long seconds) {
+        // PajkJedisClient 不支持管道，顺序执行
+        hsetAll(key, hash);
+        expire(key, seconds);
+    }
+
+    @Override
+    public List<Map<String, String>> hgetAllMulti(List<String> keys) {
+        // PajkJedisClient 不支持管道，逐个读取
+        List<Map<String, String>> result = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            result.add(hgetAll(key));
+        }
+        return result;
+    }
+
+    @Override
+    public void pipelined(Consumer<RedisPipeline> writes) {
+        // PajkJedisClient 不支持管道，顺序执行各写操作
+        writes.accept(new RedisPipeline() {
+            @Override
+            public void hset(String key, String field, String value) {
+                ProductionPajkRedisClient.this.hset(key, field, value);
+            }
+
+            @Override
+            public void hsetAll(String key, Map<String, String> hash) {
+                ProductionPajkRedisClient.this.hsetAll(key, hash);
+            }
+
+            @Override
+            public void expire(String key, long seconds) {
+                ProductionPajkRedisClient.this.expire(key, seconds);
+            }
+
+            @Override
+            public void sadd(String key, String... members) {
+                ProductionPajkRedisClient.this.sadd(key, members);
+            }
+
+            @Override
+            public void srem(String key, String... members) {
+                ProductionPajkRedisClient.this.srem(key, members);
+            }
+
+            @Override
+            public void del(String key) {
+                ProductionPajkRedisClient.this.del(key);
+            }
+
+            @Override
+            public void zadd(String key, double score, String member) {
+                log.warn("zadd not supported by PajkJedisClient for key: {}", key);
+            }
+
+            @Override
+            public void zrem(String key, String... members) {
+                log.warn("zrem not supported by PajkJedisClient for key: {}", key);
+            }
+
+            @Override
+            public void setex(String key, long seconds, String value) {
+                try {
+                    pajkJedisClient.setExpire(key, value, (int) seconds);
+                } catch (Exception e) {
+                    log.error("Failed to setex key={}, seconds={}", key, seconds, e);
+                    throw new RuntimeException("Redis setex failed", e);
+                }
+            }
+
+            @Override
+            public void incrBy(String key, long delta) {
+                // PajkJedisClient 不支持 INCRBY，先读后写；并发增减导致的偏差由下一次心跳校正
+                try {
+                    String current = pajkJedisClient.get(key);
+                    long value = current == null || current.isEmpty() ? 0L : Long.parseLong(current);
+                    pajkJedisClient.set(key, Long.toString(value + delta));
+                } catch (Exception e) {
+                    log.error("Failed to incrBy key={}, delta={}", key, delta, e);
+                    throw new RuntimeException("Redis incrBy failed", e);
+                }
+            }
+        });
+    }
+
+    @Override
+    public long publish(String channel, String message) {
+        // PajkJedisClient 不支持发布订阅，返回 0 表示无订阅者收到；调用方应先检查 supportsPubSub()
+        log.warn("publish not supported by PajkJedisClient for channel: {}", channel);
+        return 0L;
+    }
+
+    @Override
+    public boolean supportsPubSub() {
+        // PajkJedisClient 不支持发布订阅，跨实例转发不可用
+        return false;
+    }
+
+    @Override
+    public Subscription subscribe(String channel, Consumer<String> listener) {
+        // PajkJedisClient 不支持发布订阅
+        log.warn("subscribe not fully supported by PajkJedisClient for channel: {}", channel);
+        return () -> { };
+    }
+
     @Override
     public <T> T execute(RedisOperation<T> operation) {
         // 对于生产环境，直接执行操作
@@ -1,7 +1,9 @@
 package com.pajk.mcpbridge.core.session;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Redis 操作接口，用于抽象本地和生产环境的 Redis 客户端
@@ -45,9 +47,17 @@ public interface RedisClient {
 
     /**
      * 模式匹配查询键
+     *
+     * @deprecated KEYS 会阻塞整个 Redis，共享的生产实例上请使用 {@link #scan(String, String, int)}
      */
+    @Deprecated
     Set<String> keys(String pattern);
 
+    /**
+     * 游标方式增量遍历匹配的键，每次返回一页；返回游标为 "0" 表示遍历结束
+     */
+    ScanPage scan(String cursor, String pattern, int count);
+
     /**
      * 获取键的类型
      * @return 键的类型：string, list, set, zset, hash, none
@@ -59,16 +69,129 @@ public interface RedisClient {
      */
     Set<String> smembers(String key);
 
+    /**
+     * 按分数从高到低获取有序集合中 [start, stop] 区间的成员
+     */
+    List<String> zrevrange(String key, long start, long stop);
+
+    /**
+     * 获取有序集合中分数在 [min, max] 区间的成员
+     */
+    List<String> zrangeByScore(String key, double min, double max);
+
+    /**
+     * 获取有序集合的成员数
+     */
+    long zcard(String key);
+
     /**
      * 获取 String 类型的值
      */
     String get(String key);
 
+    /**
+     * 批量获取多个 String 类型的值（一次往返），结果与 keys 顺序一一对应，不存在的键对应 null
+     */
+    List<String> mget(List<String> keys);
+
+    /**
+     * 批量设置 Hash 字段并设置过期时间（一次往返）
+     */
+    void hsetAllAndExpire(String key, Map<String, String> hash, long seconds);
+
+    /**
+     * 批量获取多个 Hash 的所有字段（一次往返），结果与 keys 顺序一一对应，不存在的键对应空 Map
+     */
+    List<Map<String, String>> hgetAllMulti(List<String> keys);
+
+    /**
+     * 在一个管道中执行一组写操作（一次往返），不返回各命令结果
+     */
+    void pipelined(Consumer<RedisPipeline> writes);
+
+    /**
+     * 发布消息到频道
+     *
+     * @return 收到消息的订阅者数，为 0 表示频道当前无人订阅
+     */
+    long publish(String channel, String message);
+
+    /**
+     * 是否支持发布订阅（publish/subscribe），不支持时跨实例转发不会启用
+     */
+    default boolean supportsPubSub() {
+        return true;
+    }
+
+    /**
+     * 是否支持 SCAN 游标遍历，不支持时遍历全部会话返回空列表
+     */
+    default boolean supportsScan() {
+        return true;
+    }
+
+    /**
+     * 是否支持有序集合（zadd/zrem/zrevrange/zrangeByScore/zcard），不支持时不写会话活跃索引，分页查询返回空页
+     */
+    default boolean supportsSortedSets() {
+        return true;
+    }
+
+    /**
+     * 订阅频道，消息在独立线程上回调；连接断开时自动重连，直到返回的订阅被关闭
+     */
+    Subscription subscribe(String channel, Consumer<String> listener);
+
     /**
      * 执行操作（用于需要事务或批量操作的场景）
      */
     <T> T execute(RedisOperation<T> operation);
 
+    /**
+     * 管道内可用的写操作
+     */
+    interface RedisPipeline {
+        void hset(String key, String field, String value);
+
+        void hsetAll(String key, Map<String, String> hash);
+
+        void expire(String key, long seconds);
+
+        void sadd(String key, String... members);
+
+        void srem(String key, String... members);
+
+        void del(String key);
+
+        void zadd(String key, double score, String member);
+
+        void zrem(String key, String... members);
+
+        void setex(String key, long seconds, String value);
+
+        void incrBy(String key, long delta);
+    }
+
+    /**
+     * 频道订阅句柄
+     */
+    interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * SCAN 的一页结果
+     */
+    record ScanPage(String cursor, List<String> keys) {
+
+        public static final String START = "0";
+
+        public boolean isFinished() {
+            return START.equals(cursor);
+        }
+    }
+
     /**
      * Redis 操作函数式接口
      */
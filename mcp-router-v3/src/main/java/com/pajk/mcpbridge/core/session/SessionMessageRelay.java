@@ -0,0 +1,273 @@
+package com.pajk.mcpbridge.core.session;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pajk.mcpbridge.core.config.McpSessionProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * 跨实例 SSE 消息转发
+ * <p>
+ * 会话的 SSE 长连接只存在于创建它的实例上，而 POST 消息可能被负载均衡到任意实例。
+ * 非所属实例将要推送的 SSE 事件交给转发发送端：事件进入按目标实例划分的有界队列
+ * （队列满时返回 FAIL_OVERFLOW，由调用方按发送失败处理），攒批后通过一次
+ * PUBLISH 发到目标实例的频道 {prefix}:relay:{instanceId}；目标实例订阅自己的频道，
+ * 收到后投递到本地 SSE sink。PUBLISH 无订阅者时视为目标实例已下线，回收其转发队列。
+ */
+@Component
+public class SessionMessageRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionMessageRelay.class);
+    // 单批最多转发的事件数
+    static final int BATCH_SIZE = 64;
+    // 攒批的最长等待时间
+    static final Duration BATCH_MAX_WAIT = Duration.ofMillis(5);
+    // 转发队列空闲超过该时长后回收
+    static final Duration OUTBOUND_IDLE_TIMEOUT = Duration.ofMinutes(5);
+    private static final TypeReference<List<RelayEnvelope>> ENVELOPE_LIST = new TypeReference<>() {};
+
+    private final RedisClient redisClient;
+    private final McpSessionProperties properties;
+    private final String instanceId;
+    private final ObjectMapper objectMapper;
+
+    // 目标实例 -> 待转发队列
+    private final Map<String, Outbound> outbounds = new ConcurrentHashMap<>();
+    private volatile BiConsumer<String, ServerSentEvent<String>> inboundHandler;
+    private volatile RedisClient.Subscription subscription;
+
+    private final AtomicLong relayedEvents = new AtomicLong(0);
+    private final AtomicLong publishedBatches = new AtomicLong(0);
+    private final AtomicLong rejectedEvents = new AtomicLong(0);
+    private final AtomicLong receivedEvents = new AtomicLong(0);
+    private final AtomicLong lostEvents = new AtomicLong(0);
+
+    @Autowired
+    public SessionMessageRelay(RedisClient redisClient,
+                               McpSessionProperties properties,
+                               SessionInstanceIdProvider instanceIdProvider,
+                               ObjectMapper objectMapper) {
+        this.redisClient = redisClient;
+        this.properties = properties;
+        this.instanceId = instanceIdProvider.getInstanceId();
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isRelayEnabled()) {
+            log.info("Session relay disabled, messages for sessions owned by other instances will not be forwarded");
+            return;
+        }
+        if (!redisClient.supportsPubSub()) {
+            log.warn("⚠️ Session relay enabled but {} does not support pub/sub, relay stays disabled",
+                    redisClient.getClass().getSimpleName());
+            return;
+        }
+        subscription = redisClient.subscribe(channel(instanceId), this::onRelayMessage);
+        log.info("✅ Session relay listening on channel {}", channel(instanceId));
+    }
+
+    @PreDestroy
+    public void stop() {
+        RedisClient.Subscription current = subscription;
+        subscription = null;
+        if (current != null) {
+            current.close();
+        }
+        outbounds.values().forEach(outbound -> {
+            synchronized (outbound) {
+                outbound.retired = true;
+                outbound.queue.tryEmitComplete();
+            }
+            outbound.worker.dispose();
+        });
+        outbounds.clear();
+    }
+
+    public boolean isEnabled() {
+        return properties.isRelayEnabled() && redisClient.supportsPubSub();
+    }
+
+    /**
+     * 注册本实例收到转发事件时的投递回调：(sessionId, event)
+     */
+    public void setInboundHandler(BiConsumer<String, ServerSentEvent<String>> inboundHandler) {
+        this.inboundHandler = inboundHandler;
+    }
+
+    /**
+     * 为属于 ownerInstanceId 的会话创建转发发送端：事件进入目标实例的转发队列，
+     * 完成/错误信号由所属实例的 SSE 连接自行管理
+     */
+    public SseEventSender relaySender(String sessionId, String ownerInstanceId) {
+        return event -> enqueue(ownerInstanceId, new RelayEnvelope(sessionId, event.event(), event.id(), event.data()));
+    }
+
+    Sinks.EmitResult enqueue(String ownerInstanceId, RelayEnvelope envelope) {
+        Sinks.EmitResult result;
+        while (true) {
+            Outbound outbound = outbounds.computeIfAbsent(ownerInstanceId, this::createOutbound);
+            // 多个请求线程并发写入同一队列，串行化以避免 FAIL_NON_SERIALIZED
+            synchronized (outbound) {
+                // 队列已因目标实例下线或空闲被回收，重新创建
+                if (outbound.retired) {
+                    continue;
+                }
+                outbound.lastEnqueuedAt = System.currentTimeMillis();
+                result = outbound.queue.tryEmitNext(envelope);
+            }
+            break;
+        }
+        if (result.isSuccess()) {
+            relayedEvents.incrementAndGet();
+        } else {
+            rejectedEvents.incrementAndGet();
+            log.debug("Relay queue to instance {} rejected event for session {}: {}",
+                    ownerInstanceId, envelope.sessionId(), result);
+        }
+        return result;
+    }
+
+    private Outbound createOutbound(String ownerInstanceId) {
+        Sinks.Many<RelayEnvelope> queue = Sinks.many().unicast()
+                .onBackpressureBuffer(Queues.<RelayEnvelope>get(properties.getRelayQueueCapacity()).get());
+        Disposable worker = queue.asFlux()
+                // 公平背压：按下游发布进度向队列请求，发布变慢时积压留在有界队列中
+                .bufferTimeout(BATCH_SIZE, BATCH_MAX_WAIT, true)
+                .concatMap(batch -> Mono.fromCallable(() -> publishBatch(ownerInstanceId, queue, batch))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .onErrorResume(e -> {
+                            lostEvents.addAndGet(batch.size());
+                            log.warn("❌ Failed to relay {} events to instance {}: {}",
+                                    batch.size(), ownerInstanceId, e.getMessage());
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+        return new Outbound(queue, worker);
+    }
+
+    private int publishBatch(String ownerInstanceId, Sinks.Many<RelayEnvelope> queue, List<RelayEnvelope> batch) throws Exception {
+        String payload = objectMapper.writeValueAsString(batch);
+        String channel = channel(ownerInstanceId);
+        long receivers = redisClient.publish(channel, payload);
+        if (receivers <= 0) {
+            // 目标实例已下线（无人订阅其频道），回收其转发队列，后续事件不再转发给它
+            retire(ownerInstanceId, queue);
+            throw new IllegalStateException("no subscriber on channel " + channel);
+        }
+        publishedBatches.incrementAndGet();
+        log.debug("Relayed {} events to instance {}", batch.size(), ownerInstanceId);
+        return batch.size();
+    }
+
+    /**
+     * 回收长时间没有新事件的转发队列
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void pruneIdleOutbounds() {
+        long cutoff = System.currentTimeMillis() - OUTBOUND_IDLE_TIMEOUT.toMillis();
+        outbounds.forEach((ownerInstanceId, outbound) -> {
+            if (outbound.lastEnqueuedAt < cutoff) {
+                retire(ownerInstanceId, outbound.queue);
+            }
+        });
+    }
+
+    /**
+     * 回收目标实例的转发队列；只回收 queue 对应的那一个，不影响之后新建的队列
+     */
+    private void retire(String ownerInstanceId, Sinks.Many<RelayEnvelope> queue) {
+        Outbound outbound = outbounds.get(ownerInstanceId);
+        if (outbound == null || outbound.queue != queue || !outbounds.remove(ownerInstanceId, outbound)) {
+            return;
+        }
+        synchronized (outbound) {
+            outbound.retired = true;
+            // 已入队的事件仍会尝试发布，随后工作流自然结束
+            outbound.queue.tryEmitComplete();
+        }
+        log.debug("Relay queue to instance {} retired", ownerInstanceId);
+    }
+
+    void onRelayMessage(String payload) {
+        List<RelayEnvelope> envelopes;
+        try {
+            envelopes = objectMapper.readValue(payload, ENVELOPE_LIST);
+        } catch (Exception e) {
+            log.warn("Discarding malformed relay payload: {}", e.getMessage());
+            return;
+        }
+        BiConsumer<String, ServerSentEvent<String>> handler = inboundHandler;
+        for (RelayEnvelope envelope : envelopes) {
+            receivedEvents.incrementAndGet();
+            if (handler == null) {
+                log.debug("No relay handler registered, dropping event for session {}", envelope.sessionId());
+                continue;
+            }
+            ServerSentEvent.Builder<String> builder = ServerSentEvent.<String>builder().data(envelope.data());
+            if (envelope.event() != null) {
+                builder.event(envelope.event());
+            }
+            if (envelope.id() != null) {
+                builder.id(envelope.id());
+            }
+            handler.accept(envelope.sessionId(), builder.build());
+        }
+    }
+
+    private String channel(String targetInstanceId) {
+        return properties.getRedisPrefix() + ":relay:" + targetInstanceId;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("relayed_events", relayedEvents.get());
+        stats.put("published_batches", publishedBatches.get());
+        stats.put("rejected_events", rejectedEvents.get());
+        stats.put("received_events", receivedEvents.get());
+        stats.put("lost_events", lostEvents.get());
+        stats.put("target_instances", outbounds.size());
+        return stats;
+    }
+
+    /**
+     * 转发的 SSE 事件
+     */
+    record RelayEnvelope(String sessionId, String event, String id, String data) {
+    }
+
+    private static final class Outbound {
+        private final Sinks.Many<RelayEnvelope> queue;
+        private final Disposable worker;
+        private volatile long lastEnqueuedAt = System.currentTimeMillis();
+        // 在 synchronized (outbound) 内读写
+        private boolean retired;
+
+        private Outbound(Sinks.Many<RelayEnvelope> queue, Disposable worker) {
+            this.queue = queue;
+            this.worker = worker;
+        }
+    }
+}
@@ -3,25 +3,44 @@ package com.pajk.mcpbridge.core.session;
 import com.pajk.mcpbridge.core.config.McpSessionProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
 @Component
 public class SessionRedisRepository {
 
     private static final Logger log = LoggerFactory.getLogger(SessionRedisRepository.class);
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    // SCAN 每页建议返回的键数
+    private static final int SCAN_PAGE_SIZE = 500;
+    // 实例心跳键 TTL：心跳间隔的 3 倍，连续 3 次心跳丢失视为实例下线
+    static final long INSTANCE_HEARTBEAT_TTL_SECONDS = 30;
+    // 下线实例清理的最小间隔
+    static final long CLEANUP_MIN_INTERVAL_MS = 60_000;
+    // 批量写回 lastActive 时每个 pipeline 包含的会话数
+    static final int LAST_ACTIVE_PIPELINE_SIZE = 1000;
 
     private final RedisClient redisClient;
     private final McpSessionProperties properties;
+    private final LongSupplier clock;
+    private final AtomicLong lastCleanupMillis = new AtomicLong(Long.MIN_VALUE);
 
+    @Autowired
     public SessionRedisRepository(RedisClient redisClient, McpSessionProperties properties) {
+        this(redisClient, properties, System::currentTimeMillis);
+    }
+
+    SessionRedisRepository(RedisClient redisClient, McpSessionProperties properties, LongSupplier clock) {
         this.redisClient = redisClient;
         this.properties = properties;
+        this.clock = clock;
         log.info("✅ SessionRedisRepository initialized with RedisClient: {}", redisClient.getClass().getSimpleName());
     }
 
@@ -36,22 +55,34 @@ public class SessionRedisRepository {
         map.put("serviceName", Optional.ofNullable(meta.getServiceName()).orElse(""));
         map.put("backendSessionId", Optional.ofNullable(meta.getBackendSessionId()).orElse(""));
         map.put("transportType", Optional.ofNullable(meta.getTransportType()).orElse(""));
-        map.put("lastActive", FORMATTER.format(Optional.ofNullable(meta.getLastActive()).orElse(LocalDateTime.now())));
+        LocalDateTime lastActive = Optional.ofNullable(meta.getLastActive()).orElse(LocalDateTime.now());
+        map.put("lastActive", FORMATTER.format(lastActive));
         map.put("active", Boolean.toString(meta.isActive()));
         
         long ttlSeconds = properties.getTtl().getSeconds();
+        boolean indexed = redisClient.supportsSortedSets();
         try {
-            // 第三层：保存 sessionId 和具体的内容
-            redisClient.hsetAll(sessionKey, map);
-            redisClient.expire(sessionKey, ttlSeconds);
-            
-            // 第二层：保存 instance 和 sessionId 的关系
-            redisClient.sadd(instanceKey(meta.getInstanceId()), meta.getSessionId());
-            redisClient.expire(instanceKey(meta.getInstanceId()), ttlSeconds);
-            
-            // 第一层：固定的 key，保存所有 instance
-            redisClient.sadd(instancesKey(), meta.getInstanceId());
-            // instances key 不设置过期时间，保持持久化
+            // 三层写入合并为一次管道往返
+            redisClient.pipelined(pipeline -> {
+                // 第三层：保存 sessionId 和具体的内容
+                pipeline.hsetAll(sessionKey, map);
+                pipeline.expire(sessionKey, ttlSeconds);
+
+                // 第二层：保存 instance 和 sessionId 的关系
+                pipeline.sadd(instanceKey(meta.getInstanceId()), meta.getSessionId());
+                pipeline.expire(instanceKey(meta.getInstanceId()), ttlSeconds);
+                // 第二层索引：按 lastActive 排序的 sessionId 有序集合，用于分页与过期清理
+                if (indexed) {
+                    pipeline.zadd(activeIndexKey(meta.getInstanceId()), toScore(lastActive), meta.getSessionId());
+                    pipeline.expire(activeIndexKey(meta.getInstanceId()), ttlSeconds);
+                }
+                // 实例会话计数，下一次心跳时以实例本地的会话数校正
+                pipeline.incrBy(sessionCountKey(meta.getInstanceId()), 1);
+
+                // 第一层：固定的 key，保存所有 instance
+                pipeline.sadd(instancesKey(), meta.getInstanceId());
+                // instances key 不设置过期时间，保持持久化
+            });
         } catch (Exception e) {
             log.error("Failed to save session meta for sessionId: {}", meta.getSessionId(), e);
         }
@@ -77,20 +108,77 @@ public class SessionRedisRepository {
     }
 
     public void updateLastActive(String sessionId) {
+        updateLastActive(sessionId, null, LocalDateTime.now());
+    }
+
+    /**
+     * 以指定时间写回 lastActive（用于本地合并后的延迟写回）；已知所属实例时同时更新活跃索引
+     */
+    public void updateLastActive(String sessionId, String instanceId, LocalDateTime lastActive) {
         if (sessionId == null) {
             return;
         }
         String key = sessionKey(sessionId);
         long ttlSeconds = properties.getTtl().getSeconds();
         try {
-            redisClient.hset(key, "lastActive", FORMATTER.format(LocalDateTime.now()));
-            redisClient.hset(key, "active", Boolean.TRUE.toString());
-            redisClient.expire(key, ttlSeconds);
+            Map<String, String> fields = new HashMap<>(4);
+            fields.put("lastActive", FORMATTER.format(lastActive));
+            fields.put("active", Boolean.TRUE.toString());
+            if (instanceId == null || !redisClient.supportsSortedSets()) {
+                redisClient.hsetAllAndExpire(key, fields, ttlSeconds);
+                return;
+            }
+            redisClient.pipelined(pipeline -> {
+                pipeline.hsetAll(key, fields);
+                pipeline.expire(key, ttlSeconds);
+                pipeline.zadd(activeIndexKey(instanceId), toScore(lastActive), sessionId);
+                pipeline.expire(activeIndexKey(instanceId), ttlSeconds);
+            });
         } catch (Exception e) {
             log.error("Failed to update lastActive for sessionId: {}", sessionId, e);
         }
     }
 
+    /**
+     * 批量写回 lastActive：每 {@link #LAST_ACTIVE_PIPELINE_SIZE} 个会话一次 pipeline 往返，
+     * 已知所属实例的会话同时更新活跃索引
+     */
+    public void updateLastActive(List<LastActiveUpdate> updates) {
+        if (updates == null || updates.isEmpty()) {
+            return;
+        }
+        long ttlSeconds = properties.getTtl().getSeconds();
+        boolean indexed = redisClient.supportsSortedSets();
+        for (int from = 0; from < updates.size(); from += LAST_ACTIVE_PIPELINE_SIZE) {
+            List<LastActiveUpdate> chunk = updates.subList(from, Math.min(updates.size(), from + LAST_ACTIVE_PIPELINE_SIZE));
+            redisClient.pipelined(pipeline -> {
+                Set<String> indexKeys = new HashSet<>();
+                for (LastActiveUpdate update : chunk) {
+                    Map<String, String> fields = new HashMap<>(4);
+                    fields.put("lastActive", FORMATTER.format(update.lastActive()));
+                    fields.put("active", Boolean.TRUE.toString());
+                    String key = sessionKey(update.sessionId());
+                    pipeline.hsetAll(key, fields);
+                    pipeline.expire(key, ttlSeconds);
+                    if (indexed && update.instanceId() != null) {
+                        String indexKey = activeIndexKey(update.instanceId());
+                        pipeline.zadd(indexKey, toScore(update.lastActive()), update.sessionId());
+                        indexKeys.add(indexKey);
+                    }
+                }
+                for (String indexKey : indexKeys) {
+                    pipeline.expire(indexKey, ttlSeconds);
+                }
+            });
+        }
+    }
+
+    /**
+     * 一条待写回的会话活跃时间，instanceId 未知时为 null
+     */
+    public record LastActiveUpdate(String sessionId, String instanceId, LocalDateTime lastActive) {
+    }
+
     public void updateBackendSessionId(String sessionId, String backendSessionId) {
         if (sessionId == null) {
             return;
@@ -98,8 +186,8 @@ public class SessionRedisRepository {
         String key = sessionKey(sessionId);
         long ttlSeconds = properties.getTtl().getSeconds();
         try {
-            redisClient.hset(key, "backendSessionId", Optional.ofNullable(backendSessionId).orElse(""));
-            redisClient.expire(key, ttlSeconds);
+            redisClient.hsetAllAndExpire(key,
+                    Map.of("backendSessionId", Optional.ofNullable(backendSessionId).orElse("")), ttlSeconds);
         } catch (Exception e) {
             log.error("Failed to update backendSessionId for sessionId: {}", sessionId, e);
         }
@@ -114,60 +202,46 @@ public class SessionRedisRepository {
             targetInstance = findSession(sessionId).map(SessionMeta::getInstanceId).orElse(null);
         }
         String key = sessionKey(sessionId);
+        String owner = targetInstance;
+        boolean indexed = redisClient.supportsSortedSets();
         try {
-            // 第三层：删除 session 数据
-            redisClient.del(key);
-            
-            if (targetInstance != null) {
-                // 第二层：从 instance 的 sessionId 集合中删除
-                redisClient.srem(instanceKey(targetInstance), sessionId);
-                
-                // 检查该 instance 下是否还有其他 sessions
-                Set<String> remainingSessions = redisClient.smembers(instanceKey(targetInstance));
-                if (remainingSessions == null || remainingSessions.isEmpty()) {
-                    // 如果该 instance 下没有 sessions 了，清理该 instance
-                    // 从第一层的 instances key 中删除该 instanceId
-                    redisClient.srem(instancesKey(), targetInstance);
-                    // 删除第二层的 instance key
-                    redisClient.del(instanceKey(targetInstance));
-                    log.debug("Removed empty instance {} from instances set and deleted instance key", targetInstance);
+            redisClient.pipelined(pipeline -> {
+                // 第三层：删除 session 数据
+                pipeline.del(key);
+                if (owner != null) {
+                    // 第二层：从 instance 的 sessionId 集合及活跃索引中删除，并递减实例会话计数
+                    // （重复删除导致的计数偏差由下一次心跳校正；空实例不在此处清理，由后台按心跳清理）
+                    pipeline.srem(instanceKey(owner), sessionId);
+                    if (indexed) {
+                        pipeline.zrem(activeIndexKey(owner), sessionId);
+                    }
+                    pipeline.incrBy(sessionCountKey(owner), -1);
                 }
-            }
+            });
         } catch (Exception e) {
             log.error("Failed to remove session for sessionId: {}", sessionId, e);
         }
     }
 
+    /**
+     * 遍历所有会话：使用 SCAN 游标分页，避免 KEYS 在共享 Redis 上阻塞；
+     * RedisClient 不支持 SCAN 时记录警告并返回空列表
+     */
     public List<SessionMeta> findAllSessions() {
-        String pattern = sessionKey("*");
+        if (!redisClient.supportsScan()) {
+            log.warn("⚠️ {} does not support SCAN, findAllSessions returns empty list",
+                    redisClient.getClass().getSimpleName());
+            return Collections.emptyList();
+        }
         try {
-            Set<String> keys = redisClient.keys(pattern);
-            if (keys == null || keys.isEmpty()) {
-                // 如果没有session，清理空的instance
-                cleanupEmptyInstances();
-                return Collections.emptyList();
-            }
-            List<SessionMeta> sessions = keys.stream()
-                    .map(k -> {
-                        try {
-                            Map<String, String> map = redisClient.hgetAll(k);
-                            if (map == null || map.isEmpty()) {
-                                return null;
-                            }
-                            // Convert Map<String, String> to Map<Object, Object> for compatibility
-                            Map<Object, Object> objectMap = new HashMap<>(map);
-                            return SessionMeta.fromMap(objectMap);
-                        } catch (Exception e) {
-                            log.warn("Failed to read session data for key: {}", k, e);
-                            return null;
-                        }
-                    })
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
-            
-            // 清理空的instance（session过期时）
-            cleanupEmptyInstances();
-            
+            List<SessionMeta> sessions = new ArrayList<>();
+            String cursor = RedisClient.ScanPage.START;
+            do {
+                RedisClient.ScanPage page = scanSessionKeys(cursor, SCAN_PAGE_SIZE);
+                sessions.addAll(readSessions(page.keys()));
+                cursor = page.cursor();
+            } while (!RedisClient.ScanPage.START.equals(cursor));
+
             return sessions;
         } catch (Exception e) {
             log.error("Failed to findAllSessions", e);
@@ -175,6 +249,117 @@ public class SessionRedisRepository {
         }
     }
 
+    /**
+     * 以游标方式扫描一页会话键；从 {@link RedisClient.ScanPage#START} 开始，返回游标为 "0" 时结束。
+     * SCAN 的 count 只是建议值，单页返回的键数可能多于或少于 count，也可能为空
+     */
+    public RedisClient.ScanPage scanSessionKeys(String cursor, int count) {
+        return redisClient.scan(cursor != null ? cursor : RedisClient.ScanPage.START, sessionKey("*"), count);
+    }
+
+    /**
+     * 按 lastActive 从新到旧分页查询某个 instance 下的会话（基于活跃索引，O(log N + limit)）；
+     * RedisClient 不支持有序集合时没有活跃索引，记录警告并返回空页
+     */
+    public List<SessionMeta> findSessionPage(String instanceId, long offset, int limit) {
+        if (instanceId == null || limit <= 0 || offset < 0) {
+            return Collections.emptyList();
+        }
+        if (!supportsActiveIndex("findSessionPage")) {
+            return Collections.emptyList();
+        }
+        try {
+            List<String> sessionIds = redisClient.zrevrange(activeIndexKey(instanceId), offset, offset + (long) limit - 1);
+            List<String> keys = new ArrayList<>(sessionIds.size());
+            for (String sessionId : sessionIds) {
+                keys.add(sessionKey(sessionId));
+            }
+            return readSessions(keys);
+        } catch (Exception e) {
+            log.error("Failed to findSessionPage for instanceId: {}", instanceId, e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 某个 instance 活跃索引中的会话数；RedisClient 不支持有序集合时记录警告并返回 0
+     */
+    public long countSessions(String instanceId) {
+        if (instanceId == null) {
+            return 0L;
+        }
+        if (!supportsActiveIndex("countSessions")) {
+            return 0L;
+        }
+        try {
+            return redisClient.zcard(activeIndexKey(instanceId));
+        } catch (Exception e) {
+            log.error("Failed to countSessions for instanceId: {}", instanceId, e);
+            return 0L;
+        }
+    }
+
+    private boolean supportsActiveIndex(String operation) {
+        if (redisClient.supportsSortedSets()) {
+            return true;
+        }
+        log.warn("⚠️ {} does not support sorted sets, {} has no session active index",
+                redisClient.getClass().getSimpleName(), operation);
+        return false;
+    }
+
+    /**
+     * 一次管道往返读取一组会话键，忽略已过期或无法解析的会话
+     */
+    private List<SessionMeta> readSessions(List<String> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Map<String, String>> hashes = redisClient.hgetAllMulti(keys);
+        List<SessionMeta> sessions = new ArrayList<>(hashes.size());
+        for (Map<String, String> map : hashes) {
+            if (map == null || map.isEmpty()) {
+                continue;
+            }
+            try {
+                // Convert Map<String, String> to Map<Object, Object> for compatibility
+                sessions.add(SessionMeta.fromMap(new HashMap<>(map)));
+            } catch (Exception e) {
+                log.warn("Failed to parse session data: {}", map.get("sessionId"), e);
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * 清理活跃索引中超过 TTL 未更新的条目：会话键已过期的移除，仍存在的（如由其他实例续期）按实际 lastActive 重新计分
+     */
+    private void pruneActiveIndex(String instanceId) {
+        String indexKey = activeIndexKey(instanceId);
+        double cutoff = clock.getAsLong() - properties.getTtl().toMillis();
+        List<String> staleIds = redisClient.zrangeByScore(indexKey, Double.NEGATIVE_INFINITY, cutoff);
+        if (staleIds.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(staleIds.size());
+        for (String sessionId : staleIds) {
+            keys.add(sessionKey(sessionId));
+        }
+        List<Map<String, String>> hashes = redisClient.hgetAllMulti(keys);
+        redisClient.pipelined(pipeline -> {
+            for (int i = 0; i < staleIds.size(); i++) {
+                Map<String, String> map = hashes.get(i);
+                String lastActive = map != null ? map.get("lastActive") : null;
+                if (lastActive == null) {
+                    pipeline.zrem(indexKey, staleIds.get(i));
+                    pipeline.srem(instanceKey(instanceId), staleIds.get(i));
+                } else {
+                    pipeline.zadd(indexKey, toScore(LocalDateTime.parse(lastActive, FORMATTER)), staleIds.get(i));
+                }
+            }
+        });
+    }
+
     private String sessionKey(String sessionId) {
         return properties.getRedisPrefix() + ":sessions:" + sessionId;
     }
@@ -182,6 +367,31 @@ public class SessionRedisRepository {
     private String instanceKey(String instanceId) {
         return properties.getRedisPrefix() + ":instance:" + instanceId;
     }
+
+    /**
+     * 第二层索引：instance 下按 lastActive 计分的 sessionId 有序集合
+     */
+    private String activeIndexKey(String instanceId) {
+        return properties.getRedisPrefix() + ":instance:" + instanceId + ":active";
+    }
+
+    /**
+     * 实例心跳键：存在即表示实例在线，由实例定期续期
+     */
+    private String heartbeatKey(String instanceId) {
+        return properties.getRedisPrefix() + ":instance:" + instanceId + ":heartbeat";
+    }
+
+    /**
+     * 实例会话计数键：会话增删时增减，心跳时校正为实例本地的会话数
+     */
+    private String sessionCountKey(String instanceId) {
+        return properties.getRedisPrefix() + ":instance:" + instanceId + ":count";
+    }
+
+    private static double toScore(LocalDateTime lastActive) {
+        return lastActive.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
     
     /**
      * 第一层：固定的 key，保存所有 instance
@@ -191,46 +401,79 @@ public class SessionRedisRepository {
     }
     
     /**
-     * 获取所有 instance IDs（自动清理空的 instance）
+     * 发布实例心跳：续期心跳键，并把会话计数校正为实例本地持有的会话数；顺带清理本实例活跃索引中的过期条目
+     */
+    public void publishHeartbeat(String instanceId, long sessionCount) {
+        if (instanceId == null) {
+            return;
+        }
+        try {
+            redisClient.pipelined(pipeline -> {
+                pipeline.setex(heartbeatKey(instanceId), INSTANCE_HEARTBEAT_TTL_SECONDS, Long.toString(clock.getAsLong()));
+                pipeline.setex(sessionCountKey(instanceId), INSTANCE_HEARTBEAT_TTL_SECONDS, Long.toString(sessionCount));
+            });
+            if (redisClient.supportsSortedSets()) {
+                pruneActiveIndex(instanceId);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to publish heartbeat for instanceId: {}", instanceId, e);
+        }
+    }
+
+    /**
+     * 实例心跳键是否存在，即实例是否在线
+     */
+    public boolean isInstanceAlive(String instanceId) {
+        if (instanceId == null) {
+            return false;
+        }
+        try {
+            return redisClient.get(heartbeatKey(instanceId)) != null;
+        } catch (Exception e) {
+            log.warn("Failed to check heartbeat for instanceId: {}", instanceId, e);
+            return false;
+        }
+    }
+
+    /**
+     * 获取所有心跳在线且持有会话的 instance IDs（两次往返，与会话总数无关）
      */
     public Set<String> findAllInstances() {
         try {
-            // 先清理空的 instance
-            cleanupEmptyInstances();
-            
-            // 返回清理后的有效 instances
             Set<String> allInstances = redisClient.smembers(instancesKey());
             if (allInstances == null || allInstances.isEmpty()) {
                 return Collections.emptySet();
             }
-            
-            // 再次验证，只返回确实有有效 session 的 instance
-            Set<String> validInstances = new HashSet<>();
-            for (String instanceId : allInstances) {
-                Set<String> sessionIds = redisClient.smembers(instanceKey(instanceId));
-                if (sessionIds != null && !sessionIds.isEmpty()) {
-                    // 检查是否有有效的 session（session key 存在）
-                    boolean hasValidSession = false;
-                    for (String sessionId : sessionIds) {
-                        Map<String, String> sessionData = redisClient.hgetAll(sessionKey(sessionId));
-                        if (sessionData != null && !sessionData.isEmpty()) {
-                            hasValidSession = true;
-                            break;
-                        }
-                    }
-                    
-                    if (hasValidSession) {
-                        validInstances.add(instanceId);
-                    }
+            List<String> instanceIds = new ArrayList<>(allInstances);
+            List<String> keys = new ArrayList<>(instanceIds.size() * 2);
+            for (String instanceId : instanceIds) {
+                keys.add(heartbeatKey(instanceId));
+                keys.add(sessionCountKey(instanceId));
+            }
+            List<String> values = redisClient.mget(keys);
+            Set<String> liveInstances = new HashSet<>();
+            for (int i = 0; i < instanceIds.size(); i++) {
+                if (values.get(i * 2) != null && parseCount(values.get(i * 2 + 1)) > 0) {
+                    liveInstances.add(instanceIds.get(i));
                 }
             }
-            
-            return validInstances;
+            return liveInstances;
         } catch (Exception e) {
             log.error("Failed to findAllInstances", e);
             return Collections.emptySet();
         }
     }
+
+    private static long parseCount(String value) {
+        if (value == null) {
+            return 0L;
+        }
+        try {
+            return Math.max(0L, Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
     
     /**
      * 根据 instanceId 获取该 instance 下的所有 sessionIds
@@ -248,67 +491,55 @@ public class SessionRedisRepository {
     }
     
     /**
-     * 清理所有没有sessionId的instance
-     * 检查每个instance下的sessionId集合，如果为空或所有session都已过期，则清理该instance
+     * 清理心跳已过期（已下线）的instance：从 instances 集合移除并删除其二层键，
+     * 其会话键由各自的 TTL 过期。开销只与 instance 数量有关，且至多每 CLEANUP_MIN_INTERVAL_MS 执行一次
      * 
      * @return 清理的instance数量
      */
     public int cleanupEmptyInstances() {
+        long now = clock.getAsLong();
+        long last = lastCleanupMillis.get();
+        if (last != Long.MIN_VALUE && now - last < CLEANUP_MIN_INTERVAL_MS) {
+            return 0;
+        }
+        if (!lastCleanupMillis.compareAndSet(last, now)) {
+            return 0;
+        }
         try {
             Set<String> allInstances = redisClient.smembers(instancesKey());
             if (allInstances == null || allInstances.isEmpty()) {
                 return 0;
             }
-            
-            int cleanedCount = 0;
-            Set<String> emptyInstances = new HashSet<>();
-            
-            for (String instanceId : allInstances) {
-                Set<String> sessionIds = redisClient.smembers(instanceKey(instanceId));
-                if (sessionIds == null || sessionIds.isEmpty()) {
-                    // 该 instance 下没有任何 sessions，标记为待删除
-                    emptyInstances.add(instanceId);
-                } else {
-                    // 检查是否有有效的 session（session key 存在且未过期）
-                    boolean hasValidSession = false;
-                    for (String sessionId : sessionIds) {
-                        Map<String, String> sessionData = redisClient.hgetAll(sessionKey(sessionId));
-                        if (sessionData != null && !sessionData.isEmpty()) {
-                            hasValidSession = true;
-                            break;
-                        }
-                    }
-                    
-                    if (!hasValidSession) {
-                        // 该 instance 下的所有 sessions 都已过期，标记为待删除
-                        emptyInstances.add(instanceId);
-                    }
-                }
+            List<String> instanceIds = new ArrayList<>(allInstances);
+            List<String> heartbeatKeys = new ArrayList<>(instanceIds.size());
+            for (String instanceId : instanceIds) {
+                heartbeatKeys.add(heartbeatKey(instanceId));
             }
-            
-            // 清理空的 instance
-            for (String emptyInstanceId : emptyInstances) {
-                try {
-                    // 从第一层的 instances key 中删除该 instanceId
-                    redisClient.srem(instancesKey(), emptyInstanceId);
-                    // 删除第二层的 instance key（如果还存在）
-                    redisClient.del(instanceKey(emptyInstanceId));
-                    cleanedCount++;
-                    log.debug("Cleaned up empty instance: {}", emptyInstanceId);
-                } catch (Exception e) {
-                    log.warn("Failed to clean up empty instance: {}", emptyInstanceId, e);
+            List<String> heartbeats = redisClient.mget(heartbeatKeys);
+            List<String> deadInstances = new ArrayList<>();
+            for (int i = 0; i < instanceIds.size(); i++) {
+                if (heartbeats.get(i) == null) {
+                    deadInstances.add(instanceIds.get(i));
                 }
             }
-            
-            if (cleanedCount > 0) {
-                log.info("Cleaned up {} empty instances", cleanedCount);
+            if (deadInstances.isEmpty()) {
+                return 0;
             }
-            
-            return cleanedCount;
+            redisClient.pipelined(pipeline -> {
+                for (String instanceId : deadInstances) {
+                    // 从第一层的 instances key 中删除该 instanceId
+                    pipeline.srem(instancesKey(), instanceId);
+                    // 删除第二层的 instance key、活跃索引及会话计数
+                    pipeline.del(instanceKey(instanceId));
+                    pipeline.del(activeIndexKey(instanceId));
+                    pipeline.del(sessionCountKey(instanceId));
+                }
+            });
+            log.info("Cleaned up {} offline instances: {}", deadInstances.size(), deadInstances);
+            return deadInstances.size();
         } catch (Exception e) {
             log.error("Failed to cleanup empty instances", e);
             return 0;
         }
     }
 }
-
@@ -0,0 +1,23 @@
+package com.pajk.mcpbridge.core.session;
+
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Sinks;
+
+/**
+ * 会话 SSE 事件的发送端：本地会话直接写入 SSE sink，其他实例的会话经 Redis 转发给所属实例
+ */
+@FunctionalInterface
+public interface SseEventSender {
+
+    /**
+     * 发送一个事件，返回值含义与 {@link Sinks.Many#tryEmitNext} 一致
+     */
+    Sinks.EmitResult deliver(ServerSentEvent<String> event);
+
+    /**
+     * 包装本地会话的 SSE sink
+     */
+    static SseEventSender of(Sinks.Many<ServerSentEvent<String>> sink) {
+        return sink::tryEmitNext;
+    }
+}
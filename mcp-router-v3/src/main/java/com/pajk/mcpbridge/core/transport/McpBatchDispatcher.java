@@ -0,0 +1,92 @@
+package com.pajk.mcpbridge.core.transport;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pajk.mcpbridge.core.model.McpMessage;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * JSON-RPC 批量请求分发
+ * <p>
+ * 批量中的元素以有限并发同时交给单条消息的处理函数，响应按完成顺序逐个发出（JSON-RPC 不要求与请求顺序一致），
+ * 调用方可以边完成边通过 SSE 推送，也可以用 {@link #toJsonArray(List)} 合并成一个数组返回。
+ * 无效元素直接生成 Invalid Request 错误；通知（无 id）照常处理但不产生响应，notifications/* 直接忽略。
+ */
+public final class McpBatchDispatcher {
+
+    private final ObjectMapper objectMapper;
+    private final int maxConcurrency;
+
+    public McpBatchDispatcher(ObjectMapper objectMapper, int maxConcurrency) {
+        this.objectMapper = objectMapper;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+    }
+
+    /**
+     * 分发批量请求；handler 返回单条消息的 JSON-RPC 响应文本，需自行把失败转换为错误响应
+     */
+    public Flux<String> dispatch(List<McpMessage> batch, Function<McpMessage, Mono<String>> handler) {
+        // 无效元素以 null 占位，按下标遍历
+        return Flux.range(0, batch.size())
+                .flatMap(index -> dispatchOne(batch.get(index), handler), maxConcurrency);
+    }
+
+    private Mono<String> dispatchOne(McpMessage message, Function<McpMessage, Mono<String>> handler) {
+        if (message == null) {
+            return Mono.just(errorResponse(null, -32600, "Invalid Request"));
+        }
+        if (message.getId() == null) {
+            String method = message.getMethod();
+            if (method != null && method.startsWith("notifications/")) {
+                return Mono.empty();
+            }
+            // 无 id 的请求按通知处理：执行但不返回响应
+            return Mono.defer(() -> handler.apply(message)).onErrorResume(error -> Mono.empty()).then(Mono.empty());
+        }
+        return Mono.defer(() -> handler.apply(message))
+                .onErrorResume(error -> Mono.just(errorResponse(message.getId(), -32603,
+                        error.getMessage() != null ? error.getMessage() : "Internal error")));
+    }
+
+    /**
+     * 生成 JSON-RPC 错误响应
+     */
+    public String errorResponse(Object id, int code, String message) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("code", code);
+        error.put("message", message);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("jsonrpc", "2.0");
+        response.put("id", id);
+        response.put("error", error);
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            return "{\"jsonrpc\":\"2.0\",\"id\":null,\"error\":{\"code\":-32603,\"message\":\"Internal error\"}}";
+        }
+    }
+
+    /**
+     * 把已序列化的各条响应合并为一个 JSON 数组
+     */
+    public static String toJsonArray(List<String> responses) {
+        int length = 2 + responses.size();
+        for (String response : responses) {
+            length += response.length();
+        }
+        StringBuilder array = new StringBuilder(length).append('[');
+        for (int i = 0; i < responses.size(); i++) {
+            if (i > 0) {
+                array.append(',');
+            }
+            array.append(responses.get(i));
+        }
+        return array.append(']').toString();
+    }
+}
@@ -0,0 +1,254 @@
+package com.pajk.mcpbridge.core.transport;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.pajk.mcpbridge.core.model.McpMessage;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JSON-RPC 请求体流式解析
+ * <p>
+ * 请求体的每个 DataBuffer 到达后直接喂给 Jackson 非阻塞解析器（不拼接、不转成 String），
+ * 解析出的 token 暂存在 TokenBuffer 中，请求体结束后一次绑定为 McpMessage。
+ * 解析过程中记录 params 值的字节区间，只把这一段原始字节复制出来保存在 McpMessage.rawParams，
+ * 供路由日志和透传使用，无需再把 params 序列化回 JSON。
+ * <p>
+ * 根节点为数组时按 JSON-RPC 批量请求处理：逐个元素绑定为 McpMessage，
+ * 非对象或无法绑定的元素在结果列表中以 null 占位（对应 Invalid Request），批量元素不保留 rawParams。
+ */
+public final class McpMessageReader {
+
+    /**
+     * 默认的单条消息请求体上限，与 WebFlux 编解码默认的 max-in-memory-size 一致
+     */
+    public static final int DEFAULT_MAX_MESSAGE_BYTES = 256 * 1024;
+
+    private final ObjectMapper objectMapper;
+    private final int maxMessageBytes;
+
+    public McpMessageReader(ObjectMapper objectMapper) {
+        this(objectMapper, DEFAULT_MAX_MESSAGE_BYTES);
+    }
+
+    public McpMessageReader(ObjectMapper objectMapper, int maxMessageBytes) {
+        if (maxMessageBytes <= 0) {
+            throw new IllegalArgumentException("maxMessageBytes must be positive");
+        }
+        this.objectMapper = objectMapper;
+        this.maxMessageBytes = maxMessageBytes;
+    }
+
+    public int getMaxMessageBytes() {
+        return maxMessageBytes;
+    }
+
+    /**
+     * 解析请求体；总是发出一个结果，空请求体对应 {@link Result#isEmpty()}，批量请求对应 {@link Result#isBatch()}，
+     * 格式错误时 error 非空
+     */
+    public Mono<Result> read(Flux<DataBuffer> body) {
+        return Mono.defer(() -> {
+            Decoder decoder = new Decoder();
+            return body.<Void>handle((buffer, sink) -> {
+                        try {
+                            decoder.feed(buffer);
+                        } catch (IOException e) {
+                            sink.error(e);
+                        } finally {
+                            DataBufferUtils.release(buffer);
+                        }
+                    })
+                    .then(Mono.fromCallable(decoder::finish))
+                    .onErrorResume(IOException.class, e -> Mono.just(new Result(null, null, decoder.bytesRead, e)));
+        });
+    }
+
+    /**
+     * 解析结果
+     */
+    public record Result(McpMessage message, List<McpMessage> batch, long bodyBytes, Exception error) {
+
+        public boolean isEmpty() {
+            return message == null && batch == null && error == null;
+        }
+
+        public boolean isBatch() {
+            return batch != null;
+        }
+    }
+
+    /**
+     * 单个请求体的解析状态
+     */
+    private final class Decoder {
+
+        private final JsonParser parser;
+        private final ByteBufferFeeder feeder;
+        private final TokenBuffer tokens;
+        private long bytesRead;
+        private int depth;
+        private boolean rootClosed;
+        private boolean batch;
+        // params 值的字节区间，-1 表示尚未出现
+        private boolean expectParams;
+        private long paramsStart = -1;
+        private long paramsEnd = -1;
+        private ByteArrayOutputStream rawParams;
+
+        private Decoder() {
+            try {
+                this.parser = objectMapper.getFactory().createNonBlockingByteBufferParser();
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to create non-blocking JSON parser", e);
+            }
+            this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+            this.tokens = new TokenBuffer(parser);
+        }
+
+        private void feed(DataBuffer buffer) throws IOException {
+            try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                while (iterator.hasNext()) {
+                    feed(iterator.next());
+                }
+            }
+        }
+
+        private void feed(ByteBuffer chunk) throws IOException {
+            long chunkStart = bytesRead;
+            bytesRead += chunk.remaining();
+            if (bytesRead > maxMessageBytes) {
+                throw new IOException("Request body exceeds " + maxMessageBytes + " bytes");
+            }
+            ByteBuffer view = chunk.duplicate();
+            feeder.feedInput(chunk);
+            drain();
+            captureParams(view, chunkStart);
+        }
+
+        private void drain() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                if (rootClosed) {
+                    throw new IOException("Unexpected content after JSON-RPC message");
+                }
+                if (depth == 0) {
+                    if (token == JsonToken.START_ARRAY) {
+                        batch = true;
+                    } else if (token != JsonToken.START_OBJECT) {
+                        throw new IOException("JSON-RPC message must be an object or a batch array");
+                    }
+                }
+                if (expectParams) {
+                    expectParams = false;
+                    // 只保留对象/数组形式的 params（JSON-RPC 规定 params 为结构化值）；
+                    // 非阻塞解析器在返回起始 token 时刚好越过一个字节的括号
+                    if (token.isStructStart()) {
+                        paramsStart = parser.currentLocation().getByteOffset() - 1;
+                    }
+                }
+                tokens.copyCurrentEvent(parser);
+                if (token.isStructStart()) {
+                    depth++;
+                } else if (token.isStructEnd()) {
+                    depth--;
+                    if (depth == 1 && paramsStart >= 0 && paramsEnd < 0) {
+                        paramsEnd = parser.currentLocation().getByteOffset();
+                    }
+                    if (depth == 0) {
+                        rootClosed = true;
+                    }
+                } else if (!batch && depth == 1 && token == JsonToken.FIELD_NAME && "params".equals(parser.currentName())) {
+                    expectParams = true;
+                }
+            }
+        }
+
+        /**
+         * 复制当前分片中属于 params 的字节
+         */
+        private void captureParams(ByteBuffer view, long chunkStart) {
+            if (paramsStart < 0) {
+                return;
+            }
+            long chunkEnd = bytesRead;
+            long from = Math.max(paramsStart, chunkStart);
+            long to = paramsEnd >= 0 ? Math.min(paramsEnd, chunkEnd) : chunkEnd;
+            if (from >= to) {
+                return;
+            }
+            if (rawParams == null) {
+                rawParams = new ByteArrayOutputStream((int) Math.min(to - from, 8192));
+            }
+            int offset = view.position() + (int) (from - chunkStart);
+            int length = (int) (to - from);
+            if (view.hasArray()) {
+                rawParams.write(view.array(), view.arrayOffset() + offset, length);
+            } else {
+                byte[] bytes = new byte[length];
+                view.get(offset, bytes);
+                rawParams.write(bytes, 0, length);
+            }
+        }
+
+        private Result finish() throws IOException {
+            feeder.endOfInput();
+            drain();
+            if (bytesRead == 0 || (depth == 0 && !rootClosed)) {
+                return new Result(null, null, bytesRead, null);
+            }
+            if (!rootClosed) {
+                throw new IOException("Unexpected end of JSON-RPC message");
+            }
+            if (batch) {
+                parser.close();
+                return new Result(null, bindBatch(), bytesRead, null);
+            }
+            McpMessage message;
+            try (JsonParser buffered = tokens.asParser(objectMapper)) {
+                message = objectMapper.readValue(buffered, McpMessage.class);
+            }
+            if (rawParams != null && paramsEnd >= 0 && rawParams.size() == paramsEnd - paramsStart) {
+                message.setRawParams(rawParams.toByteArray());
+            }
+            parser.close();
+            return new Result(message, null, bytesRead, null);
+        }
+
+        /**
+         * 批量请求逐个元素绑定，单个元素无效不影响其他元素
+         */
+        private List<McpMessage> bindBatch() throws IOException {
+            JsonNode root;
+            try (JsonParser buffered = tokens.asParser(objectMapper)) {
+                root = objectMapper.readTree(buffered);
+            }
+            List<McpMessage> messages = new ArrayList<>(root.size());
+            for (JsonNode element : root) {
+                McpMessage message = null;
+                if (element.isObject()) {
+                    try {
+                        message = objectMapper.treeToValue(element, McpMessage.class);
+                    } catch (JsonProcessingException | IllegalArgumentException e) {
+                        message = null;
+                    }
+                }
+                messages.add(message);
+            }
+            return messages;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.pajk.mcpbridge.core.transport;
+
+import com.pajk.mcpbridge.core.config.McpSessionProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * SSE/Streamable 帧写出器
+ * <p>
+ * 不经过 Spring 的 SSE 编码器，直接把帧编码进响应的 DataBufferFactory 分配的缓冲区（Reactor Netty 下为池化缓冲区）。
+ * 心跳等固定帧通过 {@link #pin} 预先编码、广播帧通过 {@link #share} 预先编码一次，按对象引用识别，
+ * 写出时直接复用同一份字节，不再逐会话编码。
+ * 刷新策略：flush 窗口内到达的帧合并为一个缓冲区，经 writeAndFlushWith 一次写出并 flush；窗口为 0 时逐帧 flush。
+ * 窗口计时使用独立的 sse-frame-flush 调度器。
+ */
+@Component
+public class SseFrameWriter {
+
+    private static final byte[] ID = "id:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] EVENT = "event:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RETRY = "retry:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DATA = "data:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] COMMENT = ":".getBytes(StandardCharsets.UTF_8);
+    private static final byte NEWLINE = '\n';
+
+    /**
+     * 最近共享帧的槽位数；槽位被覆盖后对应帧退回逐会话编码，结果不变
+     */
+    static final int SHARED_SLOTS = 16;
+
+    private static final FrameEncoder<ServerSentEvent<String>> EVENT_ENCODER = new FrameEncoder<>() {
+        @Override
+        public int estimateSize(ServerSentEvent<String> event) {
+            return 32 + length(event.id()) + length(event.event()) + length(event.comment()) + length(event.data());
+        }
+
+        @Override
+        public void encode(ServerSentEvent<String> event, DataBuffer out) {
+            encodeEvent(event, out);
+        }
+    };
+
+    private static final FrameEncoder<ServerSentEvent<String>> DATA_ONLY_ENCODER = new FrameEncoder<>() {
+        @Override
+        public int estimateSize(ServerSentEvent<String> event) {
+            return 16 + length(event.data());
+        }
+
+        @Override
+        public void encode(ServerSentEvent<String> event, DataBuffer out) {
+            writeField(out, DATA, event.data() != null ? event.data() : "");
+            out.write(NEWLINE);
+        }
+
+        @Override
+        public boolean usesSharedFrames() {
+            // 常驻/共享帧按完整事件预编码，与只写 data 的格式不同
+            return false;
+        }
+    };
+
+    private static final FrameEncoder<String> LINE_ENCODER = new FrameEncoder<>() {
+        @Override
+        public int estimateSize(String line) {
+            return line.length() + 16;
+        }
+
+        @Override
+        public void encode(String line, DataBuffer out) {
+            out.write(line, StandardCharsets.UTF_8);
+        }
+    };
+
+    private final Duration flushInterval;
+    private final int maxFramesPerFlush;
+    // 常驻帧：写时复制，读路径无锁
+    private volatile Map<Object, byte[]> pinned = new IdentityHashMap<>();
+    private final AtomicReferenceArray<SharedFrame> recent = new AtomicReferenceArray<>(SHARED_SLOTS);
+    private final AtomicInteger cursor = new AtomicInteger();
+    // flush 窗口计时使用独立调度器，不受共享 parallel 调度器上阻塞任务的影响
+    private final Scheduler flushTimer;
+
+    public SseFrameWriter(McpSessionProperties sessionProperties) {
+        this.flushInterval = sessionProperties.getFrameFlushInterval();
+        this.maxFramesPerFlush = sessionProperties.getFrameFlushMaxFrames();
+        this.flushTimer = Schedulers.newParallel("sse-frame-flush",
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2), true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushTimer.dispose();
+    }
+
+    /**
+     * 以 text/event-stream 格式写出事件流
+     */
+    public BodyInserter<Flux<ServerSentEvent<String>>, ReactiveHttpOutputMessage> events(Flux<ServerSentEvent<String>> events) {
+        return write(events, EVENT_ENCODER);
+    }
+
+    /**
+     * 只写出事件的 data 字段（data:<data>），忽略 id/event/comment，无 data 的事件写出空 data 帧；
+     * 与把 data 作为 String 交给 Spring SSE 编码器的格式一致
+     */
+    public BodyInserter<Flux<ServerSentEvent<String>>, ReactiveHttpOutputMessage> dataOnly(Flux<ServerSentEvent<String>> events) {
+        return write(events, DATA_ONLY_ENCODER);
+    }
+
+    /**
+     * 原样写出已编码的文本行（Streamable NDJSON，行尾需自带换行）
+     */
+    public BodyInserter<Flux<String>, ReactiveHttpOutputMessage> lines(Flux<String> lines) {
+        return write(lines, LINE_ENCODER);
+    }
+
+    /**
+     * 常驻预编码事件（如心跳帧），同一实例在所有连接上复用同一份字节
+     */
+    public void pin(ServerSentEvent<String> event) {
+        pinFrame(event, toBytes(event, EVENT_ENCODER));
+    }
+
+    /**
+     * 常驻预编码文本行
+     */
+    public void pin(String line) {
+        pinFrame(line, line.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 预编码一次即将发给多个连接的事件（如广播），返回同一实例供各会话 sink 发送
+     */
+    public ServerSentEvent<String> share(ServerSentEvent<String> event) {
+        byte[] bytes = toBytes(event, EVENT_ENCODER);
+        recent.set(Math.floorMod(cursor.getAndIncrement(), SHARED_SLOTS), new SharedFrame(event, bytes));
+        return event;
+    }
+
+    /**
+     * 把事件编码为 SSE 帧写入缓冲区，格式与 Spring 的 SSE 编码器一致
+     */
+    static void encodeEvent(ServerSentEvent<String> event, DataBuffer out) {
+        if (event.id() != null) {
+            writeField(out, ID, event.id());
+        }
+        if (event.event() != null) {
+            writeField(out, EVENT, event.event());
+        }
+        if (event.retry() != null) {
+            writeField(out, RETRY, Long.toString(event.retry().toMillis()));
+        }
+        if (event.comment() != null) {
+            writeField(out, COMMENT, event.comment());
+        }
+        if (event.data() != null) {
+            writeField(out, DATA, event.data());
+        }
+        out.write(NEWLINE);
+    }
+
+    private <T> BodyInserter<Flux<T>, ReactiveHttpOutputMessage> write(Flux<T> frames, FrameEncoder<T> encoder) {
+        return (message, context) -> message.writeAndFlushWith(batches(frames)
+                .map(batch -> Mono.fromSupplier(() -> encodeBatch(batch, encoder, message.bufferFactory()))));
+    }
+
+    private <T> Flux<List<T>> batches(Flux<T> frames) {
+        if (flushInterval.isZero() || maxFramesPerFlush <= 1) {
+            return frames.map(Collections::singletonList);
+        }
+        // 公平背压：按写出进度向上游请求，慢客户端时积压留在上游而不是溢出报错
+        return frames.bufferTimeout(maxFramesPerFlush, flushInterval, flushTimer, true);
+    }
+
+    /**
+     * 一批帧合并编码为一个缓冲区；单个预编码帧直接包装共享字节，不复制
+     */
+    <T> DataBuffer encodeBatch(List<T> batch, FrameEncoder<T> encoder, DataBufferFactory bufferFactory) {
+        boolean shared = encoder.usesSharedFrames();
+        if (shared && batch.size() == 1) {
+            byte[] bytes = lookup(batch.get(0));
+            if (bytes != null) {
+                return bufferFactory.wrap(bytes);
+            }
+        }
+        byte[][] encoded = new byte[batch.size()][];
+        int capacity = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            encoded[i] = shared ? lookup(batch.get(i)) : null;
+            capacity += encoded[i] != null ? encoded[i].length : encoder.estimateSize(batch.get(i));
+        }
+        DataBuffer out = bufferFactory.allocateBuffer(capacity);
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                if (encoded[i] != null) {
+                    out.write(encoded[i]);
+                } else {
+                    encoder.encode(batch.get(i), out);
+                }
+            }
+            return out;
+        } catch (RuntimeException e) {
+            DataBufferUtils.release(out);
+            throw e;
+        }
+    }
+
+    private byte[] lookup(Object frame) {
+        byte[] bytes = pinned.get(frame);
+        if (bytes != null) {
+            return bytes;
+        }
+        for (int i = 0; i < SHARED_SLOTS; i++) {
+            SharedFrame shared = recent.get(i);
+            if (shared != null && shared.frame == frame) {
+                return shared.bytes;
+            }
+        }
+        return null;
+    }
+
+    private synchronized void pinFrame(Object frame, byte[] bytes) {
+        Map<Object, byte[]> copy = new IdentityHashMap<>(pinned);
+        copy.put(frame, bytes);
+        pinned = copy;
+    }
+
+    private static <T> byte[] toBytes(T frame, FrameEncoder<T> encoder) {
+        DataBuffer buffer = DefaultDataBufferFactory.sharedInstance.allocateBuffer(encoder.estimateSize(frame));
+        encoder.encode(frame, buffer);
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        return bytes;
+    }
+
+    /**
+     * 写出字段，多行值逐行加前缀
+     */
+    private static void writeField(DataBuffer out, byte[] prefix, String value) {
+        int start = 0;
+        int end;
+        while ((end = value.indexOf('\n', start)) >= 0) {
+            out.write(prefix);
+            out.write(CharBuffer.wrap(value, start, end), StandardCharsets.UTF_8);
+            out.write(NEWLINE);
+            start = end + 1;
+        }
+        out.write(prefix);
+        out.write(start == 0 ? value : CharBuffer.wrap(value, start, value.length()), StandardCharsets.UTF_8);
+        out.write(NEWLINE);
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    interface FrameEncoder<T> {
+
+        int estimateSize(T frame);
+
+        void encode(T frame, DataBuffer out);
+
+        /**
+         * 是否复用常驻/共享帧的预编码字节
+         */
+        default boolean usesSharedFrames() {
+            return true;
+        }
+    }
+
+    private record SharedFrame(Object frame, byte[] bytes) {
+    }
+}
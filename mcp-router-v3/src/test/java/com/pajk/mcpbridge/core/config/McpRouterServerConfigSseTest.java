@@ -44,6 +44,40 @@ public class McpRouterServerConfigSseTest {
         assertTrue(firstChunk != null && firstChunk.contains("/mcp/" + serviceName + "/message?sessionId="));
     }
 
+    @Test
+    public void batchShouldReturnCombinedArrayWithoutSseConnection() {
+        String batch = "[1,"
+                + "{\"jsonrpc\":\"2.0\",\"id\":\"init\",\"method\":\"initialize\",\"params\":{}},"
+                + "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}]";
+
+        String body = webTestClient.post()
+                .uri("/mcp")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(batch)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        log.info("Batch response: {}", body);
+        // 无效元素和 initialize 各得到一个错误响应，通知不产生响应
+        assertTrue(body != null && body.startsWith("[") && body.endsWith("]"));
+        assertTrue(body.contains("\"id\":null") && body.contains("\"id\":\"init\""));
+        assertTrue(!body.contains("notifications/initialized"));
+    }
+
+    @Test
+    public void emptyBatchShouldBeRejected() {
+        webTestClient.post()
+                .uri("/mcp")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[]")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     @Test
     public void optionsPreflightShouldBeHandled() {
         webTestClient.method(org.springframework.http.HttpMethod.OPTIONS)
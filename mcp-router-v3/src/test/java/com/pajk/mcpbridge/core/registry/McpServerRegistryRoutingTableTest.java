@@ -0,0 +1,222 @@
+package com.pajk.mcpbridge.core.registry;
+
+import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.pojo.ListView;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import com.pajk.mcpbridge.core.config.NacosMcpRegistryConfig;
+import com.pajk.mcpbridge.core.model.McpServerInfo;
+import com.pajk.mcpbridge.core.service.CircuitBreakerService;
+import com.pajk.mcpbridge.core.service.McpClientManager;
+import com.pajk.mcpbridge.core.service.McpConfigService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 路由表快照测试：冷加载只访问一次 Nacos，之后只读快照，由推送事件整体替换
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class McpServerRegistryRoutingTableTest {
+
+    private static final String GROUP = "mcp-server";
+
+    @Mock
+    private NamingService namingService;
+    @Mock
+    private McpConfigService mcpConfigService;
+    @Mock
+    private NacosMcpRegistryConfig.McpRegistryProperties registryProperties;
+    @Mock
+    private McpToolIndex toolIndex;
+    @Mock
+    private McpClientManager mcpClientManager;
+    @Mock
+    private CircuitBreakerService circuitBreakerService;
+
+    private McpServerRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new McpServerRegistry(namingService, mcpConfigService, registryProperties,
+                toolIndex, mcpClientManager, circuitBreakerService);
+    }
+
+    @Test
+    public void coldLoadShouldHitNacosOnceThenServeFromSnapshot() throws Exception {
+        when(namingService.selectInstances(eq("mcp-server-v6"), eq(GROUP), eq(true)))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(100);
+                    return List.of(instance("10.0.0.1"), instance("10.0.0.2"));
+                });
+
+        List<List<McpServerInfo>> results = Flux.range(0, 50)
+                .flatMap(i -> registry.getAllHealthyServers("mcp-server-v6", GROUP).collectList())
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(50, results.size());
+        results.forEach(servers -> assertEquals(2, servers.size()));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(2, registry.getAllHealthyServers("mcp-server-v6", GROUP).collectList().block().size());
+        }
+        verify(namingService, times(1)).selectInstances("mcp-server-v6", GROUP, true);
+        verify(namingService, times(1)).subscribe(eq("mcp-server-v6"), eq(GROUP), any());
+    }
+
+    @Test
+    public void pushEventShouldReplaceSnapshotAndReuseIdentity() throws Exception {
+        registry.applyNamingEvent("mcp-server-v6", GROUP, List.of(instance("10.0.0.1")));
+        RoutingTable before = registry.getRoutingTable();
+        McpServerInfo first = before.get("mcp-server-v6", GROUP).get(0);
+
+        registry.applyNamingEvent("mcp-server-v6", GROUP, List.of(instance("10.0.0.1"), instance("10.0.0.2")));
+        RoutingTable after = registry.getRoutingTable();
+
+        assertNotSame(before, after);
+        assertEquals(1, before.get("mcp-server-v6", GROUP).size());
+        assertEquals(2, after.get("mcp-server-v6", GROUP).size());
+        assertSame(first.getIdentity(), after.get("mcp-server-v6", GROUP).get(0).getIdentity());
+
+        List<McpServerInfo> servers = registry.getAllHealthyServers("mcp-server-v6", GROUP).collectList().block();
+        assertEquals(2, servers.size());
+        verify(namingService, times(0)).selectInstances(anyString(), anyString(), anyBoolean());
+    }
+
+    @Test
+    public void shouldResolvePrefixAliasOnColdLoad() throws Exception {
+        when(namingService.selectInstances(eq("weather"), anyString(), eq(true))).thenReturn(List.of());
+        when(namingService.selectInstances(eq("mcp-weather"), eq(GROUP), eq(true))).thenReturn(List.of(instance("10.0.0.3")));
+        lenient().when(namingService.selectInstances(eq("mcp-weather"), eq("mcp-endpoints"), eq(true))).thenReturn(List.of());
+        lenient().when(namingService.selectInstances(eq("virtual-weather"), anyString(), eq(true))).thenReturn(List.of());
+
+        List<String> groups = List.of(GROUP, "mcp-endpoints");
+        List<McpServerInfo> servers = registry.getAllHealthyServers("weather", groups).collectList().block();
+        assertEquals(1, servers.size());
+        assertEquals("mcp-weather", servers.get(0).getName());
+
+        // 后续查询直接命中别名对应的快照条目
+        registry.applyNamingEvent("mcp-weather", GROUP, List.of(instance("10.0.0.3"), instance("10.0.0.4")));
+        assertEquals(2, registry.getAllHealthyServers("weather", groups).collectList().block().size());
+        verify(namingService, times(1)).selectInstances("mcp-weather", GROUP, true);
+    }
+
+    @Test
+    public void unknownServiceShouldCostOneLookupPerTtl() throws Exception {
+        when(namingService.selectInstances(anyString(), anyString(), eq(true))).thenReturn(List.of());
+        List<String> groups = List.of(GROUP, "mcp-endpoints");
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, registry.getAllHealthyServers("weathr", groups).collectList().block().size());
+        }
+        // 每组：原名 + mcp- + virtual- 各查询一次
+        verify(namingService, times(1)).selectInstances("weathr", GROUP, true);
+        verify(namingService, times(1)).selectInstances("mcp-weathr", GROUP, true);
+        verify(namingService, times(1)).selectInstances("virtual-weathr", "mcp-endpoints", true);
+        verify(namingService, never()).subscribe(eq("weathr"), anyString(), any());
+        assertFalse(registry.getRoutingTable().contains("weathr", GROUP));
+
+        // 推送带来 mcp-weathr 的健康实例后负缓存失效，下次查询解析到别名
+        registry.applyNamingEvent("mcp-weathr", GROUP, List.of(instance("10.0.2.1")));
+        when(namingService.selectInstances(eq("mcp-weathr"), eq(GROUP), eq(true))).thenReturn(List.of(instance("10.0.2.1")));
+        List<McpServerInfo> servers = registry.getAllHealthyServers("weathr", groups).collectList().block();
+        assertEquals(1, servers.size());
+        assertEquals("mcp-weathr", servers.get(0).getName());
+    }
+
+    @Test
+    public void wildcardLookupsShouldBeServedFromCatalog() throws Exception {
+        when(namingService.getServicesOfServer(anyInt(), anyInt(), eq(GROUP)))
+                .thenReturn(services("svc-a", "svc-b"), services("svc-b", "svc-c"));
+        when(namingService.selectInstances(eq("svc-a"), eq(GROUP), eq(true))).thenReturn(List.of(instance("10.0.1.1")));
+        when(namingService.selectInstances(eq("svc-b"), eq(GROUP), eq(true))).thenReturn(List.of(instance("10.0.1.2")));
+        when(namingService.selectInstances(eq("svc-c"), eq(GROUP), eq(true))).thenReturn(List.of(instance("10.0.1.3")));
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(2, registry.getAllHealthyServers("*", GROUP).collectList().block().size());
+        }
+        verify(namingService, times(1)).getServicesOfServer(anyInt(), anyInt(), eq(GROUP));
+
+        // 推送更新后通配符结果随路由表快照变化
+        registry.applyNamingEvent("svc-a", GROUP, List.of(instance("10.0.1.1"), instance("10.0.1.9")));
+        assertEquals(3, registry.getAllHealthyServers("*", GROUP).collectList().block().size());
+
+        // 增量刷新：只拉取新增服务，移除下线服务
+        registry.refreshLoadedCatalogs().blockLast(Duration.ofSeconds(5));
+        List<McpServerInfo> servers = registry.getAllHealthyServers("*", GROUP).collectList().block();
+        assertEquals(2, servers.size());
+        assertFalse(registry.getRoutingTable().contains("svc-a", GROUP));
+        verify(namingService, times(1)).selectInstances("svc-b", GROUP, true);
+        verify(namingService, times(1)).selectInstances("svc-c", GROUP, true);
+        verify(namingService, never()).getAllInstances(anyString(), anyString());
+    }
+
+    @Test
+    public void reconcileShouldFetchOffCallerThreadWithBoundedConcurrency() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            registry.applyNamingEvent("svc-" + i, GROUP, List.of(instance("10.0.1." + i)));
+        }
+        Thread caller = Thread.currentThread();
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        when(namingService.selectInstances(anyString(), eq(GROUP), eq(true))).thenAnswer(invocation -> {
+            assertNotSame(caller, Thread.currentThread());
+            int running = concurrent.incrementAndGet();
+            maxConcurrent.accumulateAndGet(running, Math::max);
+            try {
+                Thread.sleep(100);
+            } finally {
+                concurrent.decrementAndGet();
+            }
+            if ("svc-3".equals(invocation.getArgument(0))) {
+                throw new IllegalStateException("nacos unavailable");
+            }
+            return List.of(instance("10.0.2.1"), instance("10.0.2.2"));
+        });
+
+        // 单个服务失败不影响其他服务，各服务的阻塞调用并发执行
+        assertEquals(Integer.valueOf(3), registry.reconcileLoadedServices().block(Duration.ofSeconds(5)));
+        assertTrue("maxConcurrent=" + maxConcurrent.get(), maxConcurrent.get() > 1);
+        assertEquals(2, registry.getRoutingTable().get("svc-0", GROUP).size());
+        assertEquals(1, registry.getRoutingTable().get("svc-3", GROUP).size());
+    }
+
+    private static ListView<String> services(String... names) {
+        ListView<String> view = new ListView<>();
+        view.setData(List.of(names));
+        view.setCount(names.length);
+        return view;
+    }
+
+    private static Instance instance(String ip) {
+        Instance instance = new Instance();
+        instance.setIp(ip);
+        instance.setPort(8061);
+        instance.setHealthy(true);
+        instance.setEnabled(true);
+        instance.setWeight(1.0);
+        return instance;
+    }
+}
@@ -0,0 +1,119 @@
+package com.pajk.mcpbridge.core.registry;
+
+import com.pajk.mcpbridge.core.model.McpServerInfo;
+import com.pajk.mcpbridge.core.model.McpToolsConfig;
+import com.pajk.mcpbridge.core.service.McpConfigService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+
+/**
+ * 工具倒排索引测试
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class McpToolIndexTest {
+
+    @Mock
+    private McpConfigService mcpConfigService;
+
+    private McpToolIndex toolIndex;
+
+    @Before
+    public void setUp() {
+        lenient().when(mcpConfigService.getUuidFromServiceName(anyString())).thenReturn("uuid");
+        lenient().when(mcpConfigService.addToolsConfigListener(anyString(), any(), any())).thenReturn(Mono.empty());
+        toolIndex = new McpToolIndex(mcpConfigService);
+    }
+
+    @Test
+    public void shouldIndexToolsFromMetadata() {
+        toolIndex.updateService("svc-a", "mcp-server", List.of(
+                server("svc-a", "10.0.0.1", "getPersonById, addPerson"),
+                server("svc-a", "10.0.0.2", "getPersonById")));
+
+        assertEquals(2, toolIndex.findServersWithTool("getPersonById").size());
+        assertEquals(1, toolIndex.findServersWithTool("addPerson").size());
+        assertTrue(toolIndex.findServersWithTool("unknown").isEmpty());
+    }
+
+    @Test
+    public void shouldDropServersRemovedByNamingEvent() {
+        toolIndex.updateService("svc-a", "mcp-server", List.of(
+                server("svc-a", "10.0.0.1", "getPersonById"),
+                server("svc-a", "10.0.0.2", "getPersonById")));
+
+        toolIndex.updateService("svc-a", "mcp-server", List.of(
+                server("svc-a", "10.0.0.2", "getPersonById")));
+
+        List<McpServerInfo> servers = toolIndex.findServersWithTool("getPersonById");
+        assertEquals(1, servers.size());
+        assertEquals("10.0.0.2", servers.get(0).getIp());
+
+        toolIndex.updateService("svc-a", "mcp-server", List.of());
+        assertTrue(toolIndex.findServersWithTool("getPersonById").isEmpty());
+    }
+
+    @Test
+    public void shouldUseToolsConfigWhenMetadataMissing() {
+        toolIndex.updateService("svc-b", "mcp-server", List.of(server("svc-b", "10.0.0.3", null)));
+        assertTrue(toolIndex.findServersWithTool("get_system_info").isEmpty());
+
+        toolIndex.applyToolsConfig("svc-b", McpToolsConfig.builder()
+                .tools(List.of(McpToolsConfig.McpTool.builder().name("get_system_info").build()))
+                .build());
+        assertEquals(1, toolIndex.findServersWithTool("get_system_info").size());
+
+        toolIndex.applyToolsConfig("svc-b", McpToolsConfig.builder()
+                .tools(List.of(McpToolsConfig.McpTool.builder().name("list_servers").build()))
+                .build());
+        assertTrue(toolIndex.findServersWithTool("get_system_info").isEmpty());
+        assertEquals(1, toolIndex.findServersWithTool("list_servers").size());
+    }
+
+    @Test
+    public void shouldKeepProbedToolsAcrossRefresh() {
+        McpServerInfo server = server("svc-c", "10.0.0.4", null);
+        toolIndex.updateService("svc-c", "mcp-server", List.of(server));
+        toolIndex.updateServerTools(server, List.of("echo"));
+
+        toolIndex.updateService("svc-c", "mcp-server", List.of(server("svc-c", "10.0.0.4", null)));
+        assertEquals(1, toolIndex.findServersWithTool("echo").size());
+    }
+
+    @Test
+    public void shouldNotIndexProbedToolsForServersOutsideServiceMembers() {
+        McpServerInfo server = server("svc-d", "10.0.0.5", null);
+        toolIndex.updateService("svc-d", "mcp-server", List.of(server));
+        toolIndex.updateService("svc-d", "mcp-server", List.of());
+
+        // 探测结果在实例下线后才返回
+        toolIndex.updateServerTools(server, List.of("echo"));
+        assertTrue(toolIndex.findServersWithTool("echo").isEmpty());
+        assertEquals(0, toolIndex.getStats().get("indexed_servers"));
+
+        // 从未被跟踪的服务器同样不进入索引
+        toolIndex.updateServerTools(server("svc-e", "10.0.0.6", null), List.of("echo"));
+        assertTrue(toolIndex.findServersWithTool("echo").isEmpty());
+    }
+
+    private McpServerInfo server(String name, String ip, String toolsNames) {
+        return McpServerInfo.builder()
+                .name(name)
+                .ip(ip)
+                .port(8061)
+                .metadata(toolsNames != null ? Map.of(McpToolIndex.TOOLS_NAMES_METADATA_KEY, toolsNames) : Map.of())
+                .build();
+    }
+}
@@ -0,0 +1,56 @@
+package com.pajk.mcpbridge.core.registry;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 服务名解析缓存测试：负缓存 TTL 与抖动、推送失效、别名解析
+ */
+public class ServiceLookupCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private final ServiceLookupCache cache = new ServiceLookupCache(10_000, 5_000, now::get);
+
+    @Test
+    public void negativeEntryShouldExpireWithinTtlPlusJitter() {
+        cache.recordMissing("weathr", "mcp-server");
+        assertTrue(cache.isKnownMissing("weathr", "mcp-server"));
+        assertFalse(cache.isKnownMissing("weathr", "mcp-endpoints"));
+
+        now.addAndGet(9_999);
+        assertTrue(cache.isKnownMissing("weathr", "mcp-server"));
+
+        now.addAndGet(5_001);
+        assertFalse(cache.isKnownMissing("weathr", "mcp-server"));
+        assertEquals(0, cache.getStats().get("negative_entries"));
+    }
+
+    @Test
+    public void prefixedServiceAppearingShouldInvalidateBareNegativeEntry() {
+        cache.recordMissing("weather", "mcp-server");
+        cache.onServiceUpdated("mcp-weather", "mcp-server", false);
+        assertTrue("empty pushes do not invalidate", cache.isKnownMissing("weather", "mcp-server"));
+
+        cache.onServiceUpdated("mcp-weather", "mcp-server", true);
+        assertFalse(cache.isKnownMissing("weather", "mcp-server"));
+    }
+
+    @Test
+    public void aliasShouldResolveUntilCanonicalNameAppears() {
+        cache.recordMissing("weather", "mcp-server");
+        cache.recordAlias("weather", "mcp-server", "virtual-weather");
+        assertEquals("virtual-weather", cache.resolveAlias("weather", "mcp-server"));
+        assertFalse(cache.isKnownMissing("weather", "mcp-server"));
+
+        cache.onServiceUpdated("weather", "mcp-server", true);
+        assertNull(cache.resolveAlias("weather", "mcp-server"));
+        assertFalse(ServiceLookupCache.canHavePrefixAlias("mcp-weather"));
+        assertTrue(ServiceLookupCache.canHavePrefixAlias("weather"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.pajk.mcpbridge.core.service;
+
+import com.pajk.mcpbridge.core.config.McpCircuitBreakerProperties;
+import com.pajk.mcpbridge.core.model.ServerIdentity;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 实例级熔断器测试：连续失败熔断、到期半开限量探测、探测结果决定恢复或再次熔断
+ */
+public class CircuitBreakerServiceTest {
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private final ServerIdentity instance = ServerIdentity.of("mcp-server-v6", "10.0.0.1", 8061, 1.0);
+    private final ServerIdentity other = ServerIdentity.of("mcp-server-v6", "10.0.0.2", 8061, 1.0);
+    private CircuitBreakerService circuitBreakerService;
+
+    @Before
+    public void setUp() {
+        McpCircuitBreakerProperties properties = new McpCircuitBreakerProperties();
+        properties.setFailureThreshold(3);
+        properties.setSuccessThreshold(2);
+        properties.setOpenDuration(Duration.ofSeconds(5));
+        properties.setHalfOpenMaxProbes(2);
+        circuitBreakerService = new CircuitBreakerService(properties, now::get);
+    }
+
+    @Test
+    public void shouldOpenAfterConsecutiveFailuresPerInstance() {
+        for (int i = 0; i < 2; i++) {
+            circuitBreakerService.recordInstanceFailure(instance);
+        }
+        assertTrue(circuitBreakerService.isInstanceAvailable(instance));
+
+        circuitBreakerService.recordInstanceFailure(instance);
+        assertFalse(circuitBreakerService.isInstanceAvailable(instance));
+        assertFalse(circuitBreakerService.tryAcquireInstancePermission(instance));
+        // 同服务的其他实例不受影响
+        assertTrue(circuitBreakerService.isInstanceAvailable(other));
+        assertTrue(circuitBreakerService.tryAcquireInstancePermission(other));
+    }
+
+    @Test
+    public void halfOpenShouldAdmitLimitedProbesAndCloseOnSuccess() {
+        openCircuit();
+        now.addAndGet(5_000);
+
+        assertTrue(circuitBreakerService.isInstanceAvailable(instance));
+        assertTrue(circuitBreakerService.tryAcquireInstancePermission(instance));
+        assertTrue(circuitBreakerService.tryAcquireInstancePermission(instance));
+        assertFalse("probe budget exhausted", circuitBreakerService.tryAcquireInstancePermission(instance));
+        assertFalse(circuitBreakerService.isInstanceAvailable(instance));
+
+        circuitBreakerService.recordInstanceSuccess(instance);
+        assertEquals(CircuitBreakerService.State.HALF_OPEN, state().getState());
+        circuitBreakerService.recordInstanceSuccess(instance);
+        assertEquals(CircuitBreakerService.State.CLOSED, state().getState());
+        assertTrue(circuitBreakerService.tryAcquireInstancePermission(instance));
+    }
+
+    @Test
+    public void failedProbeShouldReopenImmediately() {
+        openCircuit();
+        now.addAndGet(5_000);
+        assertTrue(circuitBreakerService.tryAcquireInstancePermission(instance));
+
+        circuitBreakerService.recordInstanceFailure(instance);
+        assertEquals(CircuitBreakerService.State.OPEN, state().getState());
+        assertFalse(circuitBreakerService.tryAcquireInstancePermission(instance));
+
+        now.addAndGet(5_000);
+        assertTrue(circuitBreakerService.tryAcquireInstancePermission(instance));
+    }
+
+    @Test
+    public void cancelledProbeShouldReturnItsSlot() {
+        openCircuit();
+        now.addAndGet(5_000);
+        assertTrue(circuitBreakerService.tryAcquireInstancePermission(instance));
+        assertTrue(circuitBreakerService.tryAcquireInstancePermission(instance));
+        assertFalse(circuitBreakerService.tryAcquireInstancePermission(instance));
+
+        circuitBreakerService.releaseInstancePermission(instance);
+        assertTrue(circuitBreakerService.tryAcquireInstancePermission(instance));
+    }
+
+    @Test
+    public void resetByServiceNameShouldCloseInstanceCircuits() {
+        openCircuit();
+        circuitBreakerService.resetCircuitBreaker("mcp-server-v6");
+        assertTrue(circuitBreakerService.tryAcquireInstancePermission(instance));
+        assertEquals(CircuitBreakerService.State.CLOSED, state().getState());
+    }
+
+    private void openCircuit() {
+        for (int i = 0; i < 3; i++) {
+            circuitBreakerService.recordInstanceFailure(instance);
+        }
+        assertEquals(CircuitBreakerService.State.OPEN, state().getState());
+    }
+
+    private CircuitBreakerService.CircuitBreakerState state() {
+        return circuitBreakerService.getAllInstanceCircuitBreakerStates().get(instance.getServerKey());
+    }
+}
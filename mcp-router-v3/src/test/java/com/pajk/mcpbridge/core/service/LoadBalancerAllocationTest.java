@@ -0,0 +1,179 @@
+package com.pajk.mcpbridge.core.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import com.pajk.mcpbridge.core.model.McpServerInfo;
+import com.pajk.mcpbridge.core.model.ServerIdentity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 路由热路径分配量对比：旧实现（每次请求复制 Nacos Instance、拼接 ip:port 字符串找回实例）
+ * 与基于 ServerIdentity 的新实现，统计每次路由的堆分配字节数
+ */
+public class LoadBalancerAllocationTest {
+
+    private static final int CANDIDATES = 8;
+    private static final int WARMUP_ROUNDS = 50_000;
+    private static final int MEASURE_ROUNDS = 200_000;
+
+    private final Logger loadBalancerLogger = (Logger) LoggerFactory.getLogger(LoadBalancer.class);
+    private Level previousLevel;
+
+    @Before
+    public void setUp() {
+        // 同一 JVM 中先启动的 Spring 上下文会把日志级别调到 DEBUG，分配量统计需排除调试日志
+        previousLevel = loadBalancerLogger.getLevel();
+        loadBalancerLogger.setLevel(Level.INFO);
+    }
+
+    @After
+    public void tearDown() {
+        loadBalancerLogger.setLevel(previousLevel);
+    }
+
+    @Test
+    public void identityRoutingShouldAllocateLessThanLegacyPath() {
+        List<McpServerInfo> candidates = buildCandidates();
+        LoadBalancer loadBalancer = new LoadBalancer();
+        LegacyRouting legacy = new LegacyRouting();
+
+        double legacyBytes = measure(() -> legacy.route(candidates));
+        double identityBytes = measure(() -> routeWithIdentity(loadBalancer, candidates));
+
+        System.out.printf("Allocation per route: legacy=%.1f bytes, identity=%.1f bytes%n", legacyBytes, identityBytes);
+        assertTrue("identity path should allocate far less than legacy path",
+                identityBytes * 4 < legacyBytes);
+    }
+
+    @Test
+    public void shouldReuseIdentityUntilAttributesChange() {
+        McpServerInfo server = McpServerInfo.builder().name("svc").ip("10.0.0.1").port(8061).weight(1.0).build();
+        ServerIdentity identity = server.getIdentity();
+        assertSame(identity, server.getIdentity());
+        assertSame(identity, ServerIdentity.reuse(identity, "svc", "10.0.0.1", 8061, 1.0));
+
+        server.setWeight(2.0);
+        assertNotNull(server.getIdentity());
+        assertTrue(identity != server.getIdentity());
+    }
+
+    private static McpServerInfo routeWithIdentity(LoadBalancer loadBalancer, List<McpServerInfo> candidates) {
+        McpServerInfo selected = loadBalancer.selectServer(candidates, LoadBalancer.Strategy.WEIGHTED_ROUND_ROBIN);
+        ServerIdentity identity = selected.getIdentity();
+        loadBalancer.recordResponseTime(identity, 5);
+        loadBalancer.recordSuccess(identity);
+        loadBalancer.decrementConnectionCount(identity);
+        return selected;
+    }
+
+    private static double measure(java.util.function.Supplier<McpServerInfo> route) {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += route.get().getPort();
+        }
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            sink += route.get().getPort();
+        }
+        long after = threadBean.getThreadAllocatedBytes(threadId);
+        assertTrue(sink > 0);
+        return (after - before) / (double) MEASURE_ROUNDS;
+    }
+
+    private static List<McpServerInfo> buildCandidates() {
+        List<McpServerInfo> candidates = new ArrayList<>(CANDIDATES);
+        for (int i = 0; i < CANDIDATES; i++) {
+            candidates.add(McpServerInfo.builder()
+                    .name("mcp-server-v6")
+                    .ip("10.0.0." + (i + 1))
+                    .port(8061)
+                    .weight(1.0)
+                    .healthy(true)
+                    .build());
+        }
+        return candidates;
+    }
+
+    /**
+     * 旧路由实现的等价复刻：候选转换为 Nacos Instance，按 ip:port 字符串计数与找回
+     */
+    private static final class LegacyRouting {
+        private final Map<String, AtomicLong> connectionCounts = new ConcurrentHashMap<>();
+        private final Map<String, LoadBalancer.ServerMetrics> serverMetrics = new ConcurrentHashMap<>();
+
+        McpServerInfo route(List<McpServerInfo> candidates) {
+            List<Instance> instances = candidates.stream()
+                    .map(LegacyRouting::convertToNacosInstance)
+                    .toList();
+            List<Instance> healthyInstances = instances.stream()
+                    .filter(Instance::isHealthy)
+                    .filter(Instance::isEnabled)
+                    .toList();
+            Instance selected = selectByWeightedRoundRobin(healthyInstances);
+            connectionCounts.computeIfAbsent(buildServerKey(selected), k -> new AtomicLong(0)).incrementAndGet();
+
+            String selectedKey = selected.getIp() + ":" + selected.getPort();
+            McpServerInfo server = candidates.stream()
+                    .filter(candidate -> (candidate.getIp() + ":" + candidate.getPort()).equals(selectedKey))
+                    .findFirst()
+                    .orElse(candidates.get(0));
+
+            Instance instance = convertToNacosInstance(server);
+            serverMetrics.computeIfAbsent(buildServerKey(instance), k -> new LoadBalancer.ServerMetrics())
+                    .recordResponseTime(5);
+            serverMetrics.computeIfAbsent(buildServerKey(instance), k -> new LoadBalancer.ServerMetrics())
+                    .recordSuccess();
+            AtomicLong count = connectionCounts.get(buildServerKey(instance));
+            if (count != null) {
+                count.decrementAndGet();
+            }
+            return server;
+        }
+
+        private static Instance selectByWeightedRoundRobin(List<Instance> instances) {
+            double totalWeight = instances.stream().mapToDouble(Instance::getWeight).sum();
+            double randomWeight = ThreadLocalRandom.current().nextDouble(totalWeight);
+            double currentWeight = 0;
+            for (Instance instance : instances) {
+                currentWeight += instance.getWeight();
+                if (randomWeight <= currentWeight) {
+                    return instance;
+                }
+            }
+            return instances.get(instances.size() - 1);
+        }
+
+        private static Instance convertToNacosInstance(McpServerInfo serverInfo) {
+            Instance instance = new Instance();
+            instance.setIp(serverInfo.getIp());
+            instance.setPort(serverInfo.getPort());
+            instance.setWeight(serverInfo.getWeight() > 0 ? serverInfo.getWeight() : 1.0);
+            instance.setHealthy(true);
+            instance.setEnabled(true);
+            return instance;
+        }
+
+        private static String buildServerKey(Instance instance) {
+            return instance.getIp() + ":" + instance.getPort();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.pajk.mcpbridge.core.service;
+
+import com.pajk.mcpbridge.core.model.McpServerInfo;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 滑动窗口指标测试
+ */
+public class LoadBalancerMetricsTest {
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+
+    @Test
+    public void shouldForgetSamplesOutsideWindow() {
+        LoadBalancer.ServerMetrics metrics = new LoadBalancer.ServerMetrics(now::get);
+        for (int i = 0; i < 100; i++) {
+            metrics.recordResponseTime(2000);
+            metrics.recordError();
+        }
+        assertEquals(2000, metrics.getAverageResponseTime());
+        assertEquals(1.0, metrics.getErrorRate(), 0.0001);
+
+        now.addAndGet((LoadBalancer.ServerMetrics.WINDOW_SECONDS + 1) * 1000L);
+
+        assertEquals(0, metrics.getAverageResponseTime());
+        assertEquals(0.0, metrics.getErrorRate(), 0.0001);
+        assertEquals(0.0, metrics.getRequestsPerSecond(), 0.0001);
+        assertEquals(0.0, metrics.getEwmaResponseTime(), 0.0001);
+        // 累计统计保留
+        assertEquals(100, metrics.getTotalRequests());
+
+        metrics.recordResponseTime(10);
+        assertEquals(10, metrics.getAverageResponseTime());
+        assertEquals(10.0, metrics.getEwmaResponseTime(), 0.0001);
+    }
+
+    @Test
+    public void shouldComputePercentilesAndRateWithinWindow() {
+        LoadBalancer.ServerMetrics metrics = new LoadBalancer.ServerMetrics(now::get);
+        for (int second = 0; second < 5; second++) {
+            for (int i = 0; i < 20; i++) {
+                metrics.recordResponseTime(i < 19 ? 10 : 500);
+            }
+            metrics.recordError();
+            now.addAndGet(1000);
+        }
+
+        assertEquals(100, metrics.getWindowRequests());
+        assertEquals(10.0, metrics.getRequestsPerSecond(), 0.0001);
+        assertEquals(0.05, metrics.getErrorRate(), 0.0001);
+        long p50 = metrics.getP50ResponseTime();
+        long p99 = metrics.getP99ResponseTime();
+        assertTrue("p50=" + p50, p50 >= 10 && p50 <= 12);
+        assertTrue("p99=" + p99, p99 >= 500 && p99 <= 640);
+    }
+
+    @Test
+    public void histogramBucketsShouldBoundLatency() {
+        for (long latency : new long[]{0, 1, 3, 4, 7, 10, 99, 1000, 65_000, 3_000_000}) {
+            int index = LoadBalancer.ServerMetrics.histogramIndex(latency);
+            long upper = LoadBalancer.ServerMetrics.histogramUpperBound(index);
+            if (latency < 1L << 21) {
+                assertTrue(latency + " -> " + upper, upper >= latency && upper <= latency * 1.25 + 1);
+            }
+        }
+    }
+
+    @Test
+    public void fastestResponseShouldFollowRecentLatency() {
+        LoadBalancer loadBalancer = new LoadBalancer();
+        McpServerInfo slow = McpServerInfo.builder().name("svc").ip("10.0.0.1").port(8061).build();
+        McpServerInfo fast = McpServerInfo.builder().name("svc").ip("10.0.0.2").port(8061).build();
+        for (int i = 0; i < 10; i++) {
+            loadBalancer.recordResponseTime(slow.getIdentity(), 800);
+            loadBalancer.recordResponseTime(fast.getIdentity(), 20);
+        }
+
+        assertSame(fast, loadBalancer.selectServer(List.of(slow, fast), LoadBalancer.Strategy.FASTEST_RESPONSE));
+        assertSame(fast, loadBalancer.selectServer(List.of(slow, fast), LoadBalancer.Strategy.ADAPTIVE_LOAD));
+    }
+
+    @Test
+    public void fastestResponseShouldTreatStaleAndMissingMetricsAsNeutralPrior() {
+        LoadBalancer loadBalancer = new LoadBalancer(now::get);
+        McpServerInfo stale = McpServerInfo.builder().name("svc").ip("10.0.0.1").port(8061).build();
+        McpServerInfo fresh = McpServerInfo.builder().name("svc").ip("10.0.0.2").port(8061).build();
+        McpServerInfo slow = McpServerInfo.builder().name("svc").ip("10.0.0.3").port(8061).build();
+        McpServerInfo unknown = McpServerInfo.builder().name("svc").ip("10.0.0.4").port(8061).build();
+        loadBalancer.recordResponseTime(stale.getIdentity(), 5);
+        now.addAndGet((LoadBalancer.ServerMetrics.WINDOW_SECONDS + 1) * 1000L);
+        loadBalancer.recordResponseTime(fresh.getIdentity(), 50);
+        loadBalancer.recordResponseTime(slow.getIdentity(), 200);
+
+        // 过期实例不再因 EWMA 归零而被优先选中，与无指标实例一样按先验（此处为 125ms 中位数）计
+        assertSame(fresh, loadBalancer.selectServer(List.of(stale, unknown, slow, fresh), LoadBalancer.Strategy.FASTEST_RESPONSE));
+        // 无指标实例不再因 Double.MAX_VALUE 永远不被选中
+        assertSame(unknown, loadBalancer.selectServer(List.of(unknown, slow), LoadBalancer.Strategy.FASTEST_RESPONSE));
+
+        // 两者都只有先验时与新实例打平，按候选顺序选择
+        assertSame(unknown, loadBalancer.selectServer(List.of(unknown, stale), LoadBalancer.Strategy.FASTEST_RESPONSE));
+    }
+}
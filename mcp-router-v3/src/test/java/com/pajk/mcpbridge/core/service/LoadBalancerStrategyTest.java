@@ -0,0 +1,169 @@
+package com.pajk.mcpbridge.core.service;
+
+import com.pajk.mcpbridge.core.config.McpRoutingProperties;
+import com.pajk.mcpbridge.core.model.McpServerInfo;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 随机两选一（P2C）与峰值 EWMA 策略测试
+ */
+public class LoadBalancerStrategyTest {
+
+    private final Logger loadBalancerLogger = (Logger) LoggerFactory.getLogger(LoadBalancer.class);
+    private Level previousLevel;
+
+    @Before
+    public void setUp() {
+        // 同一 JVM 中先启动的 Spring 上下文会把日志级别调到 DEBUG，分配量统计需排除调试日志
+        previousLevel = loadBalancerLogger.getLevel();
+        loadBalancerLogger.setLevel(Level.INFO);
+    }
+
+    @After
+    public void tearDown() {
+        loadBalancerLogger.setLevel(previousLevel);
+    }
+
+    @Test
+    public void p2cShouldAvoidBusyServer() {
+        LoadBalancer loadBalancer = new LoadBalancer();
+        McpServerInfo busy = server("10.0.0.1");
+        McpServerInfo idle = server("10.0.0.2");
+        List<McpServerInfo> servers = List.of(busy, idle);
+        for (int i = 0; i < 20; i++) {
+            loadBalancer.selectServer(List.of(busy), LoadBalancer.Strategy.ROUND_ROBIN);
+        }
+
+        // 两个候选时 P2C 总是比较二者，应始终选中空闲实例
+        for (int i = 0; i < 10; i++) {
+            McpServerInfo selected = loadBalancer.selectServer(servers, LoadBalancer.Strategy.P2C_LEAST_LOADED);
+            assertSame(idle, selected);
+            loadBalancer.decrementConnectionCount(selected.getIdentity());
+        }
+    }
+
+    @Test
+    public void p2cShouldCostMissingAndStaleMetricsWithNeutralPrior() {
+        AtomicLong now = new AtomicLong(1_700_000_000_000L);
+        LoadBalancer loadBalancer = new LoadBalancer(now::get);
+        McpServerInfo warm = server("10.0.0.1");
+        McpServerInfo cold = server("10.0.0.2");
+        McpServerInfo idled = server("10.0.0.3");
+        loadBalancer.recordResponseTime(idled.getIdentity(), 100);
+        now.addAndGet((LoadBalancer.ServerMetrics.WINDOW_SECONDS + 1) * 1000L);
+        for (int i = 0; i < 20; i++) {
+            loadBalancer.recordResponseTime(warm.getIdentity(), 100);
+        }
+        // 无指标或空闲过期的实例各有 1 个在途请求，按先验延迟计后代价高于空闲的已知实例，不再按 1ms 被优先选中
+        loadBalancer.selectServer(List.of(cold), LoadBalancer.Strategy.ROUND_ROBIN);
+        loadBalancer.selectServer(List.of(idled), LoadBalancer.Strategy.ROUND_ROBIN);
+
+        for (LoadBalancer.Strategy strategy : List.of(LoadBalancer.Strategy.P2C_LEAST_LOADED, LoadBalancer.Strategy.PEAK_EWMA)) {
+            for (McpServerInfo other : List.of(cold, idled)) {
+                McpServerInfo selected = loadBalancer.selectServer(List.of(other, warm), strategy);
+                assertSame(strategy + " vs " + other.getIp(), warm, selected);
+                loadBalancer.decrementConnectionCount(selected.getIdentity());
+            }
+        }
+    }
+
+    @Test
+    public void peakEwmaShouldReactToLatencySpikeAndDecay() {
+        AtomicLong now = new AtomicLong(1_700_000_000_000L);
+        LoadBalancer.ServerMetrics metrics = new LoadBalancer.ServerMetrics(now::get);
+        for (int i = 0; i < 50; i++) {
+            metrics.recordResponseTime(10);
+        }
+        assertEquals(10.0, metrics.getPeakEwmaResponseTime(), 0.5);
+
+        // 峰值立即生效
+        metrics.recordResponseTime(1000);
+        assertEquals(1000.0, metrics.getPeakEwmaResponseTime(), 0.001);
+
+        // 之后随时间指数衰减
+        now.addAndGet(10_000);
+        double decayed = metrics.getPeakEwmaResponseTime();
+        assertTrue("decayed=" + decayed, decayed > 300 && decayed < 400);
+        metrics.recordResponseTime(10);
+        assertTrue(metrics.getPeakEwmaResponseTime() < 400);
+    }
+
+    @Test
+    public void peakEwmaShouldPreferRecentlyFastServer() {
+        LoadBalancer loadBalancer = new LoadBalancer();
+        McpServerInfo spiky = server("10.0.0.1");
+        McpServerInfo steady = server("10.0.0.2");
+        for (int i = 0; i < 20; i++) {
+            loadBalancer.recordResponseTime(steady.getIdentity(), 50);
+            loadBalancer.recordResponseTime(spiky.getIdentity(), 20);
+        }
+        loadBalancer.recordResponseTime(spiky.getIdentity(), 2000);
+
+        McpServerInfo selected = loadBalancer.selectServer(List.of(spiky, steady), LoadBalancer.Strategy.PEAK_EWMA);
+        assertSame(steady, selected);
+    }
+
+    @Test
+    public void p2cSelectionShouldNotAllocate() {
+        LoadBalancer loadBalancer = new LoadBalancer();
+        List<McpServerInfo> servers = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            servers.add(server("10.0.1." + i));
+        }
+        for (McpServerInfo server : servers) {
+            loadBalancer.recordResponseTime(server.getIdentity(), 5);
+        }
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < 50_000; i++) {
+            route(loadBalancer, servers, i);
+        }
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        int rounds = 200_000;
+        for (int i = 0; i < rounds; i++) {
+            route(loadBalancer, servers, i);
+        }
+        double bytesPerRoute = (threadBean.getThreadAllocatedBytes(threadId) - before) / (double) rounds;
+        System.out.printf("P2C/PEAK_EWMA allocation per route: %.2f bytes%n", bytesPerRoute);
+        // 单独运行时为 0；与 Spring 上下文测试同 JVM 时 JIT 逃逸分析可能失效（实测约 40 字节），
+        // 留出两个小对象的余量，仍远小于复制 64 个候选实例的开销
+        assertTrue("bytesPerRoute=" + bytesPerRoute, bytesPerRoute <= 64.0);
+    }
+
+    @Test
+    public void routingPropertiesShouldResolvePerServiceStrategy() {
+        McpRoutingProperties properties = new McpRoutingProperties();
+        properties.setStrategies(Map.of("mcp-server-v6", LoadBalancer.Strategy.PEAK_EWMA));
+
+        assertEquals(LoadBalancer.Strategy.PEAK_EWMA, properties.resolveStrategy("mcp-server-v6"));
+        assertEquals(LoadBalancer.Strategy.WEIGHTED_ROUND_ROBIN, properties.resolveStrategy("other"));
+        assertEquals(LoadBalancer.Strategy.WEIGHTED_ROUND_ROBIN, properties.resolveStrategy(null));
+    }
+
+    private static void route(LoadBalancer loadBalancer, List<McpServerInfo> servers, int round) {
+        LoadBalancer.Strategy strategy = (round & 1) == 0
+                ? LoadBalancer.Strategy.P2C_LEAST_LOADED : LoadBalancer.Strategy.PEAK_EWMA;
+        McpServerInfo selected = loadBalancer.selectServer(servers, strategy);
+        loadBalancer.decrementConnectionCount(selected.getIdentity());
+    }
+
+    private static McpServerInfo server(String ip) {
+        return McpServerInfo.builder().name("mcp-server-v6").ip(ip).port(8061).weight(1.0).healthy(true).build();
+    }
+}
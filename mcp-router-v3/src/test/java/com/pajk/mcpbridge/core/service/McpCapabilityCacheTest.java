@@ -0,0 +1,57 @@
+package com.pajk.mcpbridge.core.service;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 能力列表缓存测试
+ */
+public class McpCapabilityCacheTest {
+
+    @Test
+    public void shouldHitWhileVersionUnchanged() {
+        McpCapabilityCache cache = new McpCapabilityCache(16, Duration.ofMinutes(5));
+        cache.put("svc:10.0.0.1:8061", "md5-1", McpCapabilityCache.Kind.TOOLS, "tools-v1");
+
+        assertEquals("tools-v1", cache.get("svc:10.0.0.1:8061", "md5-1", McpCapabilityCache.Kind.TOOLS));
+        assertNull(cache.get("svc:10.0.0.1:8061", "md5-1", McpCapabilityCache.Kind.PROMPTS));
+    }
+
+    @Test
+    public void shouldMissWhenMd5Changes() {
+        McpCapabilityCache cache = new McpCapabilityCache(16, Duration.ofMinutes(5));
+        cache.put("svc:10.0.0.1:8061", "md5-1", McpCapabilityCache.Kind.TOOLS, "tools-v1");
+
+        assertNull(cache.get("svc:10.0.0.1:8061", "md5-2", McpCapabilityCache.Kind.TOOLS));
+        // 旧版本条目已被移除
+        assertNull(cache.get("svc:10.0.0.1:8061", "md5-1", McpCapabilityCache.Kind.TOOLS));
+    }
+
+    @Test
+    public void shouldInvalidateOnListChanged() {
+        McpCapabilityCache cache = new McpCapabilityCache(16, Duration.ofMinutes(5));
+        cache.put("svc:10.0.0.1:8061", null, McpCapabilityCache.Kind.TOOLS, "tools");
+        cache.put("svc:10.0.0.1:8061", null, McpCapabilityCache.Kind.RESOURCES, "resources");
+
+        cache.invalidate("svc:10.0.0.1:8061", McpCapabilityCache.Kind.TOOLS);
+        assertNull(cache.get("svc:10.0.0.1:8061", null, McpCapabilityCache.Kind.TOOLS));
+        assertEquals("resources", cache.get("svc:10.0.0.1:8061", null, McpCapabilityCache.Kind.RESOURCES));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsed() {
+        McpCapabilityCache cache = new McpCapabilityCache(2, Duration.ofMinutes(5));
+        cache.put("a", null, McpCapabilityCache.Kind.TOOLS, "a");
+        cache.put("b", null, McpCapabilityCache.Kind.TOOLS, "b");
+        cache.get("a", null, McpCapabilityCache.Kind.TOOLS);
+        cache.put("c", null, McpCapabilityCache.Kind.TOOLS, "c");
+
+        assertEquals("a", cache.get("a", null, McpCapabilityCache.Kind.TOOLS));
+        assertNull(cache.get("b", null, McpCapabilityCache.Kind.TOOLS));
+        assertEquals(1L, cache.getStats().get("evictions"));
+    }
+}
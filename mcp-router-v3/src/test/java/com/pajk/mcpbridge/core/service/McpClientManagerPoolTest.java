@@ -0,0 +1,231 @@
+package com.pajk.mcpbridge.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pajk.mcpbridge.core.config.McpConnectionPoolProperties;
+import com.pajk.mcpbridge.core.model.McpServerInfo;
+import io.modelcontextprotocol.client.McpAsyncClient;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 多连接后端连接池测试：最小连接预热、按在途请求扩容与原子选择占用、全局上限、下线回收
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class McpClientManagerPoolTest {
+
+    @Mock
+    private WebClient.Builder webClientBuilder;
+
+    private McpConnectionPoolProperties poolProperties;
+    private McpClientManager clientManager;
+    private final List<McpAsyncClient> createdClients = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        poolProperties = new McpConnectionPoolProperties();
+        poolProperties.setMinPerServer(1);
+        poolProperties.setMaxPerServer(3);
+        poolProperties.setMaxInFlightPerConnection(1);
+        clientManager = spy(new McpClientManager(webClientBuilder, new ObjectMapper(), poolProperties));
+        doAnswer(invocation -> {
+            McpAsyncClient client = mock(McpAsyncClient.class);
+            // 请求一直挂起，用于保持在途计数
+            lenient().when(client.callTool(any())).thenReturn(Mono.never());
+            createdClients.add(client);
+            return Mono.just(client);
+        }).when(clientManager).createNewConnection(any(), any());
+    }
+
+    @Test
+    public void shouldWarmUpToMinimumConnections() {
+        poolProperties.setMinPerServer(2);
+
+        clientManager.getOrCreateMcpClient(server("svc-a", 8061)).block(Duration.ofSeconds(1));
+
+        assertEquals(2, createdClients.size());
+        assertEquals(2, clientManager.getPoolStats().get("active_connections"));
+    }
+
+    @Test
+    public void shouldGrowAndSelectLeastInFlightConnection() {
+        McpServerInfo server = server("svc-a", 8061);
+
+        clientManager.callTool(server, "echo", Map.of()).subscribe();
+        assertEquals(1, createdClients.size());
+
+        // 唯一连接已达在途上限：后台扩容，新连接在途为 0 被本次请求占用；占用后所有连接都繁忙，继续扩容
+        clientManager.callTool(server, "echo", Map.of()).subscribe();
+        verify(createdClients.get(1)).callTool(any());
+        assertEquals(3, createdClients.size());
+
+        McpAsyncClient selected = clientManager.getOrCreateMcpClient(server).block(Duration.ofSeconds(1));
+        assertSame(createdClients.get(2), selected);
+
+        Map<String, Object> stats = clientManager.getPoolStats();
+        assertEquals(2, stats.get("in_flight_requests"));
+        assertEquals(1, stats.get("backends"));
+    }
+
+    @Test
+    public void burstShouldReserveDistinctConnections() {
+        poolProperties.setMinPerServer(3);
+        McpServerInfo server = server("svc-a", 8061);
+        clientManager.warmUp(server);
+        assertEquals(3, createdClients.size());
+
+        // 先组装再同时订阅：选择与占用在订阅时原子完成，突发请求不会都落在同一个连接上
+        Set<McpAsyncClient> selected = ConcurrentHashMap.newKeySet();
+        List<Mono<Object>> calls = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            calls.add(clientManager.withClient(server, client -> {
+                selected.add(client);
+                return Mono.never();
+            }));
+        }
+        calls.forEach(Mono::subscribe);
+
+        assertEquals(3, selected.size());
+        assertEquals(3, clientManager.getPoolStats().get("in_flight_requests"));
+    }
+
+    @Test
+    public void withClientShouldCountInFlightUntilCallCompletes() {
+        McpServerInfo server = server("svc-a", 8061);
+        Sinks.One<Boolean> result = Sinks.one();
+
+        clientManager.withClient(server, client -> result.asMono()).subscribe();
+        assertEquals(1, createdClients.size());
+        assertEquals(1, clientManager.getPoolStats().get("in_flight_requests"));
+
+        result.tryEmitValue(true);
+        assertEquals(0, clientManager.getPoolStats().get("in_flight_requests"));
+    }
+
+    @Test
+    public void cachedToolsListShouldNotAcquireConnection() {
+        McpServerInfo server = server("svc-a", 8061);
+        McpSchema.ListToolsResult tools = new McpSchema.ListToolsResult(List.of(), null);
+        clientManager.getOrCreateMcpClient(server).block(Duration.ofSeconds(1));
+        lenient().when(createdClients.get(0).listTools()).thenReturn(Mono.just(tools));
+        assertSame(tools, clientManager.listTools(server).block(Duration.ofSeconds(1)));
+
+        Object requests = clientManager.getPoolStats().get("total_requests");
+        assertSame(tools, clientManager.listTools(server).block(Duration.ofSeconds(1)));
+        // 缓存命中直接返回，不经过连接池
+        assertEquals(requests, clientManager.getPoolStats().get("total_requests"));
+    }
+
+    @Test
+    public void shouldNotExceedMaxPerServer() {
+        McpServerInfo server = server("svc-a", 8061);
+
+        for (int i = 0; i < 10; i++) {
+            clientManager.callTool(server, "echo", Map.of()).subscribe();
+        }
+
+        assertEquals(3, createdClients.size());
+        assertEquals(10, clientManager.getPoolStats().get("in_flight_requests"));
+    }
+
+    @Test
+    public void shouldRemoveOnlyFailedConnection() {
+        poolProperties.setMinPerServer(2);
+        McpServerInfo server = server("svc-a", 8061);
+        McpAsyncClient first = clientManager.getOrCreateMcpClient(server).block(Duration.ofSeconds(1));
+        lenient().when(first.callTool(any())).thenReturn(Mono.error(new IllegalStateException("broken pipe")));
+
+        try {
+            clientManager.callTool(server, "echo", Map.of()).block(Duration.ofSeconds(1));
+            fail("expected tool call failure");
+        } catch (RuntimeException expected) {
+            assertTrue(expected.getMessage().contains("broken pipe"));
+        }
+
+        Map<String, Object> stats = clientManager.getPoolStats();
+        assertEquals(1L, stats.get("total_closed"));
+        // 低于最小连接数时不会立即补齐，下次请求触发扩容
+        McpAsyncClient next = clientManager.getOrCreateMcpClient(server).block(Duration.ofSeconds(1));
+        assertNotSame(first, next);
+    }
+
+    @Test
+    public void shouldRejectNewBackendWhenGlobalCapReached() {
+        poolProperties.setMaxTotal(1);
+        clientManager.getOrCreateMcpClient(server("svc-a", 8061)).block(Duration.ofSeconds(1));
+
+        try {
+            clientManager.getOrCreateMcpClient(server("svc-b", 8062)).block(Duration.ofSeconds(1));
+            fail("expected pool exhaustion");
+        } catch (RuntimeException expected) {
+            assertEquals("Connection pool exhausted", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void shouldPreWarmInBackgroundWithoutRequest() {
+        poolProperties.setMinPerServer(2);
+
+        clientManager.warmUp(server("svc-a", 8061));
+        assertEquals(2, createdClients.size());
+
+        // 已满足最小连接数，重复预热为空操作
+        clientManager.warmUp(server("svc-a", 8061));
+        assertEquals(2, createdClients.size());
+        assertEquals(0L, clientManager.getPoolStats().get("total_requests"));
+    }
+
+    @Test
+    public void shouldDrainAfterInFlightRequestsComplete() throws Exception {
+        poolProperties.setDrainTimeout(Duration.ofSeconds(5));
+        McpServerInfo server = server("svc-a", 8061);
+        McpAsyncClient client = clientManager.getOrCreateMcpClient(server).block(Duration.ofSeconds(1));
+        Sinks.One<McpSchema.CallToolResult> pending = Sinks.one();
+        lenient().when(client.callTool(any())).thenReturn(pending.asMono());
+        clientManager.callTool(server, "echo", Map.of()).subscribe(result -> { }, error -> { });
+
+        clientManager.drainConnections(server);
+
+        // 摘除后不再被选中，但在途请求完成前不关闭
+        assertEquals(0, clientManager.getPoolStats().get("active_connections"));
+        verify(client, never()).close();
+
+        pending.tryEmitValue(new McpSchema.CallToolResult(List.of(new McpSchema.TextContent("ok")), false));
+        verify(client, timeout(2000)).close();
+    }
+
+    private McpServerInfo server(String name, int port) {
+        return McpServerInfo.builder()
+                .name(name)
+                .ip("127.0.0.1")
+                .port(port)
+                .build();
+    }
+}
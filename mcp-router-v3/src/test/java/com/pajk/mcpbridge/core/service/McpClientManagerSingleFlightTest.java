@@ -0,0 +1,122 @@
+package com.pajk.mcpbridge.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pajk.mcpbridge.core.config.McpConnectionPoolProperties;
+import com.pajk.mcpbridge.core.model.McpServerInfo;
+import io.modelcontextprotocol.client.McpAsyncClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+/**
+ * 连接建立 single-flight 测试：并发首次请求只建立一次连接
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class McpClientManagerSingleFlightTest {
+
+    private static final int CONCURRENT_CALLS = 500;
+
+    @Mock
+    private WebClient.Builder webClientBuilder;
+
+    @Mock
+    private McpAsyncClient stubClient;
+
+    private McpClientManager clientManager;
+    private final AtomicInteger connectAttempts = new AtomicInteger();
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        clientManager = spy(new McpClientManager(webClientBuilder, new ObjectMapper(), new McpConnectionPoolProperties()));
+        // 桩服务器：建连（SSE + initialize）耗时 100ms
+        doAnswer(invocation -> Mono.delay(Duration.ofMillis(100))
+                .doOnSubscribe(s -> connectAttempts.incrementAndGet())
+                .thenReturn(stubClient))
+                .when(clientManager).createNewConnection(any(), any());
+        executor = Executors.newFixedThreadPool(64);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldCoalesceConcurrentFirstCalls() throws Exception {
+        McpServerInfo server = McpServerInfo.builder()
+                .name("stub-server")
+                .ip("127.0.0.1")
+                .port(8061)
+                .build();
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<McpAsyncClient>> futures = new ArrayList<>(CONCURRENT_CALLS);
+        for (int i = 0; i < CONCURRENT_CALLS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return clientManager.getOrCreateMcpClient(server).block(Duration.ofSeconds(5));
+            }));
+        }
+        start.countDown();
+
+        for (Future<McpAsyncClient> future : futures) {
+            assertSame(stubClient, future.get(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, connectAttempts.get());
+        Map<String, Object> stats = clientManager.getPoolStats();
+        assertEquals(1L, stats.get("total_created"));
+        assertEquals(1, stats.get("active_connections"));
+        assertEquals(0, stats.get("pending_connections"));
+        // 除建连者外，其余请求要么合并到 pending 连接上，要么命中已建好的连接
+        long coalesced = (long) stats.get("coalesced_waiters");
+        long hits = (long) stats.get("cache_hits");
+        assertEquals(CONCURRENT_CALLS - 1, coalesced + hits);
+    }
+
+    @Test
+    public void shouldRetryAfterFailedEstablishment() {
+        McpServerInfo server = McpServerInfo.builder()
+                .name("flaky-server")
+                .ip("127.0.0.1")
+                .port(8062)
+                .build();
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> calls.incrementAndGet() == 1
+                ? Mono.error(new IllegalStateException("connect refused"))
+                : Mono.just(stubClient))
+                .when(clientManager).createNewConnection(any(), any());
+
+        try {
+            clientManager.getOrCreateMcpClient(server).block(Duration.ofSeconds(1));
+        } catch (IllegalStateException expected) {
+            // 首次建连失败不应被缓存
+        }
+
+        assertSame(stubClient, clientManager.getOrCreateMcpClient(server).block(Duration.ofSeconds(1)));
+        assertEquals(2, calls.get());
+    }
+}
@@ -0,0 +1,120 @@
+package com.pajk.mcpbridge.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pajk.mcpbridge.core.config.McpRoutingProperties;
+import com.pajk.mcpbridge.core.model.McpMessage;
+import com.pajk.mcpbridge.core.model.McpServerInfo;
+import com.pajk.mcpbridge.core.model.RawJson;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 透传客户端测试：请求只改写 id 且 params 字节原样转发，响应字节原样返回并还原客户端 id
+ */
+public class McpPassthroughClientTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final McpServerInfo server = McpServerInfo.builder()
+            .name("mcp-server-v6").ip("10.0.0.1").port(8061).weight(1.0).healthy(true).build();
+
+    @Test
+    public void shouldForwardRawParamsAndReturnBackendBytesWithClientId() throws Exception {
+        String params = "{\"name\":\"getPersonById\", \"arguments\":{\"id\":5,\"note\":\"中文\"}}";
+        String result = "{\"content\":[{\"type\":\"text\",\"text\":\"{\\\"id\\\":5}\"}],\"isError\":false}";
+        AtomicReference<String> sentBody = new AtomicReference<>();
+        AtomicReference<String> sentUri = new AtomicReference<>();
+        WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> {
+            sentUri.set(request.url().toString());
+            MockClientHttpRequest captured = new MockClientHttpRequest(request.method(), request.url());
+            return request.writeTo(captured, ExchangeStrategies.withDefaults())
+                    .then(Mono.defer(captured::getBodyAsString))
+                    .map(body -> {
+                        sentBody.set(body);
+                        return ClientResponse.create(HttpStatus.OK)
+                                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .body("{\"jsonrpc\":\"2.0\", \"id\" : \"route-1\",\"result\":" + result + "}")
+                                .build();
+                    });
+        });
+        McpPassthroughClient client = new McpPassthroughClient(builder, passthroughProperties());
+
+        McpMessage request = McpMessage.builder().id("7").jsonrpc("2.0").method("tools/call")
+                .rawParams(params.getBytes(StandardCharsets.UTF_8)).build();
+        McpMessage response = client.forward(server, request, "route-1", "session-1", Duration.ofSeconds(5))
+                .block(Duration.ofSeconds(5));
+
+        assertEquals("http://10.0.0.1:8061/mcp/message?sessionId=session-1", sentUri.get());
+        assertEquals("{\"jsonrpc\":\"2.0\",\"id\":\"route-1\",\"method\":\"tools/call\",\"params\":" + params + "}",
+                sentBody.get());
+        assertEquals("{\"jsonrpc\":\"2.0\", \"id\" : \"7\",\"result\":" + result + "}",
+                new String(response.getRawResponse(), StandardCharsets.UTF_8));
+        assertEquals("7", response.getId());
+        assertNull(response.getError());
+        assertTrue(response.getResult() instanceof RawJson);
+        assertEquals(result, response.getResult().toString());
+        // RESTful 接口序列化 McpMessage 时 result 原样写出
+        Map<?, ?> serialized = objectMapper.readValue(objectMapper.writeValueAsString(response), Map.class);
+        assertEquals(objectMapper.readValue(result, Map.class), serialized.get("result"));
+    }
+
+    @Test
+    public void shouldDecodeErrorsAndRejectForeignIds() throws Exception {
+        McpPassthroughClient client = new McpPassthroughClient(WebClient.builder(), passthroughProperties());
+        McpMessage request = McpMessage.builder().id("a\"b").jsonrpc("2.0").method("tools/call").build();
+
+        McpMessage error = client.decodeResponse(
+                "{\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32601,\"message\":\"Unknown tool\"},\"id\":\"r\"}"
+                        .getBytes(StandardCharsets.UTF_8), "r", request);
+        assertEquals(-32601, error.getError().getCode());
+        assertNull(error.getResult());
+        Map<?, ?> raw = objectMapper.readValue(error.getRawResponse(), Map.class);
+        assertEquals("a\"b", raw.get("id"));
+
+        try {
+            client.decodeResponse("{\"jsonrpc\":\"2.0\",\"id\":\"other\",\"result\":{}}"
+                    .getBytes(StandardCharsets.UTF_8), "r", request);
+            fail("foreign id should be rejected");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("mismatch"));
+        }
+    }
+
+    @Test
+    public void passthroughShouldOnlyApplyToConfiguredServicesAndMethods() {
+        McpRoutingProperties properties = new McpRoutingProperties();
+        McpPassthroughClient client = new McpPassthroughClient(WebClient.builder(), properties);
+        assertFalse(client.supports(server, "tools/call"));
+
+        properties.getPassthrough().setEnabled(true);
+        assertTrue(client.supports(server, "tools/call"));
+        assertFalse("list methods keep the capability cache", client.supports(server, "tools/list"));
+
+        properties.getPassthrough().setServices(java.util.Set.of("other-service"));
+        assertFalse(client.supports(server, "tools/call"));
+    }
+
+    private McpRoutingProperties passthroughProperties() {
+        McpRoutingProperties properties = new McpRoutingProperties();
+        properties.getPassthrough().setEnabled(true);
+        return properties;
+    }
+}
@@ -0,0 +1,98 @@
+package com.pajk.mcpbridge.core.service;
+
+import com.pajk.mcpbridge.core.config.McpCircuitBreakerProperties;
+import com.pajk.mcpbridge.core.config.McpRoutingProperties;
+import com.pajk.mcpbridge.core.config.NacosMcpRegistryConfig;
+import com.pajk.mcpbridge.core.model.McpMessage;
+import com.pajk.mcpbridge.core.model.McpServerInfo;
+import com.pajk.mcpbridge.core.registry.McpServerRegistry;
+import com.pajk.mcpbridge.core.registry.McpToolIndex;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 实例熔断测试：只有传输、连接与超时错误计为失败，工具返回 isError 不会打开熔断
+ */
+public class McpRouterServiceCircuitBreakerTest {
+
+    private final McpServerInfo server = McpServerInfo.builder()
+            .name("mcp-server-v6").ip("10.0.0.1").port(8061).weight(1.0).healthy(true).build();
+
+    private McpClientManager mcpClientManager;
+    private McpServerRegistry serverRegistry;
+    private McpRoutingProperties routingProperties;
+    private CircuitBreakerService circuitBreakerService;
+
+    @Before
+    public void setUp() {
+        mcpClientManager = mock(McpClientManager.class);
+        serverRegistry = mock(McpServerRegistry.class);
+        when(serverRegistry.getAllHealthyServers(anyString(), anyList())).thenReturn(Flux.just(server));
+        routingProperties = new McpRoutingProperties();
+        circuitBreakerService = new CircuitBreakerService(new McpCircuitBreakerProperties());
+    }
+
+    @Test
+    public void toolErrorResultShouldNotOpenCircuit() {
+        when(mcpClientManager.callTool(any(), anyString(), anyMap()))
+                .thenReturn(Mono.error(new McpClientManager.ToolExecutionException("Tool execution error: bad id")));
+        McpRouterService routerService = newRouterService();
+
+        for (int i = 0; i < 20; i++) {
+            McpMessage response = routerService.routeRequest("mcp-server-v6", toolCall(),
+                    Duration.ofSeconds(5), Map.of()).block(Duration.ofSeconds(5));
+            assertNotNull(response);
+            assertNotNull(response.getError());
+        }
+        assertTrue(circuitBreakerService.isInstanceAvailable(server.getIdentity()));
+    }
+
+    @Test
+    public void transportErrorsShouldOpenCircuit() {
+        when(mcpClientManager.callTool(any(), anyString(), anyMap()))
+                .thenReturn(Mono.error(new IllegalStateException("connection reset")));
+        McpRouterService routerService = newRouterService();
+
+        for (int i = 0; i < new McpCircuitBreakerProperties().getFailureThreshold(); i++) {
+            routerService.routeRequest("mcp-server-v6", toolCall(), Duration.ofSeconds(5), Map.of())
+                    .block(Duration.ofSeconds(5));
+        }
+        assertFalse(circuitBreakerService.isInstanceAvailable(server.getIdentity()));
+    }
+
+    private McpRouterService newRouterService() {
+        return new McpRouterService(
+                serverRegistry,
+                mcpClientManager,
+                mock(HealthCheckService.class),
+                new LoadBalancer(),
+                mock(NacosMcpRegistryConfig.McpRegistryProperties.class),
+                mock(McpSessionService.class),
+                mock(McpToolIndex.class),
+                routingProperties,
+                circuitBreakerService,
+                new HedgeBudget(routingProperties),
+                new McpPassthroughClient(WebClient.builder(), routingProperties));
+    }
+
+    private static McpMessage toolCall() {
+        return McpMessage.builder().id("1").jsonrpc("2.0").method("tools/call")
+                .params(Map.of("name", "getPersonById", "arguments", Map.of("id", 1))).build();
+    }
+}
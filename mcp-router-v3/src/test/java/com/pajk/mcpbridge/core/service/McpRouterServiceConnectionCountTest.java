@@ -0,0 +1,127 @@
+package com.pajk.mcpbridge.core.service;
+
+import com.pajk.mcpbridge.core.config.McpCircuitBreakerProperties;
+import com.pajk.mcpbridge.core.config.McpRoutingProperties;
+import com.pajk.mcpbridge.core.config.NacosMcpRegistryConfig;
+import com.pajk.mcpbridge.core.model.McpMessage;
+import com.pajk.mcpbridge.core.model.McpServerInfo;
+import com.pajk.mcpbridge.core.registry.McpServerRegistry;
+import com.pajk.mcpbridge.core.registry.McpToolIndex;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 连接计数测试：类型化调用与透传调用成功、失败或超时后连接计数都回到 0（只减少一次）
+ */
+public class McpRouterServiceConnectionCountTest {
+
+    private final McpServerInfo server = McpServerInfo.builder()
+            .name("mcp-server-v6").ip("10.0.0.1").port(8061).weight(1.0).healthy(true).build();
+
+    private McpClientManager mcpClientManager;
+    private McpServerRegistry serverRegistry;
+    private McpRoutingProperties routingProperties;
+    private LoadBalancer loadBalancer;
+    private McpPassthroughClient passthroughClient;
+
+    @Before
+    public void setUp() {
+        mcpClientManager = mock(McpClientManager.class);
+        serverRegistry = mock(McpServerRegistry.class);
+        when(serverRegistry.getAllHealthyServers(anyString(), anyList())).thenReturn(Flux.just(server));
+        routingProperties = new McpRoutingProperties();
+        loadBalancer = new LoadBalancer();
+        passthroughClient = new McpPassthroughClient(WebClient.builder(), routingProperties);
+    }
+
+    @Test
+    public void connectionCountShouldReturnToZeroAfterTimeout() throws Exception {
+        when(mcpClientManager.callTool(any(), anyString(), anyMap())).thenReturn(Mono.never());
+
+        McpMessage response = newRouterService().routeRequest("mcp-server-v6", toolCall(),
+                Duration.ofMillis(300), Map.of()).block(Duration.ofSeconds(5));
+
+        assertNotNull(response);
+        assertNotNull(response.getError());
+        assertConnectionCountReturnsToZero();
+    }
+
+    @Test
+    public void connectionCountShouldReturnToZeroAfterSuccessOrError() throws Exception {
+        when(mcpClientManager.callTool(any(), anyString(), anyMap()))
+                .thenReturn(Mono.just((Object) Map.of("content", "ok")))
+                .thenReturn(Mono.error(new IllegalStateException("boom")));
+        McpRouterService routerService = newRouterService();
+
+        routerService.routeRequest("mcp-server-v6", toolCall(), Duration.ofSeconds(5), Map.of())
+                .block(Duration.ofSeconds(5));
+        assertConnectionCountReturnsToZero();
+
+        routerService.routeRequest("mcp-server-v6", toolCall(), Duration.ofSeconds(5), Map.of())
+                .block(Duration.ofSeconds(5));
+        assertConnectionCountReturnsToZero();
+    }
+
+    @Test
+    public void passthroughConnectionCountShouldReturnToZeroAfterTimeout() throws Exception {
+        routingProperties.getPassthrough().setEnabled(true);
+        passthroughClient = new McpPassthroughClient(
+                WebClient.builder().exchangeFunction(request -> Mono.never()), routingProperties);
+
+        McpMessage response = newRouterService().routeRequest("mcp-server-v6", toolCall(),
+                Duration.ofMillis(300), Map.of()).block(Duration.ofSeconds(5));
+
+        assertNotNull(response);
+        assertNotNull(response.getError());
+        verify(mcpClientManager, never()).callTool(any(), anyString(), anyMap());
+        assertConnectionCountReturnsToZero();
+    }
+
+    /**
+     * doFinally 在终止信号传给下游之后执行，可能晚于 block() 返回，限时等待
+     */
+    private void assertConnectionCountReturnsToZero() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (loadBalancer.getConnectionCount(server.getIdentity()) != 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, loadBalancer.getConnectionCount(server.getIdentity()));
+    }
+
+    private McpRouterService newRouterService() {
+        return new McpRouterService(
+                serverRegistry,
+                mcpClientManager,
+                mock(HealthCheckService.class),
+                loadBalancer,
+                mock(NacosMcpRegistryConfig.McpRegistryProperties.class),
+                mock(McpSessionService.class),
+                mock(McpToolIndex.class),
+                routingProperties,
+                new CircuitBreakerService(new McpCircuitBreakerProperties()),
+                new HedgeBudget(routingProperties),
+                passthroughClient);
+    }
+
+    private static McpMessage toolCall() {
+        return McpMessage.builder().id("1").jsonrpc("2.0").method("tools/call")
+                .params(Map.of("name", "getPersonById", "arguments", Map.of("id", 1))).build();
+    }
+}
@@ -0,0 +1,154 @@
+package com.pajk.mcpbridge.core.service;
+
+import com.pajk.mcpbridge.core.config.McpCircuitBreakerProperties;
+import com.pajk.mcpbridge.core.config.McpRoutingProperties;
+import com.pajk.mcpbridge.core.config.NacosMcpRegistryConfig;
+import com.pajk.mcpbridge.core.model.McpMessage;
+import com.pajk.mcpbridge.core.model.McpServerInfo;
+import com.pajk.mcpbridge.core.registry.McpServerRegistry;
+import com.pajk.mcpbridge.core.registry.McpToolIndex;
+import com.pajk.mcpbridge.persistence.entity.RoutingLog;
+import com.pajk.mcpbridge.persistence.service.PersistenceEventPublisher;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 请求对冲测试：主实例卡顿时由另一实例应答并取消主请求，路由日志记录应答实例；预算耗尽时不对冲
+ */
+public class McpRouterServiceHedgingTest {
+
+    private final McpServerInfo slow = server("10.0.0.1");
+    private final McpServerInfo fast = server("10.0.0.2");
+    private final AtomicBoolean slowCancelled = new AtomicBoolean(false);
+
+    private McpClientManager mcpClientManager;
+    private McpServerRegistry serverRegistry;
+    private McpRoutingProperties routingProperties;
+    private PersistenceEventPublisher persistenceEventPublisher;
+
+    @Before
+    public void setUp() {
+        mcpClientManager = mock(McpClientManager.class);
+        serverRegistry = mock(McpServerRegistry.class);
+        when(mcpClientManager.listTools(eq(slow), any(Duration.class))).thenReturn(
+                Mono.delay(Duration.ofSeconds(3))
+                        .map(tick -> new McpSchema.ListToolsResult(List.of(), null))
+                        .doOnCancel(() -> slowCancelled.set(true)));
+        when(mcpClientManager.listTools(eq(fast), any(Duration.class))).thenReturn(
+                Mono.just(new McpSchema.ListToolsResult(List.of(), null)));
+        when(serverRegistry.getAllHealthyServers(anyString(), anyList())).thenReturn(Flux.just(slow, fast));
+
+        routingProperties = new McpRoutingProperties();
+        // 轮询从第一个实例开始，保证主请求落在慢实例上
+        routingProperties.setDefaultStrategy(LoadBalancer.Strategy.ROUND_ROBIN);
+        routingProperties.getHedging().setEnabled(true);
+        routingProperties.getHedging().setDefaultDelay(Duration.ofMillis(50));
+        persistenceEventPublisher = mock(PersistenceEventPublisher.class);
+    }
+
+    @Test
+    public void shouldHedgeStalledReadToAnotherReplica() {
+        McpRouterService routerService = newRouterService();
+
+        long start = System.currentTimeMillis();
+        McpMessage response = routerService.routeRequest("mcp-server-v6", request("tools/list"),
+                Duration.ofSeconds(10), Map.of()).block(Duration.ofSeconds(5));
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertNotNull(response);
+        assertNull(response.getError());
+        assertTrue("elapsed=" + elapsed, elapsed < 2000);
+        assertTrue("loser should be cancelled", slowCancelled.get());
+        verify(mcpClientManager).listTools(eq(fast), any(Duration.class));
+        // 路由日志记录实际应答的对冲实例，并标记为一次重试
+        RoutingLog routingLog = publishedRoutingLog();
+        assertEquals("mcp-server-v6:10.0.0.2:8061", routingLog.getServerKey());
+        assertTrue(routingLog.getIsRetry());
+        assertEquals(Integer.valueOf(1), routingLog.getRetryCount());
+        // tools/list 先查能力缓存，只有未命中时 listTools 才从连接池取连接，路由层不预先建连
+        verify(mcpClientManager, never()).getOrCreateMcpClient(any());
+    }
+
+    @Test
+    public void shouldNotHedgeWhenBudgetExhausted() {
+        routingProperties.getHedging().setBudgetBurst(0);
+        routingProperties.getHedging().setBudgetRatio(0);
+        McpRouterService routerService = newRouterService();
+
+        McpMessage response = routerService.routeRequest("mcp-server-v6", request("tools/list"),
+                Duration.ofSeconds(10), Map.of()).block(Duration.ofSeconds(5));
+
+        assertNotNull(response);
+        assertNull(response.getError());
+        assertFalse(slowCancelled.get());
+        verify(mcpClientManager, never()).listTools(eq(fast), any(Duration.class));
+        RoutingLog routingLog = publishedRoutingLog();
+        assertEquals("mcp-server-v6:10.0.0.1:8061", routingLog.getServerKey());
+        assertFalse(routingLog.getIsRetry());
+    }
+
+    @Test
+    public void shouldNotHedgeNonIdempotentMethods() {
+        assertFalse(routingProperties.getHedging().isHedgeable("tools/call"));
+        assertTrue(routingProperties.getHedging().isHedgeable("resources/read"));
+        routingProperties.getHedging().setEnabled(false);
+        assertFalse(routingProperties.getHedging().isHedgeable("tools/list"));
+    }
+
+    private RoutingLog publishedRoutingLog() {
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(persistenceEventPublisher, timeout(2000)).publishRoutingLog(captor.capture());
+        return (RoutingLog) captor.getValue();
+    }
+
+    private McpRouterService newRouterService() {
+        McpRouterService routerService = new McpRouterService(
+                serverRegistry,
+                mcpClientManager,
+                mock(HealthCheckService.class),
+                new LoadBalancer(),
+                mock(NacosMcpRegistryConfig.McpRegistryProperties.class),
+                mock(McpSessionService.class),
+                mock(McpToolIndex.class),
+                routingProperties,
+                new CircuitBreakerService(new McpCircuitBreakerProperties()),
+                new HedgeBudget(routingProperties),
+                new McpPassthroughClient(WebClient.builder(), routingProperties));
+        ReflectionTestUtils.setField(routerService, "persistenceEventPublisher", persistenceEventPublisher);
+        return routerService;
+    }
+
+    private static McpMessage request(String method) {
+        return McpMessage.builder().id("1").jsonrpc("2.0").method(method).params(Map.of()).build();
+    }
+
+    private static McpServerInfo server(String ip) {
+        return McpServerInfo.builder().name("mcp-server-v6").ip(ip).port(8061).weight(1.0).healthy(true).build();
+    }
+}
@@ -0,0 +1,120 @@
+package com.pajk.mcpbridge.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pajk.mcpbridge.core.config.McpSessionProperties;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 会话桥接表测试：时间轮驱动的空闲过期、活跃会话续期、容量上限与 LRU 淘汰
+ */
+public class McpSessionBridgeServiceExpiryTest {
+
+    private final AtomicLong nanos = new AtomicLong(TimeUnit.HOURS.toNanos(5));
+    private McpSessionBridgeService bridgeService;
+
+    @Before
+    public void setUp() {
+        McpSessionProperties properties = new McpSessionProperties();
+        properties.getBridge().setMaxClientSessions(4);
+        properties.getBridge().setMaxServerSessions(16);
+        properties.getBridge().setServerSessionIdleTimeout(Duration.ofMinutes(10));
+        bridgeService = new McpSessionBridgeService(mock(WebClient.Builder.class), mock(McpServerService.class),
+                new ObjectMapper(), mock(McpSessionService.class), properties, nanos::get);
+    }
+
+    @Test
+    public void idleServerSessionShouldExpireAndActiveOneShouldBeRenewed() {
+        McpSessionBridgeService.ServerSession idle = addServerSession("idle");
+        McpSessionBridgeService.ServerSession busy = addServerSession("busy");
+
+        advance(Duration.ofMinutes(6));
+        busy.touch(nanos.get());
+        advance(Duration.ofMinutes(4).plusSeconds(2));
+
+        assertNull(bridgeService.getServerSession("idle"));
+        assertFalse(idle.isActive());
+        assertNotNull(bridgeService.getServerSession("busy"));
+
+        advance(Duration.ofMinutes(6));
+        assertNull(bridgeService.getServerSession("busy"));
+        assertEquals(2L, bridgeService.getStatistics().get("expiredServerSessions"));
+        assertEquals(0, bridgeService.getStatistics().get("pendingExpiryCount"));
+    }
+
+    @Test
+    public void disconnectedServerSessionShouldBeCleanedOnNextTick() {
+        registerClient("c1");
+        McpSessionBridgeService.ServerSession session = addServerSession("s1", "c1");
+        bridgeService.getClientSession("c1").setServerSessionId("s1");
+
+        session.setActive(false);
+        // 未到空闲超时，但到期检查时发现会话已断开
+        advance(Duration.ofMinutes(10).plusSeconds(2));
+
+        assertNull(bridgeService.getServerSession("s1"));
+        assertNull(bridgeService.getClientSession("c1").getServerSessionId());
+    }
+
+    @Test
+    public void tablesShouldBeBounded() {
+        List<McpSessionBridgeService.ServerSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            sessions.add(addServerSession("s" + i));
+        }
+        assertTrue(bridgeService.getServerSession("s99") != null);
+        int size = (int) bridgeService.getStatistics().get("serverSessionCount");
+        int capacity = (int) bridgeService.getStatistics().get("maxServerSessions");
+        assertTrue("size=" + size, size <= capacity);
+        long evicted = (long) bridgeService.getStatistics().get("evictedServerSessions");
+        assertEquals(100 - size, evicted);
+        // 被淘汰的会话断开后端连接
+        assertEquals(evicted, sessions.stream().filter(s -> !s.isActive()).count());
+
+        for (int i = 0; i < 10; i++) {
+            registerClient("c" + i);
+        }
+        assertEquals(4, bridgeService.getStatistics().get("clientSessionCount"));
+        assertEquals(6L, bridgeService.getStatistics().get("rejectedClientSessions"));
+    }
+
+    private McpSessionBridgeService.ServerSession addServerSession(String serverSessionId) {
+        return addServerSession(serverSessionId, "client-" + serverSessionId);
+    }
+
+    private McpSessionBridgeService.ServerSession addServerSession(String serverSessionId, String clientSessionId) {
+        McpSessionBridgeService.ServerSession session = new McpSessionBridgeService.ServerSession(
+                serverSessionId, clientSessionId, "mcp-server-v6", null, null, nanos.get());
+        bridgeService.addServerSession(session);
+        return session;
+    }
+
+    private void registerClient(String clientSessionId) {
+        bridgeService.registerClientSession(clientSessionId, "mcp-server-v6", Sinks.many().multicast().onBackpressureBuffer());
+    }
+
+    /**
+     * 按秒推进时钟并驱动时间轮，与生产环境的每秒调度一致
+     */
+    private void advance(Duration duration) {
+        for (long s = 0; s < duration.getSeconds(); s++) {
+            nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+            bridgeService.expireServerSessions();
+        }
+    }
+}
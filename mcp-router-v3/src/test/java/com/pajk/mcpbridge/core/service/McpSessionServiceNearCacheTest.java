@@ -0,0 +1,149 @@
+package com.pajk.mcpbridge.core.service;
+
+import com.pajk.mcpbridge.core.config.McpSessionProperties;
+import com.pajk.mcpbridge.core.session.SessionInstanceIdProvider;
+import com.pajk.mcpbridge.core.session.SessionMessageRelay;
+import com.pajk.mcpbridge.core.session.SessionMeta;
+import com.pajk.mcpbridge.core.session.SessionRedisRepository;
+import com.pajk.mcpbridge.core.transport.TransportType;
+import com.pajk.mcpbridge.persistence.mapper.RoutingLogMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatcher;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 会话近端缓存测试：本实例会话查询不访问 Redis，lastActive 合并写回
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class McpSessionServiceNearCacheTest {
+
+    @Mock
+    private SessionRedisRepository sessionRepository;
+    @Mock
+    private SessionInstanceIdProvider instanceIdProvider;
+    @Mock
+    private RoutingLogMapper routingLogMapper;
+    @Mock
+    private SessionMessageRelay messageRelay;
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private McpSessionService sessionService;
+
+    @Before
+    public void setUp() {
+        when(instanceIdProvider.getInstanceId()).thenReturn("router-1");
+        McpSessionProperties properties = new McpSessionProperties();
+        properties.setLastActiveFlushInterval(Duration.ofSeconds(5));
+        sessionService = new McpSessionService(sessionRepository, instanceIdProvider, routingLogMapper,
+                properties, messageRelay, now::get);
+    }
+
+    @Test
+    public void ownedSessionShouldBeServedLocally() {
+        sessionService.registerSessionService("s1", "mcp-server-v6", TransportType.STREAMABLE);
+
+        for (int i = 0; i < 100; i++) {
+            sessionService.touch("s1");
+            assertEquals("mcp-server-v6", sessionService.getServiceName("s1"));
+            assertEquals(TransportType.STREAMABLE, sessionService.getTransportType("s1"));
+        }
+
+        verify(sessionRepository, times(1)).saveSessionMeta(any());
+        verify(sessionRepository, never()).findSession(anyString());
+        verify(sessionRepository, never()).updateLastActive(anyString());
+        verify(sessionRepository, never()).updateLastActive(anyList());
+    }
+
+    @Test
+    public void touchesShouldBeCoalescedPerFlushInterval() {
+        sessionService.registerSessionService("s1", "mcp-server-v6", TransportType.SSE);
+
+        now.addAndGet(1_000);
+        sessionService.touch("s1");
+        sessionService.flushLastActive();
+        verify(sessionRepository, never()).updateLastActive(anyList());
+
+        now.addAndGet(4_000);
+        sessionService.touch("s1");
+        sessionService.touch("s1");
+        sessionService.flushLastActive();
+        sessionService.flushLastActive();
+        verify(sessionRepository, times(1)).updateLastActive(argThat(isBatchOf("s1")));
+
+        // 未再 touch 时不写回
+        now.addAndGet(10_000);
+        sessionService.flushLastActive();
+        verify(sessionRepository, times(1)).updateLastActive(argThat(isBatchOf("s1")));
+
+        // 关闭时强制写回剩余的脏数据
+        sessionService.touch("s1");
+        sessionService.flushAllLastActive();
+        verify(sessionRepository, times(2)).updateLastActive(argThat(isBatchOf("s1")));
+    }
+
+    @Test
+    public void foreignSessionShouldFallBackToRedis() {
+        SessionMeta meta = new SessionMeta("s2", "router-2", "mcp-server-v2", null, "SSE", LocalDateTime.now(), true);
+        when(sessionRepository.findSession("s2")).thenReturn(Optional.of(meta));
+
+        assertEquals("mcp-server-v2", sessionService.getServiceName("s2"));
+        sessionService.touch("s2");
+
+        verify(sessionRepository, times(1)).findSession("s2");
+        verify(sessionRepository, times(1)).updateLastActive("s2");
+    }
+
+    @Test
+    public void removedSessionShouldNotBeFlushed() {
+        sessionService.registerSessionService("s1", "mcp-server-v6", TransportType.SSE);
+        sessionService.touch("s1");
+        sessionService.removeSession("s1");
+
+        now.addAndGet(10_000);
+        sessionService.flushLastActive();
+
+        verify(sessionRepository, never()).updateLastActive(anyList());
+        verify(sessionRepository).removeSession("s1", "router-1");
+    }
+
+    @Test
+    public void heartbeatTouchesShouldBeBatched() {
+        sessionService.registerSessionService("s1", "mcp-server-v6", TransportType.SSE);
+        sessionService.registerSessionService("s3", "mcp-server-v6", TransportType.SSE);
+
+        // 本实例会话只置脏，其他实例的会话合并为一次批量写入
+        sessionService.touchAll(List.of("s1", "s3", "s4", "s5"));
+        verify(sessionRepository, times(1)).updateLastActive(argThat(isBatchOf("s4", "s5")));
+
+        now.addAndGet(10_000);
+        sessionService.flushLastActive();
+        verify(sessionRepository, times(1)).updateLastActive(argThat(isBatchOf("s1", "s3")));
+        verify(sessionRepository, never()).updateLastActive(anyString());
+    }
+
+    private static ArgumentMatcher<List<SessionRedisRepository.LastActiveUpdate>> isBatchOf(String... sessionIds) {
+        return updates -> updates != null && updates.stream()
+                .map(SessionRedisRepository.LastActiveUpdate::sessionId)
+                .collect(java.util.stream.Collectors.toSet())
+                .equals(java.util.Set.of(sessionIds));
+    }
+}
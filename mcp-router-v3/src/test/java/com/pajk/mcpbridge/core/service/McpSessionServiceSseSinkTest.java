@@ -0,0 +1,141 @@
+package com.pajk.mcpbridge.core.service;
+
+import com.pajk.mcpbridge.core.config.McpSessionProperties;
+import com.pajk.mcpbridge.core.session.SessionInstanceIdProvider;
+import com.pajk.mcpbridge.core.session.SessionMessageRelay;
+import com.pajk.mcpbridge.core.session.SessionMeta;
+import com.pajk.mcpbridge.core.session.SessionRedisRepository;
+import com.pajk.mcpbridge.core.session.SseEventSender;
+import com.pajk.mcpbridge.persistence.mapper.RoutingLogMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * SSE sink 等待测试：注册时立即唤醒等待者，超时返回空，会话移除时结束等待；其他在线实例的会话走转发发送端
+ */
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class McpSessionServiceSseSinkTest {
+
+    @Mock
+    private SessionRedisRepository sessionRepository;
+    @Mock
+    private SessionInstanceIdProvider instanceIdProvider;
+    @Mock
+    private RoutingLogMapper routingLogMapper;
+    @Mock
+    private SessionMessageRelay messageRelay;
+
+    private McpSessionService sessionService;
+
+    @Before
+    public void setUp() {
+        when(instanceIdProvider.getInstanceId()).thenReturn("router-1");
+        when(sessionRepository.findSession(anyString())).thenReturn(Optional.empty());
+        sessionService = new McpSessionService(sessionRepository, instanceIdProvider, routingLogMapper,
+                new McpSessionProperties(), messageRelay);
+    }
+
+    @Test
+    public void waitersShouldBeWokenWhenSinkIsRegistered() {
+        Sinks.Many<ServerSentEvent<String>> sink = Sinks.many().replay().all();
+        Mono<SseEventSender> first = sessionService.waitForSseSink("s1", Duration.ofSeconds(5));
+        Mono<SseEventSender> second = sessionService.waitForSseSink("s1", Duration.ofSeconds(5));
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> sessionService.registerSseSink("s1", sink))
+                .expectNextMatches(pair -> pair.getT1().deliver(event("a")).isSuccess()
+                        && pair.getT2().deliver(event("b")).isSuccess())
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+
+        // 已注册时直接返回
+        StepVerifier.create(sessionService.waitForSseSink("s1", Duration.ZERO))
+                .expectNextMatches(sender -> sender.deliver(event("c")).isSuccess())
+                .verifyComplete();
+
+        sink.tryEmitComplete();
+        StepVerifier.create(sink.asFlux().map(ServerSentEvent::data))
+                .expectNext("a", "b", "c")
+                .verifyComplete();
+    }
+
+    @Test
+    public void waitShouldEndEmptyOnTimeoutOrRemoval() {
+        StepVerifier.create(sessionService.waitForSseSink("missing", Duration.ZERO))
+                .verifyComplete();
+
+        StepVerifier.withVirtualTime(() -> sessionService.waitForSseSink("missing", Duration.ofMillis(500)))
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(500))
+                .verifyComplete();
+
+        StepVerifier.create(sessionService.waitForSseSink("s2", Duration.ofSeconds(5)))
+                .then(() -> sessionService.removeSession("s2"))
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void sessionOwnedByOtherInstanceShouldUseRelaySinkWithoutWaiting() {
+        SseEventSender relaySender = event -> Sinks.EmitResult.OK;
+        when(messageRelay.isEnabled()).thenReturn(true);
+        when(messageRelay.relaySender("remote", "router-2")).thenReturn(relaySender);
+        when(sessionRepository.findSession("remote")).thenReturn(Optional.of(
+                new SessionMeta("remote", "router-2", "mcp-server-v6", null, "SSE", LocalDateTime.now(), true)));
+        when(sessionRepository.isInstanceAlive("router-2")).thenReturn(true);
+
+        StepVerifier.create(sessionService.waitForSseSink("remote", Duration.ofSeconds(5)))
+                .expectNext(relaySender)
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+
+        // 其他实例转发来的事件投递到本地 sink
+        ArgumentCaptor<BiConsumer<String, ServerSentEvent<String>>> handler = ArgumentCaptor.forClass(BiConsumer.class);
+        verify(messageRelay).setInboundHandler(handler.capture());
+        Sinks.Many<ServerSentEvent<String>> local = Sinks.many().replay().all();
+        sessionService.registerSseSink("s1", local);
+        handler.getValue().accept("s1", ServerSentEvent.<String>builder().event("message").data("{}").build());
+        handler.getValue().accept("unknown", ServerSentEvent.<String>builder().event("message").data("{}").build());
+        local.tryEmitComplete();
+
+        StepVerifier.create(local.asFlux())
+                .expectNextMatches(event -> "message".equals(event.event()) && "{}".equals(event.data()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void sessionOwnedByOfflineInstanceShouldNotBeRelayed() {
+        when(messageRelay.isEnabled()).thenReturn(true);
+        when(sessionRepository.findSession("remote")).thenReturn(Optional.of(
+                new SessionMeta("remote", "router-2", "mcp-server-v6", null, "SSE", LocalDateTime.now(), true)));
+        when(sessionRepository.isInstanceAlive("router-2")).thenReturn(false);
+
+        StepVerifier.create(sessionService.waitForSseSink("remote", Duration.ZERO))
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+        verify(messageRelay, never()).relaySender(anyString(), anyString());
+    }
+
+    private static ServerSentEvent<String> event(String data) {
+        return ServerSentEvent.<String>builder().event("message").data(data).build();
+    }
+}
@@ -0,0 +1,118 @@
+package com.pajk.mcpbridge.core.service;
+
+import com.pajk.mcpbridge.core.config.McpSessionProperties;
+import com.pajk.mcpbridge.core.transport.SseFrameWriter;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Disposable;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 共享心跳轮测试：同一帧送达所有连接，活跃时间每次 tick 批量刷新一次，心跳与响应并发时响应不丢失
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SseHeartbeatWheelTest {
+
+    @Mock
+    private McpSessionService sessionService;
+
+    private SseHeartbeatWheel wheel;
+
+    @Before
+    public void setUp() {
+        wheel = new SseHeartbeatWheel(sessionService, new SseFrameWriter(new McpSessionProperties()));
+    }
+
+    @Test
+    public void sharedFrameShouldReachEveryConnection() {
+        List<List<ServerSentEvent<String>>> received = new ArrayList<>();
+        List<Disposable> connections = new ArrayList<>();
+        Set<String> sessionIds = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            Sinks.Many<ServerSentEvent<String>> sink = Sinks.many().multicast().onBackpressureBuffer();
+            List<ServerSentEvent<String>> events = new ArrayList<>();
+            connections.add(wheel.withHeartbeats("s" + i, sink.asFlux()).subscribe(events::add));
+            received.add(events);
+            sessionIds.add("s" + i);
+        }
+
+        assertEquals(10, wheel.beat());
+
+        for (List<ServerSentEvent<String>> events : received) {
+            assertEquals(1, events.size());
+            assertSame(SseHeartbeatWheel.HEARTBEAT_FRAME, events.get(0));
+        }
+        // 每次 tick 只批量刷新一次
+        verify(sessionService, times(1)).touchAll(argThat(ids -> new HashSet<>(ids).equals(sessionIds)));
+
+        // 连接关闭后注销
+        connections.forEach(Disposable::dispose);
+        assertEquals(0, wheel.size());
+        assertEquals(0, wheel.beat());
+    }
+
+    @Test
+    public void concurrentHeartbeatsShouldNotDropResponses() throws Exception {
+        int responses = 20_000;
+        Sinks.Many<ServerSentEvent<String>> sink = Sinks.many().multicast().onBackpressureBuffer();
+        List<ServerSentEvent<String>> received = Collections.synchronizedList(new ArrayList<>());
+        Disposable connection = wheel.withHeartbeats("s1", sink.asFlux().onBackpressureBuffer(1000))
+                .subscribe(received::add);
+
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicInteger beats = new AtomicInteger();
+        Thread ticker = new Thread(() -> {
+            while (!done.get()) {
+                wheel.beat();
+                beats.incrementAndGet();
+            }
+        });
+        AtomicInteger failedEmits = new AtomicInteger();
+        CountDownLatch sent = new CountDownLatch(1);
+        Thread responder = new Thread(() -> {
+            for (int i = 0; i < responses; i++) {
+                ServerSentEvent<String> response = ServerSentEvent.<String>builder()
+                        .event("message").data("{\"id\":" + i + "}").build();
+                if (sink.tryEmitNext(response).isFailure()) {
+                    failedEmits.incrementAndGet();
+                }
+            }
+            sent.countDown();
+        });
+        ticker.start();
+        responder.start();
+        assertTrue(sent.await(30, TimeUnit.SECONDS));
+        done.set(true);
+        ticker.join();
+        connection.dispose();
+
+        long delivered;
+        synchronized (received) {
+            delivered = received.stream().filter(event -> "message".equals(event.event())).count();
+        }
+        assertTrue(beats.get() > 0);
+        assertEquals(0, failedEmits.get());
+        assertEquals(responses, delivered);
+    }
+}
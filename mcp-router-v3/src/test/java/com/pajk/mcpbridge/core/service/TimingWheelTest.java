@@ -0,0 +1,62 @@
+package com.pajk.mcpbridge.core.service;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 分层时间轮测试：跨层下沉后按到期时间触发，不早于到期时间，且在到期所在的 tick 触发
+ */
+public class TimingWheelTest {
+
+    @Test
+    public void entriesShouldFireWithinOneTickOfTheirDeadline() {
+        long start = 1_000_000L;
+        TimingWheel wheel = new TimingWheel(10, 8, 2, start);
+        Random random = new Random(42);
+        long[] deadlines = new long[500];
+        for (int i = 0; i < deadlines.length; i++) {
+            // 覆盖第 0 层、第 1 层以及超出两层范围的到期时间
+            deadlines[i] = start + random.nextInt(2_000);
+            wheel.schedule(Integer.toString(i), deadlines[i]);
+        }
+        assertEquals(deadlines.length, wheel.size());
+
+        List<String> fired = new ArrayList<>();
+        for (long now = start; now <= start + 2_100; now += 10) {
+            for (String key : wheel.advance(now)) {
+                long deadline = deadlines[Integer.parseInt(key)];
+                assertTrue("fired early: " + key, now >= deadline);
+                assertTrue("fired late: " + key, now - deadline < 10);
+                fired.add(key);
+            }
+        }
+        assertEquals(deadlines.length, fired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void cascadedEntryShouldFireOnItsDeadlineTick() {
+        // 第 1 层每格 8 个 tick：到期 tick 16 的条目在 tick 16 下沉，应在同一 tick 触发
+        TimingWheel wheel = new TimingWheel(10, 8, 2, 0);
+        wheel.schedule("boundary", 160);
+
+        assertTrue(wheel.advance(150).isEmpty());
+        assertEquals(List.of("boundary"), wheel.advance(160));
+    }
+
+    @Test
+    public void overdueEntryShouldFireOnNextTick() {
+        TimingWheel wheel = new TimingWheel(10, 8, 2, 0);
+        wheel.advance(100);
+        wheel.schedule("late", 50);
+
+        assertTrue(wheel.advance(105).isEmpty());
+        assertEquals(List.of("late"), wheel.advance(110));
+    }
+}
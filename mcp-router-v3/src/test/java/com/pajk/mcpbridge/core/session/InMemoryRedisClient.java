@@ -0,0 +1,352 @@
+package com.pajk.mcpbridge.core.session;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * 内存版 RedisClient 桩：统计网络往返次数（每次方法调用或每个管道为一次）与命令数
+ */
+class InMemoryRedisClient implements RedisClient {
+
+    private final Map<String, Map<String, String>> hashes = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> sets = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Double>> sortedSets = new ConcurrentHashMap<>();
+    private final Map<String, String> strings = new ConcurrentHashMap<>();
+    private final Map<String, Long> ttls = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<String>>> subscribers = new ConcurrentHashMap<>();
+    private final List<String> publishedChannels = new CopyOnWriteArrayList<>();
+
+    private int roundTrips;
+    private int commands;
+
+    int getRoundTrips() {
+        return roundTrips;
+    }
+
+    int getCommands() {
+        return commands;
+    }
+
+    void resetCounters() {
+        roundTrips = 0;
+        commands = 0;
+    }
+
+    /**
+     * 按发布顺序记录的 PUBLISH 目标频道
+     */
+    List<String> getPublishedChannels() {
+        return publishedChannels;
+    }
+
+    Long ttlOf(String key) {
+        return ttls.get(key);
+    }
+
+    /**
+     * 模拟会话键因 TTL 到期被 Redis 删除（不经过客户端，不计往返）
+     */
+    void expireNow(String key) {
+        doDel(key);
+    }
+
+    private synchronized void roundTrip(int commandCount) {
+        roundTrips++;
+        commands += commandCount;
+    }
+
+    @Override
+    public void hset(String key, String field, String value) {
+        roundTrip(1);
+        doHset(key, field, value);
+    }
+
+    @Override
+    public void hsetAll(String key, Map<String, String> hash) {
+        roundTrip(1);
+        hash.forEach((field, value) -> doHset(key, field, value));
+    }
+
+    @Override
+    public Map<String, String> hgetAll(String key) {
+        roundTrip(1);
+        return new HashMap<>(hashes.getOrDefault(key, Map.of()));
+    }
+
+    @Override
+    public void expire(String key, long seconds) {
+        roundTrip(1);
+        ttls.put(key, seconds);
+    }
+
+    @Override
+    public void sadd(String key, String... members) {
+        roundTrip(1);
+        sets.computeIfAbsent(key, k -> new HashSet<>()).addAll(Arrays.asList(members));
+    }
+
+    @Override
+    public void srem(String key, String... members) {
+        roundTrip(1);
+        doSrem(key, members);
+    }
+
+    @Override
+    public void del(String key) {
+        roundTrip(1);
+        doDel(key);
+    }
+
+    @Override
+    public Set<String> keys(String pattern) {
+        roundTrip(1);
+        return new HashSet<>(matchingKeys(pattern));
+    }
+
+    @Override
+    public ScanPage scan(String cursor, String pattern, int count) {
+        roundTrip(1);
+        // 游标为按键名排序后的位置，每页最多 count 个候选键
+        List<String> all = new ArrayList<>(allKeys());
+        all.sort(Comparator.naturalOrder());
+        int start = Integer.parseInt(cursor);
+        int end = Math.min(start + count, all.size());
+        List<String> matching = matchingKeys(pattern);
+        List<String> page = new ArrayList<>();
+        for (String key : all.subList(start, end)) {
+            if (matching.contains(key)) {
+                page.add(key);
+            }
+        }
+        return new ScanPage(end >= all.size() ? ScanPage.START : String.valueOf(end), page);
+    }
+
+    @Override
+    public String type(String key) {
+        roundTrip(1);
+        if (hashes.containsKey(key)) {
+            return "hash";
+        }
+        if (sortedSets.containsKey(key)) {
+            return "zset";
+        }
+        if (strings.containsKey(key)) {
+            return "string";
+        }
+        return sets.containsKey(key) ? "set" : "none";
+    }
+
+    @Override
+    public Set<String> smembers(String key) {
+        roundTrip(1);
+        return new HashSet<>(sets.getOrDefault(key, Set.of()));
+    }
+
+    @Override
+    public List<String> zrevrange(String key, long start, long stop) {
+        roundTrip(1);
+        List<String> members = new ArrayList<>(sortedSets.getOrDefault(key, Map.of()).keySet());
+        Map<String, Double> scores = sortedSets.getOrDefault(key, Map.of());
+        members.sort(Comparator.comparing(scores::get, Comparator.reverseOrder()));
+        if (start >= members.size()) {
+            return List.of();
+        }
+        return new ArrayList<>(members.subList((int) start, (int) Math.min(stop + 1, members.size())));
+    }
+
+    @Override
+    public List<String> zrangeByScore(String key, double min, double max) {
+        roundTrip(1);
+        List<String> result = new ArrayList<>();
+        sortedSets.getOrDefault(key, Map.of()).forEach((member, score) -> {
+            if (score >= min && score <= max) {
+                result.add(member);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public long zcard(String key) {
+        roundTrip(1);
+        return sortedSets.getOrDefault(key, Map.of()).size();
+    }
+
+    @Override
+    public String get(String key) {
+        roundTrip(1);
+        return strings.get(key);
+    }
+
+    @Override
+    public List<String> mget(List<String> keys) {
+        roundTrip(keys.size());
+        List<String> result = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            result.add(strings.get(key));
+        }
+        return result;
+    }
+
+    @Override
+    public void hsetAllAndExpire(String key, Map<String, String> hash, long seconds) {
+        roundTrip(2);
+        hash.forEach((field, value) -> doHset(key, field, value));
+        ttls.put(key, seconds);
+    }
+
+    @Override
+    public List<Map<String, String>> hgetAllMulti(List<String> keys) {
+        roundTrip(keys.size());
+        List<Map<String, String>> result = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            result.add(new HashMap<>(hashes.getOrDefault(key, Map.of())));
+        }
+        return result;
+    }
+
+    @Override
+    public void pipelined(Consumer<RedisPipeline> writes) {
+        int[] queued = {0};
+        writes.accept(new RedisPipeline() {
+            @Override
+            public void hset(String key, String field, String value) {
+                queued[0]++;
+                doHset(key, field, value);
+            }
+
+            @Override
+            public void hsetAll(String key, Map<String, String> hash) {
+                queued[0]++;
+                hash.forEach((field, value) -> doHset(key, field, value));
+            }
+
+            @Override
+            public void expire(String key, long seconds) {
+                queued[0]++;
+                ttls.put(key, seconds);
+            }
+
+            @Override
+            public void sadd(String key, String... members) {
+                queued[0]++;
+                sets.computeIfAbsent(key, k -> new HashSet<>()).addAll(Arrays.asList(members));
+            }
+
+            @Override
+            public void srem(String key, String... members) {
+                queued[0]++;
+                doSrem(key, members);
+            }
+
+            @Override
+            public void del(String key) {
+                queued[0]++;
+                doDel(key);
+            }
+
+            @Override
+            public void zadd(String key, double score, String member) {
+                queued[0]++;
+                sortedSets.computeIfAbsent(key, k -> new HashMap<>()).put(member, score);
+            }
+
+            @Override
+            public void setex(String key, long seconds, String value) {
+                queued[0]++;
+                strings.put(key, value);
+                ttls.put(key, seconds);
+            }
+
+            @Override
+            public void incrBy(String key, long delta) {
+                queued[0]++;
+                strings.merge(key, Long.toString(delta), (old, d) -> Long.toString(Long.parseLong(old) + Long.parseLong(d)));
+            }
+
+            @Override
+            public void zrem(String key, String... members) {
+                queued[0]++;
+                Map<String, Double> zset = sortedSets.get(key);
+                if (zset != null) {
+                    Arrays.asList(members).forEach(zset::remove);
+                    if (zset.isEmpty()) {
+                        sortedSets.remove(key);
+                    }
+                }
+            }
+        });
+        roundTrip(queued[0]);
+    }
+
+    @Override
+    public long publish(String channel, String message) {
+        roundTrip(1);
+        publishedChannels.add(channel);
+        List<Consumer<String>> listeners = subscribers.getOrDefault(channel, List.of());
+        listeners.forEach(listener -> listener.accept(message));
+        return listeners.size();
+    }
+
+    @Override
+    public Subscription subscribe(String channel, Consumer<String> listener) {
+        subscribers.computeIfAbsent(channel, k -> new CopyOnWriteArrayList<>()).add(listener);
+        return () -> subscribers.getOrDefault(channel, new ArrayList<>()).remove(listener);
+    }
+
+    @Override
+    public <T> T execute(RedisOperation<T> operation) {
+        return operation.execute(this);
+    }
+
+    private Set<String> allKeys() {
+        Set<String> keys = new HashSet<>(hashes.keySet());
+        keys.addAll(sets.keySet());
+        keys.addAll(sortedSets.keySet());
+        keys.addAll(strings.keySet());
+        return keys;
+    }
+
+    private List<String> matchingKeys(String pattern) {
+        Pattern regex = Pattern.compile(Pattern.quote(pattern).replace("*", "\\E.*\\Q"));
+        List<String> result = new ArrayList<>();
+        for (String key : allKeys()) {
+            if (regex.matcher(key).matches()) {
+                result.add(key);
+            }
+        }
+        return result;
+    }
+
+    private void doHset(String key, String field, String value) {
+        hashes.computeIfAbsent(key, k -> new HashMap<>()).put(field, value);
+    }
+
+    private void doSrem(String key, String... members) {
+        Set<String> set = sets.get(key);
+        if (set != null) {
+            set.removeAll(Arrays.asList(members));
+            if (set.isEmpty()) {
+                sets.remove(key);
+            }
+        }
+    }
+
+    private void doDel(String key) {
+        hashes.remove(key);
+        sets.remove(key);
+        sortedSets.remove(key);
+        strings.remove(key);
+        ttls.remove(key);
+    }
+}
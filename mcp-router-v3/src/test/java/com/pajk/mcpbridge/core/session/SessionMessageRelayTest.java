@@ -0,0 +1,116 @@
+package com.pajk.mcpbridge.core.session;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pajk.mcpbridge.core.config.McpSessionProperties;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 跨实例转发测试：事件攒批后发布到所属实例的频道并按序投递，队列满时拒绝新事件，无订阅者时计为丢失并回收队列
+ */
+public class SessionMessageRelayTest {
+
+    private final InMemoryRedisClient redisClient = new InMemoryRedisClient();
+    private final List<SessionMessageRelay> relays = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        relays.forEach(SessionMessageRelay::stop);
+    }
+
+    @Test
+    public void eventsShouldBeBatchedToOwnerInstanceInOrder() throws Exception {
+        SessionMessageRelay sender = newRelay("router-1", 1024);
+        SessionMessageRelay owner = newRelay("router-2", 1024);
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(200);
+        owner.setInboundHandler((sessionId, event) -> {
+            delivered.add(sessionId + ":" + event.event() + ":" + event.data());
+            done.countDown();
+        });
+
+        SseEventSender sink = sender.relaySender("s1", "router-2");
+        for (int i = 0; i < 200; i++) {
+            Sinks.EmitResult result = sink.deliver(
+                    ServerSentEvent.<String>builder().event("message").data("{\"id\":" + i + "}").build());
+            assertEquals(Sinks.EmitResult.OK, result);
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 200; i++) {
+            assertEquals("s1:message:{\"id\":" + i + "}", delivered.get(i));
+        }
+        // 每批一次 PUBLISH，远少于事件数
+        List<String> channels = redisClient.getPublishedChannels();
+        assertTrue("batches=" + channels.size(), channels.size() < 200);
+        assertTrue(channels.stream().allMatch("mcp:relay:router-2"::equals));
+    }
+
+    @Test
+    public void fullQueueShouldRejectEvents() throws Exception {
+        SessionMessageRelay sender = newRelay("router-1", 8);
+        SessionMessageRelay owner = newRelay("router-2", 8);
+        CountDownLatch release = new CountDownLatch(1);
+        // 所属实例处理阻塞，发送方的发布线程随之阻塞，积压留在有界队列中
+        owner.setInboundHandler((sessionId, event) -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        SseEventSender sink = sender.relaySender("s1", "router-2");
+        int rejected = 0;
+        for (int i = 0; i < 1000; i++) {
+            Sinks.EmitResult result = sink.deliver(ServerSentEvent.<String>builder().data("x").build());
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                rejected++;
+            }
+        }
+        release.countDown();
+
+        assertTrue("rejected=" + rejected, rejected > 0);
+        assertEquals((long) rejected, sender.getStats().get("rejected_events"));
+    }
+
+    @Test
+    public void batchWithoutSubscriberShouldBeCountedLostAndRetireQueue() throws Exception {
+        SessionMessageRelay sender = newRelay("router-1", 1024);
+        SseEventSender sink = sender.relaySender("s1", "router-gone");
+
+        assertEquals(Sinks.EmitResult.OK, sink.deliver(ServerSentEvent.<String>builder().data("x").build()));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((long) sender.getStats().get("lost_events") == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1L, sender.getStats().get("lost_events"));
+        assertEquals(0L, sender.getStats().get("published_batches"));
+        // 目标实例无订阅者，转发队列已回收
+        assertEquals(0, sender.getStats().get("target_instances"));
+    }
+
+    private SessionMessageRelay newRelay(String instanceId, int queueCapacity) {
+        McpSessionProperties properties = new McpSessionProperties();
+        properties.setInstanceId(instanceId);
+        properties.setRelayEnabled(true);
+        properties.setRelayQueueCapacity(queueCapacity);
+        SessionMessageRelay relay = new SessionMessageRelay(redisClient, properties,
+                new SessionInstanceIdProvider(properties), new ObjectMapper());
+        relay.start();
+        relays.add(relay);
+        return relay;
+    }
+}
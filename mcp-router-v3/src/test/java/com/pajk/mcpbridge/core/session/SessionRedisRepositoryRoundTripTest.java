@@ -0,0 +1,190 @@
+package com.pajk.mcpbridge.core.session;
+
+import com.pajk.mcpbridge.core.config.McpSessionProperties;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 会话生命周期的 Redis 往返次数基准：管道化前每条命令一次往返（commands），管道化后见 roundTrips；
+ * 以及 SCAN 游标遍历、活跃索引分页/过期清理与实例心跳存活判断
+ */
+public class SessionRedisRepositoryRoundTripTest {
+
+    private final AtomicLong now = new AtomicLong(System.currentTimeMillis());
+    private InMemoryRedisClient redisClient;
+    private SessionRedisRepository repository;
+
+    @Before
+    public void setUp() {
+        redisClient = new InMemoryRedisClient();
+        repository = new SessionRedisRepository(redisClient, new McpSessionProperties(), now::get);
+    }
+
+    @Test
+    public void sessionLifecycleShouldUseFewRoundTrips() {
+        repository.saveSessionMeta(meta("s1"));
+        int save = redisClient.getRoundTrips();
+        assertEquals(1, save);
+        assertEquals(8, redisClient.getCommands());
+
+        redisClient.resetCounters();
+        repository.updateLastActive("s1");
+        repository.updateBackendSessionId("s1", "backend-1");
+        assertEquals(2, redisClient.getRoundTrips());
+        assertEquals(1800L, (long) redisClient.ttlOf("mcp:sessions:s1"));
+
+        redisClient.resetCounters();
+        Optional<SessionMeta> found = repository.findSession("s1");
+        assertTrue(found.isPresent());
+        assertEquals("backend-1", found.get().getBackendSessionId());
+
+        redisClient.resetCounters();
+        repository.removeSession("s1", "router-1");
+        assertEquals(1, redisClient.getRoundTrips());
+        assertEquals(4, redisClient.getCommands());
+        assertTrue(repository.findSessionIdsByInstance("router-1").isEmpty());
+        assertFalse(repository.findSession("s1").isPresent());
+    }
+
+    @Test
+    public void findAllSessionsShouldNotScaleRoundTripsWithSessionCount() {
+        int sessionCount = 50;
+        for (int i = 0; i < sessionCount; i++) {
+            repository.saveSessionMeta(meta("s" + i));
+        }
+
+        redisClient.resetCounters();
+        List<SessionMeta> sessions = repository.findAllSessions();
+        assertEquals(sessionCount, sessions.size());
+        System.out.printf("findAllSessions(%d sessions): roundTrips=%d, commands=%d%n",
+                sessionCount, redisClient.getRoundTrips(), redisClient.getCommands());
+        // 一页 SCAN + 一次批量读取
+        assertEquals(2, redisClient.getRoundTrips());
+    }
+
+    @Test
+    public void findAllSessionsShouldFollowScanCursorAcrossPages() {
+        for (int i = 0; i < 1200; i++) {
+            repository.saveSessionMeta(meta("s" + i));
+        }
+        redisClient.resetCounters();
+
+        RedisClient.ScanPage first = repository.scanSessionKeys(RedisClient.ScanPage.START, 500);
+        assertFalse(first.isFinished());
+        assertEquals(1200, repository.findAllSessions().size());
+    }
+
+    @Test
+    public void activeIndexShouldPageNewestFirstAndBePrunedOnHeartbeat() {
+        LocalDateTime base = LocalDateTime.now().minusMinutes(40);
+        for (int i = 0; i < 5; i++) {
+            SessionMeta meta = meta("s" + i);
+            meta.setLastActive(base.plusMinutes(i));
+            repository.saveSessionMeta(meta);
+        }
+        // s4 仍活跃，s0-s3 的会话键已过期
+        repository.updateLastActive("s4", "router-1", LocalDateTime.now());
+        for (int i = 0; i < 4; i++) {
+            redisClient.expireNow("mcp:sessions:s" + i);
+        }
+        assertEquals(5, repository.countSessions("router-1"));
+
+        List<SessionMeta> page = repository.findSessionPage("router-1", 0, 2);
+        assertEquals(1, page.size());
+        assertEquals("s4", page.get(0).getSessionId());
+
+        repository.publishHeartbeat("router-1", 1);
+        assertEquals(1, repository.countSessions("router-1"));
+    }
+
+    @Test
+    public void instanceLivenessShouldFollowHeartbeatAndCounter() {
+        repository.saveSessionMeta(meta("s1"));
+        SessionMeta other = meta("s2");
+        other.setInstanceId("router-2");
+        repository.saveSessionMeta(other);
+        repository.publishHeartbeat("router-1", 1);
+        repository.publishHeartbeat("router-2", 1);
+        assertEquals(Set.of("router-1", "router-2"), repository.findAllInstances());
+
+        // 会话删除后计数归零，实例不再列出；重复删除的负计数按 0 处理
+        repository.removeSession("s1", "router-1");
+        repository.removeSession("s1", "router-1");
+        assertEquals(Set.of("router-2"), repository.findAllInstances());
+
+        // router-2 心跳过期：清理开销与会话数无关，且受限频保护
+        redisClient.expireNow("mcp:instance:router-2:heartbeat");
+        redisClient.resetCounters();
+        assertEquals(1, repository.cleanupEmptyInstances());
+        assertEquals(3, redisClient.getRoundTrips());
+        assertTrue(repository.findAllInstances().isEmpty());
+
+        redisClient.expireNow("mcp:instance:router-1:heartbeat");
+        assertEquals(0, repository.cleanupEmptyInstances());
+        now.addAndGet(SessionRedisRepository.CLEANUP_MIN_INTERVAL_MS);
+        assertEquals(1, repository.cleanupEmptyInstances());
+    }
+
+    @Test
+    public void batchedLastActiveShouldUseOneRoundTripPerPipelineChunk() {
+        int sessionCount = SessionRedisRepository.LAST_ACTIVE_PIPELINE_SIZE + 200;
+        List<SessionRedisRepository.LastActiveUpdate> updates = new java.util.ArrayList<>(sessionCount);
+        LocalDateTime lastActive = LocalDateTime.now();
+        for (int i = 0; i < sessionCount; i++) {
+            updates.add(new SessionRedisRepository.LastActiveUpdate("s" + i, i % 2 == 0 ? "router-1" : null, lastActive));
+        }
+
+        redisClient.resetCounters();
+        repository.updateLastActive(updates);
+        System.out.printf("updateLastActive(%d sessions): roundTrips=%d, commands=%d%n",
+                sessionCount, redisClient.getRoundTrips(), redisClient.getCommands());
+        assertEquals(2, redisClient.getRoundTrips());
+        assertEquals(1800L, (long) redisClient.ttlOf("mcp:sessions:s1"));
+        assertEquals(sessionCount / 2, repository.countSessions("router-1"));
+    }
+
+    @Test
+    public void clientWithoutSortedSetsOrScanShouldSaveSessionsAndFallBackToEmptyResults() {
+        InMemoryRedisClient plainClient = new InMemoryRedisClient() {
+            @Override
+            public boolean supportsSortedSets() {
+                return false;
+            }
+
+            @Override
+            public boolean supportsScan() {
+                return false;
+            }
+        };
+        SessionRedisRepository plainRepository = new SessionRedisRepository(plainClient, new McpSessionProperties(), now::get);
+
+        plainRepository.saveSessionMeta(meta("s1"));
+        plainRepository.updateLastActive("s1", "router-1", LocalDateTime.now());
+        plainRepository.publishHeartbeat("router-1", 1);
+        assertTrue(plainRepository.findSession("s1").isPresent());
+        assertEquals(Set.of("router-1"), plainRepository.findAllInstances());
+        assertEquals(0L, plainClient.zcard("mcp:instance:router-1:active"));
+
+        // 没有活跃索引或 SCAN 时查询降级为空结果，不向调用方抛错
+        assertTrue(plainRepository.findSessionPage("router-1", 0, 10).isEmpty());
+        assertEquals(0L, plainRepository.countSessions("router-1"));
+        assertTrue(plainRepository.findAllSessions().isEmpty());
+
+        plainRepository.removeSession("s1", "router-1");
+        assertFalse(plainRepository.findSession("s1").isPresent());
+    }
+
+    private static SessionMeta meta(String sessionId) {
+        return new SessionMeta(sessionId, "router-1", "mcp-server-v6", null, "SSE", LocalDateTime.now(), true);
+    }
+}
@@ -0,0 +1,93 @@
+package com.pajk.mcpbridge.core.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pajk.mcpbridge.core.model.McpMessage;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 批量分发测试：并发上限、按完成顺序发出响应、无效元素与通知的处理
+ */
+public class McpBatchDispatcherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void responsesShouldBeEmittedInCompletionOrderWithinConcurrencyLimit() {
+        McpBatchDispatcher dispatcher = new McpBatchDispatcher(objectMapper, 2);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        // 第一个元素最慢，其余元素不需要等它
+        List<McpMessage> batch = List.of(request("1", 300), request("2", 20), request("3", 20), request("4", 20));
+
+        List<String> responses = dispatcher.dispatch(batch, message -> Mono.defer(() -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    long delay = ((Number) ((Map<?, ?>) message.getParams()).get("delay")).longValue();
+                    return Mono.delay(Duration.ofMillis(delay))
+                            .map(tick -> "{\"id\":\"" + message.getId() + "\"}")
+                            .doOnTerminate(inFlight::decrementAndGet);
+                }))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(2, maxInFlight.get());
+        assertEquals(4, responses.size());
+        assertEquals("{\"id\":\"1\"}", responses.get(responses.size() - 1));
+    }
+
+    @Test
+    public void invalidElementsAndNotificationsShouldBeHandledPerSpec() throws Exception {
+        McpBatchDispatcher dispatcher = new McpBatchDispatcher(objectMapper, 4);
+        McpMessage failing = request("bad", 0);
+        McpMessage notification = new McpMessage();
+        notification.setJsonrpc("2.0");
+        notification.setMethod("notifications/initialized");
+        McpMessage idless = new McpMessage();
+        idless.setJsonrpc("2.0");
+        idless.setMethod("tools/list");
+        List<McpMessage> batch = new ArrayList<>(Arrays.asList(null, failing, notification, idless));
+        List<String> handled = new ArrayList<>();
+
+        List<String> responses = dispatcher.dispatch(batch, message -> {
+                    handled.add(message.getMethod());
+                    if (message == failing) {
+                        return Mono.error(new IllegalStateException("boom"));
+                    }
+                    return Mono.just("{}");
+                })
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        // 无 id 的请求照常执行，notifications/* 直接忽略
+        assertEquals(List.of("tools/call", "tools/list"), handled);
+        assertEquals(2, responses.size());
+        Map<?, ?> invalid = objectMapper.readValue(responses.get(0), Map.class);
+        assertEquals(-32600, ((Map<?, ?>) invalid.get("error")).get("code"));
+        assertTrue(invalid.containsKey("id") && invalid.get("id") == null);
+        Map<?, ?> failed = objectMapper.readValue(responses.get(1), Map.class);
+        assertEquals("bad", failed.get("id"));
+        assertEquals("boom", ((Map<?, ?>) failed.get("error")).get("message"));
+
+        String array = McpBatchDispatcher.toJsonArray(responses);
+        assertEquals(2, objectMapper.readValue(array, List.class).size());
+    }
+
+    private McpMessage request(String id, long delayMillis) {
+        McpMessage message = new McpMessage();
+        message.setJsonrpc("2.0");
+        message.setId(id);
+        message.setMethod("tools/call");
+        message.setParams(Map.of("delay", delayMillis));
+        return message;
+    }
+}
@@ -0,0 +1,182 @@
+package com.pajk.mcpbridge.core.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pajk.mcpbridge.core.model.McpMessage;
+import org.junit.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 流式解析测试：任意分片边界下结果与整体解析一致，保留 params 原始字节，异常请求体返回错误
+ */
+public class McpMessageReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final McpMessageReader reader = new McpMessageReader(objectMapper);
+
+    @Test
+    public void shouldParseAcrossAnyChunkBoundary() throws Exception {
+        String params = "{\"name\":\"getPersonById\",\"arguments\":{\"id\":5,\"note\":\"中文 \\\"quoted\\\"\",\"tags\":[1,2.5,true,null]}}";
+        String body = "{\"jsonrpc\":\"2.0\",\"id\":\"7\",\"method\":\"tools/call\",\"params\": " + params + " ,\"metadata\":{\"k\":\"v\"}}";
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        McpMessage expected = objectMapper.readValue(body, McpMessage.class);
+
+        for (int chunkSize = 1; chunkSize <= bytes.length; chunkSize += 3) {
+            McpMessageReader.Result result = reader.read(chunks(bytes, chunkSize)).block();
+            assertNotNull(result);
+            assertNull(result.error());
+            McpMessage message = result.message();
+            assertEquals(expected.getId(), message.getId());
+            assertEquals(expected.getMethod(), message.getMethod());
+            assertEquals(expected.getParams(), message.getParams());
+            assertEquals(expected.getMetadata(), message.getMetadata());
+            assertEquals(bytes.length, result.bodyBytes());
+            assertArrayEquals("chunkSize=" + chunkSize, params.getBytes(StandardCharsets.UTF_8), message.getRawParams());
+        }
+    }
+
+    @Test
+    public void malformedOrEmptyBodiesShouldBeReported() {
+        assertTrue(reader.read(Flux.empty()).block().isEmpty());
+        assertTrue(reader.read(chunks("  ".getBytes(StandardCharsets.UTF_8), 1)).block().isEmpty());
+        assertNotNull(reader.read(chunks("{\"id\":1,".getBytes(StandardCharsets.UTF_8), 3)).block().error());
+        assertNotNull(reader.read(chunks("{\"id\":1}}".getBytes(StandardCharsets.UTF_8), 3)).block().error());
+        assertNotNull(reader.read(chunks("[{\"id\":1}".getBytes(StandardCharsets.UTF_8), 3)).block().error());
+        assertNotNull(reader.read(chunks("\"text\"".getBytes(StandardCharsets.UTF_8), 3)).block().error());
+
+        byte[] huge = new byte[McpMessageReader.DEFAULT_MAX_MESSAGE_BYTES + 1];
+        java.util.Arrays.fill(huge, (byte) ' ');
+        assertNotNull(reader.read(chunks(huge, 64 * 1024)).block().error());
+    }
+
+    @Test
+    public void configuredLimitShouldApply() {
+        McpMessageReader smallReader = new McpMessageReader(objectMapper, 64);
+        byte[] small = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"ping\"}".getBytes(StandardCharsets.UTF_8);
+        assertNull(smallReader.read(chunks(small, 16)).block().error());
+
+        byte[] large = new byte[65];
+        java.util.Arrays.fill(large, (byte) ' ');
+        assertNotNull(smallReader.read(chunks(large, 16)).block().error());
+    }
+
+    @Test
+    public void batchElementsShouldBeBoundIndividually() {
+        String body = "[{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/list\",\"params\":{}},"
+                + " 42, {\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}]";
+        for (int chunkSize = 1; chunkSize <= body.length(); chunkSize += 7) {
+            McpMessageReader.Result result = reader.read(chunks(body.getBytes(StandardCharsets.UTF_8), chunkSize)).block();
+            assertNull(result.error());
+            assertTrue(result.isBatch());
+            List<McpMessage> batch = result.batch();
+            assertEquals(3, batch.size());
+            assertEquals("tools/list", batch.get(0).getMethod());
+            // 批量元素不保留原始 params 字节
+            assertNull(batch.get(0).getRawParams());
+            assertNull(batch.get(1));
+            assertNull(batch.get(2).getId());
+        }
+        assertTrue(reader.read(chunks("[]".getBytes(StandardCharsets.UTF_8), 1)).block().batch().isEmpty());
+    }
+
+    /**
+     * 1KB / 64KB / 1MB tools/call 请求体：与旧路径（拼成 String、readValue、再序列化 params）结果一致，并输出耗时对比
+     */
+    @Test
+    public void streamingPathShouldMatchStringPathForToolCallBodies() throws Exception {
+        // 基准请求体最大 1MB，按 4MB 上限配置
+        McpMessageReader largeReader = new McpMessageReader(objectMapper, 4 * 1024 * 1024);
+        for (int size : new int[]{1024, 64 * 1024, 1024 * 1024}) {
+            byte[] bytes = toolCallBody(size);
+            McpMessage viaString = stringPath(bytes);
+            McpMessageReader.Result viaStream = largeReader.read(chunks(bytes, 8192)).block();
+            assertEquals(viaString.getParams(), viaStream.message().getParams());
+            assertEquals(viaString.getParams(),
+                    objectMapper.readValue(viaStream.message().getRawParams(), Map.class));
+
+            // 请求体按 8KB 分片到达（与 Netty 接收缓冲区相当），分片预先切好，不计入耗时
+            List<byte[]> parts = split(bytes, 8192);
+            int iterations = Math.max(20, (16 * 1024 * 1024) / size);
+            long stringNanos = time(iterations, () -> stringPath(join(parts)));
+            long streamNanos = time(iterations, () -> largeReader.read(wrap(parts)).block());
+            System.out.printf("tools/call %7d bytes: string path %8.1f us/op, streaming path %8.1f us/op%n",
+                    bytes.length, stringNanos / 1000.0 / iterations, streamNanos / 1000.0 / iterations);
+        }
+    }
+
+    private McpMessage stringPath(byte[] bytes) throws Exception {
+        String body = new String(bytes, StandardCharsets.UTF_8);
+        McpMessage message = objectMapper.readValue(body, McpMessage.class);
+        // 旧路径中路由日志会把 params 序列化回 JSON
+        objectMapper.writeValueAsString(message.getParams());
+        return message;
+    }
+
+    private long time(int iterations, ThrowingRunnable action) throws Exception {
+        for (int i = 0; i < iterations; i++) {
+            action.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            action.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private byte[] toolCallBody(int targetSize) {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < targetSize - 120) {
+            text.append("lorem ipsum 数据 ");
+        }
+        String body = "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"tools/call\",\"params\":{\"name\":\"echo\","
+                + "\"arguments\":{\"text\":\"" + text + "\",\"count\":3}}}";
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Flux<DataBuffer> chunks(byte[] bytes, int chunkSize) {
+        return wrap(split(bytes, chunkSize));
+    }
+
+    private List<byte[]> split(byte[] bytes, int chunkSize) {
+        List<byte[]> parts = new ArrayList<>();
+        for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+            parts.add(java.util.Arrays.copyOfRange(bytes, offset, Math.min(bytes.length, offset + chunkSize)));
+        }
+        return parts;
+    }
+
+    private Flux<DataBuffer> wrap(List<byte[]> parts) {
+        return Flux.fromIterable(parts).map(DefaultDataBufferFactory.sharedInstance::wrap);
+    }
+
+    /**
+     * 旧路径先把分片拼接成完整请求体
+     */
+    private byte[] join(List<byte[]> parts) {
+        int length = parts.stream().mapToInt(part -> part.length).sum();
+        byte[] joined = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, joined, offset, part.length);
+            offset += part.length;
+        }
+        return joined;
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
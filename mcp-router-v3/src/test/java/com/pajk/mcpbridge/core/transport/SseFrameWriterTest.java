@@ -0,0 +1,166 @@
+package com.pajk.mcpbridge.core.transport;
+
+import com.pajk.mcpbridge.core.config.McpSessionProperties;
+import org.junit.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.codec.ServerSentEventHttpMessageWriter;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 帧写出器测试：编码结果（含 data-only 模式）与 Spring SSE 编码器一致，窗口内的帧合并为一次写出，慢客户端按背压暂停而不溢出，预编码帧不重复编码
+ */
+public class SseFrameWriterTest {
+
+    @Test
+    public void encodingShouldMatchSpringSseWriter() {
+        List<ServerSentEvent<String>> events = List.of(
+                ServerSentEvent.<String>builder().event("endpoint").data("/mcp/message?sessionId=s1").build(),
+                ServerSentEvent.<String>builder().id("7").event("message").data("{\"jsonrpc\":\"2.0\",\"note\":\"中文\"}").build(),
+                ServerSentEvent.<String>builder().comment("heartbeat").build(),
+                ServerSentEvent.<String>builder().retry(Duration.ofSeconds(3)).data("line1\nline2\n").build()
+        );
+
+        MockServerHttpResponse expected = new MockServerHttpResponse();
+        new ServerSentEventHttpMessageWriter().write(Flux.fromIterable(events),
+                ResolvableType.forClassWithGenerics(ServerSentEvent.class, String.class),
+                MediaType.TEXT_EVENT_STREAM, expected, Collections.emptyMap()).block();
+
+        MockServerHttpResponse actual = new MockServerHttpResponse();
+        writer(Duration.ZERO, 64).events(Flux.fromIterable(events)).insert(actual, null).block();
+
+        assertEquals(expected.getBodyAsString().block(), actual.getBodyAsString().block());
+    }
+
+    @Test
+    public void dataOnlyShouldMatchSpringSseWriterForData() {
+        ServerSentEvent<String> heartbeat = ServerSentEvent.<String>builder().comment("heartbeat").build();
+        List<ServerSentEvent<String>> events = List.of(
+                ServerSentEvent.<String>builder().id("1").event("connected").data("{\"sessionId\":\"s1\"}").build(),
+                heartbeat,
+                ServerSentEvent.<String>builder().event("message").data("line1\nline2").build()
+        );
+
+        MockServerHttpResponse expected = new MockServerHttpResponse();
+        new ServerSentEventHttpMessageWriter().write(
+                Flux.fromIterable(events).map(event -> event.data() == null ? "" : event.data()),
+                ResolvableType.forClass(String.class),
+                MediaType.TEXT_EVENT_STREAM, expected, Collections.emptyMap()).block();
+
+        SseFrameWriter writer = writer(Duration.ZERO, 64);
+        // 常驻帧在 data-only 模式下不使用完整事件的预编码字节
+        writer.pin(heartbeat);
+        MockServerHttpResponse actual = new MockServerHttpResponse();
+        writer.dataOnly(Flux.fromIterable(events)).insert(actual, null).block();
+
+        assertEquals(expected.getBodyAsString().block(), actual.getBodyAsString().block());
+        assertEquals("data:{\"sessionId\":\"s1\"}\n\ndata:\n\ndata:line1\ndata:line2\n\n", actual.getBodyAsString().block());
+    }
+
+    @Test
+    public void framesWithinFlushWindowShouldBeWrittenTogether() {
+        List<String> written = new ArrayList<>();
+        Function<Flux<DataBuffer>, Mono<Void>> recorder = body -> body.doOnNext(buffer -> {
+            written.add(buffer.toString(StandardCharsets.UTF_8));
+            DataBufferUtils.release(buffer);
+        }).then();
+        MockServerHttpResponse response = new MockServerHttpResponse();
+        response.setWriteHandler(recorder);
+
+        Flux<String> lines = Flux.just("a\n", "b\n", "c\n", "d\n", "e\n");
+        writer(Duration.ofSeconds(5), 3).lines(lines).insert(response, null).block();
+        assertEquals(List.of("a\nb\nc\n", "d\ne\n"), written);
+
+        written.clear();
+        MockServerHttpResponse perFrame = new MockServerHttpResponse();
+        perFrame.setWriteHandler(recorder);
+        writer(Duration.ZERO, 3).lines(lines).insert(perFrame, null).block();
+        assertEquals(5, written.size());
+    }
+
+    @Test
+    public void slowSubscriberShouldBackpressureInsteadOfOverflow() {
+        List<String> written = new ArrayList<>();
+        MockServerHttpResponse response = new MockServerHttpResponse();
+        // 慢客户端：逐个消费缓冲区，每个耗时数毫秒
+        response.setWriteHandler(body -> body.concatMap(buffer -> Mono.delay(Duration.ofMillis(5)).thenReturn(buffer), 1)
+                .doOnNext(buffer -> {
+                    written.add(buffer.toString(StandardCharsets.UTF_8));
+                    DataBufferUtils.release(buffer);
+                })
+                .then());
+
+        Flux<String> lines = Flux.range(0, 300).map(i -> i + "\n").delayElements(Duration.ofMillis(1));
+        writer(Duration.ofMillis(1), 4).lines(lines).insert(response, null).block(Duration.ofSeconds(30));
+
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            expected.append(i).append('\n');
+        }
+        assertEquals(expected.toString(), String.join("", written));
+    }
+
+    @Test
+    public void pinnedAndSharedFramesShouldBeEncodedOnce() {
+        SseFrameWriter writer = writer(Duration.ZERO, 64);
+        ServerSentEvent<String> heartbeat = ServerSentEvent.<String>builder().comment("heartbeat").build();
+        writer.pin(heartbeat);
+        ServerSentEvent<String> broadcast = writer.share(ServerSentEvent.<String>builder()
+                .event("notice").data("{\"message\":\"maintenance\"}").build());
+        ServerSentEvent<String> direct = ServerSentEvent.<String>builder().data("{}").build();
+
+        AtomicInteger encodeCalls = new AtomicInteger();
+        SseFrameWriter.FrameEncoder<ServerSentEvent<String>> counting = new SseFrameWriter.FrameEncoder<>() {
+            @Override
+            public int estimateSize(ServerSentEvent<String> frame) {
+                return 64;
+            }
+
+            @Override
+            public void encode(ServerSentEvent<String> frame, DataBuffer out) {
+                encodeCalls.incrementAndGet();
+                SseFrameWriter.encodeEvent(frame, out);
+            }
+        };
+
+        // 模拟多个会话各自写出同一批帧
+        for (int session = 0; session < 100; session++) {
+            DataBuffer buffer = writer.encodeBatch(List.of(heartbeat, broadcast, direct), counting,
+                    DefaultDataBufferFactory.sharedInstance);
+            assertEquals(":heartbeat\n\nevent:notice\ndata:{\"message\":\"maintenance\"}\n\ndata:{}\n\n",
+                    buffer.toString(StandardCharsets.UTF_8));
+        }
+        assertEquals(100, encodeCalls.get());
+
+        // 共享槽位被后续广播覆盖后退回逐会话编码，内容不变
+        for (int i = 0; i < SseFrameWriter.SHARED_SLOTS; i++) {
+            writer.share(ServerSentEvent.<String>builder().data(String.valueOf(i)).build());
+        }
+        DataBuffer evicted = writer.encodeBatch(List.of(broadcast), counting, DefaultDataBufferFactory.sharedInstance);
+        assertEquals("event:notice\ndata:{\"message\":\"maintenance\"}\n\n", evicted.toString(StandardCharsets.UTF_8));
+        assertEquals(101, encodeCalls.get());
+    }
+
+    private static SseFrameWriter writer(Duration flushInterval, int maxFrames) {
+        McpSessionProperties properties = new McpSessionProperties();
+        properties.setFrameFlushInterval(flushInterval);
+        properties.setFrameFlushMaxFrames(maxFrames);
+        return new SseFrameWriter(properties);
+    }
+}